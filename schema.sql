@@ -92,12 +92,48 @@ CREATE TABLE IF NOT EXISTS transaction (
     KEY idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='金额交易记录';
 
+-- 钱包复式分录（每笔一借一贷，idempotency_key 去重）
+CREATE TABLE IF NOT EXISTS wallet_posting (
+    posting_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '分录ID',
+    idempotency_key VARCHAR(191) NOT NULL COMMENT '幂等键',
+    type ENUM('BUY_IN', 'CASH_OUT', 'RAKE', 'INSURANCE_PREMIUM', 'INSURANCE_PAYOUT') NOT NULL COMMENT '分录类型',
+    debit_account VARCHAR(64) NOT NULL COMMENT '借方账户（player:{id} / table:{id} / house:rake / house:insurance）',
+    credit_account VARCHAR(64) NOT NULL COMMENT '贷方账户',
+    amount BIGINT NOT NULL COMMENT '金额（分为单位）',
+    created_at TIMESTAMP(3) NOT NULL COMMENT '记账时间',
+    UNIQUE KEY uk_idempotency_key (idempotency_key),
+    KEY idx_debit_account (debit_account),
+    KEY idx_credit_account (credit_account),
+    KEY idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='钱包分录';
+
+-- 非玩家账户余额（桌上筹码、抽水收入）；玩家余额在 player.total_balance
+CREATE TABLE IF NOT EXISTS wallet_account (
+    account VARCHAR(64) PRIMARY KEY COMMENT '账户',
+    balance BIGINT DEFAULT 0 NOT NULL COMMENT '余额（分为单位）',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='钱包账户';
+
+-- 抽水汇总（每桌每个刷盘窗口一行）
+CREATE TABLE IF NOT EXISTS rake_summary (
+    summary_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '汇总ID',
+    table_id BIGINT NOT NULL COMMENT '房间ID',
+    hands INT NOT NULL COMMENT '窗口内结束的手数',
+    raked_hands INT NOT NULL COMMENT '其中抽水的手数',
+    pot_total BIGINT NOT NULL COMMENT '底池合计（分为单位）',
+    rake BIGINT NOT NULL COMMENT '抽水合计（分为单位）',
+    window_start TIMESTAMP(3) NOT NULL COMMENT '窗口开始',
+    window_end TIMESTAMP(3) NOT NULL COMMENT '窗口结束',
+    KEY idx_table_window (table_id, window_end),
+    KEY idx_window_end (window_end)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='抽水汇总';
+
 -- 防作弊记录表
 CREATE TABLE IF NOT EXISTS anti_cheat_log (
     log_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '日志ID',
     player_id BIGINT COMMENT '玩家ID',
     ip_address VARCHAR(45) COMMENT 'IP地址',
-    check_type ENUM('IP_BLACKLIST', 'BEHAVIOR_ANALYSIS', 'GPS_ANOMALY', 'WIN_RATE') NOT NULL COMMENT '检测类型',
+    check_type ENUM('IP_BLACKLIST', 'BEHAVIOR_ANALYSIS', 'GPS_ANOMALY', 'WIN_RATE', 'COLLUSION') NOT NULL COMMENT '检测类型',
     result ENUM('PASSED', 'FLAGGED', 'BANNED') NOT NULL COMMENT '检查结果',
     details JSON COMMENT '详细信息（JSON）',
     action_taken VARCHAR(255) COMMENT '采取的措施',
@@ -108,6 +144,21 @@ CREATE TABLE IF NOT EXISTS anti_cheat_log (
     KEY idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='防作弊检查日志';
 
+-- 玩家统计表（累计计数器，由 PlayerStatsService 定期覆盖写入）
+CREATE TABLE IF NOT EXISTS player_stats (
+    player_id VARCHAR(64) PRIMARY KEY COMMENT '玩家ID（牌桌内的 playerId）',
+    hands BIGINT DEFAULT 0 NOT NULL COMMENT '总手数',
+    vpip_hands BIGINT DEFAULT 0 NOT NULL COMMENT '翻前主动入池手数',
+    pfr_hands BIGINT DEFAULT 0 NOT NULL COMMENT '翻前加注手数',
+    aggressive_actions BIGINT DEFAULT 0 NOT NULL COMMENT '翻后下注/加注次数',
+    calls BIGINT DEFAULT 0 NOT NULL COMMENT '翻后跟注次数',
+    showdowns BIGINT DEFAULT 0 NOT NULL COMMENT '摊牌次数',
+    showdowns_won BIGINT DEFAULT 0 NOT NULL COMMENT '摊牌获胜次数',
+    hands_won BIGINT DEFAULT 0 NOT NULL COMMENT '赢得底池的手数',
+    net_milli_bb BIGINT DEFAULT 0 NOT NULL COMMENT '净输赢（千分之一大盲）',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='玩家统计';
+
 -- 索引优化
 CREATE INDEX idx_player_balance ON player(total_balance);
 CREATE INDEX idx_game_table ON game_round(table_id, start_time);
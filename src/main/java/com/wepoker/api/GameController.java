@@ -1,7 +1,17 @@
 package com.wepoker.api;
 
+import com.wepoker.domain.model.Player;
 import com.wepoker.domain.model.Table;
+import com.wepoker.network.handler.IpFilterHandler;
+import com.wepoker.network.handler.SlowConsumerHandler;
+import com.wepoker.network.session.SessionRegistry;
+import com.wepoker.security.AntiCheatGuard;
+import com.wepoker.security.AntiCheatGuard.AntiCheatResult;
+import com.wepoker.service.CollusionDetectionService;
 import com.wepoker.service.GameService;
+import com.wepoker.service.LobbyService;
+import com.wepoker.service.RakeService;
+import com.wepoker.service.WalletService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,13 +42,36 @@ public class GameController {
     @Autowired
     private GameService gameService;
     
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @Autowired
+    private LobbyService lobbyService;
+
+    @Autowired
+    private CollusionDetectionService collusionDetectionService;
+
+    @Autowired
+    private AntiCheatGuard antiCheatGuard;
+
+    @Autowired
+    private IpFilterHandler ipFilterHandler;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private RakeService rakeService;
+    
     /**
-     * 获取所有活跃房间
+     * 获取活跃房间（大厅摘要分页，不再返回完整 Table 对象图）
      */
     @GetMapping("/tables")
-    public ResponseEntity<?> getTables() {
-        Collection<Table> tables = gameService.getAllTables();
-        return ResponseEntity.ok(new ApiResponse(200, "success", tables));
+    public ResponseEntity<?> getTables(
+        @RequestParam(value = "page", defaultValue = "0") int page,
+        @RequestParam(value = "size", defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(new ApiResponse(200, "success", lobbyService.listTables(null, null, page, size)));
     }
     
     /**
@@ -79,11 +112,13 @@ public class GameController {
         }
 
         try {
+            walletService.prefetch(playerId);
             Table table = gameService.joinTable(
                 tableId,
                 playerId,
                 request.getNickname(),
-                request.getBuyIn()
+                request.getBuyIn(),
+                request.getRequestId()
             );
             return ResponseEntity.ok(new ApiResponse(200, "success", table));
         } catch (Exception e) {
@@ -109,6 +144,11 @@ public class GameController {
      */
     @PostMapping("/tables/{tableId}/action")
     public ResponseEntity<?> action(@PathVariable Long tableId, @RequestBody ActionRequest request) {
+        AntiCheatResult check = antiCheatGuard.checkActionRate(Player.numericId(request.getPlayerId()),
+            String.valueOf(request.getAction()).toUpperCase());
+        if (!check.isPassed()) {
+            return ResponseEntity.ok(new ApiResponse(429, check.getMessage(), check.getCode()));
+        }
         try {
             Table table = gameService.playerAction(tableId, request.getPlayerId(), request.getAction(), request.getAmount());
             return ResponseEntity.ok(new ApiResponse(200, "success", table));
@@ -117,10 +157,40 @@ public class GameController {
         }
     }
 
+    /**
+     * 全下保险：领先者按报价购买，premium 为 0 表示放弃
+     */
+    @PostMapping("/tables/{tableId}/insurance")
+    public ResponseEntity<?> insurance(@PathVariable Long tableId, @RequestBody InsuranceRequest request) {
+        try {
+            Table table = gameService.buyInsurance(tableId, request.getPlayerId(), request.getPremium());
+            return ResponseEntity.ok(new ApiResponse(200, "success", table));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * 离开房间，剩余筹码兑现回钱包
+     */
+    @PostMapping("/tables/{tableId}/leave")
+    public ResponseEntity<?> leaveTable(@PathVariable Long tableId, @RequestBody LeaveTableRequest request) {
+        try {
+            Table table = gameService.leaveTable(tableId, request.getPlayerId(), request.getRequestId());
+            if (table == null) {
+                return ResponseEntity.ok(new ApiResponse(404, "Table not found", null));
+            }
+            return ResponseEntity.ok(new ApiResponse(200, "success", table));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
     @PostMapping("/tables/{tableId}/rebuy")
     public ResponseEntity<?> rebuy(@PathVariable Long tableId, @RequestBody RebuyRequest request) {
         try {
-            Table table = gameService.rebuy(tableId, request.getPlayerId(), request.getAmount());
+            walletService.prefetch(request.getPlayerId());
+            Table table = gameService.rebuy(tableId, request.getPlayerId(), request.getAmount(), request.getRequestId());
             return ResponseEntity.ok(new ApiResponse(200, "success", table));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
@@ -142,10 +212,70 @@ public class GameController {
         stats.put("totalTables", totalTables);
         stats.put("totalPlayers", totalPlayers);
         stats.put("totalPot", totalPot);
+        stats.put("sessions", sessionRegistry.getSessionCount());
+        stats.put("connectedSessions", sessionRegistry.getConnectedSessionCount());
         
         return ResponseEntity.ok(new ApiResponse(200, "success", stats));
     }
     
+    /**
+     * 长连接出站背压统计（积压连接、待写字节数、合并/断开次数）
+     */
+    @GetMapping("/network/outbound")
+    public ResponseEntity<?> outboundStats() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", SlowConsumerHandler.getStats()));
+    }
+    
+    /**
+     * 合谋检测统计（已处理/丢弃手数、跟踪的玩家对、已标记次数）
+     */
+    @GetMapping("/anti-cheat/collusion")
+    public ResponseEntity<?> collusionStats() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", collusionDetectionService.getStats()));
+    }
+    
+    /**
+     * IP 黑白名单统计（前缀数、前缀树节点数、被拒绝的长连接数）
+     */
+    @GetMapping("/anti-cheat/ip-lists")
+    public ResponseEntity<?> ipListStats() {
+        Map<String, Object> stats = antiCheatGuard.getIpListStats();
+        stats.put("rejectedConnections", ipFilterHandler.getRejectedConnections());
+        return ResponseEntity.ok(new ApiResponse(200, "success", stats));
+    }
+
+    /**
+     * 玩家钱包余额（含未落库部分）
+     */
+    @GetMapping("/wallet/{playerId}")
+    public ResponseEntity<?> walletBalance(@PathVariable String playerId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("playerId", playerId);
+        data.put("balance", walletService.getBalance(playerId));
+        return ResponseEntity.ok(new ApiResponse(200, "success", data));
+    }
+
+    /**
+     * 钱包记账统计（待落库分录数、已落库分录数、重复提交数）
+     */
+    @GetMapping("/wallet/stats")
+    public ResponseEntity<?> walletStats() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", walletService.getStats()));
+    }
+
+    /**
+     * 抽水统计（全部桌累计，或指定桌）
+     */
+    @GetMapping("/rake")
+    public ResponseEntity<?> rakeStats(@RequestParam(required = false) Long tableId) {
+        Map<String, Object> stats = rakeService.getStats();
+        if (tableId != null) {
+            stats.put("tableId", tableId);
+            stats.put("tableRake", rakeService.getTableRake(tableId));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", stats));
+    }
+    
     /**
      * 健康检查
      */
@@ -183,7 +313,7 @@ public class GameController {
         }
         return null;
     }
-    
+
     /**
      * API 响应包装类
      */
@@ -200,6 +330,13 @@ public class GameController {
         private String playerId;
         private String nickname;
         private long buyIn;
+        private String requestId;
+    }
+
+    @Data
+    public static class LeaveTableRequest {
+        private String playerId;
+        private String requestId;
     }
 
     @Data
@@ -213,5 +350,12 @@ public class GameController {
     public static class RebuyRequest {
         private String playerId;
         private long amount;
+        private String requestId;
+    }
+
+    @Data
+    public static class InsuranceRequest {
+        private String playerId;
+        private long premium;
     }
 }
@@ -0,0 +1,113 @@
+package com.wepoker.api;
+
+import com.wepoker.api.GameController.ApiResponse;
+import com.wepoker.domain.algorithm.FlopTexture;
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.stats.PlayerStats;
+import com.wepoker.service.HandHistoryService;
+import com.wepoker.service.PlayerStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 牌局历史 REST API
+ */
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    @Autowired
+    private HandHistoryService handHistoryService;
+
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    /**
+     * 单手牌详情；底牌只返回 playerId 本人的和摊牌亮出的
+     */
+    @GetMapping("/hands/{handId}")
+    public ResponseEntity<?> getHand(@PathVariable String handId,
+                                     @RequestParam(required = false) String playerId) {
+        Map<String, Object> view = handHistoryService.getHandView(handId, playerId);
+        if (view == null) {
+            return ResponseEntity.ok(new ApiResponse(404, "Hand not found", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", view));
+    }
+
+    /**
+     * 玩家统计：VPIP、PFR、AF、bb/100、摊牌胜率
+     */
+    @GetMapping("/players/{playerId}/stats")
+    public ResponseEntity<?> playerStats(@PathVariable String playerId) {
+        PlayerStats stats = playerStatsService.getStats(playerId);
+        if (stats == null) {
+            return ResponseEntity.ok(new ApiResponse(404, "No stats for player", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", stats));
+    }
+
+    /**
+     * 已发翻牌按牌面结构的分布
+     */
+    @GetMapping("/flop-textures")
+    public ResponseEntity<?> flopTextures() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", playerStatsService.getFlopTextureStats()));
+    }
+
+    /**
+     * 查询一个翻牌的牌面结构，如 ?cards=As,Kd,2c
+     */
+    @GetMapping("/flop-texture")
+    public ResponseEntity<?> flopTexture(@RequestParam List<String> cards) {
+        try {
+            if (cards.size() != 3) {
+                throw new IllegalArgumentException("flop must have exactly 3 cards");
+            }
+            return ResponseEntity.ok(new ApiResponse(200, "success",
+                FlopTexture.of(Card.parse(cards.get(0)), Card.parse(cards.get(1)), Card.parse(cards.get(2)))));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * 导出玩家牌谱（文本格式，分块传输，边读边写）
+     */
+    @GetMapping(value = "/players/{playerId}/export", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<StreamingResponseBody> exportPlayer(@PathVariable String playerId,
+                                                              @RequestParam(defaultValue = "0") int limit) {
+        StreamingResponseBody body = out -> handHistoryService.exportPlayerHistory(playerId, out, limit);
+        return textAttachment("hands-" + playerId + ".txt", body);
+    }
+
+    /**
+     * 导出房间牌谱（只公开摊牌底牌）
+     */
+    @GetMapping(value = "/tables/{tableId}/export", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<StreamingResponseBody> exportTable(@PathVariable int tableId,
+                                                             @RequestParam(defaultValue = "0") int limit) {
+        StreamingResponseBody body = out -> handHistoryService.exportTableHistory(tableId, out, limit);
+        return textAttachment("table-" + tableId + ".txt", body);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", handHistoryService.getStats()));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> textAttachment(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename.replaceAll("[^A-Za-z0-9._-]", "_") + "\"")
+            .body(body);
+    }
+}
@@ -0,0 +1,80 @@
+package com.wepoker.api;
+
+import com.wepoker.api.GameController.ApiResponse;
+import com.wepoker.domain.lobby.TableSummary;
+import com.wepoker.domain.model.Table;
+import com.wepoker.service.LobbyService;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 大厅 REST API：房间摘要分页、盲注级别概览、快速找座
+ */
+@RestController
+@RequestMapping("/api/lobby")
+public class LobbyController {
+
+    @Autowired
+    private LobbyService lobbyService;
+
+    @GetMapping("/tables")
+    public ResponseEntity<?> tables(
+        @RequestParam(value = "smallBlind", required = false) Long smallBlind,
+        @RequestParam(value = "bigBlind", required = false) Long bigBlind,
+        @RequestParam(value = "page", defaultValue = "0") int page,
+        @RequestParam(value = "size", defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(new ApiResponse(200, "success", lobbyService.listTables(smallBlind, bigBlind, page, size)));
+    }
+
+    @GetMapping("/stakes")
+    public ResponseEntity<?> stakes() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", lobbyService.getStakeOverview()));
+    }
+
+    /**
+     * 查询指定级别最适合入座的桌（不入座）
+     */
+    @GetMapping("/seat")
+    public ResponseEntity<?> findSeat(@RequestParam long smallBlind, @RequestParam long bigBlind) {
+        TableSummary best = lobbyService.findSeat(smallBlind, bigBlind);
+        if (best == null) {
+            return ResponseEntity.ok(new ApiResponse(404, "No free seat", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", best));
+    }
+
+    /**
+     * 找座并直接入座
+     */
+    @PostMapping("/seat")
+    public ResponseEntity<?> seat(@RequestBody SeatRequest request) {
+        String playerId = request.getPlayerId();
+        if (playerId == null || playerId.isBlank()) {
+            playerId = String.valueOf(System.currentTimeMillis());
+        }
+        try {
+            Table table = lobbyService.seatPlayer(
+                request.getSmallBlind(),
+                request.getBigBlind(),
+                playerId,
+                request.getNickname(),
+                request.getBuyIn()
+            );
+            return ResponseEntity.ok(new ApiResponse(200, "success", lobbyService.getSummary(table.getTableId())));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @Data
+    public static class SeatRequest {
+        private String playerId;
+        private String nickname;
+        private long buyIn;
+        private long smallBlind;
+        private long bigBlind;
+    }
+}
@@ -0,0 +1,75 @@
+package com.wepoker.api;
+
+import com.wepoker.api.GameController.ApiResponse;
+import com.wepoker.domain.lobby.QueueTicket;
+import com.wepoker.service.MatchmakingService;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 快速入座 REST API
+ */
+@RestController
+@RequestMapping("/api/matchmaking")
+public class MatchmakingController {
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    /**
+     * 加入排队（按模板名或盲注级别）
+     */
+    @PostMapping("/queue")
+    public ResponseEntity<?> enqueue(@RequestBody QueueRequest request) {
+        try {
+            QueueTicket ticket = matchmakingService.enqueue(
+                request.getTemplate(),
+                request.getSmallBlind(),
+                request.getBigBlind(),
+                request.getPlayerId(),
+                request.getNickname(),
+                request.getBuyIn()
+            );
+            return ResponseEntity.ok(new ApiResponse(200, "success", ticket));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * 查询排队/入座结果
+     */
+    @GetMapping("/queue/{playerId}")
+    public ResponseEntity<?> status(@PathVariable String playerId) {
+        QueueTicket ticket = matchmakingService.getTicket(playerId);
+        if (ticket == null) {
+            return ResponseEntity.ok(new ApiResponse(404, "Not queued", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", ticket));
+    }
+
+    @DeleteMapping("/queue/{playerId}")
+    public ResponseEntity<?> cancel(@PathVariable String playerId) {
+        if (matchmakingService.cancel(playerId)) {
+            return ResponseEntity.ok(new ApiResponse(200, "success", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(400, "Not queued or already seated", matchmakingService.getTicket(playerId)));
+    }
+
+    @GetMapping("/queues")
+    public ResponseEntity<?> queues() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", matchmakingService.getQueueStats()));
+    }
+
+    @Data
+    public static class QueueRequest {
+        private String playerId;
+        private String nickname;
+        private String template;
+        private long smallBlind;
+        private long bigBlind;
+        private long buyIn;
+    }
+}
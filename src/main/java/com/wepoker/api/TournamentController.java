@@ -0,0 +1,219 @@
+package com.wepoker.api;
+
+import com.wepoker.api.GameController.ApiResponse;
+import com.wepoker.domain.algorithm.AllInEquity;
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.tournament.IcmCalculator;
+import com.wepoker.domain.tournament.BlindLevel;
+import com.wepoker.domain.tournament.Tournament;
+import com.wepoker.domain.tournament.TournamentType;
+import com.wepoker.service.TournamentService;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 锦标赛 REST API
+ */
+@RestController
+@RequestMapping("/api/tournaments")
+public class TournamentController {
+
+    @Autowired
+    private TournamentService tournamentService;
+
+    @GetMapping
+    public ResponseEntity<?> list() {
+        return ResponseEntity.ok(new ApiResponse(200, "success", tournamentService.getAllTournaments()));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody CreateTournamentRequest request) {
+        try {
+            TournamentType type = request.getType() != null ? TournamentType.valueOf(request.getType().trim().toUpperCase()) : TournamentType.SIT_AND_GO;
+            Tournament t = tournamentService.create(
+                request.getName(),
+                type,
+                request.getSeatsPerTable(),
+                request.getMaxEntrants(),
+                request.getStartingStack(),
+                request.getLevels()
+            );
+            return ResponseEntity.ok(new ApiResponse(200, "success", t));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/{tournamentId}")
+    public ResponseEntity<?> get(@PathVariable long tournamentId) {
+        Tournament t = tournamentService.getTournament(tournamentId);
+        if (t == null) {
+            return ResponseEntity.ok(new ApiResponse(404, "Tournament not found", null));
+        }
+        return ResponseEntity.ok(new ApiResponse(200, "success", t));
+    }
+
+    @GetMapping("/{tournamentId}/standings")
+    public ResponseEntity<?> standings(@PathVariable long tournamentId) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(200, "success", tournamentService.getStandings(tournamentId)));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/{tournamentId}/icm")
+    public ResponseEntity<?> tournamentIcm(@PathVariable long tournamentId, @RequestParam List<Double> payouts) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(200, "success", tournamentService.getIcmEquities(tournamentId, toDoubles(payouts))));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * 任意筹码分布的 ICM 奖金权益
+     */
+    @PostMapping("/icm")
+    public ResponseEntity<?> icm(@RequestBody IcmRequest request) {
+        try {
+            double[] equities = IcmCalculator.equities(toLongs(request.getStacks()), toDoubles(request.getPayouts()));
+            return ResponseEntity.ok(new ApiResponse(200, "success", equities));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * 两人全下的跟注/弃牌 ICM 对比；给出双方底牌时由 AllInEquity 计算胜率，否则使用请求里的 winProb/tieProb
+     */
+    @PostMapping("/icm/all-in")
+    public ResponseEntity<?> icmAllIn(@RequestBody AllInIcmRequest request) {
+        try {
+            double winProb = request.getWinProb() != null ? request.getWinProb() : 0;
+            double tieProb = request.getTieProb() != null ? request.getTieProb() : 0;
+            AllInEquity.Result equity = null;
+            if (request.getHeroCards() != null && request.getVillainCards() != null) {
+                equity = AllInEquity.calculate(
+                    List.of(parseCards(request.getHeroCards()), parseCards(request.getVillainCards())),
+                    parseCards(request.getBoard()));
+                winProb = equity.win()[0];
+                tieProb = equity.chop()[0];
+            } else if (request.getWinProb() == null) {
+                throw new IllegalArgumentException("heroCards/villainCards or winProb required");
+            }
+            IcmCalculator.AllInEv ev = IcmCalculator.allIn(toLongs(request.getStacks()), toDoubles(request.getPayouts()),
+                request.getHero(), request.getVillain(), winProb, tieProb);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("winProb", ev.winProb());
+            data.put("tieProb", ev.tieProb());
+            data.put("exact", equity == null || equity.exact());
+            data.put("effectiveStack", ev.effectiveStack());
+            data.put("chipEv", ev.chipEv());
+            data.put("foldEquity", ev.foldEquity());
+            data.put("callEquity", ev.callEquity());
+            data.put("icmEv", ev.icmEv());
+            data.put("call", ev.callIsProfitable());
+            return ResponseEntity.ok(new ApiResponse(200, "success", data));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/{tournamentId}/register")
+    public ResponseEntity<?> register(@PathVariable long tournamentId, @RequestBody RegisterRequest request) {
+        try {
+            Tournament t = tournamentService.register(tournamentId, request.getPlayerId(), request.getNickname());
+            return ResponseEntity.ok(new ApiResponse(200, "success", t));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/{tournamentId}/unregister")
+    public ResponseEntity<?> unregister(@PathVariable long tournamentId, @RequestBody RegisterRequest request) {
+        try {
+            Tournament t = tournamentService.unregister(tournamentId, request.getPlayerId());
+            return ResponseEntity.ok(new ApiResponse(200, "success", t));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/{tournamentId}/start")
+    public ResponseEntity<?> start(@PathVariable long tournamentId) {
+        try {
+            Tournament t = tournamentService.start(tournamentId);
+            return ResponseEntity.ok(new ApiResponse(200, "success", t));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new ApiResponse(400, e.getMessage(), null));
+        }
+    }
+
+    private static long[] toLongs(List<Long> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("stacks required");
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static double[] toDoubles(List<Double> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("payouts required");
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static Card[] parseCards(List<String> cards) {
+        if (cards == null) {
+            return new Card[0];
+        }
+        List<Card> parsed = new ArrayList<>(cards.size());
+        for (String c : cards) {
+            parsed.add(Card.parse(c));
+        }
+        return parsed.toArray(new Card[0]);
+    }
+
+    @Data
+    public static class CreateTournamentRequest {
+        private String name;
+        private String type;
+        private int seatsPerTable;
+        private int maxEntrants;
+        private long startingStack;
+        private List<BlindLevel> levels;
+    }
+
+    @Data
+    public static class RegisterRequest {
+        private String playerId;
+        private String nickname;
+    }
+
+    @Data
+    public static class IcmRequest {
+        private List<Long> stacks;
+        private List<Double> payouts;
+    }
+
+    @Data
+    public static class AllInIcmRequest {
+        private List<Long> stacks;
+        private List<Double> payouts;
+        private int hero;
+        private int villain;
+        private List<String> heroCards;      // 如 ["As", "Kd"]
+        private List<String> villainCards;
+        private List<String> board;          // 已发公共牌，0/3/4/5 张
+        private Double winProb;              // 不给底牌时直接指定胜率
+        private Double tieProb;
+    }
+}
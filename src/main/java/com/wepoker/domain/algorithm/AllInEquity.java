@@ -0,0 +1,247 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.model.Card;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 全下胜率计算
+ *
+ * 剩余公共牌组合数不超过 EXHAUSTIVE_LIMIT 时穷举（翻牌后最多 C(45,2)=990 种），结果精确；
+ * 否则（翻牌前）按固定样本数蒙特卡洛抽样，种子固定时结果可复现。
+ * 平分时每个平分者记 1/k 份，equity = win + 平分份额。
+ */
+public final class AllInEquity {
+
+    public static final int EXHAUSTIVE_LIMIT = 20_000;
+    public static final int DEFAULT_SAMPLES = 20_000;
+
+    private AllInEquity() {
+    }
+
+    public static Result calculate(List<Card[]> holes, Card[] board) {
+        return calculate(holes, board, DEFAULT_SAMPLES, 0x5EEDL);
+    }
+
+    /**
+     * @param holes   每个玩家 2 张底牌
+     * @param board   已发出的公共牌（0/3/4/5 张）
+     * @param samples 需要抽样时的样本数
+     */
+    public static Result calculate(List<Card[]> holes, Card[] board, int samples, long seed) {
+        int players = holes.size();
+        if (players < 2) {
+            throw new IllegalArgumentException("need at least 2 players");
+        }
+        Card[] known = board == null ? new Card[0] : board;
+        if (known.length > 5 || known.length == 1 || known.length == 2) {
+            throw new IllegalArgumentException("board must have 0, 3, 4 or 5 cards");
+        }
+
+        Card[] deck = remainingDeck(holes, known);
+
+        Card[][] sevens = new Card[players][7];
+        for (int p = 0; p < players; p++) {
+            sevens[p][0] = holes.get(p)[0];
+            sevens[p][1] = holes.get(p)[1];
+            System.arraycopy(known, 0, sevens[p], 2, known.length);
+        }
+        int missing = 5 - known.length;
+        double[] win = new double[players];
+        double[] tie = new double[players];
+        double[] chop = new double[players];
+        long[] ranks = new long[players];
+
+        long combos = combinations(deck.length, missing);
+        if (combos <= EXHAUSTIVE_LIMIT) {
+            int[] idx = new int[missing];
+            for (int i = 0; i < missing; i++) {
+                idx[i] = i;
+            }
+            long boards = 0;
+            while (true) {
+                for (int i = 0; i < missing; i++) {
+                    for (int p = 0; p < players; p++) {
+                        sevens[p][2 + known.length + i] = deck[idx[i]];
+                    }
+                }
+                score(sevens, ranks, win, tie, chop);
+                boards++;
+                if (!nextCombination(idx, deck.length)) {
+                    break;
+                }
+            }
+            return Result.of(win, tie, chop, boards, true);
+        }
+
+        if (samples <= 0) {
+            throw new IllegalArgumentException("samples must be positive: " + samples);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Card[] shuffled = deck.clone();
+        for (int s = 0; s < samples; s++) {
+            // 部分 Fisher-Yates：只洗出需要的前 missing 张
+            for (int i = 0; i < missing; i++) {
+                int j = i + random.nextInt(shuffled.length - i);
+                Card tmp = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = tmp;
+                for (int p = 0; p < players; p++) {
+                    sevens[p][2 + known.length + i] = shuffled[i];
+                }
+            }
+            score(sevens, ranks, win, tie, chop);
+        }
+        return Result.of(win, tie, chop, samples, false);
+    }
+
+    /**
+     * 只差一张公共牌（转牌后）时，能让 player 输掉（不在最强牌之列）的河牌；平分的牌不算
+     */
+    public static List<Card> outsAgainst(List<Card[]> holes, Card[] board, int player) {
+        if (board == null || board.length != 4) {
+            throw new IllegalArgumentException("outs are defined with exactly 4 board cards");
+        }
+        Card[] deck = remainingDeck(holes, board);
+        int players = holes.size();
+        Card[][] sevens = new Card[players][7];
+        for (int p = 0; p < players; p++) {
+            sevens[p][0] = holes.get(p)[0];
+            sevens[p][1] = holes.get(p)[1];
+            System.arraycopy(board, 0, sevens[p], 2, 4);
+        }
+        List<Card> outs = new ArrayList<>();
+        for (Card river : deck) {
+            long best = Long.MAX_VALUE;
+            long mine = 0;
+            for (int p = 0; p < players; p++) {
+                sevens[p][6] = river;
+                long rank = HandEvaluator.rankValueOfSeven(sevens[p]);
+                best = Math.min(best, rank);
+                if (p == player) {
+                    mine = rank;
+                }
+            }
+            if (mine != best) {
+                outs.add(river);
+            }
+        }
+        return outs;
+    }
+
+    /**
+     * 除各玩家底牌和已发公共牌外的所有牌（烧牌和弃牌玩家的底牌不可见，仍算在内）
+     */
+    private static Card[] remainingDeck(List<Card[]> holes, Card[] known) {
+        boolean[] used = new boolean[64];
+        for (Card[] hole : holes) {
+            if (hole == null || hole.length != 2) {
+                throw new IllegalArgumentException("each player needs exactly 2 hole cards");
+            }
+            markUsed(used, hole[0]);
+            markUsed(used, hole[1]);
+        }
+        for (Card c : known) {
+            markUsed(used, c);
+        }
+        Card[] deck = new Card[52 - 2 * holes.size() - known.length];
+        int d = 0;
+        for (int suit = 0; suit < 4; suit++) {
+            for (int rank = 0; rank < 13; rank++) {
+                int code = (suit << 4) | rank;
+                if (!used[code]) {
+                    deck[d++] = Card.decode(code);
+                }
+            }
+        }
+        return deck;
+    }
+
+    private static void score(Card[][] sevens, long[] ranks, double[] win, double[] tie, double[] chop) {
+        long best = Long.MAX_VALUE;
+        int winners = 0;
+        for (int p = 0; p < sevens.length; p++) {
+            ranks[p] = HandEvaluator.rankValueOfSeven(sevens[p]);
+            if (ranks[p] < best) {
+                best = ranks[p];
+                winners = 1;
+            } else if (ranks[p] == best) {
+                winners++;
+            }
+        }
+        for (int p = 0; p < sevens.length; p++) {
+            if (ranks[p] != best) {
+                continue;
+            }
+            if (winners == 1) {
+                win[p]++;
+            } else {
+                tie[p] += 1.0 / winners;
+                chop[p]++;
+            }
+        }
+    }
+
+    private static void markUsed(boolean[] used, Card card) {
+        if (card == null) {
+            throw new IllegalArgumentException("card must not be null");
+        }
+        int code = card.encode();
+        if (used[code]) {
+            throw new IllegalArgumentException("duplicate card: " + card.toShortString());
+        }
+        used[code] = true;
+    }
+
+    private static long combinations(int n, int k) {
+        long c = 1;
+        for (int i = 0; i < k; i++) {
+            c = c * (n - i) / (i + 1);
+        }
+        return c;
+    }
+
+    private static boolean nextCombination(int[] idx, int n) {
+        int k = idx.length;
+        int i = k - 1;
+        while (i >= 0 && idx[i] == n - k + i) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        idx[i]++;
+        for (int j = i + 1; j < k; j++) {
+            idx[j] = idx[j - 1] + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @param win    每个玩家独赢的概率
+     * @param tie    每个玩家平分所得的份额（已按平分人数折算）
+     * @param chop   每个玩家参与平分的概率（未折算）
+     * @param boards 穷举或抽样的公共牌数
+     * @param exact  是否为穷举结果
+     */
+    public record Result(double[] win, double[] tie, double[] chop, long boards, boolean exact) {
+
+        static Result of(double[] winCounts, double[] tieShares, double[] chopCounts, long boards, boolean exact) {
+            double[] w = new double[winCounts.length];
+            double[] t = new double[tieShares.length];
+            double[] c = new double[chopCounts.length];
+            for (int p = 0; p < w.length; p++) {
+                w[p] = winCounts[p] / boards;
+                t[p] = tieShares[p] / boards;
+                c[p] = chopCounts[p] / boards;
+            }
+            return new Result(w, t, c, boards, exact);
+        }
+
+        public double equity(int player) {
+            return win[player] + tie[player];
+        }
+    }
+}
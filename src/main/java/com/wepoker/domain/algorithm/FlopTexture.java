@@ -0,0 +1,208 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.model.Card;
+
+import java.util.Arrays;
+
+/**
+ * 翻牌面结构（成对、同花程度、连张、高牌）
+ *
+ * 类加载时一次性算好全部 C(52,3)=22100 种翻牌：换花色后相同的翻牌归为同一类（共 1755 类），
+ * 每类只建一个实例；查询时把三张牌的编码（Card.encode()）换成 0..51 的下标，
+ * 按组合数排名得到翻牌序号，再查两张表即可，O(1) 且不分配对象。
+ *
+ * @param classId          同构类编号 0..1754
+ * @param highRank         最高点数（2..14，下同）
+ * @param middleRank       中间点数
+ * @param lowRank          最低点数
+ * @param paired           有对子（含三条）
+ * @param trips            三张同点
+ * @param suits            花色结构
+ * @param connected        三张连续（含 A23）
+ * @param straightPossible 三张不同点数落在 5 张的窗口内，两张底牌即可成顺
+ * @param broadwayCount    T 及以上的张数
+ */
+public record FlopTexture(int classId, int highRank, int middleRank, int lowRank, boolean paired, boolean trips,
+                          SuitPattern suits, boolean connected, boolean straightPossible, int broadwayCount) {
+
+    public static final int FLOP_COUNT = 22_100;
+    public static final int CLASS_COUNT = 1_755;
+
+    public enum SuitPattern {
+        MONOTONE,
+        TWO_TONE,
+        RAINBOW
+    }
+
+    private static final short[] CLASS_OF_FLOP = new short[FLOP_COUNT];
+    private static final FlopTexture[] BY_CLASS = new FlopTexture[CLASS_COUNT];
+
+    static {
+        int[][] suitPermutations = suitPermutations();
+        int[] classOfCanonical = new int[FLOP_COUNT];
+        Arrays.fill(classOfCanonical, -1);
+        int classes = 0;
+        int[] mapped = new int[3];
+        for (int c = 2; c < 52; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    // 同构类代表：所有花色置换下序号最小的翻牌
+                    int canonical = Integer.MAX_VALUE;
+                    for (int[] perm : suitPermutations) {
+                        mapped[0] = perm[a / 13] * 13 + a % 13;
+                        mapped[1] = perm[b / 13] * 13 + b % 13;
+                        mapped[2] = perm[c / 13] * 13 + c % 13;
+                        canonical = Math.min(canonical, index(mapped[0], mapped[1], mapped[2]));
+                    }
+                    if (classOfCanonical[canonical] < 0) {
+                        BY_CLASS[classes] = describe(classes, a, b, c);
+                        classOfCanonical[canonical] = classes++;
+                    }
+                    CLASS_OF_FLOP[index(a, b, c)] = (short) classOfCanonical[canonical];
+                }
+            }
+        }
+        if (classes != CLASS_COUNT) {
+            throw new IllegalStateException("unexpected flop class count: " + classes);
+        }
+    }
+
+    public static FlopTexture of(Card first, Card second, Card third) {
+        return of(first.encode(), second.encode(), third.encode());
+    }
+
+    /**
+     * 公共牌前三张的结构；不足三张返回 null
+     */
+    public static FlopTexture of(Card[] board) {
+        if (board == null || board.length < 3 || board[0] == null || board[1] == null || board[2] == null) {
+            return null;
+        }
+        return of(board[0], board[1], board[2]);
+    }
+
+    /**
+     * 参数为 Card.encode() 的编码，顺序任意
+     */
+    public static FlopTexture of(int first, int second, int third) {
+        return BY_CLASS[classIdOf(first, second, third)];
+    }
+
+    public static int classIdOf(int first, int second, int third) {
+        int a = dense(first);
+        int b = dense(second);
+        int c = dense(third);
+        if (a == b || b == c || a == c) {
+            throw new IllegalArgumentException("duplicate card in flop");
+        }
+        return CLASS_OF_FLOP[index(a, b, c)];
+    }
+
+    public static FlopTexture ofClass(int classId) {
+        return BY_CLASS[classId];
+    }
+
+    public boolean monotone() {
+        return suits == SuitPattern.MONOTONE;
+    }
+
+    public boolean twoTone() {
+        return suits == SuitPattern.TWO_TONE;
+    }
+
+    public boolean rainbow() {
+        return suits == SuitPattern.RAINBOW;
+    }
+
+    /**
+     * Card.encode() 编码（suit << 4 | rank - 2）转为 0..51
+     */
+    private static int dense(int code) {
+        int suit = (code >> 4) & 0x3;
+        int rank = code & 0xF;
+        if (rank > 12) {
+            throw new IllegalArgumentException("invalid card code: " + code);
+        }
+        return suit * 13 + rank;
+    }
+
+    /**
+     * 三张牌排序成 a < b < c 后的组合数排名 C(c,3) + C(b,2) + C(a,1)
+     */
+    private static int index(int a, int b, int c) {
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (b > c) {
+            int t = b;
+            b = c;
+            c = t;
+        }
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        return c * (c - 1) * (c - 2) / 6 + b * (b - 1) / 2 + a;
+    }
+
+    private static FlopTexture describe(int classId, int a, int b, int c) {
+        int[] ranks = {a % 13 + 2, b % 13 + 2, c % 13 + 2};
+        Arrays.sort(ranks);
+        int high = ranks[2];
+        int middle = ranks[1];
+        int low = ranks[0];
+        int suitCount = (1 << (a / 13)) | (1 << (b / 13)) | (1 << (c / 13));
+        SuitPattern suits = switch (Integer.bitCount(suitCount)) {
+            case 1 -> SuitPattern.MONOTONE;
+            case 2 -> SuitPattern.TWO_TONE;
+            default -> SuitPattern.RAINBOW;
+        };
+        boolean paired = high == middle || middle == low;
+        boolean trips = high == low;
+        boolean distinct = !paired;
+        boolean wheelAce = high == 14 && middle <= 5;
+        boolean connected = distinct && ((high - low == 2) || (high == 14 && middle == 3 && low == 2));
+        boolean straightPossible = distinct && (high - low <= 4 || wheelAce);
+        int broadway = (high >= 10 ? 1 : 0) + (middle >= 10 ? 1 : 0) + (low >= 10 ? 1 : 0);
+        return new FlopTexture(classId, high, middle, low, paired, trips, suits, connected, straightPossible, broadway);
+    }
+
+    /**
+     * 4 种花色的全部 24 种置换（字典序）
+     */
+    private static int[][] suitPermutations() {
+        int[][] result = new int[24][];
+        int[] perm = {0, 1, 2, 3};
+        int count = 0;
+        do {
+            result[count++] = perm.clone();
+        } while (nextPermutation(perm));
+        return result;
+    }
+
+    private static boolean nextPermutation(int[] p) {
+        int i = p.length - 2;
+        while (i >= 0 && p[i] >= p[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = p.length - 1;
+        while (p[j] <= p[i]) {
+            j--;
+        }
+        int t = p[i];
+        p[i] = p[j];
+        p[j] = t;
+        for (int l = i + 1, r = p.length - 1; l < r; l++, r--) {
+            t = p[l];
+            p[l] = p[r];
+            p[r] = t;
+        }
+        return true;
+    }
+}
@@ -6,13 +6,19 @@ import com.wepoker.domain.model.HandRank;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * HandEvaluator - 7选5最高牌型评估
  */
 public class HandEvaluator {
 
+    // 评估次数统计（LongAdder 在高并发下几乎无竞争）
+    private static final LongAdder EVALUATIONS = new LongAdder();
+
     /**
      * 7张牌（2张底牌 + 5张公共牌）的组合评估
      */
@@ -20,6 +26,7 @@ public class HandEvaluator {
         if (sevenCards == null || sevenCards.length != 7) {
             throw new IllegalArgumentException("Must have exactly 7 cards");
         }
+        EVALUATIONS.increment();
 
         HandRank bestRank = null;
         long bestRankValue = Long.MAX_VALUE;
@@ -41,6 +48,162 @@ public class HandEvaluator {
         return bestRank != null ? bestRank : new HandRank(9999999, -1, "No Hand", new ArrayList<>());
     }
 
+    /**
+     * 只求 7 张牌的 rankValue（与 evaluateSevenCards(...).getRankValue() 相同），不构造 HandRank、不枚举 21 种组合
+     *
+     * 直接按点数计数和每种花色的点数位图判断最佳牌型，供胜率穷举这类热路径使用。
+     * 7 张牌里有 5 张同花时不可能同时有四条或葫芦，所以同花判断可以放在最前面。
+     */
+    public static int rankValueOfSeven(Card[] sevenCards) {
+        if (sevenCards == null || sevenCards.length != 7) {
+            throw new IllegalArgumentException("Must have exactly 7 cards");
+        }
+        EVALUATIONS.increment();
+
+        int[] rankCounts = new int[15];
+        int[] suitMasks = new int[4];
+        int[] suitCounts = new int[4];
+        int rankMask = 0;
+        for (Card card : sevenCards) {
+            int rank = card.getRank().getValue();
+            int suit = card.getSuit().getValue();
+            rankCounts[rank]++;
+            suitMasks[suit] |= 1 << rank;
+            suitCounts[suit]++;
+            rankMask |= 1 << rank;
+        }
+
+        for (int suit = 0; suit < 4; suit++) {
+            if (suitCounts[suit] >= 5) {
+                int high = straightHighOf(suitMasks[suit]);
+                if (high > 0) {
+                    return rankValueOf(HandType.STRAIGHT_FLUSH, high);
+                }
+                return rankValueOf(HandType.FLUSH, topRanks(suitMasks[suit], 5));
+            }
+        }
+
+        int quad = 0;
+        int trips = 0;
+        int secondTrips = 0;
+        int pair = 0;
+        int secondPair = 0;
+        int thirdPair = 0;
+        for (int rank = 14; rank >= 2; rank--) {
+            switch (rankCounts[rank]) {
+                case 4 -> quad = rank;
+                case 3 -> {
+                    if (trips == 0) {
+                        trips = rank;
+                    } else if (secondTrips == 0) {
+                        secondTrips = rank;
+                    }
+                }
+                case 2 -> {
+                    if (pair == 0) {
+                        pair = rank;
+                    } else if (secondPair == 0) {
+                        secondPair = rank;
+                    } else {
+                        thirdPair = rank;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (quad > 0) {
+            return rankValueOf(HandType.FOUR_OF_A_KIND, quad, highestExcept(rankMask, quad, 0));
+        }
+        if (trips > 0 && (secondTrips > 0 || pair > 0)) {
+            return rankValueOf(HandType.FULL_HOUSE, trips, Math.max(secondTrips, pair));
+        }
+        int straightHigh = straightHighOf(rankMask);
+        if (straightHigh > 0) {
+            return rankValueOf(HandType.STRAIGHT, straightHigh);
+        }
+        if (trips > 0) {
+            int[] kickers = topRanks(rankMask & ~(1 << trips), 2);
+            return rankValueOf(HandType.THREE_OF_A_KIND, trips, kickers[0], kickers[1]);
+        }
+        if (secondPair > 0) {
+            return rankValueOf(HandType.TWO_PAIR, pair, secondPair, highestExcept(rankMask, pair, secondPair));
+        }
+        if (pair > 0) {
+            int[] kickers = topRanks(rankMask & ~(1 << pair), 3);
+            return rankValueOf(HandType.PAIR, pair, kickers[0], kickers[1], kickers[2]);
+        }
+        return rankValueOf(HandType.HIGH_CARD, topRanks(rankMask, 5));
+    }
+
+    private static int rankValueOf(HandType handType, int... tieBreakRanks) {
+        long tieValue = 0;
+        for (int rank : tieBreakRanks) {
+            tieValue = tieValue * 15 + (14 - rank);
+        }
+        return (int) ((8 - handType.getLevel()) * 1_000_000L + tieValue);
+    }
+
+    /**
+     * 点数位图中的最大顺子（A2345 返回 5），没有返回 0
+     */
+    private static int straightHighOf(int rankMask) {
+        for (int high = 14; high >= 6; high--) {
+            if (((rankMask >> (high - 4)) & 0x1F) == 0x1F) {
+                return high;
+            }
+        }
+        int wheel = (1 << 14) | (1 << 2) | (1 << 3) | (1 << 4) | (1 << 5);
+        return (rankMask & wheel) == wheel ? 5 : 0;
+    }
+
+    private static int[] topRanks(int rankMask, int count) {
+        int[] ranks = new int[count];
+        int n = 0;
+        for (int rank = 14; rank >= 2 && n < count; rank--) {
+            if ((rankMask & (1 << rank)) != 0) {
+                ranks[n++] = rank;
+            }
+        }
+        return ranks;
+    }
+
+    private static int highestExcept(int rankMask, int excluded1, int excluded2) {
+        int mask = rankMask & ~(1 << excluded1) & ~(1 << excluded2);
+        return mask == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * 批量评估多套公共牌（Run It N Times）：一次调用评估所有玩家在每套公共牌上的牌型
+     *
+     * @param holeCards 玩家 -> 2 张底牌（不足 2 张的玩家跳过）
+     * @param boards    每套 5 张公共牌
+     * @return 与 boards 一一对应的 玩家 -> 牌型（保持 holeCards 的迭代顺序）
+     */
+    public static List<Map<String, HandRank>> evaluateBoards(Map<String, Card[]> holeCards, List<Card[]> boards) {
+        List<Map<String, HandRank>> results = new ArrayList<>(boards.size());
+        Card[] seven = new Card[7];
+        for (Card[] board : boards) {
+            if (board == null || board.length != 5) {
+                throw new IllegalArgumentException("Board must have exactly 5 cards");
+            }
+            System.arraycopy(board, 0, seven, 2, 5);
+            Map<String, HandRank> ranks = new LinkedHashMap<>();
+            for (Map.Entry<String, Card[]> e : holeCards.entrySet()) {
+                Card[] hole = e.getValue();
+                if (hole == null || hole.length != 2) {
+                    continue;
+                }
+                seven[0] = hole[0];
+                seven[1] = hole[1];
+                ranks.put(e.getKey(), evaluateSevenCards(seven));
+            }
+            results.add(ranks);
+        }
+        return results;
+    }
+
     /**
      * 评估5张牌的牌型。
      * rankValue 越小表示牌力越强。
@@ -297,6 +460,13 @@ public class HandEvaluator {
         }
     }
 
+    /**
+     * 累计 7 张牌评估次数
+     */
+    public static long getEvaluationCount() {
+        return EVALUATIONS.sum();
+    }
+
     /**
      * @return 正数表示 hand1 更强，负数表示 hand2 更强，0 表示平手
      */
@@ -1,6 +1,8 @@
 package com.wepoker.domain.algorithm;
 
+import com.wepoker.domain.concurrency.ChipLedger;
 import com.wepoker.domain.model.*;
+import com.wepoker.domain.rake.RakeRule;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
@@ -179,16 +181,10 @@ public class PotManager {
                 .orElseThrow();
 
             // 计算抽水
-            long rakeAmount = 0;
             if (pot.getPotSequence() == 0) {  // 仅main pot抽水
-                long potAfterRake = pot.getPotSize();
-                if (table.getConfig().getRakePercentage() > 0) {
-                    rakeAmount = Math.min(
-                        (long) (pot.getPotSize() * table.getConfig().getRakePercentage()),
-                        table.getConfig().getRakeMaxPerHand()
-                    );
-                    potAfterRake = pot.getPotSize() - rakeAmount;
-                }
+                long rakeAmount = RakeRule.of(table.getConfig()).rakeFor(pot.getPotSize(), hand.getCommunityCardCount() >= 3);
+                long potAfterRake = pot.getPotSize() - rakeAmount;
+                hand.setRake(rakeAmount);
                 distributions.add(new PotDistribution(winner, potAfterRake, 1, 
                     String.format("Main Pot Winner (after rake: %d)", rakeAmount)));
             } else {
@@ -208,16 +204,38 @@ public class PotManager {
      */
     public List<PotDistribution> distributeRunItTwice(Map<String, HandRank> hand1Ranks,
                                                       Map<String, HandRank> hand2Ranks) {
-        List<PotDistribution> distributions1 = distributePot(hand1Ranks);
-        List<PotDistribution> distributions2 = distributePot(hand2Ranks);
+        return distributeRunItTimes(List.of(hand1Ranks, hand2Ranks));
+    }
 
-        // 合并两次run的结果，平分底池
-        Map<String, Long> playerWinnings = new HashMap<>();
-        distributions1.forEach(d -> playerWinnings.merge(d.getPlayerId(), d.getAmount() / 2, Long::sum));
-        distributions2.forEach(d -> playerWinnings.merge(d.getPlayerId(), d.getAmount() / 2, Long::sum));
+    /**
+     * Run It N Times - 每个底池按次数等分，每次由该次最强牌赢取，零头不丢失（见 RunItSplitter）
+     *
+     * @param runRanks 每次run的牌型，下标即发牌序号
+     */
+    public List<PotDistribution> distributeRunItTimes(List<Map<String, HandRank>> runRanks) {
+        List<String> seatOrder = table.getActivePlayers().stream()
+            .sorted(Comparator.comparingInt(Player::getSeatNumber))
+            .map(Player::getPlayerId)
+            .collect(Collectors.toList());
+
+        Map<String, Long> playerWinnings = new LinkedHashMap<>();
+        for (Pot pot : hand.getPots()) {
+            long amount = pot.getPotSize();
+            if (pot.getPotSequence() == 0) {  // 仅main pot抽水
+                long rakeAmount = RakeRule.of(table.getConfig()).rakeFor(amount, true);
+                hand.setRake(rakeAmount);
+                amount -= rakeAmount;
+            }
+            List<String> eligible = seatOrder.stream()
+                .filter(pot.getEligiblePlayers()::contains)
+                .collect(Collectors.toList());
+            RunItSplitter.award(amount, runRanks, eligible)
+                .forEach((playerId, won) -> playerWinnings.merge(playerId, won, Long::sum));
+        }
 
+        String reason = String.format("Run It %d Times Result", runRanks.size());
         return playerWinnings.entrySet().stream()
-            .map(entry -> new PotDistribution(entry.getKey(), entry.getValue(), 1, "Run It Twice Result"))
+            .map(entry -> new PotDistribution(entry.getKey(), entry.getValue(), 1, reason))
             .collect(Collectors.toList());
     }
 
@@ -225,14 +243,8 @@ public class PotManager {
      * 最终结算 - 将筹码发给赢家，更新账户余额
      */
     public void settleHand(List<PotDistribution> distributions) {
-        for (PotDistribution dist : distributions) {
-            Player player = getPlayerById(dist.getPlayerId());
-            if (player != null) {
-                player.addStack(dist.getAmount());
-                log.info("Player {} won {} (Total stack now: {})", 
-                    dist.getPlayerId(), dist.getAmount(), player.getStackSize());
-            }
-        }
+        // 整手分配一次校验、一次入账
+        ChipLedger.settle(table.getPlayers().values(), distributions);
 
         // 持久化到数据库
         persistSettlement(distributions);
@@ -283,14 +295,4 @@ public class PotManager {
             default -> -1;
         };
     }
-
-    /**
-     * 根据ID获取玩家
-     */
-    private Player getPlayerById(String playerId) {
-        return table.getActivePlayers().stream()
-            .filter(p -> p.getPlayerId().equals(playerId))
-            .findFirst()
-            .orElse(null);
-    }
 }
@@ -0,0 +1,78 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.model.HandRank;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多次发牌（Run It N Times）的底池分配
+ *
+ * 每个底池先按发牌次数等分，除不尽的零头从第 1 次起每次多分 1；
+ * 每次发牌内部由该次最强牌的玩家平分，零头按座位顺序从第一个赢家起每人多分 1。
+ * 所有份额之和恒等于底池金额，不会因整数除法丢失筹码。
+ */
+public final class RunItSplitter {
+
+    private RunItSplitter() {
+    }
+
+    /**
+     * amount 分成 parts 份，前 amount % parts 份各多 1
+     */
+    public static long[] split(long amount, int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("parts must be positive: " + parts);
+        }
+        long[] shares = new long[parts];
+        long base = amount / parts;
+        long remainder = amount % parts;
+        for (int i = 0; i < parts; i++) {
+            shares[i] = base + (i < remainder ? 1 : 0);
+        }
+        return shares;
+    }
+
+    /**
+     * 分配一个底池
+     *
+     * @param amount              底池金额（已扣抽水）
+     * @param runRanks            每次发牌各玩家的牌型，下标即发牌序号
+     * @param eligibleInSeatOrder 有资格赢这个底池的玩家，按座位顺序
+     * @return 玩家 -> 赢得金额（按座位顺序）；某次发牌无人有牌型时该份不分配
+     */
+    public static Map<String, Long> award(long amount, List<Map<String, HandRank>> runRanks, List<String> eligibleInSeatOrder) {
+        Map<String, Long> won = new LinkedHashMap<>();
+        long[] runShares = split(amount, runRanks.size());
+        for (int run = 0; run < runShares.length; run++) {
+            Map<String, HandRank> ranks = runRanks.get(run);
+            List<String> winners = new ArrayList<>();
+            int bestRank = Integer.MAX_VALUE;
+            for (String playerId : eligibleInSeatOrder) {
+                HandRank rank = ranks.get(playerId);
+                if (rank == null) {
+                    continue;
+                }
+                if (rank.getRankValue() < bestRank) {
+                    bestRank = rank.getRankValue();
+                    winners.clear();
+                    winners.add(playerId);
+                } else if (rank.getRankValue() == bestRank) {
+                    winners.add(playerId);
+                }
+            }
+            if (winners.isEmpty()) {
+                continue;
+            }
+            long[] shares = split(runShares[run], winners.size());
+            for (int i = 0; i < winners.size(); i++) {
+                if (shares[i] > 0) {
+                    won.merge(winners.get(i), shares[i], Long::sum);
+                }
+            }
+        }
+        return won;
+    }
+}
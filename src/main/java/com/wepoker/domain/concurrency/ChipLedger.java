@@ -0,0 +1,69 @@
+package com.wepoker.domain.concurrency;
+
+import com.wepoker.domain.concurrency.ConcurrencyGuard.ThreadSafeStack;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PotDistribution;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一手牌的筹码结算
+ *
+ * 先合并同一玩家的多笔分配并整体校验（玩家在桌、金额非负、入账后不超过 ThreadSafeStack.MAX_CHIPS），
+ * 校验全部通过才逐笔入账（Player.addStack 为 CAS），不会出现只发了一部分奖池就抛异常的情况。
+ * 桌上筹码保存在 Player 上，不另设账户。
+ */
+@Slf4j
+public final class ChipLedger {
+
+    private ChipLedger() {
+    }
+
+    /**
+     * 把一手牌的分配批量发给桌上玩家（全部校验通过才入账）
+     *
+     * 由调用方保证同一张桌的结算串行执行（结算期间没有其他线程改这些玩家的筹码），入账前的校验结果才不会失效。
+     *
+     * @throws IllegalArgumentException 分配给不在桌上的玩家、金额为负或入账后筹码溢出
+     */
+    public static void settle(Collection<Player> seated, List<PotDistribution> distributions) {
+        Map<String, Long> credits = mergeCredits(distributions);
+        Map<String, Player> byId = new HashMap<>();
+        for (Player player : seated) {
+            byId.put(player.getPlayerId(), player);
+        }
+        for (Map.Entry<String, Long> credit : credits.entrySet()) {
+            Player player = byId.get(credit.getKey());
+            if (player == null) {
+                throw new IllegalArgumentException("Settlement to player not seated: " + credit.getKey());
+            }
+            if (credit.getValue() > ThreadSafeStack.MAX_CHIPS - player.getStackSize()) {
+                throw new IllegalArgumentException("Settlement overflows stack of " + credit.getKey() + ": " + credit.getValue());
+            }
+        }
+        for (Map.Entry<String, Long> credit : credits.entrySet()) {
+            Player player = byId.get(credit.getKey());
+            player.addStack(credit.getValue());
+            log.debug("Player {} won {} (Total stack now: {})",
+                credit.getKey(), credit.getValue(), player.getStackSize());
+        }
+    }
+
+    private static Map<String, Long> mergeCredits(List<PotDistribution> distributions) {
+        Map<String, Long> credits = new LinkedHashMap<>();
+        for (PotDistribution d : distributions) {
+            if (d.getAmount() < 0) {
+                throw new IllegalArgumentException("Negative distribution to " + d.getPlayerId() + ": " + d.getAmount());
+            }
+            if (d.getAmount() > 0) {
+                credits.merge(d.getPlayerId(), d.getAmount(), Math::addExact);
+            }
+        }
+        return credits;
+    }
+}
@@ -1,8 +1,17 @@
 package com.wepoker.domain.concurrency;
 
 import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -15,48 +24,57 @@ import java.util.concurrent.atomic.AtomicLong;
  * 3. 并发修改导致的不一致
  * 
  * 解决方案：
- * 1. 使用synchronized关键字（已在Player类中实现）
- * 2. 使用AtomicLong确保原子性
- * 3. 使用ReadWriteLock支持高并发读取
- * 4. 使用version字段实现乐观锁
+ * 1. Player 的筹码保存在 ThreadSafeStack 里，增减无锁；totalBetInPot 只由该手牌的唯一写线程（GameService 锁内）修改
+ * 2. ThreadSafeStack 把筹码数与版本号打包进一个 AtomicLong，读写均无锁
+ * 3. 版本号实现乐观锁
+ * 4. 一手牌的结算由 ChipLedger 批量校验后整体入账
  */
 @Slf4j
 public class ConcurrencyGuard {
 
     /**
-     * 玩家筹码的线程安全容器
+     * 玩家筹码的线程安全容器（无锁）
+     *
+     * 筹码数和版本号打包在同一个 AtomicLong 里：高 24 位为版本号，低 40 位为筹码数。
+     * 扣除/增加/乐观写都是对这一个字的 CAS，读不加锁，版本号随每次修改递增（回绕不影响比较）。
+     * Player 的筹码即保存在这里；CAS 循环内不打日志，失败由调用方处理。
      */
-    public static class ThreadSafeStack {
+    public static class ThreadSafeStack implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public static final int CHIP_BITS = 40;
+        public static final long MAX_CHIPS = (1L << CHIP_BITS) - 1;
+        private static final long VERSION_MASK = (1L << (Long.SIZE - CHIP_BITS)) - 1;
+
         private final String playerId;
-        private volatile long stackSize;
-        private final AtomicLong version = new AtomicLong(0);
-        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicLong word;
+
+        public ThreadSafeStack(long initialStack) {
+            this(null, initialStack);
+        }
 
         public ThreadSafeStack(String playerId, long initialStack) {
+            checkRange(initialStack);
             this.playerId = playerId;
-            this.stackSize = initialStack;
+            this.word = new AtomicLong(pack(0, initialStack));
         }
 
         /**
-         * 原子性地扣除筹码（使用write lock）
+         * 原子性地扣除筹码；余额不足返回 false 且不修改
          */
         public boolean deduct(long amount) {
-            lock.writeLock().lock();
-            try {
-                if (stackSize < amount) {
-                    log.error("Insufficient stack for player {}: {} < {}", 
-                        playerId, stackSize, amount);
+            if (amount < 0) {
+                throw new IllegalArgumentException("Cannot deduct negative amount");
+            }
+            while (true) {
+                long current = word.get();
+                long stack = chipsOf(current);
+                if (stack < amount) {
                     return false;
                 }
-                
-                stackSize -= amount;
-                version.incrementAndGet();
-                
-                log.debug("Deducted {} from player {}, remaining: {}", 
-                    amount, playerId, stackSize);
-                return true;
-            } finally {
-                lock.writeLock().unlock();
+                if (word.compareAndSet(current, pack(versionOf(current) + 1, stack - amount))) {
+                    return true;
+                }
             }
         }
 
@@ -64,129 +82,293 @@ public class ConcurrencyGuard {
          * 原子性地增加筹码
          */
         public void add(long amount) {
-            lock.writeLock().lock();
-            try {
-                if (amount < 0) {
-                    throw new IllegalArgumentException("Cannot add negative amount");
+            if (amount < 0) {
+                throw new IllegalArgumentException("Cannot add negative amount");
+            }
+            while (true) {
+                long current = word.get();
+                long stack = chipsOf(current);
+                if (amount > MAX_CHIPS - stack) {
+                    throw new ArithmeticException("Stack overflow for player " + playerId);
+                }
+                if (word.compareAndSet(current, pack(versionOf(current) + 1, stack + amount))) {
+                    return;
                 }
-                stackSize += amount;
-                version.incrementAndGet();
-                
-                log.debug("Added {} to player {}, total: {}", 
-                    amount, playerId, stackSize);
-            } finally {
-                lock.writeLock().unlock();
             }
         }
 
         /**
-         * 非阻塞读取筹码（使用read lock）
-         * 支持高并发读取
+         * 无条件设置筹码（入座、补码、离桌清零），版本号同样递增
          */
-        public long getStack() {
-            lock.readLock().lock();
-            try {
-                return stackSize;
-            } finally {
-                lock.readLock().unlock();
+        public void set(long newStack) {
+            checkRange(newStack);
+            while (true) {
+                long current = word.get();
+                if (word.compareAndSet(current, pack(versionOf(current) + 1, newStack))) {
+                    return;
+                }
             }
         }
 
+        /**
+         * 非阻塞读取筹码
+         */
+        public long getStack() {
+            return chipsOf(word.get());
+        }
+
         /**
          * 获取当前版本号（用于乐观锁）
          */
         public long getVersion() {
-            return version.get();
+            return versionOf(word.get());
         }
 
         /**
          * 比较并交换（CAS操作）- 用于乐观锁场景
          */
         public boolean compareAndSwap(long expectedVersion, long newStack) {
-            lock.writeLock().lock();
-            try {
-                if (version.get() != expectedVersion) {
-                    return false;
-                }
-                this.stackSize = newStack;
-                this.version.incrementAndGet();
-                return true;
-            } finally {
-                lock.writeLock().unlock();
+            checkRange(newStack);
+            long current = word.get();
+            if (versionOf(current) != (expectedVersion & VERSION_MASK)) {
+                return false;
             }
+            return word.compareAndSet(current, pack(versionOf(current) + 1, newStack));
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        private static void checkRange(long stack) {
+            if (stack < 0 || stack > MAX_CHIPS) {
+                throw new IllegalArgumentException("Stack out of range: " + stack);
+            }
+        }
+
+        private static long pack(long version, long chips) {
+            return ((version & VERSION_MASK) << CHIP_BITS) | chips;
+        }
+
+        private static long chipsOf(long word) {
+            return word & MAX_CHIPS;
+        }
+
+        private static long versionOf(long word) {
+            return word >>> CHIP_BITS;
         }
 
         @Override
         public String toString() {
+            long current = word.get();
             return String.format("Stack[player=%s, size=%d, version=%d]", 
-                playerId, getStack(), getVersion());
+                playerId, chipsOf(current), versionOf(current));
         }
     }
 
     /**
      * 交易日志 - 记录每一次筹码操作，用于审计和恢复
+     *
+     * 最近的 capacity 笔保存在定长环形缓冲里（时间戳、金额、余额是三个并行的 long[]），
+     * 写满时把最旧的一半批量追加到磁盘分段文件（spillFile），未配置文件时直接丢弃；
+     * 内存占用与累计笔数无关。金额累计和与滚动校验和随写入更新，verifyIntegrity 为 O(1)，
+     * 需要全量审计时 auditChecksum 会重读磁盘分段与内存部分重新计算。
+     *
+     * 分段记录格式：timestamp(8) amount(8) balanceAfter(8) txnId(UTF) reason(UTF)
      */
     @Slf4j
     public static class TransactionLog {
+        public static final int DEFAULT_CAPACITY = 1024;
+        private static final long CHECKSUM_SEED = 0xcbf29ce484222325L;
+        private static final long CHECKSUM_PRIME = 0x100000001b3L;
+
         private final String playerId;
-        private final List<Transaction> transactions = Collections.synchronizedList(new ArrayList<>());
-        private final AtomicLong balance = new AtomicLong(0);
+        private final Path spillFile;
+
+        private final long[] timestamps;
+        private final long[] amounts;
+        private final long[] balances;
+        private final String[] transactionIds;
+        private final String[] reasons;
+        private int head;      // 最旧一笔在环中的位置
+        private int size;      // 环中的笔数
+
+        private long balance;
+        private long amountSum;
+        private long checksum = CHECKSUM_SEED;
+        private long totalCount;
+        private long spilledCount;
+        private long droppedCount;
 
         public TransactionLog(String playerId, long initialBalance) {
+            this(playerId, initialBalance, DEFAULT_CAPACITY, null);
+        }
+
+        /**
+         * @param capacity 内存中保留的笔数（至少 2）
+         * @param spillFile 溢出分段文件，为 null 时溢出部分直接丢弃
+         */
+        public TransactionLog(String playerId, long initialBalance, int capacity, Path spillFile) {
+            if (capacity < 2) {
+                throw new IllegalArgumentException("capacity must be at least 2");
+            }
             this.playerId = playerId;
-            this.balance.set(initialBalance);
+            this.spillFile = spillFile;
+            this.balance = initialBalance;
+            this.timestamps = new long[capacity];
+            this.amounts = new long[capacity];
+            this.balances = new long[capacity];
+            this.transactionIds = new String[capacity];
+            this.reasons = new String[capacity];
         }
 
         /**
          * 记录一笔交易
          */
         public synchronized boolean recordTransaction(long amount, String reason, String txnId) {
-            long newBalance = balance.get() + amount;
+            long newBalance = balance + amount;
             
             if (newBalance < 0) {
                 log.error("Transaction would result in negative balance: {} + {} = {}", 
-                    balance.get(), amount, newBalance);
+                    balance, amount, newBalance);
                 return false;
             }
 
-            Transaction txn = new Transaction(
-                System.currentTimeMillis(),
-                txnId,
-                amount,
-                newBalance,
-                reason
-            );
-            
-            transactions.add(txn);
-            balance.set(newBalance);
+            if (size == timestamps.length) {
+                evictOldest(size / 2);
+            }
+            long timestamp = System.currentTimeMillis();
+            int slot = (head + size) % timestamps.length;
+            timestamps[slot] = timestamp;
+            amounts[slot] = amount;
+            balances[slot] = newBalance;
+            transactionIds[slot] = txnId;
+            reasons[slot] = reason;
+            size++;
+
+            balance = newBalance;
+            amountSum += amount;
+            checksum = mix(checksum, timestamp, amount, newBalance);
+            totalCount++;
             
-            log.info("Transaction recorded: {} -> {}", playerId, txn);
+            log.debug("Transaction recorded: {} -> {} {} balance={}", playerId, txnId, amount, newBalance);
             return true;
         }
 
         /**
-         * 获取交易历史
+         * 获取交易历史（仅内存中保留的最近部分，按时间顺序）
          */
-        public List<Transaction> getTransactionHistory() {
-            return new ArrayList<>(transactions);
+        public synchronized List<Transaction> getTransactionHistory() {
+            List<Transaction> history = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % timestamps.length;
+                history.add(new Transaction(timestamps[slot], transactionIds[slot],
+                    amounts[slot], balances[slot], reasons[slot]));
+            }
+            return history;
         }
 
         /**
-         * 验证金额一致性（用于审计）
+         * 验证金额一致性（用于审计）：全部交易金额之和是否等于期望值，O(1)
          */
-        public boolean verifyIntegrity(long expectedBalance) {
-            long calculatedBalance = transactions.stream()
-                .mapToLong(Transaction::getAmount)
-                .sum();
-            
-            boolean isConsistent = calculatedBalance == expectedBalance;
+        public synchronized boolean verifyIntegrity(long expectedBalance) {
+            boolean isConsistent = amountSum == expectedBalance;
             if (!isConsistent) {
                 log.warn("Balance inconsistency for player {}: calculated={}, expected={}", 
-                    playerId, calculatedBalance, expectedBalance);
+                    playerId, amountSum, expectedBalance);
             }
             return isConsistent;
         }
 
+        /**
+         * 全量审计：重读磁盘分段和内存部分，重新计算校验和并与滚动校验和比对
+         *
+         * 有交易被丢弃（未配置分段文件）时无法全量审计，返回 false。
+         */
+        public synchronized boolean auditChecksum() throws IOException {
+            if (droppedCount > 0) {
+                return false;
+            }
+            long recomputed = CHECKSUM_SEED;
+            long records = 0;
+            if (spillFile != null && spilledCount > 0) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+                    for (; records < spilledCount; records++) {
+                        long timestamp = in.readLong();
+                        long amount = in.readLong();
+                        long balanceAfter = in.readLong();
+                        in.readUTF();
+                        in.readUTF();
+                        recomputed = mix(recomputed, timestamp, amount, balanceAfter);
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % timestamps.length;
+                recomputed = mix(recomputed, timestamps[slot], amounts[slot], balances[slot]);
+            }
+            return recomputed == checksum;
+        }
+
+        public synchronized long getBalance() {
+            return balance;
+        }
+
+        public synchronized long getChecksum() {
+            return checksum;
+        }
+
+        public synchronized long getTotalCount() {
+            return totalCount;
+        }
+
+        public synchronized long getSpilledCount() {
+            return spilledCount;
+        }
+
+        public synchronized long getDroppedCount() {
+            return droppedCount;
+        }
+
+        /**
+         * 移出最旧的 n 笔：有分段文件则批量追加写入，否则丢弃
+         */
+        private void evictOldest(int n) {
+            if (spillFile != null) {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)))) {
+                    for (int i = 0; i < n; i++) {
+                        int slot = (head + i) % timestamps.length;
+                        out.writeLong(timestamps[slot]);
+                        out.writeLong(amounts[slot]);
+                        out.writeLong(balances[slot]);
+                        out.writeUTF(transactionIds[slot] == null ? "" : transactionIds[slot]);
+                        out.writeUTF(reasons[slot] == null ? "" : reasons[slot]);
+                    }
+                    spilledCount += n;
+                } catch (IOException e) {
+                    // 写盘失败不阻塞交易，按丢弃处理（审计会因此失败）
+                    log.error("Failed to spill transactions of player {} to {}", playerId, spillFile, e);
+                    droppedCount += n;
+                }
+            } else {
+                droppedCount += n;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = (head + i) % timestamps.length;
+                transactionIds[slot] = null;
+                reasons[slot] = null;
+            }
+            head = (head + n) % timestamps.length;
+            size -= n;
+        }
+
+        private static long mix(long hash, long timestamp, long amount, long balanceAfter) {
+            hash = (hash ^ timestamp) * CHECKSUM_PRIME;
+            hash = (hash ^ amount) * CHECKSUM_PRIME;
+            return (hash ^ balanceAfter) * CHECKSUM_PRIME;
+        }
+
         public static class Transaction {
             private final long timestamp;
             private final String transactionId;
@@ -203,8 +385,11 @@ public class ConcurrencyGuard {
                 this.reason = reason;
             }
 
+            public long getTimestamp() { return timestamp; }
+            public String getTransactionId() { return transactionId; }
             public long getAmount() { return amount; }
             public long getBalanceAfter() { return balanceAfter; }
+            public String getReason() { return reason; }
 
             @Override
             public String toString() {
@@ -216,54 +401,71 @@ public class ConcurrencyGuard {
 
     /**
      * 分布式锁（用于多个服务器间的同步）
-     * 理想情况下使用Redis或ZooKeeper实现
+     *
+     * 对 LeaseLockManager 的简单封装：一把锁对应一个 key，持有期间保存租约与 fencing token。
+     * 未指定实现时使用进程内共享的 InJvmLeaseLockManager；多节点部署传入 RedisLeaseLockManager
+     * （由 DistributedLockService 按配置创建）。
      */
     public static class DistributedLock {
+        private static final LeaseLockManager LOCAL = new InJvmLeaseLockManager();
+
         private final String lockKey;
-        private final long lockTimeout;  // 毫秒
-        private volatile boolean locked = false;
-        private long lockAcquireTime;
+        private final long lockTimeout;  // 租约时长（毫秒）
+        private final LeaseLockManager manager;
+        private volatile LockLease lease;
 
         public DistributedLock(String lockKey, long lockTimeout) {
+            this(lockKey, lockTimeout, LOCAL);
+        }
+
+        public DistributedLock(String lockKey, long lockTimeout, LeaseLockManager manager) {
             this.lockKey = lockKey;
             this.lockTimeout = lockTimeout;
+            this.manager = manager;
         }
 
         /**
-         * 尝试获取锁（非阻塞）
+         * 尝试获取锁（非阻塞）；租约过期的锁可被接管
          */
-        public synchronized boolean tryLock() {
-            if (locked) {
-                // 检查是否超时
-                if (System.currentTimeMillis() - lockAcquireTime > lockTimeout) {
-                    log.warn("Lock timeout for {}, force releasing", lockKey);
-                    locked = false;
-                } else {
-                    return false;
-                }
+        public boolean tryLock() {
+            LockLease acquired = manager.tryAcquire(lockKey, lockTimeout);
+            if (acquired == null) {
+                return false;
             }
-
-            locked = true;
-            lockAcquireTime = System.currentTimeMillis();
-            log.debug("Lock acquired: {}", lockKey);
+            lease = acquired;
+            log.debug("Lock acquired: {} (token {})", lockKey, acquired.fencingToken());
             return true;
         }
 
         /**
          * 释放锁
          */
-        public synchronized void unlock() {
-            if (locked) {
-                locked = false;
-                log.debug("Lock released: {}", lockKey);
+        public void unlock() {
+            LockLease held = lease;
+            if (held != null) {
+                lease = null;
+                if (manager.release(held)) {
+                    log.debug("Lock released: {}", lockKey);
+                } else {
+                    log.warn("Lock {} expired before release (token {})", lockKey, held.fencingToken());
+                }
             }
         }
 
         /**
-         * 检查锁是否已被获取
+         * 检查锁是否仍由本实例持有且未过期
          */
         public boolean isLocked() {
-            return locked;
+            LockLease held = lease;
+            return held != null && !held.isExpired(System.currentTimeMillis());
+        }
+
+        /**
+         * 当前租约的 fencing token，未持有时为 0
+         */
+        public long getFencingToken() {
+            LockLease held = lease;
+            return held == null ? 0 : held.fencingToken();
         }
     }
 
@@ -0,0 +1,37 @@
+package com.wepoker.domain.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 资源端的 fencing token 校验
+ *
+ * 记录每个 key 见过的最大 token，拒绝更小的 token（来自已失去租约的旧持有者）；
+ * 相同 token 可重复通过（同一租约内的多次写入）。
+ */
+public final class FencingTokenGuard {
+
+    private final Map<String, AtomicLong> highest = new ConcurrentHashMap<>();
+
+    /**
+     * @return token 不小于已见过的最大值时返回 true 并记录
+     */
+    public boolean admit(String key, long token) {
+        AtomicLong seen = highest.computeIfAbsent(key, k -> new AtomicLong());
+        while (true) {
+            long current = seen.get();
+            if (token < current) {
+                return false;
+            }
+            if (token == current || seen.compareAndSet(current, token)) {
+                return true;
+            }
+        }
+    }
+
+    public long highest(String key) {
+        AtomicLong seen = highest.get(key);
+        return seen == null ? 0 : seen.get();
+    }
+}
@@ -0,0 +1,65 @@
+package com.wepoker.domain.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * 单进程租约锁
+ *
+ * 每个 key 一个 AtomicReference<LockLease>：加锁是对 null（或已过期租约）的一次 CAS，
+ * 释放是把自己的租约 CAS 回 null，无竞争时不阻塞、不加锁。
+ * fencing token 取自全局递增计数，对每个 key 也是单调的。
+ * 每个用过的 key 保留一个空槽位，数量随桌数/玩家数而非加锁次数增长。
+ */
+public final class InJvmLeaseLockManager implements LeaseLockManager {
+
+    private final Map<String, AtomicReference<LockLease>> locks = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+    private final String owner;
+    private final LongSupplier clock;
+
+    public InJvmLeaseLockManager() {
+        this("jvm", System::currentTimeMillis);
+    }
+
+    public InJvmLeaseLockManager(String owner, LongSupplier clock) {
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    @Override
+    public LockLease tryAcquire(String key, long leaseMillis) {
+        AtomicReference<LockLease> slot = locks.computeIfAbsent(key, k -> new AtomicReference<>());
+        while (true) {
+            LockLease current = slot.get();
+            long now = clock.getAsLong();
+            if (current != null && !current.isExpired(now)) {
+                return null;
+            }
+            LockLease next = new LockLease(key, owner, tokens.incrementAndGet(), now + leaseMillis);
+            if (slot.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public boolean release(LockLease lease) {
+        AtomicReference<LockLease> slot = locks.get(lease.key());
+        return slot != null && slot.compareAndSet(lease, null) && !lease.isExpired(clock.getAsLong());
+    }
+
+    @Override
+    public LockLease renew(LockLease lease, long leaseMillis) {
+        AtomicReference<LockLease> slot = locks.get(lease.key());
+        long now = clock.getAsLong();
+        if (slot == null || lease.isExpired(now)) {
+            return null;
+        }
+        LockLease renewed = new LockLease(lease.key(), lease.owner(), lease.fencingToken(), now + leaseMillis);
+        return slot.compareAndSet(lease, renewed) ? renewed : null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.wepoker.domain.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于租约的互斥锁
+ *
+ * 锁在 leaseMillis 后自动失效，持有方需要在到期前 renew；每次加锁得到一个单调递增的 fencing token。
+ * 实现：InJvmLeaseLockManager（单进程）、RedisLeaseLockManager（多节点）。
+ */
+public interface LeaseLockManager {
+
+    /**
+     * 尝试加锁，不等待
+     *
+     * @return 租约；锁被他人持有时返回 null
+     */
+    LockLease tryAcquire(String key, long leaseMillis);
+
+    /**
+     * 释放租约；租约已过期或已被他人接管时返回 false
+     */
+    boolean release(LockLease lease);
+
+    /**
+     * 续租，token 不变
+     *
+     * @return 新的租约；原租约已失效时返回 null
+     */
+    LockLease renew(LockLease lease, long leaseMillis);
+
+    /**
+     * 加锁，最多等待 waitMillis（退避重试，从 1ms 逐步加倍到 50ms）
+     *
+     * @return 租约；超时返回 null
+     */
+    default LockLease acquire(String key, long leaseMillis, long waitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        long backoffNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        while (true) {
+            LockLease lease = tryAcquire(key, leaseMillis);
+            if (lease != null) {
+                return lease;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            LockSupport.parkNanos(Math.min(backoffNanos, remaining));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            backoffNanos = Math.min(backoffNanos * 2, TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.wepoker.domain.concurrency;
+
+/**
+ * 一次成功加锁得到的租约
+ *
+ * fencingToken 对同一个 key 单调递增：持有方在写入受保护资源时带上它，
+ * 资源端拒绝比已见过的更小的 token（见 FencingTokenGuard），
+ * 这样租约过期后仍在运行的旧持有者（GC 停顿、网络分区）无法覆盖新持有者的写入。
+ */
+public record LockLease(String key, String owner, long fencingToken, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,151 @@
+package com.wepoker.domain.concurrency;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于 Redis 的多节点租约锁
+ *
+ * Redis 中每把锁两个 key：{prefix}{key} 存 "owner:token"（带 PX 过期），{prefix}{key}:fence 是 INCR 计数器。
+ * 加锁、释放、续租各是一段 Lua 脚本，保证"比较后修改"在 Redis 端原子执行；
+ * token 由 fence 计数器给出，对每个 key 跨节点单调递增，锁过期也不会回退。
+ *
+ * 本节点已持有未过期租约的 key 直接返回 null，不发起网络请求，
+ * 同一进程内对同一张桌的竞争在本地就被挡住，只有真正可能成功的请求才到 Redis。
+ * 多个 Redis 节点的 Redlock 不在此实现范围内，依赖单主（或主从）Redis。
+ */
+public final class RedisLeaseLockManager implements LeaseLockManager {
+
+    static final String ACQUIRE_SCRIPT =
+        "if redis.call('exists', KEYS[1]) == 1 then return 0 end "
+        + "local token = redis.call('incr', KEYS[2]) "
+        + "redis.call('set', KEYS[1], ARGV[1] .. ':' .. token, 'PX', ARGV[2]) "
+        + "return token";
+
+    static final String RELEASE_SCRIPT =
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end "
+        + "return 0";
+
+    static final String RENEW_SCRIPT =
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+        + "return 0";
+
+    /**
+     * 锁用到的 Redis 原子操作，便于用本地替身测试
+     */
+    public interface RedisOps {
+
+        /**
+         * 锁空闲时写入 "owner:token" 并设置过期
+         *
+         * @return 新 token；锁被占用返回 0
+         */
+        long acquire(String lockKey, String fenceKey, String owner, long leaseMillis);
+
+        /**
+         * 值等于 value 时删除
+         */
+        boolean release(String lockKey, String value);
+
+        /**
+         * 值等于 value 时重设过期时间
+         */
+        boolean renew(String lockKey, String value, long leaseMillis);
+    }
+
+    private final RedisOps redis;
+    private final String keyPrefix;
+    private final String owner;
+    private final LongSupplier clock;
+
+    // 本节点持有的租约，用于本地快速拒绝
+    private final Map<String, LockLease> localLeases = new ConcurrentHashMap<>();
+
+    public RedisLeaseLockManager(RedisOps redis, String keyPrefix, String owner, LongSupplier clock) {
+        this.redis = redis;
+        this.keyPrefix = keyPrefix;
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    @Override
+    public LockLease tryAcquire(String key, long leaseMillis) {
+        long now = clock.getAsLong();
+        LockLease local = localLeases.get(key);
+        if (local != null) {
+            if (!local.isExpired(now)) {
+                return null;
+            }
+            localLeases.remove(key, local);
+        }
+
+        long token = redis.acquire(keyPrefix + key, keyPrefix + key + ":fence", owner, leaseMillis);
+        if (token <= 0) {
+            return null;
+        }
+        LockLease lease = new LockLease(key, owner, token, now + leaseMillis);
+        localLeases.put(key, lease);
+        return lease;
+    }
+
+    @Override
+    public boolean release(LockLease lease) {
+        localLeases.remove(lease.key(), lease);
+        return redis.release(keyPrefix + lease.key(), value(lease));
+    }
+
+    @Override
+    public LockLease renew(LockLease lease, long leaseMillis) {
+        long now = clock.getAsLong();
+        if (!redis.renew(keyPrefix + lease.key(), value(lease), leaseMillis)) {
+            localLeases.remove(lease.key(), lease);
+            return null;
+        }
+        LockLease renewed = new LockLease(lease.key(), lease.owner(), lease.fencingToken(), now + leaseMillis);
+        localLeases.replace(lease.key(), lease, renewed);
+        return renewed;
+    }
+
+    private static String value(LockLease lease) {
+        return lease.owner() + ":" + lease.fencingToken();
+    }
+
+    /**
+     * Jedis 连接池实现
+     */
+    public static final class JedisRedisOps implements RedisOps {
+
+        private final JedisPool pool;
+
+        public JedisRedisOps(JedisPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public long acquire(String lockKey, String fenceKey, String owner, long leaseMillis) {
+            try (Jedis jedis = pool.getResource()) {
+                Object result = jedis.eval(ACQUIRE_SCRIPT, List.of(lockKey, fenceKey), List.of(owner, String.valueOf(leaseMillis)));
+                return result instanceof Long token ? token : 0;
+            }
+        }
+
+        @Override
+        public boolean release(String lockKey, String value) {
+            try (Jedis jedis = pool.getResource()) {
+                return Long.valueOf(1).equals(jedis.eval(RELEASE_SCRIPT, List.of(lockKey), List.of(value)));
+            }
+        }
+
+        @Override
+        public boolean renew(String lockKey, String value, long leaseMillis) {
+            try (Jedis jedis = pool.getResource()) {
+                return Long.valueOf(1).equals(jedis.eval(RENEW_SCRIPT, List.of(lockKey), List.of(value, String.valueOf(leaseMillis))));
+            }
+        }
+    }
+}
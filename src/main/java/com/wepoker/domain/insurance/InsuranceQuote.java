@@ -0,0 +1,47 @@
+package com.wepoker.domain.insurance;
+
+import com.wepoker.domain.model.Card;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一手牌的保险报价及购买状态
+ *
+ * @param leaderId        可购买保险的领先者
+ * @param equities        各玩家胜率（平分按份额计）
+ * @param boardCount      报价时已发公共牌数
+ * @param outs            只差河牌时让领先者输掉的牌；翻牌全下时为空（按两张牌组合计算概率）
+ * @param loseProbability 领先者没有赢下的概率（平分不算）
+ * @param oddsPercent     赔率百分比，450 表示 1 赔 4.5
+ * @param maxCoverage     最大赔付额（领先者独赢时可收取的底池）
+ * @param maxPremium      最大保费，保费 x 赔率不超过 maxCoverage
+ */
+public record InsuranceQuote(String leaderId, Map<String, Double> equities, int boardCount, List<Card> outs,
+                             double loseProbability, int oddsPercent, long maxCoverage, long maxPremium) implements Serializable {
+
+    public double odds() {
+        return oddsPercent / 100.0;
+    }
+
+    /**
+     * 保费对应的全额赔付
+     */
+    public long coverageFor(long premium) {
+        return Math.min(premium * oddsPercent / 100, maxCoverage);
+    }
+
+    /**
+     * 多次发牌时按输掉的次数比例赔付
+     *
+     * @param lostRuns 领先者没有赢下的发牌次数
+     * @param runs     发牌总次数
+     */
+    public long payoutFor(long premium, int lostRuns, int runs) {
+        if (premium <= 0 || lostRuns <= 0 || runs <= 0) {
+            return 0;
+        }
+        return coverageFor(premium) * Math.min(lostRuns, runs) / runs;
+    }
+}
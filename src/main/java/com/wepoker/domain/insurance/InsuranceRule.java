@@ -0,0 +1,85 @@
+package com.wepoker.domain.insurance;
+
+import com.wepoker.domain.algorithm.AllInEquity;
+import com.wepoker.domain.model.Card;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全下保险报价规则
+ *
+ * 全下后（不再有下注）由领先者（胜率最高的玩家）购买：保费 x 赔率为赔付额，
+ * 领先者最终没有赢下（平分不算输）时由庄家赔付。输的概率由剩余牌穷举精确得到，
+ * 赔率 = 公平赔率 (1-p)/p 扣除庄家优势 margin，按 0.01 向下取整并封顶 maxOdds；
+ * 赔率不足 1 倍（领先优势不明显）、领先者必胜或需要抽样（翻牌前全下）时不报价。
+ */
+public record InsuranceRule(double margin, double maxOdds) {
+
+    private static final int PERCENT = 100;
+
+    public InsuranceRule {
+        if (margin < 0 || margin >= 1) {
+            throw new IllegalArgumentException("insurance margin must be in [0, 1): " + margin);
+        }
+        if (maxOdds < 1) {
+            throw new IllegalArgumentException("insurance maxOdds must be at least 1: " + maxOdds);
+        }
+    }
+
+    /**
+     * 计算报价
+     *
+     * @param playerIds    仍在手牌中的玩家，与 holes 一一对应
+     * @param holes        各玩家底牌
+     * @param board        已发公共牌（3 或 4 张）
+     * @param potByPlayer  玩家 -> 其独赢时可收取的底池（有资格争夺的各池之和），即最大保额
+     * @return 不提供保险时返回 null
+     */
+    public InsuranceQuote quote(List<String> playerIds, List<Card[]> holes, Card[] board, Map<String, Long> potByPlayer) {
+        if (board == null || (board.length != 3 && board.length != 4) || playerIds.size() < 2) {
+            return null;
+        }
+        AllInEquity.Result equity = AllInEquity.calculate(holes, board);
+        if (!equity.exact()) {
+            return null;
+        }
+        int leader = 0;
+        Map<String, Double> equities = new LinkedHashMap<>();
+        for (int p = 0; p < playerIds.size(); p++) {
+            equities.put(playerIds.get(p), equity.equity(p));
+            if (equity.equity(p) > equity.equity(leader)) {
+                leader = p;
+            }
+        }
+        double lose = Math.max(0, 1 - equity.win()[leader] - equity.chop()[leader]);
+        if (lose <= 0) {
+            return null;
+        }
+        int oddsPercent = oddsPercent(lose);
+        String leaderId = playerIds.get(leader);
+        long coverage = potByPlayer.getOrDefault(leaderId, 0L);
+        if (oddsPercent < PERCENT || coverage <= 0) {
+            return null;
+        }
+        List<Card> outs = board.length == 4
+            ? AllInEquity.outsAgainst(holes, board, leader)
+            : Collections.emptyList();
+        return new InsuranceQuote(leaderId, equities, board.length, outs, lose, oddsPercent,
+            coverage, coverage * PERCENT / oddsPercent);
+    }
+
+    /**
+     * 扣除庄家优势后的赔率（百分比整数，450 表示 1 赔 4.5）
+     */
+    public int oddsPercent(double loseProbability) {
+        if (loseProbability <= 0 || loseProbability >= 1) {
+            return 0;
+        }
+        double fair = (1 - loseProbability) / loseProbability;
+        double odds = Math.min(fair * (1 - margin), maxOdds);
+        return (int) Math.floor(odds * PERCENT + 1e-9);
+    }
+}
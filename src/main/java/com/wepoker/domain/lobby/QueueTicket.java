@@ -0,0 +1,66 @@
+package com.wepoker.domain.lobby;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 快速入座排队凭证
+ *
+ * 状态由 transition 做比较并设置：分配前先 QUEUED -> SEATED 占位，入座失败再退回 QUEUED 或置为 FAILED，
+ * 保证玩家取消与批量分配不会同时生效。
+ */
+@Getter
+@ToString
+public class QueueTicket {
+
+    public enum Status {
+        QUEUED,
+        SEATED,
+        CANCELLED,
+        EXPIRED,
+        FAILED
+    }
+
+    private final String playerId;
+    private final String nickname;
+    private final long buyIn;
+    private final StakeLevel stake;
+    private final long enqueuedAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int tableId = -1;
+    private volatile int seatNumber = -1;
+    private volatile long resolvedAt;
+    private volatile String message;
+
+    public QueueTicket(String playerId, String nickname, long buyIn, StakeLevel stake) {
+        this.playerId = playerId;
+        this.nickname = nickname;
+        this.buyIn = buyIn;
+        this.stake = stake;
+        this.enqueuedAt = System.currentTimeMillis();
+    }
+
+    public synchronized boolean transition(Status expected, Status target) {
+        if (status != expected) {
+            return false;
+        }
+        status = target;
+        resolvedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public boolean isQueued() {
+        return status == Status.QUEUED;
+    }
+
+    public void seatedAt(int tableId, int seatNumber) {
+        this.tableId = tableId;
+        this.seatNumber = seatNumber;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        transition(Status.SEATED, Status.FAILED);
+    }
+}
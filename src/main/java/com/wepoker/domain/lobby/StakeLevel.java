@@ -0,0 +1,18 @@
+package com.wepoker.domain.lobby;
+
+/**
+ * 盲注级别（大厅索引的一级键），先按大盲再按小盲排序
+ */
+public record StakeLevel(long smallBlind, long bigBlind) implements Comparable<StakeLevel> {
+
+    @Override
+    public int compareTo(StakeLevel o) {
+        int c = Long.compare(bigBlind, o.bigBlind);
+        return c != 0 ? c : Long.compare(smallBlind, o.smallBlind);
+    }
+
+    @Override
+    public String toString() {
+        return smallBlind + "/" + bigBlind;
+    }
+}
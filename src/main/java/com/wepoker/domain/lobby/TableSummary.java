@@ -0,0 +1,35 @@
+package com.wepoker.domain.lobby;
+
+import java.util.Comparator;
+
+/**
+ * 大厅中的房间摘要（不可变快照，替代整张 Table 对象图返回给客户端）
+ *
+ * @param seatedPlayers 未离席的玩家数
+ * @param freeSeats     可分配的空座位数（与 Table.allocateSeat 一致，离席但未清理的座位不算空）
+ * @param averagePot    最近手牌底池的指数滑动平均
+ */
+public record TableSummary(
+    int tableId,
+    String tableName,
+    long smallBlind,
+    long bigBlind,
+    int maxPlayers,
+    int seatedPlayers,
+    int freeSeats,
+    long averagePot,
+    long handsPlayed
+) {
+
+    /**
+     * 入座优先级：优先把人凑进快满的桌（空位少的在前），其次底池大的，最后按桌号
+     */
+    public static final Comparator<TableSummary> SEAT_PRIORITY = Comparator
+        .comparingInt(TableSummary::freeSeats)
+        .thenComparing(Comparator.comparingLong(TableSummary::averagePot).reversed())
+        .thenComparingInt(TableSummary::tableId);
+
+    public StakeLevel stake() {
+        return new StakeLevel(smallBlind, bigBlind);
+    }
+}
@@ -0,0 +1,46 @@
+package com.wepoker.domain.lobby;
+
+import com.wepoker.domain.model.TableConfig;
+import lombok.Data;
+
+/**
+ * 现金桌模板（application.yml 中 game.table.templates）
+ */
+@Data
+public class TableTemplate {
+    private String name;
+    private long smallBlind;
+    private long bigBlind;
+    private long minBuyIn;
+    private long maxBuyIn;
+    private double rake;
+    private long rakeMax;
+    private boolean noFlopNoDrop = true;
+    private boolean runItTwiceAllowed;
+    private boolean insuranceAllowed;
+    private int maxPlayers = 6;
+
+    public StakeLevel stake() {
+        return new StakeLevel(smallBlind, bigBlind);
+    }
+
+    /**
+     * 按模板生成一份新的房间配置
+     */
+    public TableConfig toTableConfig(int tableId) {
+        TableConfig cfg = new TableConfig();
+        cfg.setTableId(tableId);
+        cfg.setTableName(name + " #" + tableId);
+        cfg.setMaxPlayers(maxPlayers);
+        cfg.setSmallBlindAmount(smallBlind);
+        cfg.setBigBlindAmount(bigBlind);
+        cfg.setMinBuyIn(minBuyIn);
+        cfg.setMaxBuyIn(maxBuyIn);
+        cfg.setRakePercentage(rake);
+        cfg.setRakeMaxPerHand(rakeMax);
+        cfg.setNoFlopNoDrop(noFlopNoDrop);
+        cfg.setRunItTwiceAllowed(runItTwiceAllowed);
+        cfg.setInsuranceAllowed(insuranceAllowed);
+        return cfg;
+    }
+}
@@ -37,6 +37,39 @@ public class Card implements Serializable {
         return of(Suit.values()[suitValue], Rank.fromValue(rankValue));
     }
 
+    /**
+     * 解析 "As"、"Td"、"10h"、"K♠" 形式的牌面（点数在前，花色 s/h/d/c 或符号在后，大小写不敏感）
+     */
+    public static Card parse(String text) {
+        if (text == null || text.trim().length() < 2) {
+            throw new IllegalArgumentException("Invalid card: " + text);
+        }
+        String s = text.trim();
+        String rankPart = s.substring(0, s.length() - 1).toUpperCase();
+        String suitPart = s.substring(s.length() - 1);
+        if ("10".equals(rankPart)) {
+            rankPart = "T";
+        }
+        Rank rank = null;
+        for (Rank r : Rank.values()) {
+            if (r.getSymbol().equals(rankPart)) {
+                rank = r;
+                break;
+            }
+        }
+        Suit suit = switch (suitPart.toLowerCase()) {
+            case "s", "♠" -> Suit.SPADE;
+            case "h", "♥" -> Suit.HEART;
+            case "d", "♦" -> Suit.DIAMOND;
+            case "c", "♣" -> Suit.CLUB;
+            default -> null;
+        };
+        if (rank == null || suit == null) {
+            throw new IllegalArgumentException("Invalid card: " + text);
+        }
+        return of(suit, rank);
+    }
+
     public String toShortString() {
         return rank.getSymbol() + suit.getSymbol();
     }
@@ -1,5 +1,6 @@
 package com.wepoker.domain.model;
 
+import com.wepoker.domain.insurance.InsuranceQuote;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -32,15 +33,25 @@ public class Hand implements Serializable {
     private int smallBlindSeatNumber;
     private int bigBlindSeatNumber;
     private int buttonSeatNumber;
+    private long smallBlindAmount;
+    private long bigBlindAmount;
+
+    private List<HandSeat> seats;          // 开局座位快照（按座位顺序）
 
     private long totalPotSize;
+    private long rake;                     // 本手抽水（已从底池扣除）
     private List<Pot> pots;
 
     private Map<String, HandRank> playerRanks;
     private List<PotDistribution> distributions;
 
     private boolean isRunItTwice;
-    private List<Card[]> alternativeCommunityCards;
+    private List<Card[]> alternativeCommunityCards;   // 多次发牌时第 2..N 套公共牌
+    private int allInBoardCount = -1;      // 全下（不再有下注）时已发的公共牌数，-1 表示未出现
+
+    private InsuranceQuote insuranceQuote; // 全下时给领先者的保险报价，未报价为 null
+    private long insurancePremium;         // 领先者购买的保费（结算时从其筹码扣除）
+    private long insurancePayout;          // 结算时的保险赔付
 
     private List<PlayerAction> actionHistory;
 
@@ -50,6 +61,7 @@ public class Hand implements Serializable {
         this.distributions = new ArrayList<>();
         this.pots = new ArrayList<>();
         this.actionHistory = new ArrayList<>();
+        this.seats = new ArrayList<>();
         this.communityCards = new Card[5];
         this.communityCardCount = 0;
     }
@@ -0,0 +1,24 @@
+package com.wepoker.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 一手牌开始时的座位快照（用于牌局历史）
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class HandSeat implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String playerId;
+    private String nickname;
+    private int seatNumber;
+    private long startingStack;
+}
@@ -1,5 +1,7 @@
 package com.wepoker.domain.model;
 
+import com.wepoker.domain.concurrency.ConcurrencyGuard.ThreadSafeStack;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -11,6 +13,10 @@ import java.time.LocalDateTime;
 
 /**
  * 玩家主要类
+ *
+ * 筹码保存在 ThreadSafeStack 里（筹码数与版本号打包在一个 AtomicLong 中），扣除、增加都是 CAS，不加锁。
+ * deductStack 另外累加 totalBetInPot：它只在该手牌的唯一写线程上调用（GameService 锁内的下注/盲注），
+ * 两个字段不需要一起做原子更新；其他线程只会无锁读取筹码。
  */
 @Getter
 @Setter
@@ -26,7 +32,10 @@ public class Player implements Serializable {
     private long accountBalance;
     private LocalDateTime joinTime;
 
-    private long stackSize;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final ThreadSafeStack chips = new ThreadSafeStack(0);
     private PlayerStatus status;
     private boolean isSmallBlind;
     private boolean isBigBlind;
@@ -60,20 +69,35 @@ public class Player implements Serializable {
         return status == PlayerStatus.ALL_IN;
     }
 
-    public synchronized void deductStack(long amount) {
-        if (stackSize < amount) {
+    /**
+     * 下注扣筹码并计入本手投入；只能由该手牌的写线程调用
+     */
+    public void deductStack(long amount) {
+        if (!chips.deduct(amount)) {
             throw new IllegalArgumentException(
-                String.format("Insufficient stack: %d < %d for player %s", stackSize, amount, playerId));
+                String.format("Insufficient stack: %d < %d for player %s", chips.getStack(), amount, playerId));
         }
-        this.stackSize -= amount;
         this.totalBetInPot += amount;
     }
 
-    public synchronized void addStack(long amount) {
-        if (amount < 0) {
-            throw new IllegalArgumentException("Cannot add negative amount");
-        }
-        this.stackSize += amount;
+    public void addStack(long amount) {
+        chips.add(amount);
+    }
+
+    @ToString.Include(name = "stackSize")
+    public long getStackSize() {
+        return chips.getStack();
+    }
+
+    public void setStackSize(long stackSize) {
+        chips.set(stackSize);
+    }
+
+    /**
+     * 筹码版本号，每次增减递增（乐观校验用）
+     */
+    public long getStackVersion() {
+        return chips.getVersion();
     }
 
     public void resetForNewHand() {
@@ -106,12 +130,27 @@ public class Player implements Serializable {
         return playerId == null ? null : Long.parseLong(playerId);
     }
 
+    /**
+     * 外部字符串 ID 到数值玩家编号的映射：数字 ID 原样解析，其余取 hashCode 的绝对值，null 为 0。
+     * 入座、统计、风控日志等需要数值编号的地方都必须用这一个映射，才能对上同一个玩家。
+     */
+    public static long numericId(String playerId) {
+        if (playerId == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(playerId);
+        } catch (NumberFormatException e) {
+            return Math.abs((long) playerId.hashCode());
+        }
+    }
+
     public void setStack(long stack) {
-        this.stackSize = stack;
+        setStackSize(stack);
     }
 
     public long getStack() {
-        return this.stackSize;
+        return getStackSize();
     }
 
     public void setSeat(int seat) {
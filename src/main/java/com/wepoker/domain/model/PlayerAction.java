@@ -20,4 +20,5 @@ public class PlayerAction implements Serializable {
     private long amount;
     private String street;
     private long betAmount;
+    private String playerId;
 }
@@ -29,8 +29,11 @@ public class TableConfig implements Serializable {
     private long maxBuyIn;
     private double rakePercentage;
     private long rakeMaxPerHand;
+    private boolean noFlopNoDrop = true;   // 未发翻牌结束的手牌不抽水
     private int timeToAct;
     private int timeBank;
     private boolean runItTwiceAllowed;
+    private boolean insuranceAllowed;      // 全下后向领先者提供保险
+    private boolean tournament;            // 锦标赛桌：筹码不来自钱包，不能买入、补码，离桌也不兑现
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,167 @@
+package com.wepoker.domain.rake;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按桌累计抽水
+ *
+ * 结算线程只对 LongAdder 做加法，不加 RakeAccumulator 锁；落库线程定期 drain，取每张桌自上次 drain 以来的增量，
+ * 一张桌一个时间窗口一行汇总，而不是每手一条记录。
+ * drain 记录已取走的累计值（而不是 sumThenReset），并发的加法不会丢失，只会落到下一个窗口。
+ * 桌子解散后计数器标记为 retired，等最后几手落库后由 drain 移除；记账与移除都在该桌的 map 桶锁内，不会记到已移除的计数器上。
+ */
+public final class RakeAccumulator {
+
+    /**
+     * 一张桌在一个时间窗口内的抽水汇总
+     */
+    public record RakeSummary(long tableId, long hands, long rakedHands, long potTotal, long rake,
+                              long windowStartMillis, long windowEndMillis) {
+    }
+
+    private static final class TableRake {
+        final LongAdder hands = new LongAdder();
+        final LongAdder rakedHands = new LongAdder();
+        final LongAdder potTotal = new LongAdder();
+        final LongAdder rake = new LongAdder();
+
+        // 桶锁内读写
+        boolean retired;
+
+        // 以下仅由 drain 访问（持有 RakeAccumulator 锁）
+        long drainedHands;
+        long drainedRakedHands;
+        long drainedPotTotal;
+        long drainedRake;
+    }
+
+    private final Map<Long, TableRake> tables = new ConcurrentHashMap<>();
+    private long windowStartMillis;
+
+    public RakeAccumulator(long nowMillis) {
+        this.windowStartMillis = nowMillis;
+    }
+
+    /**
+     * 记一手牌的抽水（抽水为 0 的手牌也计入手数）
+     */
+    public void record(long tableId, long potTotal, long rake) {
+        tables.compute(tableId, (id, t) -> {
+            if (t == null) {
+                t = new TableRake();
+            }
+            // 同一 tableId 重新开桌
+            t.retired = false;
+            t.hands.increment();
+            t.potTotal.add(potTotal);
+            if (rake > 0) {
+                t.rakedHands.increment();
+                t.rake.add(rake);
+            }
+            return t;
+        });
+    }
+
+    /**
+     * 累计抽水（含未 drain 部分）
+     */
+    public long totalRake(long tableId) {
+        TableRake t = tables.get(tableId);
+        return t == null ? 0 : t.rake.sum();
+    }
+
+    public long totalRake() {
+        long sum = 0;
+        for (TableRake t : tables.values()) {
+            sum += t.rake.sum();
+        }
+        return sum;
+    }
+
+    public int tableCount() {
+        return tables.size();
+    }
+
+    /**
+     * 取出自上次 drain 以来每张桌的增量，没有新手牌的桌不返回。
+     * 已 retired 且上次取走的增量没有被 restore 的桌在这里移除
+     */
+    public synchronized List<RakeSummary> drain(long nowMillis) {
+        List<RakeSummary> summaries = new ArrayList<>();
+        for (Map.Entry<Long, TableRake> e : tables.entrySet()) {
+            TableRake t = e.getValue();
+            long hands = t.hands.sum();
+            if (hands == t.drainedHands) {
+                tables.computeIfPresent(e.getKey(),
+                    (id, cur) -> cur.retired && cur.hands.sum() == cur.drainedHands ? null : cur);
+                continue;
+            }
+            long rakedHands = t.rakedHands.sum();
+            long potTotal = t.potTotal.sum();
+            long rake = t.rake.sum();
+            summaries.add(new RakeSummary(e.getKey(),
+                hands - t.drainedHands,
+                rakedHands - t.drainedRakedHands,
+                potTotal - t.drainedPotTotal,
+                rake - t.drainedRake,
+                windowStartMillis, nowMillis));
+            t.drainedHands = hands;
+            t.drainedRakedHands = rakedHands;
+            t.drainedPotTotal = potTotal;
+            t.drainedRake = rake;
+        }
+        windowStartMillis = nowMillis;
+        return summaries;
+    }
+
+    /**
+     * 落库失败：回退已取走的增量，下次 drain 重新返回。
+     * 计数器已被移除（期间另一次 drain 移除了 retired 的桌）时重建一个 retired 的计数器承接这部分增量
+     */
+    public synchronized void restore(List<RakeSummary> summaries) {
+        for (RakeSummary s : summaries) {
+            TableRake t = tables.computeIfAbsent(s.tableId(), id -> {
+                TableRake fresh = new TableRake();
+                fresh.retired = true;
+                fresh.hands.add(s.hands());
+                fresh.rakedHands.add(s.rakedHands());
+                fresh.potTotal.add(s.potTotal());
+                fresh.rake.add(s.rake());
+                fresh.drainedHands = s.hands();
+                fresh.drainedRakedHands = s.rakedHands();
+                fresh.drainedPotTotal = s.potTotal();
+                fresh.drainedRake = s.rake();
+                return fresh;
+            });
+            t.drainedHands -= s.hands();
+            t.drainedRakedHands -= s.rakedHands();
+            t.drainedPotTotal -= s.potTotal();
+            t.drainedRake -= s.rake();
+        }
+        if (!summaries.isEmpty()) {
+            windowStartMillis = Math.min(windowStartMillis, summaries.get(0).windowStartMillis());
+        }
+    }
+
+    /**
+     * 桌子解散：已全部 drain 的计数器立即移除，否则标记 retired，等剩余手牌 drain 并落库后由 drain 移除
+     *
+     * @return 是否已立即移除
+     */
+    public synchronized boolean retire(long tableId) {
+        boolean[] removed = new boolean[1];
+        tables.computeIfPresent(tableId, (id, t) -> {
+            if (t.hands.sum() == t.drainedHands) {
+                removed[0] = true;
+                return null;
+            }
+            t.retired = true;
+            return t;
+        });
+        return removed[0];
+    }
+}
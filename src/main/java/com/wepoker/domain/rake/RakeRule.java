@@ -0,0 +1,74 @@
+package com.wepoker.domain.rake;
+
+import com.wepoker.domain.model.TableConfig;
+
+/**
+ * 抽水规则：按比例抽取，单手封顶，可选"不见翻牌不抽水"（no flop, no drop）
+ *
+ * 比例换算成万分比后用整数计算，避免 double 乘法在整额底池上少抽 1。
+ * 只对有两人以上投入的底池部分抽水，无人跟注而退回的下注不计入。
+ */
+public record RakeRule(double percentage, long capPerHand, boolean noFlopNoDrop) {
+
+    public static final RakeRule NONE = new RakeRule(0, 0, true);
+
+    private static final long BASIS_POINTS = 10_000;
+
+    public RakeRule {
+        if (percentage < 0 || percentage >= 1) {
+            throw new IllegalArgumentException("rake percentage must be in [0, 1): " + percentage);
+        }
+        if (capPerHand < 0) {
+            throw new IllegalArgumentException("rake cap cannot be negative: " + capPerHand);
+        }
+    }
+
+    /**
+     * 取房间配置中的抽水规则；未配置比例的房间（如锦标赛）不抽水
+     */
+    public static RakeRule of(TableConfig config) {
+        if (config == null || config.getRakePercentage() <= 0) {
+            return NONE;
+        }
+        return new RakeRule(config.getRakePercentage(), config.getRakeMaxPerHand(), config.isNoFlopNoDrop());
+    }
+
+    public boolean isEnabled() {
+        return percentage > 0;
+    }
+
+    /**
+     * 一手牌的抽水额
+     *
+     * @param rakeablePot 可抽水的底池（不含退回的未跟注部分）
+     * @param flopDealt   是否已发翻牌
+     */
+    public long rakeFor(long rakeablePot, boolean flopDealt) {
+        if (!isEnabled() || rakeablePot <= 0 || (noFlopNoDrop && !flopDealt)) {
+            return 0;
+        }
+        long rake = rakeablePot * Math.round(percentage * BASIS_POINTS) / BASIS_POINTS;
+        if (capPerHand > 0) {
+            rake = Math.min(rake, capPerHand);
+        }
+        return Math.min(rake, rakeablePot);
+    }
+
+    /**
+     * 把抽水额从各个底池中扣除：先主池，不够再依次从边池扣，不可抽水的底池不扣
+     *
+     * @return 每个底池被扣的数额，与 potAmounts 一一对应
+     */
+    public static long[] allocate(long rake, long[] potAmounts, boolean[] rakeable) {
+        long[] taken = new long[potAmounts.length];
+        long remaining = rake;
+        for (int i = 0; i < potAmounts.length && remaining > 0; i++) {
+            if (!rakeable[i]) {
+                continue;
+            }
+            taken[i] = Math.min(remaining, potAmounts[i]);
+            remaining -= taken[i];
+        }
+        return taken;
+    }
+}
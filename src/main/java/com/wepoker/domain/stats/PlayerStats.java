@@ -0,0 +1,23 @@
+package com.wepoker.domain.stats;
+
+/**
+ * 玩家统计快照（由 PlayerStatsStore 的计数器即时算出）
+ *
+ * @param vpip             主动入池率（翻前主动投入筹码的手数 / 总手数）
+ * @param pfr              翻前加注率
+ * @param aggressionFactor 翻后激进度 (下注 + 加注) / 跟注，无跟注时为激进次数
+ * @param bbPer100         每百手净赢大盲数
+ * @param showdownWinRate  摊牌胜率（W$SD）
+ */
+public record PlayerStats(
+    String playerId,
+    long hands,
+    double vpip,
+    double pfr,
+    double aggressionFactor,
+    double bbPer100,
+    long showdowns,
+    double showdownWinRate,
+    long handsWon
+) {
+}
@@ -0,0 +1,339 @@
+package com.wepoker.domain.stats;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 玩家统计计数器（增量维护，查询 O(1)）
+ *
+ * 按 playerId 哈希分成 2^n 个分段，每段一把锁；段内是开放寻址索引 + 扁平 long[] 计数器
+ * （每个玩家 COUNTERS 个槽位连续存放），不为每个玩家分配对象。
+ * 计数器保存累计值，比率在查询时计算；被修改的玩家标记为脏，由 drainDirty 批量刷盘。
+ */
+public class PlayerStatsStore {
+
+    public static final int HANDS = 0;
+    public static final int VPIP = 1;
+    public static final int PFR = 2;
+    public static final int AGGRESSIVE = 3;     // 翻后下注/加注次数
+    public static final int CALLS = 4;          // 翻后跟注次数
+    public static final int SHOWDOWNS = 5;
+    public static final int SHOWDOWNS_WON = 6;
+    public static final int HANDS_WON = 7;
+    public static final int NET_MILLI_BB = 8;   // 净输赢，千分之一大盲为单位
+    public static final int COUNTERS = 9;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    public PlayerStatsStore(int stripeCount) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+    }
+
+    /**
+     * 从一手已结束的牌中提取各玩家的增量并累加
+     */
+    public void recordHand(Hand hand) {
+        List<HandSeat> seats = hand.getSeats();
+        int n = seats.size();
+        if (n == 0) {
+            return;
+        }
+        long[] delta = new long[n * COUNTERS];
+        long[] invested = new long[n];
+        long[] streetBet = new long[n];
+        boolean[] folded = new boolean[n];
+        long currentBet = 0;
+        String street = "PRE_FLOP";
+
+        for (PlayerAction a : hand.getActionHistory()) {
+            int i = indexOf(seats, a.getPlayerId());
+            if (i < 0) {
+                continue;
+            }
+            if (a.getStreet() != null && !a.getStreet().equals(street)) {
+                street = a.getStreet();
+                Arrays.fill(streetBet, 0);
+                currentBet = 0;
+            }
+            invested[i] += a.getBetAmount();
+            streetBet[i] += a.getBetAmount();
+            boolean preFlop = "PRE_FLOP".equals(street);
+            int base = i * COUNTERS;
+            switch (a.getAction()) {
+                case "FOLD" -> folded[i] = true;
+                case "CALL" -> {
+                    if (preFlop) {
+                        delta[base + VPIP] = 1;
+                    } else {
+                        delta[base + CALLS]++;
+                    }
+                }
+                case "BET", "RAISE" -> {
+                    if (preFlop) {
+                        delta[base + VPIP] = 1;
+                        delta[base + PFR] = 1;
+                    } else {
+                        delta[base + AGGRESSIVE]++;
+                    }
+                }
+                case "ALL_IN" -> {
+                    boolean raised = streetBet[i] > currentBet;
+                    if (preFlop) {
+                        delta[base + VPIP] = 1;
+                        if (raised) {
+                            delta[base + PFR] = 1;
+                        }
+                    } else {
+                        delta[base + (raised ? AGGRESSIVE : CALLS)]++;
+                    }
+                }
+                default -> {
+                    // 盲注、过牌不计入
+                }
+            }
+            currentBet = Math.max(currentBet, streetBet[i]);
+        }
+
+        long[] won = new long[n];
+        for (PotDistribution d : hand.getDistributions()) {
+            int i = indexOf(seats, d.getPlayerId());
+            if (i >= 0) {
+                won[i] += d.getAmount();
+            }
+        }
+        int live = 0;
+        for (boolean f : folded) {
+            if (!f) {
+                live++;
+            }
+        }
+
+        long bigBlind = hand.getBigBlindAmount();
+        for (int i = 0; i < n; i++) {
+            int base = i * COUNTERS;
+            delta[base + HANDS] = 1;
+            delta[base + HANDS_WON] = won[i] > 0 ? 1 : 0;
+            if (live > 1 && !folded[i]) {
+                delta[base + SHOWDOWNS] = 1;
+                delta[base + SHOWDOWNS_WON] = won[i] > 0 ? 1 : 0;
+            }
+            delta[base + NET_MILLI_BB] = bigBlind > 0 ? (won[i] - invested[i]) * 1000 / bigBlind : 0;
+            String playerId = seats.get(i).getPlayerId();
+            stripeOf(playerId).add(playerId, delta, base);
+        }
+    }
+
+    /**
+     * 当前统计，未记录过的玩家返回 null
+     */
+    public PlayerStats get(String playerId) {
+        long[] c = new long[COUNTERS];
+        if (!stripeOf(playerId).read(playerId, c)) {
+            return null;
+        }
+        return toStats(playerId, c);
+    }
+
+    /**
+     * 载入已持久化的累计值（启动时恢复，不标记为脏）
+     */
+    public void load(String playerId, long[] counters) {
+        if (counters.length != COUNTERS) {
+            throw new IllegalArgumentException("expected " + COUNTERS + " counters");
+        }
+        stripeOf(playerId).put(playerId, counters);
+    }
+
+    /**
+     * 取出所有脏记录的快照并清除脏标记；sink 在分段锁外调用
+     *
+     * @return 取出的记录数
+     */
+    public int drainDirty(BiConsumer<String, long[]> sink) {
+        int total = 0;
+        List<String> ids = new ArrayList<>();
+        List<long[]> values = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            ids.clear();
+            values.clear();
+            stripe.drainDirty(ids, values);
+            for (int i = 0; i < ids.size(); i++) {
+                sink.accept(ids.get(i), values.get(i));
+            }
+            total += ids.size();
+        }
+        return total;
+    }
+
+    /**
+     * 重新标记为脏（刷盘失败时调用，下一轮重试）
+     */
+    public void markDirty(String playerId) {
+        stripeOf(playerId).markDirty(playerId);
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size();
+        }
+        return total;
+    }
+
+    public static PlayerStats toStats(String playerId, long[] c) {
+        long hands = c[HANDS];
+        return new PlayerStats(
+            playerId,
+            hands,
+            ratio(c[VPIP], hands),
+            ratio(c[PFR], hands),
+            c[CALLS] == 0 ? c[AGGRESSIVE] : (double) c[AGGRESSIVE] / c[CALLS],
+            hands == 0 ? 0 : c[NET_MILLI_BB] / 1000.0 / hands * 100,
+            c[SHOWDOWNS],
+            ratio(c[SHOWDOWNS_WON], c[SHOWDOWNS]),
+            c[HANDS_WON]
+        );
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    private static int indexOf(List<HandSeat> seats, String playerId) {
+        if (playerId != null) {
+            for (int i = 0; i < seats.size(); i++) {
+                if (playerId.equals(seats.get(i).getPlayerId())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Stripe stripeOf(String playerId) {
+        int h = spread(playerId.hashCode());
+        return stripes.length == 1 ? stripes[0] : stripes[h >>> stripeShift];
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * 单个分段：开放寻址表 playerId -> 槽位，槽位数据在扁平数组中
+     */
+    private static final class Stripe {
+        private String[] keys = new String[16];
+        private int[] slotOfKey = new int[16];
+        private String[] ids = new String[8];
+        private long[] counters = new long[8 * COUNTERS];
+        private boolean[] dirty = new boolean[8];
+        private int size;
+
+        synchronized void add(String playerId, long[] delta, int offset) {
+            int slot = slotOf(playerId, true);
+            int base = slot * COUNTERS;
+            for (int k = 0; k < COUNTERS; k++) {
+                counters[base + k] += delta[offset + k];
+            }
+            dirty[slot] = true;
+        }
+
+        synchronized void put(String playerId, long[] values) {
+            int slot = slotOf(playerId, true);
+            System.arraycopy(values, 0, counters, slot * COUNTERS, COUNTERS);
+        }
+
+        synchronized boolean read(String playerId, long[] out) {
+            int slot = slotOf(playerId, false);
+            if (slot < 0) {
+                return false;
+            }
+            System.arraycopy(counters, slot * COUNTERS, out, 0, COUNTERS);
+            return true;
+        }
+
+        synchronized void drainDirty(List<String> outIds, List<long[]> outValues) {
+            for (int slot = 0; slot < size; slot++) {
+                if (dirty[slot]) {
+                    dirty[slot] = false;
+                    outIds.add(ids[slot]);
+                    outValues.add(Arrays.copyOfRange(counters, slot * COUNTERS, (slot + 1) * COUNTERS));
+                }
+            }
+        }
+
+        synchronized void markDirty(String playerId) {
+            int slot = slotOf(playerId, false);
+            if (slot >= 0) {
+                dirty[slot] = true;
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int slotOf(String playerId, boolean create) {
+            int mask = keys.length - 1;
+            int i = spread(playerId.hashCode()) & mask;
+            while (keys[i] != null) {
+                if (keys[i].equals(playerId)) {
+                    return slotOfKey[i];
+                }
+                i = (i + 1) & mask;
+            }
+            if (!create) {
+                return -1;
+            }
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                counters = Arrays.copyOf(counters, capacity * COUNTERS);
+                dirty = Arrays.copyOf(dirty, capacity);
+            }
+            int slot = size++;
+            ids[slot] = playerId;
+            keys[i] = playerId;
+            slotOfKey[i] = slot;
+            if (size * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity) {
+            String[] newKeys = new String[capacity];
+            int[] newSlots = new int[capacity];
+            int mask = capacity - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int i = spread(ids[slot].hashCode()) & mask;
+                while (newKeys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = ids[slot];
+                newSlots[i] = slot;
+            }
+            keys = newKeys;
+            slotOfKey = newSlots;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.wepoker.domain.tournament;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 盲注级别
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BlindLevel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int level;
+    private long smallBlind;
+    private long bigBlind;
+    private int durationMinutes;
+}
@@ -0,0 +1,76 @@
+package com.wepoker.domain.tournament;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 盲注结构表
+ *
+ * 级别按时间推进，超出最后一级后停留在最后一级。
+ * levelStartMillis 为各级别开始时刻（相对开赛）的前缀和，定位当前级别用二分查找。
+ */
+public class BlindSchedule implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<BlindLevel> levels;
+    private final long[] levelStartMillis;
+
+    public BlindSchedule(List<BlindLevel> levels) {
+        if (levels == null || levels.isEmpty()) {
+            throw new IllegalArgumentException("blind schedule must have at least one level");
+        }
+        this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+        this.levelStartMillis = new long[levels.size()];
+        long start = 0;
+        for (int i = 0; i < levels.size(); i++) {
+            BlindLevel level = levels.get(i);
+            if (level.getSmallBlind() <= 0 || level.getBigBlind() < level.getSmallBlind() || level.getDurationMinutes() <= 0) {
+                throw new IllegalArgumentException("invalid blind level: " + level);
+            }
+            levelStartMillis[i] = start;
+            start += level.getDurationMinutes() * 60_000L;
+        }
+    }
+
+    /**
+     * 生成标准结构：每级约涨 50%，按大盲取整到小盲的整数倍
+     */
+    public static BlindSchedule standard(long startingSmallBlind, int levelMinutes, int levelCount) {
+        List<BlindLevel> levels = new ArrayList<>(levelCount);
+        long sb = startingSmallBlind;
+        for (int i = 1; i <= levelCount; i++) {
+            levels.add(new BlindLevel(i, sb, sb * 2, levelMinutes));
+            long next = sb * 3 / 2;
+            long unit = Math.max(1, startingSmallBlind / 2);
+            sb = Math.max(sb + unit, (next + unit - 1) / unit * unit);
+        }
+        return new BlindSchedule(levels);
+    }
+
+    /**
+     * 开赛 elapsedMillis 毫秒后所处的级别下标
+     */
+    public int levelIndexAt(long elapsedMillis) {
+        int lo = 0;
+        int hi = levelStartMillis.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (levelStartMillis[mid] <= elapsedMillis) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    public BlindLevel levelAt(long elapsedMillis) {
+        return levels.get(levelIndexAt(elapsedMillis));
+    }
+
+    public List<BlindLevel> getLevels() {
+        return levels;
+    }
+}
@@ -0,0 +1,180 @@
+package com.wepoker.domain.tournament;
+
+/**
+ * ICM（Independent Chip Model）奖金权益计算
+ *
+ * Malmuth-Harville 模型：某名次由剩余玩家中谁拿下的概率与其筹码成正比。
+ * 用子集 DP 代替逐排列递归：prob[mask] 表示 mask 中的玩家恰好占据前 |mask| 名的概率，
+ * 从 |mask| = k 的状态向 k+1 扩展时，新玩家 i 拿到第 k+1 名的概率为 stack[i] / (总筹码 - mask 内筹码)。
+ * 只展开到付奖名次为止（|mask| 小于付奖人数），不付奖的名次不参与计算，
+ * 按层保存状态，内存为 max C(n,k) 而非 2^n，20 人只付前 3 名时每层不超过 190 个状态。
+ * n 人、p 个奖位的复杂度为 O(sum_{k<p} C(n,k) * n)，9 人全付奖约 4.6k 次转移。
+ */
+public final class IcmCalculator {
+
+    public static final int MAX_PLAYERS = 20;
+
+    private static final long[][] BINOM = new long[MAX_PLAYERS + 1][MAX_PLAYERS + 2];
+
+    static {
+        for (int n = 0; n <= MAX_PLAYERS; n++) {
+            BINOM[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOM[n][k] = BINOM[n - 1][k - 1] + (k <= n - 1 ? BINOM[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private IcmCalculator() {
+    }
+
+    /**
+     * 计算每个玩家的奖金权益
+     *
+     * @param stacks  各玩家筹码，0 表示已淘汰（权益为 0，不占名次）
+     * @param payouts 第 1 名起的奖金，多于在场人数的部分忽略
+     * @return 与 stacks 下标一一对应的权益，总和等于被分配的奖金之和
+     */
+    public static double[] equities(long[] stacks, double[] payouts) {
+        int n = stacks.length;
+        double[] equity = new double[n];
+        int[] alive = new int[n];
+        int m = 0;
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            if (stacks[i] < 0) {
+                throw new IllegalArgumentException("negative stack at " + i);
+            }
+            if (stacks[i] > 0) {
+                alive[m++] = i;
+                total += stacks[i];
+            }
+        }
+        if (m > MAX_PLAYERS) {
+            throw new IllegalArgumentException("too many players: " + m + " > " + MAX_PLAYERS);
+        }
+        int places = Math.min(payouts.length, m);
+        if (places == 0) {
+            return equity;
+        }
+        if (m == 1) {
+            equity[alive[0]] = payouts[0];
+            return equity;
+        }
+
+        long[] s = new long[m];
+        for (int j = 0; j < m; j++) {
+            s[j] = stacks[alive[j]];
+        }
+        int full = 1 << m;
+        // 第 k 层只保存 C(m,k) 个状态：Gosper's hack 按数值递增枚举恰有 k 个 1 的 mask，
+        // 恰好是组合数系统（colex）的顺序，所以当前层下标就是枚举计数，下一层下标用 rank() 计算
+        double[] prob = {1.0};
+        long[] placed = {0};
+
+        for (int k = 0; k < places; k++) {
+            double prize = payouts[k];
+            boolean expand = k + 1 < places;
+            double[] nextProb = expand ? new double[(int) BINOM[m][k + 1]] : null;
+            long[] nextPlaced = expand ? new long[nextProb.length] : null;
+            int mask = (1 << k) - 1;
+            int idx = 0;
+            while (mask < full) {
+                double p = prob[idx];
+                if (p > 0) {
+                    long remaining = total - placed[idx];
+                    for (int j = 0; j < m; j++) {
+                        int bit = 1 << j;
+                        if ((mask & bit) != 0) {
+                            continue;
+                        }
+                        double q = p * s[j] / remaining;
+                        equity[alive[j]] += q * prize;
+                        if (expand) {
+                            int next = rank(mask | bit);
+                            nextProb[next] += q;
+                            nextPlaced[next] = placed[idx] + s[j];
+                        }
+                    }
+                }
+                idx++;
+                if (mask == 0) {
+                    break;
+                }
+                int low = mask & -mask;
+                int ripple = mask + low;
+                mask = (((ripple ^ mask) >>> 2) / low) | ripple;
+            }
+            prob = nextProb;
+            placed = nextPlaced;
+        }
+        return equity;
+    }
+
+    /**
+     * mask 在同样位数的所有子集中的 colex 序号：sum C(第 t 个 1 的位置, t)
+     */
+    private static int rank(int mask) {
+        int r = 0;
+        int t = 0;
+        while (mask != 0) {
+            t++;
+            r += (int) BINOM[Integer.numberOfTrailingZeros(mask)][t];
+            mask &= mask - 1;
+        }
+        return r;
+    }
+
+    /**
+     * 两人全下时的 ICM 决策对比
+     *
+     * 跟注后赢则从对手处拿走有效筹码（双方较小者），输则失去有效筹码，平分则筹码不变；
+     * 弃牌按当前筹码计算（已投入的盲注/前注由调用方先从 stacks 中扣除）。
+     *
+     * @param hero      英雄下标
+     * @param villain   对手下标
+     * @param winProb   英雄获胜概率
+     * @param tieProb   平分概率
+     */
+    public static AllInEv allIn(long[] stacks, double[] payouts, int hero, int villain, double winProb, double tieProb) {
+        if (hero == villain || hero < 0 || villain < 0 || hero >= stacks.length || villain >= stacks.length) {
+            throw new IllegalArgumentException("invalid hero/villain: " + hero + "/" + villain);
+        }
+        if (winProb < 0 || tieProb < 0 || winProb + tieProb > 1 + 1e-9) {
+            throw new IllegalArgumentException("invalid probabilities: win=" + winProb + " tie=" + tieProb);
+        }
+        double loseProb = Math.max(0, 1 - winProb - tieProb);
+        long effective = Math.min(stacks[hero], stacks[villain]);
+
+        double[] current = equities(stacks, payouts);
+        long[] afterWin = stacks.clone();
+        afterWin[hero] += effective;
+        afterWin[villain] -= effective;
+        long[] afterLose = stacks.clone();
+        afterLose[hero] -= effective;
+        afterLose[villain] += effective;
+        double ifWin = equities(afterWin, payouts)[hero];
+        double ifLose = equities(afterLose, payouts)[hero];
+
+        double callEquity = winProb * ifWin + tieProb * current[hero] + loseProb * ifLose;
+        double chipEv = (winProb - loseProb) * effective;
+        return new AllInEv(winProb, tieProb, effective, chipEv, current[hero], callEquity);
+    }
+
+    /**
+     * @param foldEquity 弃牌（保持当前筹码）的奖金权益
+     * @param callEquity 跟注全下的期望奖金权益
+     * @param chipEv     跟注的筹码期望（相对弃牌）
+     */
+    public record AllInEv(double winProb, double tieProb, long effectiveStack, double chipEv,
+                          double foldEquity, double callEquity) {
+
+        public double icmEv() {
+            return callEquity - foldEquity;
+        }
+
+        public boolean callIsProfitable() {
+            return callEquity > foldEquity;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.wepoker.domain.tournament;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 多桌赛并桌/平衡
+ *
+ * 只维护每桌人数，按 (人数 << 32 | tableId) 编码进有序集合，每次人数变化 O(log T) 更新，
+ * 不在每手牌结束时重新扫描所有桌。
+ *
+ * 调整只发生在"某桌刚打完一手"时，并且只从这张桌移出玩家（对方桌可能正在进行中，
+ * 新入座的玩家以 SITTING 身份等下一手）：
+ * - 剩余人数用更少的桌就能坐下，且本桌是人数最少的桌：拆桌，玩家逐个分到当前人数最少的桌
+ * - 否则若本桌比人数最少的桌多 2 人及以上：逐个移出，直到差值不超过 1
+ */
+public class TableBalancer {
+
+    private final int seatsPerTable;
+    private final Map<Integer, Integer> counts = new HashMap<>();
+    private final TreeSet<Long> byCount = new TreeSet<>();
+    private int totalPlayers;
+
+    public TableBalancer(int seatsPerTable) {
+        if (seatsPerTable < 2) {
+            throw new IllegalArgumentException("seatsPerTable must be at least 2");
+        }
+        this.seatsPerTable = seatsPerTable;
+    }
+
+    public void addTable(int tableId, int players) {
+        if (counts.containsKey(tableId)) {
+            throw new IllegalStateException("table already tracked: " + tableId);
+        }
+        counts.put(tableId, players);
+        byCount.add(key(players, tableId));
+        totalPlayers += players;
+    }
+
+    public void removeTable(int tableId) {
+        Integer players = counts.remove(tableId);
+        if (players != null) {
+            byCount.remove(key(players, tableId));
+            totalPlayers -= players;
+        }
+    }
+
+    /**
+     * 更新某桌人数（淘汰后调用）
+     */
+    public void setPlayerCount(int tableId, int players) {
+        Integer old = counts.get(tableId);
+        if (old == null) {
+            throw new IllegalStateException("table not tracked: " + tableId);
+        }
+        if (old == players) {
+            return;
+        }
+        byCount.remove(key(old, tableId));
+        byCount.add(key(players, tableId));
+        counts.put(tableId, players);
+        totalPlayers += players - old;
+    }
+
+    /**
+     * 为刚打完一手的桌规划需要移出的玩家
+     *
+     * 返回列表的每个元素是一名玩家的目标桌；计划同时计入人数统计，调用方必须按计划执行。
+     * 若返回后本桌人数为 0，说明本桌被拆，调用方执行完移动后应调用 removeTable。
+     */
+    public List<Integer> planMovesFrom(int tableId) {
+        List<Integer> destinations = new ArrayList<>();
+        Integer current = counts.get(tableId);
+        if (current == null || counts.size() < 2) {
+            return destinations;
+        }
+
+        if (counts.size() > requiredTables() && current == minCount()) {
+            for (int i = 0; i < current; i++) {
+                int dest = smallestExcluding(tableId);
+                move(tableId, dest);
+                destinations.add(dest);
+            }
+            return destinations;
+        }
+
+        while (true) {
+            int dest = smallestExcluding(tableId);
+            if (counts.get(tableId) - counts.get(dest) <= 1) {
+                break;
+            }
+            move(tableId, dest);
+            destinations.add(dest);
+        }
+        return destinations;
+    }
+
+    /**
+     * 剩余玩家最少需要的桌数
+     */
+    public int requiredTables() {
+        return Math.max(1, (totalPlayers + seatsPerTable - 1) / seatsPerTable);
+    }
+
+    public int getPlayerCount(int tableId) {
+        return counts.getOrDefault(tableId, 0);
+    }
+
+    public int getTableCount() {
+        return counts.size();
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    private void move(int from, int to) {
+        setPlayerCount(from, counts.get(from) - 1);
+        setPlayerCount(to, counts.get(to) + 1);
+    }
+
+    private int minCount() {
+        return (int) (byCount.first() >>> 32);
+    }
+
+    private int smallestExcluding(int tableId) {
+        long first = byCount.first();
+        if ((int) first == tableId) {
+            first = byCount.higher(first);
+        }
+        return (int) first;
+    }
+
+    private static long key(int players, int tableId) {
+        return ((long) players << 32) | (tableId & 0xFFFFFFFFL);
+    }
+}
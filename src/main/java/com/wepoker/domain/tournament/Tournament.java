@@ -0,0 +1,55 @@
+package com.wepoker.domain.tournament;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 锦标赛（SNG / MTT）
+ *
+ * 所有字段只在 GameService 的锁内修改（见 TournamentService），本身不做同步。
+ */
+@Getter
+@Setter
+@ToString(exclude = {"entries", "tableIds", "balancer"})
+public class Tournament implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long tournamentId;
+    private String name;
+    private TournamentType type;
+    private TournamentState state;
+
+    private int seatsPerTable;
+    private int maxEntrants;
+    private long startingStack;
+    private BlindSchedule blindSchedule;
+
+    private long createdAt;
+    private long startedAt;
+    private long finishedAt;
+    private int currentLevelIndex;
+
+    private Map<String, TournamentEntry> entries = new LinkedHashMap<>();  // playerId -> 报名记录
+    private Set<Integer> tableIds = new LinkedHashSet<>();
+    private int remainingPlayers;
+    private String winnerPlayerId;
+
+    @JsonIgnore
+    private transient TableBalancer balancer;
+
+    public BlindLevel getCurrentLevel() {
+        return blindSchedule.getLevels().get(currentLevelIndex);
+    }
+
+    public boolean isFull() {
+        return maxEntrants > 0 && entries.size() >= maxEntrants;
+    }
+}
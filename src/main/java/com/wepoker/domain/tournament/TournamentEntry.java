@@ -0,0 +1,34 @@
+package com.wepoker.domain.tournament;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 锦标赛报名记录
+ */
+@Getter
+@Setter
+@ToString
+public class TournamentEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String playerId;
+    private String nickname;
+    private long registeredAt;
+    private int tableId;            // 当前所在桌，淘汰后保留最后一桌
+    private int finishPosition;     // 0 表示仍在比赛中
+    private long eliminatedAt;
+
+    public TournamentEntry(String playerId, String nickname) {
+        this.playerId = playerId;
+        this.nickname = nickname;
+        this.registeredAt = System.currentTimeMillis();
+    }
+
+    public boolean isAlive() {
+        return finishPosition == 0;
+    }
+}
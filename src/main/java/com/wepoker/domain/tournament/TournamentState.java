@@ -0,0 +1,11 @@
+package com.wepoker.domain.tournament;
+
+/**
+ * 锦标赛状态
+ */
+public enum TournamentState {
+    REGISTERING,
+    RUNNING,
+    FINISHED,
+    CANCELLED
+}
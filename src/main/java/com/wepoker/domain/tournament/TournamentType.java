@@ -0,0 +1,11 @@
+package com.wepoker.domain.tournament;
+
+/**
+ * 锦标赛类型
+ */
+public enum TournamentType {
+    /** 坐满即开的单桌赛 */
+    SIT_AND_GO,
+    /** 多桌锦标赛 */
+    MTT
+}
@@ -0,0 +1,16 @@
+package com.wepoker.domain.wallet;
+
+/**
+ * 开启余额校验时玩家钱包余额不足
+ *
+ * 继承 IllegalStateException，原有按 IllegalStateException 处理的调用方不受影响；
+ * 需要区分"桌满"与"没钱"的地方（如快速入座）单独捕获。
+ */
+public class InsufficientBalanceException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InsufficientBalanceException(long balance, long amount) {
+        super("insufficient balance: " + balance + " < " + amount);
+    }
+}
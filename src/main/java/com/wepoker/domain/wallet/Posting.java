@@ -0,0 +1,67 @@
+package com.wepoker.domain.wallet;
+
+/**
+ * 一笔复式记账分录：从 debitAccount 转出 amount 到 creditAccount
+ *
+ * 账户命名：player:{playerId} 为玩家钱包，table:{tableId} 为桌上筹码（买入后、兑现前），house:rake 为抽水收入，
+ * house:insurance 为保险盈亏（收保费、付赔款，余额可为负）。
+ * 每笔分录借贷金额相等，记账只在账户间转移，所有账户余额之和不变。
+ * idempotencyKey 全局唯一，同一个 key 重复提交只记一次（内存去重 + 数据库唯一索引）。
+ */
+public record Posting(String idempotencyKey, PostingType type, String debitAccount, String creditAccount,
+                      long amount, long createdAt) {
+
+    public static final String PLAYER_PREFIX = "player:";
+    public static final String TABLE_PREFIX = "table:";
+    public static final String RAKE_ACCOUNT = "house:rake";
+    public static final String INSURANCE_ACCOUNT = "house:insurance";
+
+    public Posting {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("posting amount must be positive: " + amount);
+        }
+        if (debitAccount.equals(creditAccount)) {
+            throw new IllegalArgumentException("debit and credit account must differ: " + debitAccount);
+        }
+    }
+
+    public static Posting buyIn(String idempotencyKey, String playerId, long tableId, long amount) {
+        return new Posting(idempotencyKey, PostingType.BUY_IN, playerAccount(playerId), tableAccount(tableId),
+            amount, System.currentTimeMillis());
+    }
+
+    public static Posting cashOut(String idempotencyKey, String playerId, long tableId, long amount) {
+        return new Posting(idempotencyKey, PostingType.CASH_OUT, tableAccount(tableId), playerAccount(playerId),
+            amount, System.currentTimeMillis());
+    }
+
+    public static Posting rake(String idempotencyKey, long tableId, long amount) {
+        return new Posting(idempotencyKey, PostingType.RAKE, tableAccount(tableId), RAKE_ACCOUNT,
+            amount, System.currentTimeMillis());
+    }
+
+    public static Posting insurancePremium(String idempotencyKey, long tableId, long amount) {
+        return new Posting(idempotencyKey, PostingType.INSURANCE_PREMIUM, tableAccount(tableId), INSURANCE_ACCOUNT,
+            amount, System.currentTimeMillis());
+    }
+
+    public static Posting insurancePayout(String idempotencyKey, long tableId, long amount) {
+        return new Posting(idempotencyKey, PostingType.INSURANCE_PAYOUT, INSURANCE_ACCOUNT, tableAccount(tableId),
+            amount, System.currentTimeMillis());
+    }
+
+    public static String playerAccount(String playerId) {
+        return PLAYER_PREFIX + playerId;
+    }
+
+    public static String tableAccount(long tableId) {
+        return TABLE_PREFIX + tableId;
+    }
+
+    /**
+     * 玩家钱包账户对应的玩家 ID，其他账户返回 null
+     */
+    public static String playerIdOf(String account) {
+        return account.startsWith(PLAYER_PREFIX) ? account.substring(PLAYER_PREFIX.length()) : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.wepoker.domain.wallet;
+
+/**
+ * 记账类型（与 transaction 表的 type 取值一致）
+ */
+public enum PostingType {
+    BUY_IN,
+    CASH_OUT,
+    RAKE,
+    INSURANCE_PREMIUM,
+    INSURANCE_PAYOUT
+}
@@ -0,0 +1,311 @@
+package com.wepoker.domain.wallet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * 钱包记账的内存部分：余额、待提交分录、幂等去重
+ *
+ * 每个账户记两部分余额：committed（已落库）与 pending（已记账未落库），余额 = committed + pending。
+ * 记账只改内存并把分录放进待提交队列；drain 一次取出一批，并按账户合并成净变动，
+ * 落库时每个账户一条 UPDATE，而不是每笔分录一条。落库成功后 markCommitted 把净变动从 pending 挪到 committed，
+ * 失败则 requeue 放回队列，下次重试（数据库端按 idempotencyKey 去重，重放不会重复入账）。
+ *
+ * 已落库余额只在需要时通过 loader 读取（没有数据库时返回 0）：开启余额校验的扣款和余额查询。
+ * 其余记账（入账、不校验的扣款，以及 table:*、house:* 账户）只改内存中的 pending，不做 I/O，
+ * 可以在牌桌锁和手牌回调里调用。读取在 ConcurrentHashMap 桶锁之外进行，校验与记账在 compute 内完成，
+ * 同一账户的并发扣款不会透支。
+ *
+ * 已 drain 未确认的批次可能已经写入数据库，此时读到的值是否包含这部分无法判断：
+ * 每个账户记录在途净变动（inFlight）与最近一次 drain/确认的序号（epoch）。读取期间序号不变且没有在途批次时缓存读到的值；
+ * 有在途批次时按较小的可能值校验、不缓存；序号变了则重读。
+ */
+public final class WalletJournal {
+
+    /**
+     * 一批待落库的分录及其按账户合并的净变动
+     */
+    public record Batch(List<Posting> postings, Map<String, Long> netChanges) {
+
+        public boolean isEmpty() {
+            return postings.isEmpty();
+        }
+    }
+
+    private static final class Balance {
+        boolean loaded;    // committed 是否已从存储读取；未读取时只记 pending
+        long committed;
+        long pending;
+        long inFlight;     // 已 drain、尚未确认（markCommitted/requeue/discard）的净变动
+        long epoch;        // 创建、drain、确认时取新序号
+
+        Balance(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * 一次读取存储的结果及读取前的账户序号
+     */
+    private record Read(long epoch, long committed) {
+    }
+
+    private final Map<String, Balance> balances = new ConcurrentHashMap<>();
+    private final Queue<Posting> queue = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> recentKeys = new ConcurrentHashMap<>();
+    private final ToLongFunction<String> loader;
+    private final AtomicLong epochSeq = new AtomicLong();
+
+    /**
+     * @param loader 读取账户已落库余额
+     */
+    public WalletJournal(ToLongFunction<String> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 记一笔账
+     *
+     * @param enforceBalance 为 true 时借方是玩家钱包且余额不足则拒绝
+     * @return false 表示 idempotencyKey 已记过（重复提交），本次不生效
+     * @throws InsufficientBalanceException 余额不足
+     */
+    public boolean post(Posting posting, boolean enforceBalance) {
+        if (recentKeys.putIfAbsent(posting.idempotencyKey(), posting.createdAt()) != null) {
+            return false;
+        }
+        boolean checkDebit = enforceBalance && Posting.playerIdOf(posting.debitAccount()) != null;
+        try {
+            if (checkDebit) {
+                debitChecked(posting.debitAccount(), posting.amount());
+            } else {
+                adjust(posting.debitAccount(), -posting.amount());
+            }
+        } catch (RuntimeException e) {
+            recentKeys.remove(posting.idempotencyKey());
+            throw e;
+        }
+        adjust(posting.creditAccount(), posting.amount());
+        queue.add(posting);
+        return true;
+    }
+
+    /**
+     * 账户余额（已落库 + 未落库）；尚未读取过且有在途批次时返回较小的可能值
+     */
+    public long balance(String account) {
+        while (true) {
+            Read read = readCommitted(account);
+            long[] value = new long[1];
+            boolean[] resolved = new boolean[1];
+            balances.compute(account, (k, current) -> {
+                Balance b = current != null ? current : newBalance();
+                Long available = resolve(b, read);
+                if (available != null) {
+                    value[0] = available;
+                    resolved[0] = true;
+                }
+                return b;
+            });
+            if (resolved[0]) {
+                return value[0];
+            }
+        }
+    }
+
+    /**
+     * 取出至多 max 笔待落库分录
+     */
+    public Batch drain(int max) {
+        List<Posting> postings = new ArrayList<>(Math.min(max, 1024));
+        Map<String, Long> netChanges = new HashMap<>();
+        Posting posting;
+        while (postings.size() < max && (posting = queue.poll()) != null) {
+            postings.add(posting);
+            netChanges.merge(posting.debitAccount(), -posting.amount(), Long::sum);
+            netChanges.merge(posting.creditAccount(), posting.amount(), Long::sum);
+        }
+        for (Map.Entry<String, Long> change : netChanges.entrySet()) {
+            balances.compute(change.getKey(), (k, current) -> {
+                Balance b = current != null ? current : newBalance();
+                b.inFlight += change.getValue();
+                b.epoch = epochSeq.incrementAndGet();
+                return b;
+            });
+        }
+        return new Batch(postings, netChanges);
+    }
+
+    /**
+     * 一批分录已落库：净变动从 pending 转入 committed
+     */
+    public void markCommitted(Batch batch) {
+        for (Map.Entry<String, Long> change : batch.netChanges().entrySet()) {
+            balances.computeIfPresent(change.getKey(), (k, b) -> {
+                b.pending -= change.getValue();
+                b.committed += change.getValue();
+                b.inFlight -= change.getValue();
+                b.epoch = epochSeq.incrementAndGet();
+                return b;
+            });
+        }
+    }
+
+    /**
+     * 数据库里已有的分录（去重窗口外的重复提交，或上次提交成功但未确认）：撤销其内存变动，
+     * 相关账户无其他未落库变动时丢弃缓存，下次访问从数据库重新读取
+     */
+    public void discard(List<Posting> postings) {
+        for (Posting p : postings) {
+            settle(p.debitAccount(), p.amount());
+            settle(p.creditAccount(), -p.amount());
+        }
+        for (Posting p : postings) {
+            balances.computeIfPresent(p.debitAccount(), (k, b) -> isSettled(b) ? null : b);
+            balances.computeIfPresent(p.creditAccount(), (k, b) -> isSettled(b) ? null : b);
+        }
+    }
+
+    /**
+     * 落库失败，分录放回队列等待重试
+     */
+    public void requeue(Batch batch) {
+        for (Map.Entry<String, Long> change : batch.netChanges().entrySet()) {
+            balances.computeIfPresent(change.getKey(), (k, b) -> {
+                b.inFlight -= change.getValue();
+                b.epoch = epochSeq.incrementAndGet();
+                return b;
+            });
+        }
+        queue.addAll(batch.postings());
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    public int accountCount() {
+        return balances.size();
+    }
+
+    /**
+     * 清理早于 cutoff 的去重记录（这些分录早已落库，重复提交由数据库唯一索引拦截）
+     */
+    public int pruneKeys(long cutoffMillis) {
+        int before = recentKeys.size();
+        recentKeys.values().removeIf(createdAt -> createdAt < cutoffMillis);
+        return before - recentKeys.size();
+    }
+
+    /**
+     * 淘汰没有未落库变动的账户，下次访问时重新读取已落库余额（仅在 loader 读的是真实存储时使用）
+     */
+    public int evictSettledAccounts() {
+        int before = balances.size();
+        for (String account : balances.keySet()) {
+            balances.computeIfPresent(account, (k, b) -> isSettled(b) ? null : b);
+        }
+        return before - balances.size();
+    }
+
+    private void adjust(String account, long delta) {
+        balances.compute(account, (k, current) -> {
+            Balance b = current != null ? current : newBalance();
+            b.pending += delta;
+            return b;
+        });
+    }
+
+    /**
+     * 校验余额后扣款；读取存储期间账户有 drain/确认时重读
+     *
+     * @throws InsufficientBalanceException 余额不足
+     */
+    private void debitChecked(String account, long amount) {
+        while (true) {
+            Read read = readCommitted(account);
+            boolean[] applied = new boolean[1];
+            balances.compute(account, (k, current) -> {
+                Balance b = current != null ? current : newBalance();
+                Long available = resolve(b, read);
+                if (available == null) {
+                    return b;
+                }
+                if (available < amount) {
+                    throw new InsufficientBalanceException(available, amount);
+                }
+                b.pending -= amount;
+                applied[0] = true;
+                return b;
+            });
+            if (applied[0]) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在桶锁之外读取已落库余额，避免在 ConcurrentHashMap 的桶锁内做 I/O
+     *
+     * @return 已读取过（缓存有效）时返回 null
+     */
+    private Read readCommitted(String account) {
+        boolean[] loaded = new boolean[1];
+        long[] epoch = new long[1];
+        balances.compute(account, (k, current) -> {
+            Balance b = current != null ? current : newBalance();
+            loaded[0] = b.loaded;
+            epoch[0] = b.epoch;
+            return b;
+        });
+        return loaded[0] ? null : new Read(epoch[0], loader.applyAsLong(account));
+    }
+
+    /**
+     * 在桶锁内确定可用余额（已落库 + 未落库）
+     *
+     * @return 需要重读时返回 null（读取期间账户被 drain、确认或淘汰）
+     */
+    private static Long resolve(Balance b, Read read) {
+        if (b.loaded) {
+            return b.committed + b.pending;
+        }
+        if (read == null || read.epoch() != b.epoch) {
+            return null;
+        }
+        if (b.inFlight == 0) {
+            b.committed = read.committed();
+            b.loaded = true;
+            return b.committed + b.pending;
+        }
+        // 读到的值可能含、也可能不含在途净变动，取较小的那个且不缓存
+        return read.committed() + b.pending - Math.max(b.inFlight, 0);
+    }
+
+    /**
+     * 撤销一笔已 drain 的分录在该账户上的变动（delta 为撤销量）
+     */
+    private void settle(String account, long delta) {
+        balances.computeIfPresent(account, (k, b) -> {
+            b.pending += delta;
+            b.inFlight += delta;
+            b.epoch = epochSeq.incrementAndGet();
+            return b;
+        });
+    }
+
+    private static boolean isSettled(Balance b) {
+        return b.pending == 0 && b.inFlight == 0;
+    }
+
+    private Balance newBalance() {
+        return new Balance(epochSeq.incrementAndGet());
+    }
+}
@@ -0,0 +1,356 @@
+package com.wepoker.history;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 只追加的牌局历史归档（滚动的内存映射分段文件）
+ *
+ * 数据文件 segment-NNNNNNNN.dat：连续的帧 [int 长度][int CRC32C][payload]，长度 0 表示段尾。
+ * 写满的段截断到实际长度并封存，同时生成 .idx 索引（见 SegmentIndex），之后只读映射。
+ * 活动段的索引在堆内：handId 用开放寻址表（O(1)），tableId / playerId 为顺序数组（查询时线性扫描，
+ * 规模受单段大小限制）。
+ *
+ * 位置（location）编码为 (段号 << 32) | 段内偏移。
+ * 写入必须由单线程完成；查询可并发，活动段的索引操作与写入共用本对象的锁，读取数据在锁外进行。
+ */
+@Slf4j
+public class HandHistoryArchive implements Closeable {
+
+    static final int FRAME_HEADER = 8;
+    private static final String DATA_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<SealedSegment> sealed = new CopyOnWriteArrayList<>();
+    private ActiveSegment active;
+
+    private record SealedSegment(int id, MappedByteBuffer data, SegmentIndex index) {
+    }
+
+    public HandHistoryArchive(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("segmentBytes too small");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * 追加一手牌，返回位置
+     */
+    public synchronized long append(byte[] payload, HandHistoryCodec.Keys keys) throws IOException {
+        int frameSize = FRAME_HEADER + payload.length;
+        if (frameSize + 4 > segmentBytes) {
+            throw new IllegalArgumentException("hand record larger than segment: " + payload.length);
+        }
+        // 段尾至少保留 4 字节的 0 作为结束标记
+        if (active.position + frameSize + 4 > segmentBytes) {
+            roll();
+        }
+        int offset = active.position;
+        CRC32C crc = new CRC32C();
+        crc.update(payload, 0, payload.length);
+        MappedByteBuffer buf = active.data;
+        buf.put(offset + FRAME_HEADER, payload);
+        buf.putInt(offset + 4, (int) crc.getValue());
+        buf.putInt(offset, payload.length);
+        active.position = offset + frameSize;
+        active.index(keys, offset);
+        return location(active.id, offset);
+    }
+
+    /**
+     * 读取某位置的 payload（只读视图，不拷贝）
+     */
+    public ByteBuffer read(long location) {
+        int segmentId = (int) (location >>> 32);
+        int offset = (int) location;
+        ByteBuffer data = dataOf(segmentId);
+        if (data == null) {
+            throw new IllegalArgumentException("segment not found: " + segmentId);
+        }
+        int length = data.getInt(offset);
+        return data.slice(offset + FRAME_HEADER, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * 按 handId 定位，未找到返回 -1；先查活动段，再从新到旧查封存段
+     */
+    public long locateHand(String handId) {
+        long key = HistoryKeys.handKey(handId);
+        synchronized (this) {
+            int offset = active.handOffsets.get(key);
+            if (offset >= 0) {
+                return location(active.id, offset);
+            }
+        }
+        for (int i = sealed.size() - 1; i >= 0; i--) {
+            SealedSegment s = sealed.get(i);
+            int offset = s.index().findFirst(SegmentIndex.HANDS, key);
+            if (offset >= 0) {
+                return location(s.id(), offset);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按时间顺序（旧到新）遍历某玩家参与的所有手牌位置，visitor 返回 false 时停止
+     */
+    public void forEachOfPlayer(String playerId, LongPredicate visitor) {
+        scan(SegmentIndex.PLAYERS, HistoryKeys.playerKey(playerId), visitor);
+    }
+
+    /**
+     * 按时间顺序遍历某桌的所有手牌位置
+     */
+    public void forEachOfTable(int tableId, LongPredicate visitor) {
+        scan(SegmentIndex.TABLES, tableId, visitor);
+    }
+
+    private void scan(int section, long key, LongPredicate visitor) {
+        for (SealedSegment s : sealed) {
+            SegmentIndex index = s.index();
+            int i = index.lowerBound(section, key);
+            int end = index.count(section);
+            for (; i < end && index.keyAt(section, i) == key; i++) {
+                if (!visitor.test(location(s.id(), index.offsetAt(section, i)))) {
+                    return;
+                }
+            }
+        }
+        int segmentId;
+        int[] offsets;
+        synchronized (this) {
+            segmentId = active.id;
+            offsets = active.offsetsOf(section, key);
+        }
+        for (int offset : offsets) {
+            if (!visitor.test(location(segmentId, offset))) {
+                return;
+            }
+        }
+    }
+
+    public synchronized long getHandCount() {
+        long total = active.handCount();
+        for (SealedSegment s : sealed) {
+            total += s.index().count(SegmentIndex.HANDS);
+        }
+        return total;
+    }
+
+    public synchronized int getSegmentCount() {
+        return sealed.size() + 1;
+    }
+
+    public synchronized long getBytesUsed() {
+        long total = active.position;
+        for (SealedSegment s : sealed) {
+            total += s.data().capacity();
+        }
+        return total;
+    }
+
+    /**
+     * 刷盘（不封存活动段，重启后通过扫描恢复）
+     */
+    public synchronized void flush() {
+        active.data.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        active.channel.close();
+    }
+
+    private ByteBuffer dataOf(int segmentId) {
+        ActiveSegment a;
+        synchronized (this) {
+            a = active;
+        }
+        if (a.id == segmentId) {
+            return a.data;
+        }
+        for (SealedSegment s : sealed) {
+            if (s.id() == segmentId) {
+                return s.data();
+            }
+        }
+        return null;
+    }
+
+    private void roll() throws IOException {
+        ActiveSegment old = active;
+        sealed.add(seal(old));
+        active = openActive(old.id + 1);
+        log.info("Hand history rolled to segment {}", active.id);
+    }
+
+    /**
+     * 封存活动段：截断到实际长度、写索引文件、改为只读映射
+     */
+    private SealedSegment seal(ActiveSegment segment) throws IOException {
+        segment.data.force();
+        int length = segment.position;
+        segment.channel.truncate(length);
+        segment.channel.close();
+        Path idx = indexPath(segment.id);
+        SegmentIndex.write(idx, segment.handKeys, segment.handOffsetList, segment.tableKeys, segment.tableOffsets,
+            segment.playerKeys, segment.playerOffsets);
+        return openSealed(segment.id, dataPath(segment.id));
+    }
+
+    private SealedSegment openSealed(int id, Path data) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(data, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        Path idx = indexPath(id);
+        if (!Files.exists(idx)) {
+            // 索引缺失（例如封存过程中宕机）：扫描数据重建
+            ActiveSegment scratch = new ActiveSegment(id, null, null);
+            scanFrames(buf, (int) buf.capacity(), scratch);
+            SegmentIndex.write(idx, scratch.handKeys, scratch.handOffsetList, scratch.tableKeys, scratch.tableOffsets,
+                scratch.playerKeys, scratch.playerOffsets);
+        }
+        return new SealedSegment(id, buf, SegmentIndex.open(idx));
+    }
+
+    private ActiveSegment openActive(int id) throws IOException {
+        FileChannel ch = FileChannel.open(dataPath(id), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        ActiveSegment segment = new ActiveSegment(id, ch, buf);
+        segment.position = scanFrames(buf, segmentBytes, segment);
+        return segment;
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                .filter(n -> n.startsWith("segment-") && n.endsWith(DATA_SUFFIX))
+                .forEach(n -> ids.add(Integer.parseInt(n.substring(8, n.length() - DATA_SUFFIX.length()))));
+        }
+        ids.sort(null);
+        if (ids.isEmpty()) {
+            active = openActive(0);
+            return;
+        }
+        int last = ids.get(ids.size() - 1);
+        for (int id : ids) {
+            if (id != last || Files.exists(indexPath(id))) {
+                sealed.add(openSealed(id, dataPath(id)));
+            }
+        }
+        active = Files.exists(indexPath(last)) ? openActive(last + 1) : openActive(last);
+        log.info("Hand history recovered: {} sealed segments, active segment {} at offset {}", sealed.size(), active.id, active.position);
+    }
+
+    /**
+     * 从头扫描帧并建立索引，遇到长度 0、越界或校验失败即停止，返回有效数据末尾
+     */
+    private static int scanFrames(ByteBuffer buf, int limit, ActiveSegment target) {
+        int pos = 0;
+        CRC32C crc = new CRC32C();
+        while (pos + FRAME_HEADER <= limit) {
+            int length = buf.getInt(pos);
+            if (length <= 0 || pos + FRAME_HEADER + length > limit) {
+                break;
+            }
+            ByteBuffer payload = buf.slice(pos + FRAME_HEADER, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buf.getInt(pos + 4)) {
+                log.warn("Hand history frame at {} failed checksum, truncating", pos);
+                break;
+            }
+            target.index(HandHistoryCodec.readKeys(payload), pos);
+            pos += FRAME_HEADER + length;
+        }
+        return pos;
+    }
+
+    private Path dataPath(int id) {
+        return directory.resolve(String.format("segment-%08d%s", id, DATA_SUFFIX));
+    }
+
+    private Path indexPath(int id) {
+        return directory.resolve(String.format("segment-%08d.idx", id));
+    }
+
+    static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 活动段：可写映射 + 堆内索引
+     */
+    private static final class ActiveSegment {
+        private final int id;
+        private final FileChannel channel;
+        private final MappedByteBuffer data;
+        private int position;
+
+        private final LongIntHashMap handOffsets = new LongIntHashMap(1024);
+        private final LongArrayList handKeys = new LongArrayList();
+        private final IntArrayList handOffsetList = new IntArrayList();
+        private final LongArrayList tableKeys = new LongArrayList();
+        private final IntArrayList tableOffsets = new IntArrayList();
+        private final LongArrayList playerKeys = new LongArrayList();
+        private final IntArrayList playerOffsets = new IntArrayList();
+
+        private ActiveSegment(int id, FileChannel channel, MappedByteBuffer data) {
+            this.id = id;
+            this.channel = channel;
+            this.data = data;
+        }
+
+        private void index(HandHistoryCodec.Keys keys, int offset) {
+            long handKey = HistoryKeys.handKey(keys.handId());
+            handOffsets.put(handKey, offset);
+            handKeys.add(handKey);
+            handOffsetList.add(offset);
+            tableKeys.add(keys.tableId());
+            tableOffsets.add(offset);
+            for (String playerId : keys.playerIds()) {
+                playerKeys.add(HistoryKeys.playerKey(playerId));
+                playerOffsets.add(offset);
+            }
+        }
+
+        private int handCount() {
+            return handKeys.size();
+        }
+
+        private int[] offsetsOf(int section, long key) {
+            LongArrayList keys = section == SegmentIndex.TABLES ? tableKeys : playerKeys;
+            IntArrayList offsets = section == SegmentIndex.TABLES ? tableOffsets : playerOffsets;
+            IntArrayList result = new IntArrayList();
+            for (int i = 0; i < keys.size(); i++) {
+                if (keys.get(i) == key) {
+                    result.add(offsets.get(i));
+                }
+            }
+            return result.toArray();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.wepoker.history;
+
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 牌局历史的紧凑二进制编码
+ *
+ * 布局（版本 1）：
+ * <pre>
+ * byte    version
+ * str     handId
+ * varint  tableId
+ * varlong createdAt, smallBlind, bigBlind
+ * byte    buttonSeat+1, sbSeat+1, bbSeat+1
+ * byte    seatCount，每个座位：byte seat, str playerId, str nickname, varlong startingStack, byte hole0, byte hole1
+ * byte    boardCount, 每张公共牌 1 字节（Card.encode）
+ * byte    extraBoards，每组 5 字节（run it twice 等的其他牌面，缺牌为 0xFF）
+ * varint  actionCount，每个行动：byte (street << 4 | opcode), byte seatIndex, varlong amount, varlong invested, varlong 相对 createdAt 的毫秒
+ * varlong totalPot
+ * byte    distributionCount，每条：byte seatIndex, varlong amount, byte rank, str reason
+ * </pre>
+ * 金额全部用无符号 LEB128 变长编码，玩家在行动/分配中以座位下标引用，不重复写 playerId。
+ */
+public final class HandHistoryCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int NO_CARD = 0xFF;
+    private static final int NO_SEAT = 0xFF;
+
+    private static final String[] ACTIONS = {"FOLD", "CHECK", "CALL", "BET", "RAISE", "ALL_IN", "SMALL_BLIND", "BIG_BLIND"};
+    private static final String[] STREETS = {"PRE_FLOP", "FLOP", "TURN", "RIVER", "SHOWDOWN"};
+    private static final int UNKNOWN = 0xF;
+
+    private HandHistoryCodec() {
+    }
+
+    /**
+     * 一手牌的索引键：handId、tableId、参与玩家
+     */
+    public record Keys(String handId, int tableId, String[] playerIds) {
+    }
+
+    public static byte[] encode(Hand hand) {
+        Writer w = new Writer(256);
+        w.writeByte(VERSION);
+        w.writeString(hand.getHandId());
+        w.writeVarLong(hand.getTableId());
+        w.writeVarLong(hand.getCreatedAt());
+        w.writeVarLong(hand.getSmallBlindAmount());
+        w.writeVarLong(hand.getBigBlindAmount());
+        w.writeByte(hand.getButtonSeatNumber() + 1);
+        w.writeByte(hand.getSmallBlindSeatNumber() + 1);
+        w.writeByte(hand.getBigBlindSeatNumber() + 1);
+
+        List<HandSeat> seats = hand.getSeats();
+        Map<String, Integer> seatIndex = new HashMap<>();
+        w.writeByte(seats.size());
+        for (int i = 0; i < seats.size(); i++) {
+            HandSeat seat = seats.get(i);
+            seatIndex.put(seat.getPlayerId(), i);
+            w.writeByte(seat.getSeatNumber());
+            w.writeString(seat.getPlayerId());
+            w.writeString(seat.getNickname());
+            w.writeVarLong(seat.getStartingStack());
+            Card[] hole = hand.getPlayerHoleCards().get(seat.getPlayerId());
+            w.writeByte(cardCode(hole, 0));
+            w.writeByte(cardCode(hole, 1));
+        }
+
+        Card[] board = hand.getCommunityCards();
+        int boardCount = 0;
+        while (board != null && boardCount < board.length && board[boardCount] != null) {
+            boardCount++;
+        }
+        w.writeByte(boardCount);
+        for (int i = 0; i < boardCount; i++) {
+            w.writeByte(board[i].encode());
+        }
+
+        List<Card[]> extraBoards = hand.getAlternativeCommunityCards();
+        int extraCount = extraBoards == null ? 0 : extraBoards.size();
+        w.writeByte(extraCount);
+        for (int b = 0; b < extraCount; b++) {
+            Card[] extra = extraBoards.get(b);
+            for (int i = 0; i < 5; i++) {
+                w.writeByte(cardCode(extra, i));
+            }
+        }
+
+        List<PlayerAction> actions = hand.getActionHistory();
+        w.writeVarLong(actions.size());
+        for (PlayerAction a : actions) {
+            w.writeByte((indexOf(STREETS, a.getStreet()) << 4) | indexOf(ACTIONS, a.getAction()));
+            Integer idx = a.getPlayerId() == null ? null : seatIndex.get(a.getPlayerId());
+            w.writeByte(idx == null ? NO_SEAT : idx);
+            w.writeVarLong(a.getAmount());
+            w.writeVarLong(a.getBetAmount());
+            w.writeVarLong(Math.max(0, a.getTimestamp() - hand.getCreatedAt()));
+        }
+
+        w.writeVarLong(hand.getTotalPotSize());
+        List<PotDistribution> distributions = hand.getDistributions() == null ? List.of() : hand.getDistributions();
+        w.writeByte(distributions.size());
+        for (PotDistribution d : distributions) {
+            Integer idx = seatIndex.get(d.getPlayerId());
+            w.writeByte(idx == null ? NO_SEAT : idx);
+            w.writeVarLong(d.getAmount());
+            w.writeByte(d.getRank());
+            w.writeString(d.getReason());
+        }
+        return w.toByteArray();
+    }
+
+    public static Hand decode(ByteBuffer in) {
+        Reader r = new Reader(in);
+        int version = r.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported hand history version: " + version);
+        }
+        Hand hand = new Hand();
+        hand.setHandId(r.readString());
+        hand.setTableId((int) r.readVarLong());
+        hand.setCreatedAt(r.readVarLong());
+        hand.setSmallBlindAmount(r.readVarLong());
+        hand.setBigBlindAmount(r.readVarLong());
+        hand.setButtonSeatNumber(r.readByte() - 1);
+        hand.setSmallBlindSeatNumber(r.readByte() - 1);
+        hand.setBigBlindSeatNumber(r.readByte() - 1);
+
+        int seatCount = r.readByte();
+        List<HandSeat> seats = new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            int seatNumber = r.readByte();
+            String playerId = r.readString();
+            String nickname = r.readString();
+            long stack = r.readVarLong();
+            int c0 = r.readByte();
+            int c1 = r.readByte();
+            seats.add(new HandSeat(playerId, nickname, seatNumber, stack));
+            if (c0 != NO_CARD && c1 != NO_CARD) {
+                hand.addPlayerHoleCards(playerId, new Card[] {Card.decode(c0), Card.decode(c1)});
+            }
+        }
+        hand.setSeats(seats);
+
+        int boardCount = r.readByte();
+        Card[] board = new Card[boardCount];
+        for (int i = 0; i < boardCount; i++) {
+            board[i] = Card.decode(r.readByte());
+        }
+        hand.setCommunityCards(board);
+
+        int extraCount = r.readByte();
+        if (extraCount > 0) {
+            List<Card[]> extras = new ArrayList<>(extraCount);
+            for (int b = 0; b < extraCount; b++) {
+                Card[] extra = new Card[5];
+                for (int i = 0; i < 5; i++) {
+                    int code = r.readByte();
+                    extra[i] = code == NO_CARD ? null : Card.decode(code);
+                }
+                extras.add(extra);
+            }
+            hand.setAlternativeCommunityCards(extras);
+            hand.setRunItTwice(true);
+        }
+
+        int actionCount = (int) r.readVarLong();
+        List<PlayerAction> actions = new ArrayList<>(actionCount);
+        for (int i = 0; i < actionCount; i++) {
+            int op = r.readByte();
+            int idx = r.readByte();
+            long amount = r.readVarLong();
+            long invested = r.readVarLong();
+            long ts = hand.getCreatedAt() + r.readVarLong();
+            actions.add(new PlayerAction(ts, name(ACTIONS, op & 0xF), amount, name(STREETS, op >>> 4), invested,
+                idx == NO_SEAT ? null : seats.get(idx).getPlayerId()));
+        }
+        hand.setActionHistory(actions);
+
+        hand.setTotalPotSize(r.readVarLong());
+        int distributionCount = r.readByte();
+        List<PotDistribution> distributions = new ArrayList<>(distributionCount);
+        for (int i = 0; i < distributionCount; i++) {
+            int idx = r.readByte();
+            long amount = r.readVarLong();
+            int rank = r.readByte();
+            String reason = r.readString();
+            distributions.add(new PotDistribution(idx == NO_SEAT ? null : seats.get(idx).getPlayerId(), amount, rank, reason));
+        }
+        hand.setDistributions(distributions);
+        hand.setCurrentStreet("SHOWDOWN");
+        return hand;
+    }
+
+    /**
+     * 只解析索引需要的字段（恢复索引时使用，不构造完整 Hand）
+     */
+    public static Keys readKeys(ByteBuffer in) {
+        Reader r = new Reader(in);
+        r.readByte();
+        String handId = r.readString();
+        int tableId = (int) r.readVarLong();
+        r.readVarLong();
+        r.readVarLong();
+        r.readVarLong();
+        r.skip(3);
+        int seatCount = r.readByte();
+        String[] players = new String[seatCount];
+        for (int i = 0; i < seatCount; i++) {
+            r.readByte();
+            players[i] = r.readString();
+            r.readString();
+            r.readVarLong();
+            r.skip(2);
+        }
+        return new Keys(handId, tableId, players);
+    }
+
+    public static Keys keysOf(Hand hand) {
+        String[] players = new String[hand.getSeats().size()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = hand.getSeats().get(i).getPlayerId();
+        }
+        return new Keys(hand.getHandId(), hand.getTableId(), players);
+    }
+
+    private static int cardCode(Card[] cards, int i) {
+        return cards == null || i >= cards.length || cards[i] == null ? NO_CARD : cards[i].encode();
+    }
+
+    private static int indexOf(String[] names, String value) {
+        if (value != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value)) {
+                    return i;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static String name(String[] names, int index) {
+        return index < names.length ? names[index] : "UNKNOWN";
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        private Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        private void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        /**
+         * 长度 + 1 的变长前缀，0 表示 null
+         */
+        private void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer in;
+
+        private Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        private int readByte() {
+            return in.get() & 0xFF;
+        }
+
+        private void skip(int n) {
+            in.position(in.position() + n);
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = in.get();
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalArgumentException("malformed varint");
+                }
+            }
+        }
+
+        private String readString() {
+            int len = (int) readVarLong();
+            if (len == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[len - 1];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.wepoker.history;
+
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把一手牌渲染成通用的文本牌谱格式（与主流客户端/复盘工具兼容的 "PokerStars 风格"）
+ *
+ * 只依赖单手 Hand，逐手写入 Appendable，不缓存多手内容。
+ * 底牌可见性：viewer 本人的底牌，以及摊牌时仍在局中的玩家底牌；其他人的底牌不输出。
+ */
+public final class HandHistoryTextFormat {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private static final String[] STREETS = {"PRE_FLOP", "FLOP", "TURN", "RIVER"};
+
+    private HandHistoryTextFormat() {
+    }
+
+    /**
+     * @param viewer 导出者 playerId，为 null 时只公开摊牌底牌
+     */
+    public static void write(Hand hand, String viewer, Appendable out) throws IOException {
+        Map<String, String> names = new HashMap<>();
+        for (HandSeat seat : hand.getSeats()) {
+            names.put(seat.getPlayerId(), seat.getNickname() != null ? seat.getNickname() : seat.getPlayerId());
+        }
+
+        out.append("WePoker Hand #").append(hand.getHandId())
+            .append(": Hold'em No Limit (").append(chips(hand.getSmallBlindAmount())).append('/').append(chips(hand.getBigBlindAmount()))
+            .append(") - ").append(TIME.format(Instant.ofEpochMilli(hand.getCreatedAt()))).append(" UTC\n");
+        out.append("Table '").append(String.valueOf(hand.getTableId())).append("' Seat #")
+            .append(String.valueOf(hand.getButtonSeatNumber())).append(" is the button\n");
+        for (HandSeat seat : hand.getSeats()) {
+            out.append("Seat ").append(String.valueOf(seat.getSeatNumber())).append(": ").append(names.get(seat.getPlayerId()))
+                .append(" (").append(chips(seat.getStartingStack())).append(" in chips)\n");
+        }
+
+        List<PlayerAction> actions = hand.getActionHistory();
+        int i = 0;
+        for (; i < actions.size() && isBlind(actions.get(i)); i++) {
+            PlayerAction a = actions.get(i);
+            out.append(names.getOrDefault(a.getPlayerId(), "?")).append(": posts ")
+                .append("SMALL_BLIND".equals(a.getAction()) ? "small blind " : "big blind ").append(chips(a.getBetAmount())).append('\n');
+        }
+
+        out.append("*** HOLE CARDS ***\n");
+        Card[] own = viewer == null ? null : hand.getPlayerHoleCards().get(viewer);
+        if (own != null) {
+            out.append("Dealt to ").append(names.getOrDefault(viewer, viewer)).append(' ').append(cards(own, 0, 2)).append('\n');
+        }
+
+        Set<String> folded = new HashSet<>();
+        Map<String, Long> streetBets = new HashMap<>();
+        long currentBet = 0;
+        // 盲注计入翻前下注额
+        for (int b = 0; b < i; b++) {
+            PlayerAction a = actions.get(b);
+            long total = streetBets.merge(a.getPlayerId(), a.getBetAmount(), Long::sum);
+            currentBet = Math.max(currentBet, total);
+        }
+
+        Card[] board = hand.getCommunityCards();
+        int boardCount = hand.getCommunityCardCount();
+        int street = 0;
+        for (; i < actions.size(); i++) {
+            PlayerAction a = actions.get(i);
+            int actionStreet = streetIndex(a.getStreet());
+            while (street < actionStreet) {
+                street++;
+                writeStreetHeader(out, street, board, boardCount);
+                streetBets.clear();
+                currentBet = 0;
+            }
+            String name = names.getOrDefault(a.getPlayerId(), "?");
+            long total = streetBets.merge(a.getPlayerId(), a.getBetAmount(), Long::sum);
+            out.append(name).append(": ");
+            switch (a.getAction()) {
+                case "FOLD" -> {
+                    folded.add(a.getPlayerId());
+                    out.append("folds");
+                }
+                case "CHECK" -> out.append("checks");
+                case "CALL" -> out.append("calls ").append(chips(a.getBetAmount()));
+                case "BET" -> out.append("bets ").append(chips(a.getBetAmount()));
+                case "RAISE" -> out.append("raises ").append(chips(total - currentBet)).append(" to ").append(chips(total));
+                case "ALL_IN" -> {
+                    if (total <= currentBet) {
+                        out.append("calls ").append(chips(a.getBetAmount()));
+                    } else if (currentBet == 0) {
+                        out.append("bets ").append(chips(a.getBetAmount()));
+                    } else {
+                        out.append("raises ").append(chips(total - currentBet)).append(" to ").append(chips(total));
+                    }
+                    out.append(" and is all-in");
+                }
+                default -> out.append(a.getAction().toLowerCase());
+            }
+            out.append('\n');
+            currentBet = Math.max(currentBet, total);
+        }
+        // 全下后直接发完的公共牌
+        while (street < 3 && boardCountAt(street + 1) <= boardCount) {
+            street++;
+            writeStreetHeader(out, street, board, boardCount);
+        }
+
+        int live = hand.getSeats().size() - folded.size();
+        if (live > 1) {
+            out.append("*** SHOW DOWN ***\n");
+            for (String playerId : shownAtShowdown(hand)) {
+                out.append(names.get(playerId)).append(": shows ").append(cards(hand.getPlayerHoleCards().get(playerId), 0, 2)).append('\n');
+            }
+        }
+        for (PotDistribution d : hand.getDistributions()) {
+            if (d.getAmount() > 0) {
+                out.append(names.getOrDefault(d.getPlayerId(), "?")).append(" collected ").append(chips(d.getAmount())).append(" from pot\n");
+            }
+        }
+
+        out.append("*** SUMMARY ***\n");
+        out.append("Total pot ").append(chips(hand.getTotalPotSize()));
+        if (hand.getRake() > 0) {
+            out.append(" | Rake ").append(chips(hand.getRake()));
+        }
+        if (hand.getInsurancePremium() > 0) {
+            out.append(" | Insurance ").append(chips(hand.getInsurancePremium()))
+                .append(" paid ").append(chips(hand.getInsurancePayout()));
+        }
+        out.append('\n');
+        if (boardCount > 0) {
+            out.append("Board ").append(cards(board, 0, boardCount)).append('\n');
+        }
+        List<Card[]> extras = hand.getAlternativeCommunityCards();
+        if (extras != null) {
+            for (int b = 0; b < extras.size(); b++) {
+                out.append("Board ").append(String.valueOf(b + 2)).append(' ').append(cards(extras.get(b), 0, 5)).append('\n');
+            }
+        }
+        out.append('\n');
+    }
+
+    /**
+     * 摊牌亮出底牌的玩家（按座位顺序）：两人以上没弃牌时，所有未弃牌且有底牌记录的玩家
+     */
+    public static Set<String> shownAtShowdown(Hand hand) {
+        Set<String> folded = new HashSet<>();
+        for (PlayerAction a : hand.getActionHistory()) {
+            if ("FOLD".equals(a.getAction())) {
+                folded.add(a.getPlayerId());
+            }
+        }
+        Set<String> shown = new LinkedHashSet<>();
+        if (hand.getSeats().size() - folded.size() <= 1) {
+            return shown;
+        }
+        for (HandSeat seat : hand.getSeats()) {
+            if (!folded.contains(seat.getPlayerId()) && hand.getPlayerHoleCards().get(seat.getPlayerId()) != null) {
+                shown.add(seat.getPlayerId());
+            }
+        }
+        return shown;
+    }
+
+    /**
+     * 按本格式的可见性规则过滤后的底牌：viewer 本人的底牌加摊牌亮出的底牌
+     *
+     * @param viewer 查看者 playerId，为 null 时只含摊牌底牌
+     */
+    public static Map<String, Card[]> visibleHoleCards(Hand hand, String viewer) {
+        Map<String, Card[]> visible = new LinkedHashMap<>();
+        Card[] own = viewer == null ? null : hand.getPlayerHoleCards().get(viewer);
+        if (own != null) {
+            visible.put(viewer, own);
+        }
+        for (String playerId : shownAtShowdown(hand)) {
+            visible.put(playerId, hand.getPlayerHoleCards().get(playerId));
+        }
+        return visible;
+    }
+
+    private static void writeStreetHeader(Appendable out, int street, Card[] board, int boardCount) throws IOException {
+        int count = boardCountAt(street);
+        if (count > boardCount) {
+            return;
+        }
+        out.append("*** ").append(STREETS[street]).append(" *** ");
+        if (street == 1) {
+            out.append(cards(board, 0, 3));
+        } else {
+            out.append(cards(board, 0, count - 1)).append(' ').append(cards(board, count - 1, count));
+        }
+        out.append('\n');
+    }
+
+    private static int boardCountAt(int street) {
+        return street == 0 ? 0 : street + 2;
+    }
+
+    private static int streetIndex(String street) {
+        for (int s = 0; s < STREETS.length; s++) {
+            if (STREETS[s].equals(street)) {
+                return s;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isBlind(PlayerAction a) {
+        return "SMALL_BLIND".equals(a.getAction()) || "BIG_BLIND".equals(a.getAction());
+    }
+
+    private static String cards(Card[] cards, int from, int to) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (cards[i] == null) {
+                continue;
+            }
+            if (sb.length() > 1) {
+                sb.append(' ');
+            }
+            sb.append(cards[i].getRank().getSymbol()).append(Character.toLowerCase(cards[i].getSuit().name().charAt(0)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String chips(long amount) {
+        return Long.toString(amount);
+    }
+}
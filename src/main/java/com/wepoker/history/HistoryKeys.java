@@ -0,0 +1,38 @@
+package com.wepoker.history;
+
+/**
+ * 历史索引键：字符串 id 映射为 64 位哈希（FNV-1a + murmur3 fmix64 混合）
+ *
+ * 64 位哈希在亿级数据下碰撞概率可以忽略，但读取方仍需用解码出的 handId / 座位核对。
+ */
+final class HistoryKeys {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long PLAYER_SEED = 0x9E3779B97F4A7C15L;
+
+    private HistoryKeys() {
+    }
+
+    static long handKey(String handId) {
+        return hash(handId, FNV_OFFSET);
+    }
+
+    static long playerKey(String playerId) {
+        return hash(playerId, FNV_OFFSET ^ PLAYER_SEED);
+    }
+
+    private static long hash(String s, long seed) {
+        long h = seed;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
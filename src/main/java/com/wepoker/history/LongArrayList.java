@@ -0,0 +1,38 @@
+package com.wepoker.history;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的 long 数组（避免装箱）
+ */
+final class LongArrayList {
+    private long[] values;
+    private int size;
+
+    LongArrayList() {
+        this(64);
+    }
+
+    LongArrayList(int capacity) {
+        this.values = new long[Math.max(1, capacity)];
+    }
+
+    void add(long v) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = v;
+    }
+
+    long get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
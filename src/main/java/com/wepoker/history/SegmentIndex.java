@@ -0,0 +1,169 @@
+package com.wepoker.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 封存段的偏移索引文件（segment-NNNNNNNN.idx），只读内存映射
+ *
+ * 布局：int magic, int version, int[3] 各区条目数，随后依次为 HANDS / TABLES / PLAYERS 三个区，
+ * 每个条目 12 字节 [long key][int offset]，区内按 (key, offset) 升序，查询为二分查找。
+ * 同一个 key 的条目按段内偏移升序排列，即按写入时间顺序。
+ */
+final class SegmentIndex {
+
+    static final int HANDS = 0;
+    static final int TABLES = 1;
+    static final int PLAYERS = 2;
+
+    private static final int MAGIC = 0x57504849; // "WPHI"
+    private static final int VERSION = 1;
+    private static final int HEADER = 20;
+    private static final int ENTRY = 12;
+
+    private final MappedByteBuffer buf;
+    private final int[] counts = new int[3];
+    private final int[] bases = new int[3];
+
+    private SegmentIndex(MappedByteBuffer buf) {
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+            throw new IllegalStateException("invalid segment index");
+        }
+        int base = HEADER;
+        for (int s = 0; s < 3; s++) {
+            counts[s] = buf.getInt(8 + s * 4);
+            bases[s] = base;
+            base += counts[s] * ENTRY;
+        }
+    }
+
+    static SegmentIndex open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.BIG_ENDIAN);
+            return new SegmentIndex(buf);
+        }
+    }
+
+    /**
+     * 排序并写出索引文件（先写临时文件再原子改名，避免半个索引被当作有效）
+     */
+    static void write(Path path, LongArrayList handKeys, IntArrayList handOffsets,
+                      LongArrayList tableKeys, IntArrayList tableOffsets,
+                      LongArrayList playerKeys, IntArrayList playerOffsets) throws IOException {
+        long[][] keys = {handKeys.toArray(), tableKeys.toArray(), playerKeys.toArray()};
+        int[][] offsets = {handOffsets.toArray(), tableOffsets.toArray(), playerOffsets.toArray()};
+        int total = HEADER;
+        for (int s = 0; s < 3; s++) {
+            sort(keys[s], offsets[s], 0, keys[s].length - 1);
+            total += keys[s].length * ENTRY;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(total);
+        out.putInt(MAGIC).putInt(VERSION);
+        for (int s = 0; s < 3; s++) {
+            out.putInt(keys[s].length);
+        }
+        for (int s = 0; s < 3; s++) {
+            for (int i = 0; i < keys[s].length; i++) {
+                out.putLong(keys[s][i]).putInt(offsets[s][i]);
+            }
+        }
+        out.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                ch.write(out);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    int count(int section) {
+        return counts[section];
+    }
+
+    long keyAt(int section, int i) {
+        return buf.getLong(bases[section] + i * ENTRY);
+    }
+
+    int offsetAt(int section, int i) {
+        return buf.getInt(bases[section] + i * ENTRY + 8);
+    }
+
+    /**
+     * 第一个 key >= 目标的下标
+     */
+    int lowerBound(int section, long key) {
+        int lo = 0;
+        int hi = counts[section];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyAt(section, mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 第一个匹配条目的段内偏移，未找到返回 -1
+     */
+    int findFirst(int section, long key) {
+        int i = lowerBound(section, key);
+        return i < counts[section] && keyAt(section, i) == key ? offsetAt(section, i) : -1;
+    }
+
+    private static void sort(long[] keys, int[] offsets, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pk = keys[mid];
+            int po = offsets[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (compare(keys[i], offsets[i], pk, po) < 0) {
+                    i++;
+                }
+                while (compare(keys[j], offsets[j], pk, po) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    long k = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = k;
+                    int o = offsets[i];
+                    offsets[i] = offsets[j];
+                    offsets[j] = o;
+                    i++;
+                    j--;
+                }
+            }
+            // 先递归较短的一侧，控制栈深度
+            if (j - lo < hi - i) {
+                sort(keys, offsets, lo, j);
+                lo = i;
+            } else {
+                sort(keys, offsets, i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private static int compare(long k1, int o1, long k2, int o2) {
+        int c = Long.compare(k1, k2);
+        return c != 0 ? c : Integer.compare(o1, o2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.wepoker.metrics;
+
+import com.wepoker.domain.algorithm.HandEvaluator;
+import com.wepoker.network.session.SessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 游戏引擎热路径指标（Micrometer，经 /actuator/prometheus 暴露）
+ *
+ * 所有 Meter 在启动时或首次使用时创建并缓存，记录时只做 Timer.record(long, TimeUnit)
+ * / Counter.increment()，热路径上不产生对象分配。
+ */
+@Component
+public class GameMetrics {
+
+    private static final String[] ACTION_TYPES = {"FOLD", "CHECK", "CALL", "BET", "RAISE", "ALL_IN"};
+
+    private final MeterRegistry registry;
+
+    private final Timer[] actionTimers = new Timer[ACTION_TYPES.length];
+    private final Timer unknownActionTimer;
+    private final Timer startGameTimer;
+    private final Timer showdownTimer;
+    private final Timer engineTickDuration;
+    private final Timer engineTickLag;
+    private final Counter handsCompleted;
+    private final ConcurrentHashMap<Long, Counter> handsCompletedByTable = new ConcurrentHashMap<>();
+
+    private final Counter messagesDecoded;
+    private final Counter bytesDecoded;
+    private final Counter decodeErrors;
+    private final Counter messagesEncoded;
+    private final Counter bytesEncoded;
+
+    private final AtomicInteger activeChannels = new AtomicInteger();
+
+    public GameMetrics(MeterRegistry registry, SessionRegistry sessionRegistry) {
+        this.registry = registry;
+
+        for (int i = 0; i < ACTION_TYPES.length; i++) {
+            actionTimers[i] = latencyTimer("wepoker.game.action", "玩家行动处理耗时", "action", ACTION_TYPES[i]);
+        }
+        unknownActionTimer = latencyTimer("wepoker.game.action", "玩家行动处理耗时", "action", "UNKNOWN");
+        startGameTimer = latencyTimer("wepoker.game.start", "开局（洗牌发牌下盲）耗时");
+        showdownTimer = latencyTimer("wepoker.game.showdown", "摊牌评估与结算耗时");
+        engineTickDuration = latencyTimer("wepoker.engine.tick.duration", "引擎tick执行耗时");
+        engineTickLag = latencyTimer("wepoker.engine.tick.lag", "引擎tick相对计划时间的延迟");
+
+        handsCompleted = Counter.builder("wepoker.game.hands.completed")
+                .description("已完成的手牌数")
+                .register(registry);
+
+        FunctionCounter.builder("wepoker.hand.evaluator.calls", HandEvaluator.class, type -> HandEvaluator.getEvaluationCount())
+                .description("7张牌评估次数")
+                .register(registry);
+
+        messagesDecoded = Counter.builder("wepoker.netty.messages.decoded").register(registry);
+        bytesDecoded = Counter.builder("wepoker.netty.bytes.decoded").baseUnit("bytes").register(registry);
+        decodeErrors = Counter.builder("wepoker.netty.decode.errors").register(registry);
+        messagesEncoded = Counter.builder("wepoker.netty.messages.encoded").register(registry);
+        bytesEncoded = Counter.builder("wepoker.netty.bytes.encoded").baseUnit("bytes").register(registry);
+
+        Gauge.builder("wepoker.netty.channels.active", activeChannels, AtomicInteger::get)
+                .description("当前活跃的长连接数")
+                .register(registry);
+        Gauge.builder("wepoker.sessions", sessionRegistry, SessionRegistry::getSessionCount)
+                .description("会话总数（含断线待重连）")
+                .register(registry);
+        Gauge.builder("wepoker.sessions.connected", sessionRegistry, SessionRegistry::getConnectedSessionCount)
+                .description("在线会话数")
+                .register(registry);
+    }
+
+    private Timer latencyTimer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 记录玩家行动耗时（action 大小写不敏感，未知类型归入 UNKNOWN）
+     */
+    public void recordPlayerAction(String action, long nanos) {
+        Timer timer = unknownActionTimer;
+        if (action != null) {
+            for (int i = 0; i < ACTION_TYPES.length; i++) {
+                if (ACTION_TYPES[i].equalsIgnoreCase(action)) {
+                    timer = actionTimers[i];
+                    break;
+                }
+            }
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStartGame(long nanos) {
+        startGameTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordShowdown(long nanos) {
+        showdownTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEngineTick(long lagNanos, long durationNanos) {
+        engineTickLag.record(Math.max(0, lagNanos), TimeUnit.NANOSECONDS);
+        engineTickDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一手牌结束；按桌计数用于计算每桌每秒手数（rate()）
+     */
+    public void recordHandCompleted(Long tableId) {
+        handsCompleted.increment();
+        Counter tableCounter = handsCompletedByTable.get(tableId);
+        if (tableCounter == null) {
+            tableCounter = handsCompletedByTable.computeIfAbsent(tableId, id -> Counter.builder("wepoker.game.table.hands.completed")
+                    .tag("table", String.valueOf(id))
+                    .register(registry));
+        }
+        tableCounter.increment();
+    }
+
+    /**
+     * 房间销毁时移除按桌指标，避免标签无限增长
+     */
+    public void removeTable(Long tableId) {
+        Counter counter = handsCompletedByTable.remove(tableId);
+        if (counter != null) {
+            registry.remove(counter);
+        }
+    }
+
+    public void recordDecoded(int bytes) {
+        messagesDecoded.increment();
+        bytesDecoded.increment(bytes);
+    }
+
+    public void recordDecodeError() {
+        decodeErrors.increment();
+    }
+
+    public void recordEncoded(int bytes) {
+        messagesEncoded.increment();
+        bytesEncoded.increment(bytes);
+    }
+
+    public void channelOpened() {
+        activeChannels.incrementAndGet();
+    }
+
+    public void channelClosed() {
+        activeChannels.decrementAndGet();
+    }
+}
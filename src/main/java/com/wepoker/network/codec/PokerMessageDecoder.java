@@ -1,65 +1,73 @@
 package com.wepoker.network.codec;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wepoker.metrics.GameMetrics;
 import com.wepoker.network.protocol.PokerMessage;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.List;
+import java.io.InputStream;
 
 /**
  * Netty JSON 解码器
- * 
- * 负责将ByteBuf转换为PokerMessage对象
- * 支持半包和粘包处理
+ *
+ * 帧格式：[4字节大端长度][JSON消息体]
+ * - 由 LengthFieldBasedFrameDecoder 处理半包和粘包
+ * - 帧通过 retainedSlice 切出，直接经 ByteBufInputStream 反序列化，不做中间 byte[] 拷贝
  */
 @Slf4j
-public class PokerMessageDecoder extends ByteToMessageDecoder {
-    
+public class PokerMessageDecoder extends LengthFieldBasedFrameDecoder {
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final int MAX_MESSAGE_SIZE = 1024 * 64; // 64KB最大消息体
-    private static final byte FRAME_DELIMITER = '\n';
-    
+    static final int MAX_MESSAGE_SIZE = 1024 * 64; // 64KB最大消息体
+    static final int LENGTH_FIELD_SIZE = 4;
+    private static final int MAX_LOGGED_BYTES = 256;
+
+    private final GameMetrics metrics;   // 可为 null（如客户端侧使用时）
+
+    public PokerMessageDecoder() {
+        this(null);
+    }
+
+    public PokerMessageDecoder(GameMetrics metrics) {
+        // maxFrameLength 包含长度字段本身；解码后剥离长度字段
+        super(MAX_MESSAGE_SIZE + LENGTH_FIELD_SIZE, 0, LENGTH_FIELD_SIZE, 0, LENGTH_FIELD_SIZE);
+        this.metrics = metrics;
+    }
+
     @Override
-    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        
-        // 寻找分隔符
-        int delIndex = in.indexOf(in.readerIndex(), in.writerIndex(), FRAME_DELIMITER);
-        
-        if (delIndex == -1) {
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
             // 还没有完整的帧
-            if (in.readableBytes() > MAX_MESSAGE_SIZE) {
-                // 单个消息超过最大限制，丢弃
-                in.skipBytes(in.readableBytes());
-                log.warn("Message exceeds max size limit, discarding");
-            }
-            return;
-        }
-        
-        // 计算消息长度（不包括分隔符）
-        int length = delIndex - in.readerIndex();
-        
-        // 检查消息大小
-        if (length > MAX_MESSAGE_SIZE) {
-            in.skipBytes(length + 1);
-            log.warn("Message size {} exceeds limit {}", length, MAX_MESSAGE_SIZE);
-            return;
+            return null;
         }
-        
-        // 提取消息字节
-        byte[] messageBytes = new byte[length];
-        in.readBytes(messageBytes);
-        in.skipBytes(1); // 跳过分隔符
-        
+
+        int start = frame.readerIndex();
+        int length = frame.readableBytes();
         try {
-            // JSON反序列化
-            PokerMessage message = objectMapper.readValue(messageBytes, PokerMessage.class);
-            out.add(message);
+            // 直接从帧切片反序列化
+            InputStream stream = new ByteBufInputStream(frame);
+            PokerMessage message = objectMapper.readValue(stream, PokerMessage.class);
+            if (metrics != null) {
+                metrics.recordDecoded(length + LENGTH_FIELD_SIZE);
+            }
+            return message;
         } catch (Exception e) {
-            log.error("Failed to decode message: {}", new String(messageBytes), e);
+            if (metrics != null) {
+                metrics.recordDecodeError();
+            }
+            // 仅在出错时才把（截断后的）帧内容转成文本，正常路径不产生额外垃圾
+            log.error("Failed to decode message ({} bytes): {}", length,
+                ByteBufUtil.hexDump(frame, start, Math.min(length, MAX_LOGGED_BYTES)), e);
             // 继续处理下一个消息，不中断解码
+            return null;
+        } finally {
+            frame.release();
         }
     }
 }
@@ -1,36 +1,75 @@
 package com.wepoker.network.codec;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wepoker.metrics.GameMetrics;
 import com.wepoker.network.protocol.PokerMessage;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.OutputStream;
+
 /**
  * Netty JSON 编码器
- * 
- * 负责将PokerMessage对象转换为ByteBuf
+ *
+ * 负责将PokerMessage对象转换为长度前缀帧：[4字节大端长度][JSON消息体]
+ * - JSON 直接序列化进池化 ByteBuf，不经过中间 byte[]
+ * - 缓冲区初始容量取最近消息大小的滑动平均值，减少扩容
  */
 @Slf4j
 public class PokerMessageEncoder extends MessageToByteEncoder<PokerMessage> {
-    
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final byte FRAME_DELIMITER = '\n';
-    
+    private static final int MIN_BUFFER_SIZE = 128;
+    private static final int INITIAL_ESTIMATE = 512;
+
+    private final GameMetrics metrics;   // 可为 null（如客户端侧使用时）
+
+    // 每个Channel独立一个编码器实例，仅在其EventLoop线程访问，无需同步
+    private int averageFrameSize = INITIAL_ESTIMATE;
+
+    public PokerMessageEncoder() {
+        this(null);
+    }
+
+    public PokerMessageEncoder(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, PokerMessage msg, boolean preferDirect) {
+        // 预留 1/4 余量，避免平均值附近的消息频繁触发扩容
+        int capacity = Math.max(MIN_BUFFER_SIZE, averageFrameSize + (averageFrameSize >> 2));
+        return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, PokerMessage msg, ByteBuf out) throws Exception {
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0); // 长度占位，序列化后回填
+
         try {
-            // JSON序列化
-            byte[] messageBytes = objectMapper.writeValueAsBytes(msg);
-            
-            // 写入消息体和分隔符
-            out.writeBytes(messageBytes);
-            out.writeByte(FRAME_DELIMITER);
-            
+            // JSON直接写入目标缓冲区
+            OutputStream stream = new ByteBufOutputStream(out);
+            objectMapper.writeValue(stream, msg);
         } catch (Exception e) {
             log.error("Failed to encode message: {}", msg, e);
             throw e;
         }
+
+        int bodyLength = out.writerIndex() - lengthIndex - PokerMessageDecoder.LENGTH_FIELD_SIZE;
+        if (bodyLength > PokerMessageDecoder.MAX_MESSAGE_SIZE) {
+            log.warn("Encoded message size {} exceeds limit {}: {}", bodyLength, PokerMessageDecoder.MAX_MESSAGE_SIZE, msg);
+        }
+        out.setInt(lengthIndex, bodyLength);
+
+        // 指数滑动平均：avg += (sample - avg) / 8
+        int frameSize = bodyLength + PokerMessageDecoder.LENGTH_FIELD_SIZE;
+        averageFrameSize += (frameSize - averageFrameSize) >> 3;
+        if (metrics != null) {
+            metrics.recordEncoded(frameSize);
+        }
     }
 }
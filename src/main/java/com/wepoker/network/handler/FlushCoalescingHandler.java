@@ -0,0 +1,123 @@
+package com.wepoker.network.handler;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.Future;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站 flush 合并处理器
+ *
+ * 一次街道切换会连续向同一连接推送多条消息，若每条都 writeAndFlush，
+ * 就是每条消息一次系统调用。本处理器吞掉中间的 flush，合并成一次真实 flush：
+ * - 读事件处理期间：所有 flush 延迟到 channelReadComplete 统一执行
+ * - 读事件之外（如引擎线程推送）：在 maxDelayMillis 后执行（0 表示下一个 EventLoop tick）
+ * - 累计被合并的 flush 达到 maxPendingFlushes 时立即 flush，避免单个批次无限变大
+ *
+ * 每个 Channel 一个实例，所有状态只在该 Channel 的 EventLoop 线程访问。
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    private final long maxDelayMillis;
+    private final int maxPendingFlushes;
+
+    private boolean readInProgress;
+    private int pendingFlushes;
+    private Future<?> scheduledFlush;
+
+    public FlushCoalescingHandler(long maxDelayMillis, int maxPendingFlushes) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxDelayMillis must be >= 0");
+        }
+        if (maxPendingFlushes <= 0) {
+            throw new IllegalArgumentException("maxPendingFlushes must be positive");
+        }
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxPendingFlushes = maxPendingFlushes;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        // 先让后续处理器完成本批次的写入，再统一 flush
+        ctx.fireChannelReadComplete();
+        readInProgress = false;
+        flushIfPending(ctx);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (++pendingFlushes >= maxPendingFlushes) {
+            flushNow(ctx);
+            return;
+        }
+        if (!readInProgress) {
+            scheduleFlush(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 缓冲区写不动时尽快把已合并的数据推出去
+        if (!ctx.channel().isWritable()) {
+            flushIfPending(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushIfPending(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushIfPending(ctx);
+    }
+
+    private void scheduleFlush(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            return;
+        }
+        if (maxDelayMillis == 0) {
+            scheduledFlush = ctx.executor().submit(() -> flushIfPending(ctx));
+        } else {
+            scheduledFlush = ctx.executor().schedule(() -> flushIfPending(ctx), maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushIfPending(ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingFlushes = 0;
+        ctx.flush();
+    }
+}
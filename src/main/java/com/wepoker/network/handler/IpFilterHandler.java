@@ -0,0 +1,63 @@
+package com.wepoker.network.handler;
+
+import com.wepoker.security.AntiCheatGuard;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接级 IP 黑名单过滤
+ *
+ * 位于 pipeline 最前面，在 channelActive 时查 AntiCheatGuard 的 CIDR 前缀树：
+ * 命中则直接关闭连接，并吞掉随后的 channelInactive，后续处理器（解码器、游戏处理器）不会收到 active/inactive，
+ * 连接数等成对统计不会只减不增；放行后把自己从 pipeline 移除，之后的读写不再经过这里。
+ *
+ * 处理器在所有连接间共享，被拒绝的标记记在 Channel 属性上。
+ */
+@Slf4j
+@Component
+@ChannelHandler.Sharable
+public class IpFilterHandler extends ChannelInboundHandlerAdapter {
+
+    private static final AttributeKey<Boolean> REJECTED_KEY = AttributeKey.valueOf("wepoker.ipRejected");
+
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    @Autowired
+    private AntiCheatGuard antiCheatGuard;
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        SocketAddress remote = ctx.channel().remoteAddress();
+        if (remote instanceof InetSocketAddress inet && inet.getAddress() != null
+                && antiCheatGuard.isIpBanned(inet.getAddress())) {
+            rejectedConnections.increment();
+            log.debug("Rejected connection from banned IP {}", inet.getAddress().getHostAddress());
+            ctx.channel().attr(REJECTED_KEY).set(Boolean.TRUE);
+            ctx.close();
+            return;
+        }
+        ctx.pipeline().remove(this);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 后续处理器没有收到过 channelActive，也不应收到 channelInactive
+        if (ctx.channel().attr(REJECTED_KEY).get() == null) {
+            ctx.fireChannelInactive();
+        }
+    }
+
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+}
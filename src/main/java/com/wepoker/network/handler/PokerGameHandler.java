@@ -1,8 +1,14 @@
 package com.wepoker.network.handler;
 
+import com.wepoker.metrics.GameMetrics;
 import com.wepoker.network.protocol.PokerMessage;
+import com.wepoker.network.session.PlayerSession;
+import com.wepoker.network.session.SessionRegistry;
+import com.wepoker.network.session.SessionReplayBuffer;
+import com.wepoker.security.AntiCheatGuard;
+import com.wepoker.security.AntiCheatGuard.AntiCheatResult;
 import com.wepoker.service.GameService;
-import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.timeout.IdleStateEvent;
@@ -10,8 +16,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Netty 游戏主处理器
@@ -20,21 +26,30 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 连接管理和断线重连
  * - 消息分发
  * - 心跳和超时检测
+ *
+ * 会话状态保存在 SessionRegistry 与 Channel 属性中，处理器本身无状态，所有连接共享同一实例。
  */
 @Slf4j
 @Component
+@ChannelHandler.Sharable
 public class PokerGameHandler extends ChannelInboundHandlerAdapter {
     
-    // 静态存储所有活跃连接
-    private static final ConcurrentHashMap<String, Channel> ACTIVE_CHANNELS = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Long, String> PLAYER_SESSION_MAP = new ConcurrentHashMap<>();
-    
     @Autowired
     private GameService gameService;
     
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @Autowired
+    private GameMetrics gameMetrics;
+    
+    @Autowired
+    private AntiCheatGuard antiCheatGuard;
+    
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         log.info("Channel active: {}", ctx.channel().remoteAddress());
+        gameMetrics.channelOpened();
         ctx.fireChannelActive();
     }
     
@@ -76,7 +91,9 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
                 case CHECK:
                 case FOLD:
                 case ALL_IN:
-                    gameService.handleAction(message);
+                    if (passesRateLimit(ctx, message)) {
+                        gameService.handleAction(message);
+                    }
                     break;
                 
                 case LEAVE_TABLE:
@@ -93,16 +110,36 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
         }
     }
     
+    /**
+     * 一批入站消息处理完毕后统一 flush（处理过程中的响应只 write 不 flush）
+     */
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+        ctx.fireChannelReadComplete();
+    }
+    
+    /**
+     * 游戏操作的频率限流，超限时回错误并丢弃该操作
+     */
+    private boolean passesRateLimit(ChannelHandlerContext ctx, PokerMessage message) {
+        AntiCheatResult result = antiCheatGuard.checkActionRate(message.getPlayerId(), message.getType().name());
+        if (result.isPassed()) {
+            return true;
+        }
+        log.warn("Player {} action {} rejected: {}", message.getPlayerId(), message.getType(), result.getCode());
+        sendError(ctx, message, result.getCode(), result.getMessage());
+        return false;
+    }
+    
     /**
      * 处理握手请求 - 建立会话
      */
     private void handleHandshake(ChannelHandlerContext ctx, PokerMessage request) {
-        String sessionId = generateSessionId();
         Long playerId = request.getPlayerId();
         
-        // 记录映射
-        ACTIVE_CHANNELS.put(sessionId, ctx.channel());
-        PLAYER_SESSION_MAP.put(playerId, sessionId);
+        // 注册会话（重新握手意味着放弃旧会话，旧会话不再可恢复）
+        String sessionId = sessionRegistry.register(playerId, ctx.channel()).getSessionId();
         
         // 返回握手响应
         PokerMessage response = PokerMessage.builder()
@@ -115,30 +152,54 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
                 .build();
         
         response.setPayloadField("status", "CONNECTED");
-        ctx.writeAndFlush(response);
+        ctx.write(response);
         
         log.info("Player {} handshake success, sessionId: {}", playerId, sessionId);
     }
     
     /**
      * 处理断线重连
+     *
+     * 客户端在 payload.lastSequence 中带上最后收到的序列号：
+     * - 缺失的消息仍在重放缓冲内：只补发缺失部分
+     * - 否则（缺口过大/会话未知/未携带序列号）：回退为发送一次全量快照
      */
     private void handleReconnect(ChannelHandlerContext ctx, PokerMessage request) {
         String sessionId = request.getSessionId();
         Long playerId = request.getPlayerId();
-        
-        // 替换旧连接
-        Channel oldChannel = ACTIVE_CHANNELS.put(sessionId, ctx.channel());
-        if (oldChannel != null && oldChannel.isActive()) {
-            oldChannel.close();
-            log.info("Closed old connection for player {}", playerId);
+        PlayerSession session = sessionRegistry.getSession(sessionId);
+        if (session == null) {
+            sendError(ctx, request, "SESSION_EXPIRED", "Session not found, handshake required");
+            return;
         }
         
-        // 恢复游戏状态
-        PokerMessage gameState = gameService.getGameState(request.getTableId(), playerId);
-        if (gameState != null) {
-            ctx.writeAndFlush(gameState);
-            log.info("Restored game state for player {} at table {}", playerId, request.getTableId());
+        // 换连接与补发在同一把锁内完成，期间推送的新消息会排在补发之后
+        synchronized (session) {
+            // 替换旧连接
+            if (sessionRegistry.resume(sessionId, playerId, ctx.channel()) == null) {
+                sendError(ctx, request, "SESSION_EXPIRED", "Session not found, handshake required");
+                return;
+            }
+            SessionReplayBuffer replayBuffer = session.getReplayBuffer();
+            
+            Object lastSequence = request.getPayloadField("lastSequence");
+            List<PokerMessage> missed = lastSequence instanceof Number n
+                    ? replayBuffer.messagesAfter(n.intValue())
+                    : null;
+            if (missed != null) {
+                missed.forEach(ctx::write);
+                log.info("Resumed session {} for player {}, replayed {} messages", sessionId, playerId, missed.size());
+                return;
+            }
+            
+            // 恢复游戏状态（快照同样进入序列，客户端据此重置序列号）
+            PokerMessage gameState = gameService.getGameState(request.getTableId(), playerId);
+            if (gameState != null) {
+                gameState.setSessionId(sessionId);
+                replayBuffer.append(gameState);
+                ctx.write(gameState);
+                log.info("Restored game state for player {} at table {}", playerId, request.getTableId());
+            }
         }
     }
     
@@ -154,7 +215,7 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
                 .playerId(heartbeat.getPlayerId())
                 .build();
         
-        ctx.writeAndFlush(ack);
+        ctx.write(ack);
     }
     
     /**
@@ -171,7 +232,7 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
                 .errorMessage(errorMsg)
                 .build();
         
-        ctx.writeAndFlush(error);
+        ctx.write(error);
     }
     
     @Override
@@ -187,9 +248,10 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         log.warn("Channel inactive: {}", ctx.channel().remoteAddress());
+        gameMetrics.channelClosed();
         
-        // 清理会话记录
-        ACTIVE_CHANNELS.entrySet().removeIf(e -> e.getValue() == ctx.channel());
+        // 解绑会话（会话保留至 TTL 过期，期间可重连）
+        sessionRegistry.onChannelInactive(ctx.channel());
         
         ctx.fireChannelInactive();
     }
@@ -201,32 +263,7 @@ public class PokerGameHandler extends ChannelInboundHandlerAdapter {
     }
     
     // 工具方法
-    private String generateSessionId() {
-        return UUID.randomUUID().toString();
-    }
-    
     private String generateMessageId() {
         return UUID.randomUUID().toString();
     }
-    
-    // 静态方法：根据会话ID获取通道
-    public static Channel getChannel(String sessionId) {
-        return ACTIVE_CHANNELS.get(sessionId);
-    }
-    
-    // 静态方法：根据玩家ID获取会话ID
-    public static String getSessionId(Long playerId) {
-        return PLAYER_SESSION_MAP.get(playerId);
-    }
-    
-    // 静态方法：向玩家发送消息
-    public static void sendMessageToPlayer(Long playerId, PokerMessage message) {
-        String sessionId = PLAYER_SESSION_MAP.get(playerId);
-        if (sessionId != null) {
-            Channel channel = ACTIVE_CHANNELS.get(sessionId);
-            if (channel != null && channel.isActive()) {
-                channel.writeAndFlush(message);
-            }
-        }
-    }
 }
@@ -0,0 +1,195 @@
+package com.wepoker.network.handler;
+
+import com.wepoker.network.protocol.PokerMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢消费者保护（出站背压）
+ *
+ * 依赖 Channel 的写缓冲水位线（WRITE_BUFFER_WATER_MARK）判断客户端是否跟得上：
+ * - 不可写期间，GAME_STATE_UPDATE 这类全量快照只保留最新一条，中间状态直接丢弃，
+ *   保留的快照带 collapsedFromSequence，标明被丢弃快照占用的序列号区间
+ * - 其他消息照常入队，并先补发挂起的快照以保证顺序
+ * - 恢复可写后补发最新快照
+ * - 持续不可写超过 maxLagMillis 则断开连接，由客户端走断线重连恢复
+ *
+ * 必须位于编码器之后（靠近 pipeline 尾部），才能看到 PokerMessage 对象。
+ */
+@Slf4j
+public class SlowConsumerHandler extends ChannelDuplexHandler {
+
+    // 全局统计（所有连接共享）
+    private static final Set<Channel> LAGGING_CHANNELS = ConcurrentHashMap.newKeySet();
+    private static final LongAdder COLLAPSED_UPDATES = new LongAdder();
+    private static final LongAdder SLOW_CONSUMER_DISCONNECTS = new LongAdder();
+
+    private final long maxLagMillis;
+
+    // 以下状态只在该 Channel 的 EventLoop 线程访问
+    private PokerMessage pendingSnapshot;
+    private ChannelPromise pendingSnapshotPromise;
+    private ScheduledFuture<?> lagCheck;
+
+    public SlowConsumerHandler(long maxLagMillis) {
+        if (maxLagMillis <= 0) {
+            throw new IllegalArgumentException("maxLagMillis must be positive");
+        }
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof PokerMessage message && isCollapsible(message)) {
+            // 新快照到达，旧快照作废
+            PokerMessage snapshot = supersedePendingSnapshot(message);
+            if (!ctx.channel().isWritable()) {
+                pendingSnapshot = snapshot;
+                pendingSnapshotPromise = promise;
+                return;
+            }
+            ctx.write(snapshot, promise);
+            return;
+        }
+
+        writePendingSnapshot(ctx);
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        Channel channel = ctx.channel();
+        if (channel.isWritable()) {
+            LAGGING_CHANNELS.remove(channel);
+            cancelLagCheck();
+            if (pendingSnapshot != null) {
+                writePendingSnapshot(ctx);
+                ctx.flush();
+            }
+        } else if (LAGGING_CHANNELS.add(channel)) {
+            log.debug("Channel {} became unwritable, pending outbound {} bytes",
+                channel.remoteAddress(), pendingOutboundBytes(channel));
+            lagCheck = ctx.executor().schedule(() -> disconnectIfStillLagging(ctx), maxLagMillis, TimeUnit.MILLISECONDS);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        LAGGING_CHANNELS.remove(ctx.channel());
+        cancelLagCheck();
+        if (pendingSnapshotPromise != null) {
+            pendingSnapshotPromise.tryFailure(new ClosedChannelException());
+        }
+        pendingSnapshot = null;
+        pendingSnapshotPromise = null;
+        ctx.fireChannelInactive();
+    }
+
+    private void disconnectIfStillLagging(ChannelHandlerContext ctx) {
+        lagCheck = null;
+        Channel channel = ctx.channel();
+        if (channel.isActive() && !channel.isWritable()) {
+            SLOW_CONSUMER_DISCONNECTS.increment();
+            log.warn("Closing slow consumer {}: unwritable for more than {}ms, pending outbound {} bytes",
+                channel.remoteAddress(), maxLagMillis, pendingOutboundBytes(channel));
+            ctx.close();
+        }
+    }
+
+    /**
+     * @return 实际要发送的新快照：有快照被合并时是带 collapsedFromSequence 的副本。
+     *         原对象同时存放在 SessionReplayBuffer 中，重连补发时不能带上这次连接的合并标记
+     */
+    private PokerMessage supersedePendingSnapshot(PokerMessage replacement) {
+        if (pendingSnapshot == null) {
+            return replacement;
+        }
+        // 被取代的快照已分配过序列号，在新快照上标明缺口起点，客户端据此区分合并与丢包；
+        // 挂起期间的非快照消息会先补发挂起快照，所以被合并的序列号一定连续
+        int collapsedFrom = pendingSnapshot.getCollapsedFromSequence() > 0
+            ? pendingSnapshot.getCollapsedFromSequence()
+            : pendingSnapshot.getSequenceNumber();
+        PokerMessage snapshot = collapsedFrom > 0
+            ? replacement.toBuilder().collapsedFromSequence(collapsedFrom).build()
+            : replacement;
+        // 被新快照取代视为成功投递（客户端最终会收到更新的状态）
+        pendingSnapshotPromise.trySuccess();
+        pendingSnapshot = null;
+        pendingSnapshotPromise = null;
+        COLLAPSED_UPDATES.increment();
+        return snapshot;
+    }
+
+    private void writePendingSnapshot(ChannelHandlerContext ctx) {
+        if (pendingSnapshot == null) {
+            return;
+        }
+        PokerMessage snapshot = pendingSnapshot;
+        ChannelPromise promise = pendingSnapshotPromise;
+        pendingSnapshot = null;
+        pendingSnapshotPromise = null;
+        ctx.write(snapshot, promise);
+    }
+
+    private void cancelLagCheck() {
+        if (lagCheck != null) {
+            lagCheck.cancel(false);
+            lagCheck = null;
+        }
+    }
+
+    /**
+     * 只有全量状态快照可以合并，增量消息（操作请求、结算、错误等）必须逐条送达
+     */
+    private static boolean isCollapsible(PokerMessage message) {
+        return message.getType() == PokerMessage.MessageType.GAME_STATE_UPDATE;
+    }
+
+    /**
+     * 获取 Channel 出站缓冲区中尚未写出的字节数
+     */
+    public static long pendingOutboundBytes(Channel channel) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    /**
+     * 背压统计：当前积压连接及其待写字节数、被合并的状态更新数、因积压断开的连接数
+     */
+    public static Map<String, Object> getStats() {
+        List<Map<String, Object>> lagging = new ArrayList<>();
+        long totalPendingBytes = 0;
+        for (Channel channel : LAGGING_CHANNELS) {
+            long pending = pendingOutboundBytes(channel);
+            totalPendingBytes += pending;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("remoteAddress", String.valueOf(channel.remoteAddress()));
+            item.put("pendingBytes", pending);
+            lagging.add(item);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("laggingChannels", lagging.size());
+        stats.put("laggingPendingBytes", totalPendingBytes);
+        stats.put("collapsedUpdates", COLLAPSED_UPDATES.sum());
+        stats.put("slowConsumerDisconnects", SLOW_CONSUMER_DISCONNECTS.sum());
+        stats.put("lagging", lagging);
+        return stats;
+    }
+}
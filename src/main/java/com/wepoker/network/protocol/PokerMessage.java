@@ -14,7 +14,7 @@ import java.util.Map;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class PokerMessage implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -58,6 +58,7 @@ public class PokerMessage implements Serializable {
     private String sessionId;                    // 会话ID（用于断线重连）
     private Map<String, Object> payload;        // 消息体
     private int sequenceNumber;                  // 序列号（确保顺序性）
+    private int collapsedFromSequence;           // 慢消费者合并快照时，本快照取代的最早序列号；[该值, sequenceNumber) 的缺口是被合并的快照而非丢包，0 表示未合并
     private String errorCode;                    // 错误代码
     private String errorMessage;                 // 错误信息
 
@@ -1,13 +1,18 @@
 package com.wepoker.network.server;
 
+import com.wepoker.metrics.GameMetrics;
 import com.wepoker.network.codec.PokerMessageDecoder;
 import com.wepoker.network.codec.PokerMessageEncoder;
+import com.wepoker.network.handler.FlushCoalescingHandler;
+import com.wepoker.network.handler.IpFilterHandler;
 import com.wepoker.network.handler.PokerGameHandler;
+import com.wepoker.network.handler.SlowConsumerHandler;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -43,9 +48,30 @@ public class NettyGameServer {
     @Value("${wepoker.netty.workerThreads:8}")
     private int workerThreads;
     
+    @Value("${wepoker.netty.flushMaxDelayMillis:5}")
+    private long flushMaxDelayMillis;
+    
+    @Value("${wepoker.netty.flushMaxPending:32}")
+    private int flushMaxPending;
+    
+    @Value("${wepoker.netty.writeBufferLowWaterMark:32768}")
+    private int writeBufferLowWaterMark;
+    
+    @Value("${wepoker.netty.writeBufferHighWaterMark:131072}")
+    private int writeBufferHighWaterMark;
+    
+    @Value("${wepoker.netty.slowConsumerMaxLagMillis:15000}")
+    private long slowConsumerMaxLagMillis;
+    
     @Autowired
     private PokerGameHandler gameHandler;
     
+    @Autowired
+    private IpFilterHandler ipFilterHandler;
+    
+    @Autowired
+    private GameMetrics gameMetrics;
+    
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private Channel serverChannel;
@@ -70,12 +96,21 @@ public class NettyGameServer {
                         protected void initChannel(SocketChannel ch) throws Exception {
                             ChannelPipeline pipeline = ch.pipeline();
                             
+                            // IP 黑名单：连接建立时检查，命中直接关闭，不进入解码
+                            pipeline.addLast(ipFilterHandler);
+                            
                             // 超时检测：30秒无读、60秒无写、90秒无活动则触发超时事件
                             pipeline.addLast(new IdleStateHandler(30, 60, 90, TimeUnit.SECONDS));
                             
+                            // 出站 flush 合并：同一批次的多条消息只触发一次系统调用
+                            pipeline.addLast(new FlushCoalescingHandler(flushMaxDelayMillis, flushMaxPending));
+                            
                             // JSON编码/解码
-                            pipeline.addLast(new PokerMessageDecoder());
-                            pipeline.addLast(new PokerMessageEncoder());
+                            pipeline.addLast(new PokerMessageDecoder(gameMetrics));
+                            pipeline.addLast(new PokerMessageEncoder(gameMetrics));
+                            
+                            // 慢消费者保护：积压时合并状态快照，长时间积压则断开
+                            pipeline.addLast(new SlowConsumerHandler(slowConsumerMaxLagMillis));
                             
                             // 游戏逻辑处理
                             pipeline.addLast(gameHandler);
@@ -86,7 +121,9 @@ public class NettyGameServer {
             bootstrap.option(io.netty.channel.ChannelOption.SO_BACKLOG, 1024)
                     .option(io.netty.channel.ChannelOption.TCP_NODELAY, true)
                     .childOption(io.netty.channel.ChannelOption.TCP_NODELAY, true)
-                    .childOption(io.netty.channel.ChannelOption.SO_KEEPALIVE, true);
+                    .childOption(io.netty.channel.ChannelOption.SO_KEEPALIVE, true)
+                    .childOption(io.netty.channel.ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
             
             // 绑定端口
             serverChannel = bootstrap.bind(host, port).sync().channel();
@@ -0,0 +1,67 @@
+package com.wepoker.network.session;
+
+import io.netty.channel.Channel;
+import lombok.Getter;
+
+/**
+ * 玩家长连接会话
+ *
+ * 会话与连接解耦：断线后会话仍保留（channel 为 null），
+ * 在过期前可通过 RECONNECT 绑定新连接并补发缺失消息。
+ * 对本对象加锁可将"推送消息"与"重连换连接 + 补发"串行化。
+ */
+@Getter
+public class PlayerSession {
+
+    private final String sessionId;
+    private final long playerId;
+    private final long createdAt;
+    private final SessionReplayBuffer replayBuffer;
+
+    private volatile Channel channel;
+    private volatile long disconnectedAt;   // 断线时间，在线时为 0
+
+    PlayerSession(String sessionId, long playerId, int replayBufferSize, Channel channel) {
+        this.sessionId = sessionId;
+        this.playerId = playerId;
+        this.createdAt = System.currentTimeMillis();
+        this.replayBuffer = new SessionReplayBuffer(replayBufferSize);
+        this.channel = channel;
+    }
+
+    /**
+     * 绑定新连接
+     *
+     * @return 被替换的旧连接（可能为 null）
+     */
+    synchronized Channel attach(Channel newChannel) {
+        Channel old = this.channel;
+        this.channel = newChannel;
+        this.disconnectedAt = 0;
+        return old;
+    }
+
+    /**
+     * 解绑连接（仅当仍是当前连接时生效，避免旧连接的关闭事件误伤新连接）
+     *
+     * @return 是否确实解绑
+     */
+    synchronized boolean detach(Channel closedChannel) {
+        if (this.channel != closedChannel) {
+            return false;
+        }
+        this.channel = null;
+        this.disconnectedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public boolean isConnected() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    boolean isExpired(long now, long ttlMillis) {
+        long since = disconnectedAt;
+        return channel == null && since > 0 && now - since > ttlMillis;
+    }
+}
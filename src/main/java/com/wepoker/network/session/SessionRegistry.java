@@ -0,0 +1,172 @@
+package com.wepoker.network.session;
+
+import com.wepoker.network.protocol.PokerMessage;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 长连接会话注册表
+ *
+ * - 会话挂在 Channel 属性上（SESSION_KEY），断线时直接从连接拿到会话，O(1) 解绑
+ * - sessionId -> 会话、playerId -> 会话 双向索引，均按 key 删除
+ * - 断线会话保留 sessionTtlMillis 以便重连，过期由定时任务清理（不在断线路径上扫描）
+ */
+@Slf4j
+@Component
+public class SessionRegistry {
+
+    public static final AttributeKey<PlayerSession> SESSION_KEY = AttributeKey.valueOf("wepoker.session");
+
+    private final ConcurrentHashMap<String, PlayerSession> sessionsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PlayerSession> sessionsByPlayer = new ConcurrentHashMap<>();
+    private final AtomicInteger connectedSessions = new AtomicInteger();
+
+    @Value("${wepoker.netty.replayBufferSize:256}")
+    private int replayBufferSize;
+
+    @Value("${wepoker.netty.sessionTtlMillis:300000}")
+    private long sessionTtlMillis;
+
+    /**
+     * 握手：为玩家创建新会话并绑定到连接，玩家之前的会话随之失效
+     */
+    public PlayerSession register(long playerId, Channel channel) {
+        PlayerSession session = new PlayerSession(UUID.randomUUID().toString(), playerId, replayBufferSize, channel);
+        sessionsById.put(session.getSessionId(), session);
+        PlayerSession previous = sessionsByPlayer.put(playerId, session);
+        if (previous != null) {
+            sessionsById.remove(previous.getSessionId(), previous);
+        }
+        bindChannel(channel, session);
+        connectedSessions.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * 重连：把已有会话绑定到新连接
+     *
+     * @return 会话；会话不存在、已过期或不属于该玩家时返回 null
+     */
+    public PlayerSession resume(String sessionId, long playerId, Channel channel) {
+        if (sessionId == null) {
+            return null;
+        }
+        PlayerSession session = sessionsById.get(sessionId);
+        if (session == null || session.getPlayerId() != playerId) {
+            return null;
+        }
+        synchronized (session) {
+            Channel old = session.attach(channel);
+            if (old == null) {
+                connectedSessions.incrementAndGet();
+            } else if (old != channel) {
+                old.attr(SESSION_KEY).compareAndSet(session, null);
+                if (old.isActive()) {
+                    old.close();
+                    log.info("Closed old connection for player {}", playerId);
+                }
+            }
+            bindChannel(channel, session);
+        }
+        return session;
+    }
+
+    /**
+     * 连接断开：通过 Channel 属性直接定位会话，O(1)
+     */
+    public void onChannelInactive(Channel channel) {
+        PlayerSession session = channel.attr(SESSION_KEY).getAndSet(null);
+        if (session != null && session.detach(channel)) {
+            connectedSessions.decrementAndGet();
+        }
+    }
+
+    private void bindChannel(Channel channel, PlayerSession session) {
+        PlayerSession previous = channel.attr(SESSION_KEY).getAndSet(session);
+        // 同一连接上重复握手：旧会话解绑
+        if (previous != null && previous != session && previous.detach(channel)) {
+            connectedSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * 向玩家推送消息：分配会话序列号并写入重放缓冲；玩家离线时消息留待重连补发
+     *
+     * sessionId 和序列号写在按会话复制出的消息上，调用方的消息不被修改，同一条消息可以推给多个玩家；
+     * payload 是浅拷贝，传入后不要再修改。
+     */
+    public void sendMessageToPlayer(long playerId, PokerMessage message) {
+        PlayerSession session = sessionsByPlayer.get(playerId);
+        if (session == null) {
+            return;
+        }
+        PokerMessage copy = message.toBuilder().sessionId(session.getSessionId()).build();
+        synchronized (session) {
+            session.getReplayBuffer().append(copy);
+            Channel channel = session.getChannel();
+            if (channel != null && channel.isActive()) {
+                // flush 由 FlushCoalescingHandler 合并，短时间内的连续推送只触发一次系统调用；
+                // 客户端积压时由 SlowConsumerHandler 合并状态快照
+                channel.writeAndFlush(copy);
+            }
+        }
+    }
+
+    /**
+     * 定时清理断线超过 TTL 的会话
+     */
+    @Scheduled(fixedDelayString = "${wepoker.netty.sessionSweepIntervalMillis:30000}")
+    public void expireStaleSessions() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (PlayerSession session : sessionsById.values()) {
+            if (session.isExpired(now, sessionTtlMillis) && sessionsById.remove(session.getSessionId(), session)) {
+                sessionsByPlayer.remove(session.getPlayerId(), session);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} stale sessions, {} remaining", expired, sessionsById.size());
+        }
+    }
+
+    public PlayerSession getSession(String sessionId) {
+        return sessionId == null ? null : sessionsById.get(sessionId);
+    }
+
+    public PlayerSession getSessionByPlayer(long playerId) {
+        return sessionsByPlayer.get(playerId);
+    }
+
+    public Channel getChannel(String sessionId) {
+        PlayerSession session = getSession(sessionId);
+        return session == null ? null : session.getChannel();
+    }
+
+    public String getSessionId(long playerId) {
+        PlayerSession session = sessionsByPlayer.get(playerId);
+        return session == null ? null : session.getSessionId();
+    }
+
+    /**
+     * 会话总数（含断线待重连）
+     */
+    public int getSessionCount() {
+        return sessionsById.size();
+    }
+
+    /**
+     * 当前在线（已绑定连接）的会话数
+     */
+    public int getConnectedSessionCount() {
+        return connectedSessions.get();
+    }
+}
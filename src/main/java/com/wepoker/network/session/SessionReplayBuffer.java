@@ -0,0 +1,72 @@
+package com.wepoker.network.session;
+
+import com.wepoker.network.protocol.PokerMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 会话级消息序列号与重放环形缓冲区
+ *
+ * 服务端推送给某个会话的每条消息都分配单调递增的 sequenceNumber（从1开始），
+ * 并保留最近 capacity 条。断线重连时客户端带上最后收到的序列号，
+ * 只需补发缺失部分；缺口超过缓冲区容量时返回 null，由调用方回退为全量快照。
+ * 在线客户端可能看到序列号缺口：积压时 SlowConsumerHandler 会合并状态快照，
+ * 此时送达的快照带 collapsedFromSequence，缺口落在 [collapsedFromSequence, sequenceNumber) 内属正常，
+ * 其余缺口才视为丢消息、走重连补发。
+ *
+ * 调用方可对本对象加锁，把"分配序列号 + 写出"与"重放"串行化，避免重连瞬间丢消息。
+ */
+public class SessionReplayBuffer {
+
+    private final PokerMessage[] ring;
+    private int lastSequence;   // 最后分配的序列号，0 表示尚未发送过消息
+
+    public SessionReplayBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.ring = new PokerMessage[capacity];
+    }
+
+    /**
+     * 为消息分配序列号并写入缓冲区
+     *
+     * @return 分配的序列号
+     */
+    public synchronized int append(PokerMessage message) {
+        int sequence = ++lastSequence;
+        message.setSequenceNumber(sequence);
+        ring[sequence % ring.length] = message;
+        return sequence;
+    }
+
+    /**
+     * 获取 lastSeen 之后的所有消息（按序）
+     *
+     * @param lastSeen 客户端最后收到的序列号
+     * @return 缺失的消息；缺口过大或序列号非法时返回 null
+     */
+    public synchronized List<PokerMessage> messagesAfter(int lastSeen) {
+        if (lastSeen < 0 || lastSeen > lastSequence) {
+            return null;
+        }
+        int missing = lastSequence - lastSeen;
+        if (missing > ring.length) {
+            return null;
+        }
+        List<PokerMessage> result = new ArrayList<>(missing);
+        for (int seq = lastSeen + 1; seq <= lastSequence; seq++) {
+            result.add(ring[seq % ring.length]);
+        }
+        return result;
+    }
+
+    public synchronized int getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+}
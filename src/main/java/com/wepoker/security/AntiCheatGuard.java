@@ -3,12 +3,22 @@ package com.wepoker.security;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 防作弊检测模块
@@ -19,41 +29,183 @@ import java.util.Set;
  * 3. GPS 位置异常
  * 4. 货币流通异常
  * 5. 设备指纹识别
+ *
+ * 操作频率按玩家做滑动窗口限流（SlidingWindowCounter，无锁），Netty 与 REST 入口的每个游戏操作都经过 checkActionRate，
+ * 只拦截频率；连续全下等行为模式由 checkBehavior 判定，它不挂在实时入口上（短码玩家连续全下是正常打法，不能直接拒绝操作）。
+ * 空闲玩家的档案定期淘汰，内存随在线玩家数而非历史玩家数增长；档案数达到上限时由新玩家的操作触发淘汰，
+ * 按 overflowSweepIntervalMillis 限频（在线玩家全部活跃时淘汰不掉任何档案，不能每个操作都扫一遍）。
+ *
+ * IP 黑白名单是 CIDR 前缀树（IpPrefixTrie），可从文件批量加载并在文件变化时整体替换；
+ * 读取方（Netty 的 IpFilterHandler，在 channelActive 时检查）无锁，写入方复制后替换引用。
  */
 @Slf4j
 @Component
 public class AntiCheatGuard {
     
-    // IP 黑名单
-    private final Set<String> ipBlacklist = new HashSet<>();
+    // IP 黑名单：文件加载部分与运行时手动添加部分分开，重新加载文件不会丢掉手动封禁
+    private volatile IpPrefixTrie fileBlacklist = IpPrefixTrie.EMPTY;
+    private volatile IpPrefixTrie manualBlacklist = IpPrefixTrie.EMPTY;
     
     // IP 白名单（优先级更高）
-    private final Set<String> ipWhitelist = new HashSet<>();
+    private volatile IpPrefixTrie ipWhitelist = IpPrefixTrie.EMPTY;
+    
+    // 已加载文件的修改时间，未变化时跳过重新加载
+    private volatile long blacklistFileModified = -1;
+    private volatile long whitelistFileModified = -1;
     
     // 每个玩家的操作历史，用于检测异常
-    private final Map<Long, PlayerBehaviorProfile> behaviorProfiles = new HashMap<>();
+    private final Map<Long, PlayerBehaviorProfile> behaviorProfiles = new ConcurrentHashMap<>();
     
     // GPS 位置历史
-    private final Map<Long, LocationHistory> locationHistories = new HashMap<>();
+    private final Map<Long, LocationHistory> locationHistories = new ConcurrentHashMap<>();
+    
+    @Value("${wepoker.security.rateLimit.windowMillis:5000}")
+    private long rateLimitWindowMillis = 5000;
+    
+    @Value("${wepoker.security.rateLimit.buckets:10}")
+    private int rateLimitBuckets = 10;
+    
+    @Value("${wepoker.security.rateLimit.maxActions:10}")
+    private int rateLimitMaxActions = 10;
+    
+    @Value("${wepoker.security.rateLimit.idleEvictMillis:300000}")
+    private long idleEvictMillis = 300000;
+    
+    @Value("${wepoker.security.rateLimit.maxTrackedPlayers:200000}")
+    private int maxTrackedPlayers = 200000;
+    
+    @Value("${wepoker.security.rateLimit.overflowSweepIntervalMillis:1000}")
+    private long overflowSweepIntervalMillis = 1000;
+    
+    // 上次因档案数超限触发淘汰的时间
+    private final AtomicLong lastOverflowSweep = new AtomicLong();
+    
+    @Value("${wepoker.security.ipBlocklist.blacklistFile:}")
+    private String blacklistFile = "";
+    
+    @Value("${wepoker.security.ipBlocklist.whitelistFile:}")
+    private String whitelistFile = "";
+    
+    @PostConstruct
+    public void loadIpLists() {
+        reloadIpListsIfChanged();
+    }
     
     /**
-     * 检查 IP 是否被禁用
+     * 检查 IP 是否被禁用（支持 IPv4 / IPv6，非法地址视为未禁用）
      */
     public boolean isIpBanned(String ipAddress) {
         if (ipWhitelist.contains(ipAddress)) {
             return false;
         }
-        return ipBlacklist.contains(ipAddress);
+        return fileBlacklist.contains(ipAddress) || manualBlacklist.contains(ipAddress);
     }
     
     /**
-     * 添加 IP 到黑名单
+     * 检查 IP 是否被禁用；连接建立时调用，不做字符串解析
      */
-    public void addIpToBlacklist(String ipAddress, String reason) {
-        ipBlacklist.add(ipAddress);
+    public boolean isIpBanned(InetAddress address) {
+        if (ipWhitelist.contains(address)) {
+            return false;
+        }
+        return fileBlacklist.contains(address) || manualBlacklist.contains(address);
+    }
+    
+    /**
+     * 添加 IP 或 CIDR 段到黑名单（如 "203.0.113.7"、"198.51.100.0/24"）
+     *
+     * @throws IllegalArgumentException 格式非法
+     */
+    public synchronized void addIpToBlacklist(String ipAddress, String reason) {
+        manualBlacklist = manualBlacklist.toBuilder().add(ipAddress).build();
         log.warn("IP {} added to blacklist. Reason: {}", ipAddress, reason);
     }
     
+    /**
+     * 黑白名单文件有变化时重新加载并整体替换；加载失败保留旧名单
+     *
+     * 文件每行一个地址或 CIDR 段，# 之后为注释，非法行跳过并记录日志。
+     */
+    @Scheduled(fixedDelayString = "${wepoker.security.ipBlocklist.reloadIntervalMillis:60000}")
+    public synchronized void reloadIpListsIfChanged() {
+        if (!blacklistFile.isBlank()) {
+            Path path = Path.of(blacklistFile);
+            long modified = lastModified(path);
+            if (modified != blacklistFileModified) {
+                IpPrefixTrie loaded = loadIpList(path);
+                if (loaded != null) {
+                    fileBlacklist = loaded;
+                    blacklistFileModified = modified;
+                }
+            }
+        }
+        if (!whitelistFile.isBlank()) {
+            Path path = Path.of(whitelistFile);
+            long modified = lastModified(path);
+            if (modified != whitelistFileModified) {
+                IpPrefixTrie loaded = loadIpList(path);
+                if (loaded != null) {
+                    ipWhitelist = loaded;
+                    whitelistFileModified = modified;
+                }
+            }
+        }
+    }
+    
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * 从文件构建前缀树；文件不可读时返回 null
+     */
+    static IpPrefixTrie loadIpList(Path path) {
+        IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+        int invalid = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String entry = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                try {
+                    builder.add(entry);
+                } catch (IllegalArgumentException e) {
+                    invalid++;
+                    log.debug("Skipping invalid IP list entry in {}: {}", path, entry);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to load IP list {}", path, e);
+            return null;
+        }
+        IpPrefixTrie trie = builder.build();
+        log.info("Loaded IP list {}: {} prefixes, {} trie nodes, {} invalid lines skipped",
+            path, trie.getPrefixCount(), trie.getNodeCount(), invalid);
+        return trie;
+    }
+    
+    /**
+     * IP 名单统计（前缀数、前缀树节点数）
+     */
+    public Map<String, Object> getIpListStats() {
+        IpPrefixTrie file = fileBlacklist;
+        IpPrefixTrie manual = manualBlacklist;
+        IpPrefixTrie whitelist = ipWhitelist;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blacklistFilePrefixes", file.getPrefixCount());
+        stats.put("manualBlacklistPrefixes", manual.getPrefixCount());
+        stats.put("whitelistPrefixes", whitelist.getPrefixCount());
+        stats.put("trieNodes", file.getNodeCount() + manual.getNodeCount() + whitelist.getNodeCount());
+        return stats;
+    }
+    
     /**
      * 检测异常行为
      * 
@@ -63,15 +215,11 @@ public class AntiCheatGuard {
      * - 连续全下
      */
     public AntiCheatResult checkBehavior(Long playerId, String action, long amount) {
-        PlayerBehaviorProfile profile = behaviorProfiles.computeIfAbsent(playerId, 
-            k -> new PlayerBehaviorProfile());
-        
-        // 记录操作
-        profile.recordAction(action, amount);
-        
-        // 检测操作频率（每5秒最多10个操作）
-        if (profile.getActionsInLastSeconds(5) > 10) {
-            return new AntiCheatResult(false, "RAPID_ACTIONS", "操作过于频繁，可能涉及作弊");
+        // 直接使用本次拿到的档案，不再回查 Map（期间可能已被 evictIdleProfiles 淘汰）
+        PlayerBehaviorProfile profile = profileOf(playerId);
+        AntiCheatResult rate = checkActionRate(profile, action);
+        if (!rate.isPassed()) {
+            return rate;
         }
         
         // 检测连续全下（连续3次全下）
@@ -82,6 +230,45 @@ public class AntiCheatGuard {
         return new AntiCheatResult(true, "OK", "通过检测");
     }
     
+    /**
+     * 操作频率限流（默认每5秒滑动窗口最多10个操作），超限的操作不计入
+     *
+     * 网络入口对每个游戏操作调用；只拦截频率，其余行为模式由 checkBehavior 判定。
+     */
+    public AntiCheatResult checkActionRate(Long playerId, String action) {
+        return checkActionRate(profileOf(playerId), action);
+    }
+    
+    private PlayerBehaviorProfile profileOf(Long playerId) {
+        PlayerBehaviorProfile profile = behaviorProfiles.get(playerId);
+        if (profile != null) {
+            return profile;
+        }
+        if (behaviorProfiles.size() >= maxTrackedPlayers) {
+            evictOnOverflow(System.currentTimeMillis());
+        }
+        return behaviorProfiles.computeIfAbsent(playerId, 
+            k -> new PlayerBehaviorProfile(rateLimitBuckets, rateLimitWindowMillis));
+    }
+    
+    /**
+     * 档案数超限时的淘汰：同一时间间隔内只有一个线程（CAS 成功者）去扫描，其余直接返回
+     */
+    private void evictOnOverflow(long now) {
+        long last = lastOverflowSweep.get();
+        if (now - last < overflowSweepIntervalMillis || !lastOverflowSweep.compareAndSet(last, now)) {
+            return;
+        }
+        evictIdleProfiles();
+    }
+    
+    private AntiCheatResult checkActionRate(PlayerBehaviorProfile profile, String action) {
+        if (!profile.recordAction(action, System.currentTimeMillis(), rateLimitMaxActions)) {
+            return new AntiCheatResult(false, "RAPID_ACTIONS", "操作过于频繁，可能涉及作弊");
+        }
+        return new AntiCheatResult(true, "OK", "通过检测");
+    }
+    
     /**
      * 检测 GPS 位置异常
      * 
@@ -91,6 +278,12 @@ public class AntiCheatGuard {
         LocationHistory history = locationHistories.computeIfAbsent(playerId, 
             k -> new LocationHistory());
         
+        synchronized (history) {
+            return checkLocation(history, currentLocation);
+        }
+    }
+    
+    private AntiCheatResult checkLocation(LocationHistory history, GPSLocation currentLocation) {
         if (history.lastLocation == null) {
             history.lastLocation = currentLocation;
             history.lastTimestamp = System.currentTimeMillis();
@@ -123,6 +316,24 @@ public class AntiCheatGuard {
         return new AntiCheatResult(true, "OK", "位置检查通过");
     }
     
+    /**
+     * 淘汰空闲玩家的行为档案与位置历史
+     *
+     * @return 淘汰数量
+     */
+    @Scheduled(fixedDelayString = "${wepoker.security.rateLimit.sweepIntervalMillis:60000}")
+    public int evictIdleProfiles() {
+        long cutoff = System.currentTimeMillis() - idleEvictMillis;
+        int before = behaviorProfiles.size() + locationHistories.size();
+        behaviorProfiles.values().removeIf(p -> p.getLastActionTime() < cutoff);
+        locationHistories.values().removeIf(h -> h.lastTimestamp < cutoff);
+        int evicted = before - behaviorProfiles.size() - locationHistories.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle anti-cheat profiles", evicted);
+        }
+        return evicted;
+    }
+    
     /**
      * 检测赢率异常
      */
@@ -185,39 +396,40 @@ public class AntiCheatGuard {
      * 玩家行为档案
      */
     public static class PlayerBehaviorProfile {
-        private long lastActionTime;
-        private int actionCountInLastSeconds;
-        private int consecutiveAllIns;
+        private final SlidingWindowCounter actions;
+        private final AtomicInteger consecutiveAllIns = new AtomicInteger();
         
-        public void recordAction(String action, long amount) {
-            long currentTime = System.currentTimeMillis();
-            
-            // 重置计数器（如果超过5秒）
-            if (currentTime - lastActionTime > 5000) {
-                actionCountInLastSeconds = 0;
+        public PlayerBehaviorProfile(int buckets, long windowMillis) {
+            this.actions = new SlidingWindowCounter(buckets, windowMillis);
+        }
+        
+        /**
+         * 记录一次操作；窗口内已达上限时返回 false，且不计入
+         */
+        public boolean recordAction(String action, long now, int maxActions) {
+            if (!actions.tryAcquire(now, maxActions)) {
+                return false;
             }
             
-            actionCountInLastSeconds++;
-            lastActionTime = currentTime;
-            
             // 更新连续全下计数
             if ("ALL_IN".equals(action)) {
-                consecutiveAllIns++;
+                consecutiveAllIns.incrementAndGet();
             } else {
-                consecutiveAllIns = 0;
+                consecutiveAllIns.set(0);
             }
+            return true;
         }
         
-        public int getActionsInLastSeconds(int seconds) {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastActionTime < seconds * 1000) {
-                return actionCountInLastSeconds;
-            }
-            return 0;
+        public int getActionsInWindow(long now) {
+            return actions.sum(now);
         }
         
         public int getConsecutiveAllIns() {
-            return consecutiveAllIns;
+            return consecutiveAllIns.get();
+        }
+        
+        public long getLastActionTime() {
+            return actions.getLastTouched();
         }
     }
     
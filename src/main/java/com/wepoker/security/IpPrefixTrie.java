@@ -0,0 +1,297 @@
+package com.wepoker.security;
+
+import com.google.common.net.InetAddresses;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+
+/**
+ * 不可变的 IP 前缀树（二叉 trie），支持 IPv4 / IPv6 CIDR 段
+ *
+ * 节点存放在两个 int 数组里（左右孩子下标），不为每个节点分配对象；IPv4 与 IPv6 各一棵树。
+ * 一个前缀插入后，它覆盖的更长前缀不再占节点（子树被剪掉），因此封禁一个 /16 只需 16 个节点，
+ * 而不是 65536 条记录。查询最多走 32 / 128 步，不分配对象。
+ *
+ * 实例一经 build 不再修改，可被任意线程无锁读取；修改走 toBuilder() 复制一份再替换（copy-on-write）。
+ * IPv4 映射的 IPv6 地址（::ffff:a.b.c.d）按 IPv4 处理。
+ */
+public final class IpPrefixTrie {
+
+    public static final IpPrefixTrie EMPTY = builder().build();
+
+    // 0 号节点是根；孩子下标为 0 表示没有孩子（根不会是任何节点的孩子）
+    private static final int NONE = 0;
+
+    private final Tree v4;
+    private final Tree v6;
+    private final int prefixCount;
+
+    private IpPrefixTrie(Tree v4, Tree v6, int prefixCount) {
+        this.v4 = v4;
+        this.v6 = v6;
+        this.prefixCount = prefixCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 基于当前内容创建一个 Builder（复制节点数组，原实例不受影响）
+     */
+    public Builder toBuilder() {
+        return new Builder(v4.mutableCopy(), v6.mutableCopy(), prefixCount);
+    }
+
+    /**
+     * 地址是否落在任一前缀内；非法字符串返回 false
+     */
+    public boolean contains(String ipAddress) {
+        if (ipAddress == null || !InetAddresses.isInetAddress(ipAddress)) {
+            return false;
+        }
+        return contains(InetAddresses.forString(ipAddress));
+    }
+
+    public boolean contains(InetAddress address) {
+        return address != null && contains(address.getAddress());
+    }
+
+    /**
+     * @param address 4 字节（IPv4）或 16 字节（IPv6）网络序地址
+     */
+    public boolean contains(byte[] address) {
+        if (address.length == 16 && isIpv4Mapped(address)) {
+            return v4.matches(address, 12);
+        }
+        return address.length == 4 ? v4.matches(address, 0) : v6.matches(address, 0);
+    }
+
+    /**
+     * 插入过的前缀数（被更短前缀覆盖的也计入）
+     */
+    public int getPrefixCount() {
+        return prefixCount;
+    }
+
+    public int getNodeCount() {
+        return v4.size + v6.size;
+    }
+
+    public boolean isEmpty() {
+        return v4.size == 1 && !v4.terminal[0] && v6.size == 1 && !v6.terminal[0];
+    }
+
+    private static boolean isIpv4Mapped(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+    }
+
+    /**
+     * 构建器（非线程安全）
+     */
+    public static final class Builder {
+
+        private final Tree v4;
+        private final Tree v6;
+        private int prefixCount;
+
+        private Builder() {
+            this(new Tree(), new Tree(), 0);
+        }
+
+        private Builder(Tree v4, Tree v6, int prefixCount) {
+            this.v4 = v4;
+            this.v6 = v6;
+            this.prefixCount = prefixCount;
+        }
+
+        /**
+         * 添加一个地址或 CIDR 段，如 "10.1.2.3"、"10.0.0.0/8"、"2001:db8::/32"
+         *
+         * @throws IllegalArgumentException 格式非法或前缀长度越界
+         */
+        public Builder add(String cidr) {
+            String text = cidr.trim();
+            int slash = text.indexOf('/');
+            String host = slash < 0 ? text : text.substring(0, slash);
+            if (!InetAddresses.isInetAddress(host)) {
+                throw new IllegalArgumentException("invalid IP address: " + cidr);
+            }
+            byte[] address = InetAddresses.forString(host).getAddress();
+            // Guava 把 ::ffff:a.b.c.d 解析成 Inet4Address，这里还原成 16 字节，前缀长度按 IPv6 的 /96~/128 解释
+            if (address.length == 4 && host.indexOf(':') >= 0) {
+                address = ipv4Mapped(address);
+            }
+            int prefixLength = address.length * 8;
+            if (slash >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(text.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid prefix length: " + cidr);
+                }
+            }
+            return add(address, prefixLength);
+        }
+
+        private static byte[] ipv4Mapped(byte[] ipv4) {
+            byte[] mapped = new byte[16];
+            mapped[10] = (byte) 0xff;
+            mapped[11] = (byte) 0xff;
+            System.arraycopy(ipv4, 0, mapped, 12, 4);
+            return mapped;
+        }
+
+        public Builder add(byte[] address, int prefixLength) {
+            int maxBits = address.length * 8;
+            if ((address.length != 4 && address.length != 16) || prefixLength < 0 || prefixLength > maxBits) {
+                throw new IllegalArgumentException("invalid prefix /" + prefixLength + " for " + address.length + "-byte address");
+            }
+            if (address.length == 16 && prefixLength >= 96 && isIpv4Mapped(address)) {
+                v4.insert(address, 12, prefixLength - 96);
+            } else if (address.length == 4) {
+                v4.insert(address, 0, prefixLength);
+            } else {
+                v6.insert(address, 0, prefixLength);
+            }
+            prefixCount++;
+            return this;
+        }
+
+        /**
+         * 生成不可变实例：只保留根可达的节点并压紧数组
+         */
+        public IpPrefixTrie build() {
+            return new IpPrefixTrie(v4.compact(), v6.compact(), prefixCount);
+        }
+    }
+
+    /**
+     * 一棵二叉前缀树；build 之后只读
+     */
+    private static final class Tree {
+
+        private int[] left;
+        private int[] right;
+        private boolean[] terminal;
+        private int size;
+
+        Tree() {
+            this(new int[16], new int[16], new boolean[16], 1);
+        }
+
+        private Tree(int[] left, int[] right, boolean[] terminal, int size) {
+            this.left = left;
+            this.right = right;
+            this.terminal = terminal;
+            this.size = size;
+        }
+
+        boolean matches(byte[] address, int offset) {
+            int node = 0;
+            int bits = (address.length - offset) * 8;
+            for (int i = 0; ; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                if (i == bits) {
+                    return false;
+                }
+                node = bit(address, offset, i) == 0 ? left[node] : right[node];
+                if (node == NONE) {
+                    return false;
+                }
+            }
+        }
+
+        void insert(byte[] address, int offset, int prefixLength) {
+            int node = 0;
+            for (int i = 0; i < prefixLength; i++) {
+                if (terminal[node]) {
+                    // 已被更短的前缀覆盖
+                    return;
+                }
+                boolean one = bit(address, offset, i) != 0;
+                int child = one ? right[node] : left[node];
+                if (child == NONE) {
+                    child = allocate();
+                    if (one) {
+                        right[node] = child;
+                    } else {
+                        left[node] = child;
+                    }
+                }
+                node = child;
+            }
+            // 更长的前缀全部被覆盖，剪掉子树（孤立节点在 compact 时丢弃）
+            terminal[node] = true;
+            left[node] = NONE;
+            right[node] = NONE;
+        }
+
+        private int allocate() {
+            if (size == left.length) {
+                int capacity = size * 2;
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                terminal = Arrays.copyOf(terminal, capacity);
+            }
+            return size++;
+        }
+
+        Tree mutableCopy() {
+            int capacity = Math.max(16, size + (size >> 1));
+            return new Tree(Arrays.copyOf(left, capacity), Arrays.copyOf(right, capacity),
+                Arrays.copyOf(terminal, capacity), size);
+        }
+
+        /**
+         * 按先序重新编号根可达节点，数组长度恰好等于节点数
+         */
+        Tree compact() {
+            int[] remap = new int[size];
+            int[] stack = new int[size];
+            int reachable = 0;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                remap[node] = reachable++;
+                if (right[node] != NONE) {
+                    stack[top++] = right[node];
+                }
+                if (left[node] != NONE) {
+                    stack[top++] = left[node];
+                }
+            }
+
+            int[] newLeft = new int[reachable];
+            int[] newRight = new int[reachable];
+            boolean[] newTerminal = new boolean[reachable];
+            top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int id = remap[node];
+                newTerminal[id] = terminal[node];
+                if (left[node] != NONE) {
+                    newLeft[id] = remap[left[node]];
+                    stack[top++] = left[node];
+                }
+                if (right[node] != NONE) {
+                    newRight[id] = remap[right[node]];
+                    stack[top++] = right[node];
+                }
+            }
+            return new Tree(newLeft, newRight, newTerminal, reachable);
+        }
+
+        private static int bit(byte[] address, int offset, int index) {
+            return (address[offset + (index >>> 3)] >>> (7 - (index & 7))) & 1;
+        }
+    }
+}
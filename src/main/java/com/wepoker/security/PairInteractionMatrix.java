@@ -0,0 +1,267 @@
+package com.wepoker.security;
+
+/**
+ * 玩家两两交互统计的稀疏矩阵（只保存同桌过的玩家对），带指数时间衰减
+ *
+ * 玩家先映射为 int 编号，(lo, hi) 编成一个 long 作为开放寻址键；各项指标放在并行的 double[] 中。
+ * 衰减是惰性的：某一对被更新时才按距上次更新的时间乘以 2^(-Δt/半衰期)。
+ * 长期不再同桌的玩家对衰减到阈值以下后由 prune 清理，之后可用 markPlayers / renumber 回收玩家编号。
+ *
+ * 非线程安全，只在检测线程内使用。
+ */
+public final class PairInteractionMatrix {
+
+    private static final long EMPTY = 0L;
+
+    private final double decayPerMilli;
+
+    private long[] keys;
+    private long[] lastUpdate;
+    private double[] coSeated;
+    private double[] contested;
+    private double[] passive;
+    private double[] netFlow;
+    private long[] flaggedUntil;
+    private int size;
+
+    public PairInteractionMatrix(long halfLifeMillis, int initialCapacity) {
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 玩家对的键，与顺序无关
+     */
+    public static long pairKey(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        return ((long) (lo + 1) << 32) | ((hi + 1) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 记录一手同桌
+     *
+     * @param headsUpPostflop 两人单挑进入翻牌
+     * @param passiveHeadsUp  单挑且翻后双方都没有下注/加注
+     * @param flowBb          本手从 a 流向 b 的筹码（大盲数，可为负）
+     * @return 槽位
+     */
+    public int record(int a, int b, long now, boolean headsUpPostflop, boolean passiveHeadsUp, double flowBb) {
+        int slot = slotOf(pairKey(a, b), true);
+        decay(slot, now);
+        coSeated[slot] += 1;
+        if (headsUpPostflop) {
+            contested[slot] += 1;
+            if (passiveHeadsUp) {
+                passive[slot] += 1;
+            }
+        }
+        // netFlow 以 lo -> hi 为正方向
+        netFlow[slot] += a < b ? flowBb : -flowBb;
+        return slot;
+    }
+
+    /**
+     * 查找玩家对的槽位，不存在返回 -1
+     */
+    public int find(int a, int b) {
+        return slotOf(pairKey(a, b), false);
+    }
+
+    public double coSeated(int slot) {
+        return coSeated[slot];
+    }
+
+    public double contested(int slot) {
+        return contested[slot];
+    }
+
+    public double passive(int slot) {
+        return passive[slot];
+    }
+
+    /**
+     * 以 lo -> hi 为正方向的净筹码流（大盲数）
+     */
+    public double netFlow(int slot) {
+        return netFlow[slot];
+    }
+
+    public long flaggedUntil(int slot) {
+        return flaggedUntil[slot];
+    }
+
+    public void setFlaggedUntil(int slot, long until) {
+        flaggedUntil[slot] = until;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清理衰减后同桌手数低于阈值的玩家对（重建哈希表）
+     *
+     * @return 清理的数量
+     */
+    public int prune(long now, double minCoSeated) {
+        long[] oldKeys = keys;
+        long[] oldLast = lastUpdate;
+        double[] oldCo = coSeated;
+        double[] oldContested = contested;
+        double[] oldPassive = passive;
+        double[] oldFlow = netFlow;
+        long[] oldFlagged = flaggedUntil;
+        int before = size;
+
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldCo[i] * factor(now - oldLast[i]) >= minCoSeated) {
+                live++;
+            }
+        }
+        int capacity = 16;
+        while (capacity < live * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            double f = factor(now - oldLast[i]);
+            if (oldCo[i] * f < minCoSeated) {
+                continue;
+            }
+            int slot = slotOf(oldKeys[i], true);
+            lastUpdate[slot] = now;
+            coSeated[slot] = oldCo[i] * f;
+            contested[slot] = oldContested[i] * f;
+            passive[slot] = oldPassive[i] * f;
+            netFlow[slot] = oldFlow[i] * f;
+            flaggedUntil[slot] = oldFlagged[i];
+        }
+        return before - size;
+    }
+
+    /**
+     * 标记仍出现在某个玩家对中的玩家编号（live 长度需覆盖所有已用编号）
+     */
+    public void markPlayers(boolean[] live) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                live[(int) (key >>> 32) - 1] = true;
+                live[(int) key - 1] = true;
+            }
+        }
+    }
+
+    /**
+     * 按 mapping[旧编号] = 新编号 重新编号玩家（prune 后压缩编号用）
+     *
+     * mapping 必须保持先后顺序（旧编号小的新编号也小），这样每对的 lo / hi 不变，netFlow 方向无需翻转。
+     * 所有仍在矩阵中的玩家都必须有映射。
+     */
+    public void renumber(int[] mapping) {
+        long[] oldKeys = keys;
+        long[] oldLast = lastUpdate;
+        double[] oldCo = coSeated;
+        double[] oldContested = contested;
+        double[] oldPassive = passive;
+        double[] oldFlow = netFlow;
+        long[] oldFlagged = flaggedUntil;
+        allocate(oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int lo = mapping[(int) (oldKeys[i] >>> 32) - 1];
+            int hi = mapping[(int) oldKeys[i] - 1];
+            int slot = slotOf(pairKey(lo, hi), true);
+            lastUpdate[slot] = oldLast[i];
+            coSeated[slot] = oldCo[i];
+            contested[slot] = oldContested[i];
+            passive[slot] = oldPassive[i];
+            netFlow[slot] = oldFlow[i];
+            flaggedUntil[slot] = oldFlagged[i];
+        }
+    }
+
+    private void decay(int slot, long now) {
+        long elapsed = now - lastUpdate[slot];
+        if (elapsed > 0) {
+            double f = factor(elapsed);
+            coSeated[slot] *= f;
+            contested[slot] *= f;
+            passive[slot] *= f;
+            netFlow[slot] *= f;
+        }
+        lastUpdate[slot] = now;
+    }
+
+    private double factor(long elapsedMillis) {
+        return elapsedMillis <= 0 ? 1.0 : Math.exp(-decayPerMilli * elapsedMillis);
+    }
+
+    private int slotOf(long key, boolean create) {
+        int mask = keys.length - 1;
+        int i = (int) mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slotOf(key, true);
+        }
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldLast = lastUpdate;
+        double[] oldCo = coSeated;
+        double[] oldContested = contested;
+        double[] oldPassive = passive;
+        double[] oldFlow = netFlow;
+        long[] oldFlagged = flaggedUntil;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], true);
+                lastUpdate[slot] = oldLast[i];
+                coSeated[slot] = oldCo[i];
+                contested[slot] = oldContested[i];
+                passive[slot] = oldPassive[i];
+                netFlow[slot] = oldFlow[i];
+                flaggedUntil[slot] = oldFlagged[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        lastUpdate = new long[capacity];
+        coSeated = new double[capacity];
+        contested = new double[capacity];
+        passive = new double[capacity];
+        netFlow = new double[capacity];
+        flaggedUntil = new long[capacity];
+        size = 0;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,85 @@
+package com.wepoker.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁滑动窗口计数器（时间分桶环）
+ *
+ * 窗口被分成 n 个桶，每个桶是一个 long：高 44 位为桶的时间序号（now / bucketMillis），低 20 位为计数。
+ * 递增时如果桶里是旧的序号就用 CAS 整体替换为 (当前序号, 1)，否则 CAS 加一；
+ * 求和时只累加序号落在最近 n 个桶内的计数，过期桶自然失效，不需要清理线程。
+ * 精度为一个桶宽：窗口在 [window - bucket, window] 之间滑动。
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+    private volatile long lastTouched;
+
+    public SlidingWindowCounter(int bucketCount, long windowMillis) {
+        if (bucketCount < 1 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("invalid window: " + bucketCount + " buckets over " + windowMillis + "ms");
+        }
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.bucketMillis = windowMillis / bucketCount;
+    }
+
+    /**
+     * 计入一次事件；若计入后窗口内总数超过 limit 则撤销并返回 false（被拒绝的请求不占配额）
+     */
+    public boolean tryAcquire(long now, int limit) {
+        lastTouched = now;
+        long epoch = now / bucketMillis;
+        int slot = (int) (epoch % buckets.length());
+        while (true) {
+            long v = buckets.get(slot);
+            long next = (v >>> COUNT_BITS) == epoch ? v + 1 : (epoch << COUNT_BITS) | 1;
+            if ((next & COUNT_MASK) == 0) {
+                return false; // 单桶计数溢出，必然超限
+            }
+            if (buckets.compareAndSet(slot, v, next)) {
+                break;
+            }
+        }
+        if (sum(now) <= limit) {
+            return true;
+        }
+        // 撤销本次计数；桶已被新的时间序号覆盖时无需撤销
+        while (true) {
+            long v = buckets.get(slot);
+            if ((v >>> COUNT_BITS) != epoch || (v & COUNT_MASK) == 0) {
+                return false;
+            }
+            if (buckets.compareAndSet(slot, v, v - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 窗口内的事件数
+     */
+    public int sum(long now) {
+        long epoch = now / bucketMillis;
+        long oldest = epoch - buckets.length() + 1;
+        int total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long v = buckets.get(i);
+            long e = v >>> COUNT_BITS;
+            if (e >= oldest && e <= epoch) {
+                total += (int) (v & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 最后一次计数的时间，用于淘汰空闲玩家
+     */
+    public long getLastTouched() {
+        return lastTouched;
+    }
+}
@@ -0,0 +1,369 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+import com.wepoker.domain.model.Table;
+import com.wepoker.security.PairInteractionMatrix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合谋检测：在后台线程消费每手牌的交互摘要，维护玩家两两之间的衰减统计并标记可疑玩家对
+ *
+ * 检测项：
+ * - SOFT_PLAY：两人单挑进入翻牌后经常都不下注（互相放水）
+ * - CHIP_DUMPING：同桌期间筹码持续单向流动
+ *
+ * GameService 回调里只把 Hand 压缩成一个小的摘要对象放入有界队列（满了丢弃并计数），
+ * 矩阵更新、判定和写 anti_cheat_log 都在检测线程内完成，不占用引擎锁。
+ */
+@Slf4j
+@Service
+public class CollusionDetectionService implements HandLifecycleListener {
+
+    private static final String INSERT_FLAG_SQL =
+        "INSERT INTO anti_cheat_log (player_id, check_type, result, details, action_taken) VALUES (?, 'COLLUSION', 'FLAGGED', ?, ?)";
+    private static final int DRAIN_BATCH = 256;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${wepoker.collusion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wepoker.collusion.queueCapacity:65536}")
+    private int queueCapacity;
+
+    @Value("${wepoker.collusion.halfLifeHours:72}")
+    private long halfLifeHours;
+
+    @Value("${wepoker.collusion.minCoSeatedHands:100}")
+    private double minCoSeatedHands;
+
+    @Value("${wepoker.collusion.minHeadsUpPots:20}")
+    private double minHeadsUpPots;
+
+    @Value("${wepoker.collusion.softPlayRatio:0.8}")
+    private double softPlayRatio;
+
+    @Value("${wepoker.collusion.chipDumpMinBb:300}")
+    private double chipDumpMinBb;
+
+    @Value("${wepoker.collusion.chipDumpBbPerHand:3}")
+    private double chipDumpBbPerHand;
+
+    @Value("${wepoker.collusion.flagCooldownHours:24}")
+    private long flagCooldownHours;
+
+    @Value("${wepoker.collusion.pruneIntervalMillis:600000}")
+    private long pruneIntervalMillis;
+
+    private BlockingQueue<HandInteraction> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    // 以下只在检测线程内访问
+    private PairInteractionMatrix matrix;
+    private final Map<String, Integer> playerIndex = new HashMap<>();
+    private final List<String> playerIds = new ArrayList<>();
+    private long lastPrune;
+
+    private final AtomicLong handsProcessed = new AtomicLong();
+    private final AtomicLong handsDropped = new AtomicLong();
+    private final AtomicLong pairsFlagged = new AtomicLong();
+    private volatile int trackedPairs;
+    private volatile int trackedPlayers;
+
+    /**
+     * 一手牌的交互摘要（与 Hand 解耦，入队后不再受引擎修改影响）
+     *
+     * @param sawFlop          进入翻牌（翻前未弃牌且发出了翻牌）
+     * @param aggressiveFlop   翻后有过下注/加注/加注式全下
+     */
+    record HandInteraction(long completedAt, long bigBlind, String[] playerIds, long[] invested, long[] won,
+                           boolean[] sawFlop, boolean[] aggressiveFlop) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        matrix = new PairInteractionMatrix(TimeUnit.HOURS.toMillis(halfLifeHours), 1 << 16);
+        running = true;
+        worker = new Thread(this::runLoop, "collusion-detector");
+        worker.setDaemon(true);
+        worker.start();
+        gameService.addHandListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        if (hand == null || hand.getSeats().size() < 2 || hand.getBigBlindAmount() <= 0) {
+            return;
+        }
+        if (!queue.offer(summarize(hand))) {
+            handsDropped.incrementAndGet();
+        }
+    }
+
+    static HandInteraction summarize(Hand hand) {
+        List<HandSeat> seats = hand.getSeats();
+        int n = seats.size();
+        String[] ids = new String[n];
+        Map<String, Integer> index = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids[i] = seats.get(i).getPlayerId();
+            index.put(ids[i], i);
+        }
+        long[] invested = new long[n];
+        long[] won = new long[n];
+        boolean[] foldedPreFlop = new boolean[n];
+        boolean[] aggressive = new boolean[n];
+        long[] streetBet = new long[n];
+        long currentBet = 0;
+        String street = "PRE_FLOP";
+        for (PlayerAction a : hand.getActionHistory()) {
+            Integer i = a.getPlayerId() == null ? null : index.get(a.getPlayerId());
+            if (i == null) {
+                continue;
+            }
+            if (a.getStreet() != null && !a.getStreet().equals(street)) {
+                street = a.getStreet();
+                Arrays.fill(streetBet, 0);
+                currentBet = 0;
+            }
+            invested[i] += a.getBetAmount();
+            streetBet[i] += a.getBetAmount();
+            boolean preFlop = "PRE_FLOP".equals(street);
+            switch (a.getAction()) {
+                case "FOLD" -> foldedPreFlop[i] |= preFlop;
+                case "BET", "RAISE" -> aggressive[i] |= !preFlop;
+                case "ALL_IN" -> aggressive[i] |= !preFlop && streetBet[i] > currentBet;
+                default -> {
+                }
+            }
+            currentBet = Math.max(currentBet, streetBet[i]);
+        }
+        for (PotDistribution d : hand.getDistributions()) {
+            Integer i = d.getPlayerId() == null ? null : index.get(d.getPlayerId());
+            if (i != null) {
+                won[i] += d.getAmount();
+            }
+        }
+        boolean flopDealt = hand.getCommunityCardCount() >= 3;
+        boolean[] sawFlop = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            sawFlop[i] = flopDealt && !foldedPreFlop[i];
+        }
+        return new HandInteraction(System.currentTimeMillis(), hand.getBigBlindAmount(), ids, invested, won, sawFlop, aggressive);
+    }
+
+    private void runLoop() {
+        List<HandInteraction> batch = new ArrayList<>(DRAIN_BATCH);
+        List<Object[]> flags = new ArrayList<>();
+        while (running) {
+            try {
+                HandInteraction first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, DRAIN_BATCH - 1);
+                    for (HandInteraction h : batch) {
+                        process(h, flags);
+                    }
+                    handsProcessed.addAndGet(batch.size());
+                    batch.clear();
+                    writeFlags(flags);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastPrune >= pruneIntervalMillis) {
+                    int removed = matrix.prune(now, 1.0);
+                    lastPrune = now;
+                    if (removed > 0) {
+                        int players = compactPlayers();
+                        log.debug("Pruned {} stale player pairs and {} players", removed, players);
+                    }
+                }
+                trackedPairs = matrix.size();
+                trackedPlayers = playerIds.size();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Collusion detector failed to process batch", e);
+                batch.clear();
+                flags.clear();
+            }
+        }
+    }
+
+    private void process(HandInteraction h, List<Object[]> flags) {
+        int n = h.playerIds().length;
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) {
+            idx[i] = indexOf(h.playerIds()[i]);
+        }
+
+        // 输家的损失按赢家的净收益比例分摊，得到两两之间的筹码流
+        long[] loss = new long[n];
+        long[] gain = new long[n];
+        long totalGain = 0;
+        int flopPlayers = 0;
+        for (int i = 0; i < n; i++) {
+            long net = h.won()[i] - h.invested()[i];
+            loss[i] = Math.max(0, -net);
+            gain[i] = Math.max(0, net);
+            totalGain += gain[i];
+            if (h.sawFlop()[i]) {
+                flopPlayers++;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                boolean headsUp = flopPlayers == 2 && h.sawFlop()[i] && h.sawFlop()[j];
+                boolean passive = headsUp && !h.aggressiveFlop()[i] && !h.aggressiveFlop()[j];
+                double flow = 0;
+                if (totalGain > 0) {
+                    flow = ((double) loss[i] * gain[j] - (double) loss[j] * gain[i]) / totalGain / h.bigBlind();
+                }
+                int slot = matrix.record(idx[i], idx[j], h.completedAt(), headsUp, passive, flow);
+                evaluate(slot, idx[i], idx[j], h.completedAt(), flags);
+            }
+        }
+    }
+
+    private void evaluate(int slot, int a, int b, long now, List<Object[]> flags) {
+        double coSeated = matrix.coSeated(slot);
+        if (coSeated < minCoSeatedHands || matrix.flaggedUntil(slot) > now) {
+            return;
+        }
+        String reason = null;
+        double contested = matrix.contested(slot);
+        double passiveRatio = contested > 0 ? matrix.passive(slot) / contested : 0;
+        double flow = matrix.netFlow(slot);
+        if (contested >= minHeadsUpPots && passiveRatio >= softPlayRatio) {
+            reason = "SOFT_PLAY";
+        } else if (Math.abs(flow) >= chipDumpMinBb && Math.abs(flow) / coSeated >= chipDumpBbPerHand) {
+            reason = "CHIP_DUMPING";
+        }
+        if (reason == null) {
+            return;
+        }
+        matrix.setFlaggedUntil(slot, now + TimeUnit.HOURS.toMillis(flagCooldownHours));
+        pairsFlagged.incrementAndGet();
+
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        // 筹码流入方记为受益人
+        String beneficiary = playerIds.get(flow >= 0 ? hi : lo);
+        String other = playerIds.get(flow >= 0 ? lo : hi);
+        String details = String.format(Locale.ROOT,
+            "{\"reason\":\"%s\",\"players\":[\"%s\",\"%s\"],\"coSeatedHands\":%.1f,\"headsUpPots\":%.1f,\"passiveRatio\":%.3f,\"netFlowBb\":%.1f}",
+            reason, escape(beneficiary), escape(other), coSeated, contested, passiveRatio, Math.abs(flow));
+        log.warn("Collusion suspected between {} and {}: {}", beneficiary, other, details);
+        flags.add(new Object[] {Player.numericId(beneficiary), details, "REVIEW"});
+    }
+
+    private void writeFlags(List<Object[]> flags) {
+        if (flags.isEmpty()) {
+            return;
+        }
+        if (jdbcTemplate != null) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_FLAG_SQL, flags);
+            } catch (Exception e) {
+                log.error("Failed to write {} collusion flags to anti_cheat_log", flags.size(), e);
+            }
+        }
+        flags.clear();
+    }
+
+    private int indexOf(String playerId) {
+        Integer i = playerIndex.get(playerId);
+        if (i == null) {
+            i = playerIds.size();
+            playerIds.add(playerId);
+            playerIndex.put(playerId, i);
+        }
+        return i;
+    }
+
+    /**
+     * 回收不再出现在任何玩家对中的玩家编号，返回回收数量
+     *
+     * 保留的玩家按原顺序重新编号，矩阵键随之重建。
+     */
+    private int compactPlayers() {
+        boolean[] live = new boolean[playerIds.size()];
+        matrix.markPlayers(live);
+        int[] mapping = new int[live.length];
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < live.length; i++) {
+            mapping[i] = live[i] ? kept.size() : -1;
+            if (live[i]) {
+                kept.add(playerIds.get(i));
+            }
+        }
+        int removed = live.length - kept.size();
+        if (removed == 0) {
+            return 0;
+        }
+        matrix.renumber(mapping);
+        playerIds.clear();
+        playerIds.addAll(kept);
+        playerIndex.clear();
+        for (int i = 0; i < kept.size(); i++) {
+            playerIndex.put(kept.get(i), i);
+        }
+        return removed;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("handsProcessed", handsProcessed.get());
+        stats.put("handsDropped", handsDropped.get());
+        stats.put("queued", queue == null ? 0 : queue.size());
+        stats.put("trackedPairs", trackedPairs);
+        stats.put("trackedPlayers", trackedPlayers);
+        stats.put("pairsFlagged", pairsFlagged.get());
+        return stats;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,154 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.concurrency.FencingTokenGuard;
+import com.wepoker.domain.concurrency.InJvmLeaseLockManager;
+import com.wepoker.domain.concurrency.LeaseLockManager;
+import com.wepoker.domain.concurrency.LockLease;
+import com.wepoker.domain.concurrency.RedisLeaseLockManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨节点筹码操作的租约锁
+ *
+ * wepoker.lock.mode=local 时使用进程内实现（单节点部署），=redis 时使用 Redis 实现（多节点部署）。
+ * 写入受保护资源前用 admitFencingToken 校验 token，拒绝已失去租约的旧持有者。
+ *
+ * 目前没有调用方：牌桌（GameService）和钱包日志（WalletJournal）都只存在于单个进程内，
+ * 跨节点共享的只有数据库，而钱包落库靠 idempotency_key 唯一约束与事务去重，不需要额外加锁。
+ * 多节点按桌路由上线后，由持有桌的节点以 "table:{tableId}" 为 key 持有并续租，桌子迁移时凭 fencing token 拒绝旧节点的写入。
+ *
+ * 指标：wepoker.lock.wait（加锁等待耗时，按 outcome=acquired/timeout 区分）、
+ * wepoker.lock.contended（首次尝试未成功的次数）。
+ */
+@Slf4j
+@Service
+public class DistributedLockService {
+
+    @Value("${wepoker.lock.mode:local}")
+    private String mode;
+
+    @Value("${wepoker.lock.keyPrefix:wepoker:lock:}")
+    private String keyPrefix;
+
+    @Value("${spring.redis.host:localhost}")
+    private String redisHost;
+
+    @Value("${spring.redis.port:6379}")
+    private int redisPort;
+
+    @Value("${spring.redis.password:}")
+    private String redisPassword;
+
+    @Value("${wepoker.lock.redisTimeoutMillis:2000}")
+    private int redisTimeoutMillis;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final FencingTokenGuard fencing = new FencingTokenGuard();
+
+    private LeaseLockManager manager;
+    private JedisPool jedisPool;
+    private Timer acquiredTimer;
+    private Timer timeoutTimer;
+    private Counter contended;
+
+    @PostConstruct
+    public void init() {
+        if ("redis".equalsIgnoreCase(mode)) {
+            jedisPool = new JedisPool(new JedisPoolConfig(), redisHost, redisPort, redisTimeoutMillis,
+                redisPassword == null || redisPassword.isBlank() ? null : redisPassword);
+            manager = new RedisLeaseLockManager(new RedisLeaseLockManager.JedisRedisOps(jedisPool),
+                keyPrefix, nodeId(), System::currentTimeMillis);
+        } else {
+            manager = new InJvmLeaseLockManager();
+        }
+        acquiredTimer = waitTimer("acquired");
+        timeoutTimer = waitTimer("timeout");
+        contended = Counter.builder("wepoker.lock.contended")
+                .description("首次加锁未成功的次数")
+                .tag("mode", mode)
+                .register(registry);
+        log.info("Lease lock manager: {}", mode);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (jedisPool != null) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * 加锁，最多等待 waitMillis
+     *
+     * @return 租约；超时返回 null
+     */
+    public LockLease acquire(String key, long leaseMillis, long waitMillis) throws InterruptedException {
+        LockLease lease = manager.tryAcquire(key, leaseMillis);
+        if (lease != null) {
+            acquiredTimer.record(0, TimeUnit.NANOSECONDS);
+            return lease;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        lease = manager.acquire(key, leaseMillis, waitMillis);
+        (lease != null ? acquiredTimer : timeoutTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return lease;
+    }
+
+    public LockLease tryAcquire(String key, long leaseMillis) {
+        return manager.tryAcquire(key, leaseMillis);
+    }
+
+    public boolean release(LockLease lease) {
+        return manager.release(lease);
+    }
+
+    public LockLease renew(LockLease lease, long leaseMillis) {
+        return manager.renew(lease, leaseMillis);
+    }
+
+    /**
+     * 资源端校验：token 不小于该 key 已见过的最大 token 才允许写入
+     */
+    public boolean admitFencingToken(String key, long token) {
+        return fencing.admit(key, token);
+    }
+
+    public LeaseLockManager getManager() {
+        return manager;
+    }
+
+    private Timer waitTimer(String outcome) {
+        return Timer.builder("wepoker.lock.wait")
+                .description("加锁等待耗时")
+                .tags("mode", mode, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -1,6 +1,11 @@
 package com.wepoker.service;
 
+import com.wepoker.domain.algorithm.FlopTexture;
 import com.wepoker.domain.algorithm.HandEvaluator;
+import com.wepoker.domain.algorithm.RunItSplitter;
+import com.wepoker.domain.concurrency.ChipLedger;
+import com.wepoker.domain.insurance.InsuranceQuote;
+import com.wepoker.domain.insurance.InsuranceRule;
 import com.wepoker.domain.model.Card;
 import com.wepoker.domain.model.HandRank;
 import com.wepoker.domain.model.Pot;
@@ -8,16 +13,20 @@ import com.wepoker.domain.model.PotDistribution;
 import com.wepoker.domain.model.Player;
 import com.wepoker.domain.model.PlayerStatus;
 import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
 import com.wepoker.domain.model.PlayerAction;
 import com.wepoker.domain.model.Rank;
 import com.wepoker.domain.model.Suit;
 import com.wepoker.domain.model.Table;
 import com.wepoker.domain.model.TableConfig;
 import com.wepoker.domain.model.TableState;
+import com.wepoker.domain.rake.RakeRule;
 import com.wepoker.domain.service.GameStateMachine;
+import com.wepoker.metrics.GameMetrics;
 import com.wepoker.network.protocol.PokerMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +35,7 @@ import jakarta.annotation.PreDestroy;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -36,6 +46,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -49,6 +60,7 @@ public class GameService {
     private static final long ACTION_TIMEOUT_MS = 30_000L;
     private static final long STREET_TRANSITION_DELAY_MS = 1200L;
     private static final long NEXT_HAND_DELAY_MS = 4000L;
+    private static final long ENGINE_TICK_INTERVAL_MS = 500L;
     
     // 游戏中的所有房间
     private final ConcurrentHashMap<Long, Table> tables = new ConcurrentHashMap<>();
@@ -61,9 +73,42 @@ public class GameService {
     @Autowired(required = false)
     private GameStateMachine gameStateMachine;
 
+    @Autowired
+    private GameMetrics gameMetrics;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Value("${game.runItTwice.enabled:true}")
+    private boolean runItEnabled;
+
+    @Value("${game.runItTwice.times:2}")
+    private int runItTimesConfigured;
+
+    @Value("${game.runItTwice.minAmountRequired:10000}")
+    private long runItMinPot;
+
+    @Value("${game.insurance.enabled:false}")
+    private boolean insuranceEnabled;
+
+    @Value("${game.insurance.margin:0.1}")
+    private double insuranceMargin;
+
+    @Value("${game.insurance.maxOdds:30}")
+    private double insuranceMaxOdds;
+
+    @Value("${game.insurance.decisionMillis:8000}")
+    private long insuranceDecisionMillis;
+
+    // 手牌生命周期回调：监听方多依赖 GameService，由其自行注册以避免循环注入
+    private final List<HandLifecycleListener> handListeners = new CopyOnWriteArrayList<>();
+
+    // 上一次引擎tick的开始时间，用于计算tick延迟（仅引擎线程访问）
+    private long lastTickStartNanos;
+
     @PostConstruct
     public void startEngineLoop() {
-        engine.scheduleAtFixedRate(this::engineTickSafely, 500, 500, TimeUnit.MILLISECONDS);
+        engine.scheduleAtFixedRate(this::engineTickSafely, ENGINE_TICK_INTERVAL_MS, ENGINE_TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     @PreDestroy
@@ -87,6 +132,10 @@ public class GameService {
             newTable.setMaxPlayers(6);
             return newTable;
         });
+        if (isTournamentTable(table)) {
+            log.warn("Player {} tried to buy into tournament table {}, join ignored", playerId, tableId);
+            return;
+        }
         
         // 创建玩家对象
         Player player = new Player();
@@ -101,8 +150,13 @@ public class GameService {
             return;
         }
         
+        if (!walletService.buyIn(String.valueOf(playerId), tableId, buyIn, message.getMessageId())) {
+            log.warn("Duplicate buy-in {} from player {} at table {}, join ignored", message.getMessageId(), playerId, tableId);
+            return;
+        }
         player.setSeat(seat);
         table.addPlayer(player);
+        fireSeatingChanged(table);
         
         log.info("Player {} sat at table {} seat {}", playerId, tableId, seat);
     }
@@ -143,20 +197,40 @@ public class GameService {
      * 处理玩家离开房间
      */
     public void handleLeaveTable(PokerMessage message) {
-        Long tableId = message.getTableId();
-        Long playerId = message.getPlayerId();
-        
+        leaveTable(message.getTableId(), String.valueOf(message.getPlayerId()), message.getMessageId());
+    }
+    
+    /**
+     * 玩家离桌：剩余筹码兑现回钱包（与买入记在同一个钱包账户），Netty、REST 与匹配入座的玩家都走这里
+     *
+     * @param requestId 客户端请求 ID，用于兑现去重；为 null 时不去重（已离桌的玩家不会再次兑现）
+     * @return 房间；房间不存在返回 null
+     * @throws IllegalStateException 锦标赛桌（筹码不是钱包里的钱，不能兑现）
+     */
+    public synchronized Table leaveTable(Long tableId, String playerId, String requestId) {
         Table table = tables.get(tableId);
-        if (table != null) {
-            table.removePlayer(playerId);
-            log.info("Player {} left table {}", playerId, tableId);
-            
-            // 如果房间为空，删除房间
-            if (table.getPlayers().isEmpty()) {
-                tables.remove(tableId);
-                log.info("Table {} removed (empty)", tableId);
-            }
+        if (table == null) {
+            return null;
+        }
+        requireCashTable(table);
+        Player leaving = table.getPlayer(Player.numericId(playerId));
+        if (leaving != null && leaving.getStatus() != PlayerStatus.LEFT && leaving.getStackSize() > 0) {
+            walletService.cashOut(playerId, tableId, leaving.getStackSize(), requestId);
+            leaving.setStackSize(0);
+        }
+        table.removePlayer(leaving != null ? leaving.getPlayerId() : playerId);
+        log.info("Player {} left table {}", playerId, tableId);
+        
+        // 如果房间为空，删除房间
+        if (table.getPlayers().isEmpty()) {
+            tables.remove(tableId);
+            gameMetrics.removeTable(tableId);
+            fireTableRemoved(table);
+            log.info("Table {} removed (empty)", tableId);
+        } else {
+            fireSeatingChanged(table);
         }
+        return table;
     }
     
     /**
@@ -204,11 +278,61 @@ public class GameService {
         return tables.values();
     }
 
+    public void addHandListener(HandLifecycleListener listener) {
+        handListeners.add(listener);
+    }
+
+    /**
+     * 注册由其他服务（如锦标赛）创建好的房间
+     */
+    public synchronized void registerTable(Table table) {
+        if (tables.putIfAbsent(table.getTableIdAsLong(), table) != null) {
+            throw new IllegalStateException("table already exists: " + table.getTableId());
+        }
+        fireSeatingChanged(table);
+    }
+
+    /**
+     * 移除房间（仅允许在两手牌之间调用）
+     */
+    public synchronized void removeTable(Long tableId) {
+        Table table = tables.get(tableId);
+        if (table == null) {
+            return;
+        }
+        if (isInActiveStreet(table.getState())) {
+            throw new IllegalStateException("cannot remove table during a hand");
+        }
+        tables.remove(tableId);
+        pendingStreetTransitions.remove(tableId);
+        gameMetrics.removeTable(tableId);
+        fireTableRemoved(table);
+    }
+
+    /**
+     * 预读玩家钱包余额，须在锁外调用（见 WalletService.prefetch）
+     */
+    public void prefetchWallet(String playerId) {
+        walletService.prefetch(playerId);
+    }
+
+    /**
+     * 在引擎锁内执行一段操作，供需要跨多桌原子修改的服务使用（与手牌回调同一把锁，避免锁顺序问题）
+     */
+    public synchronized <T> T runExclusive(java.util.function.Supplier<T> action) {
+        return action.get();
+    }
+
     private void engineTickSafely() {
+        long start = System.nanoTime();
+        long lag = lastTickStartNanos == 0 ? 0 : start - lastTickStartNanos - TimeUnit.MILLISECONDS.toNanos(ENGINE_TICK_INTERVAL_MS);
+        lastTickStartNanos = start;
         try {
             engineTick();
         } catch (Exception e) {
             log.warn("engine tick failed", e);
+        } finally {
+            gameMetrics.recordEngineTick(lag, System.nanoTime() - start);
         }
     }
 
@@ -245,6 +369,17 @@ public class GameService {
      * REST: 玩家加入房间（简化版）
      */
     public synchronized Table joinTable(Long tableId, String playerId, String nickname, long buyIn) {
+        return joinTable(tableId, playerId, nickname, buyIn, null);
+    }
+
+    /**
+     * REST: 玩家加入房间，买入从钱包扣款
+     *
+     * @param requestId 客户端请求 ID，用于买入去重；为 null 时不去重
+     * @throws IllegalStateException 锦标赛桌、桌已满，或该 requestId 的买入已记过
+     * @throws com.wepoker.domain.wallet.InsufficientBalanceException 开启余额校验且钱包余额不足
+     */
+    public synchronized Table joinTable(Long tableId, String playerId, String nickname, long buyIn, String requestId) {
         if (tableId == null || playerId == null || nickname == null) {
             throw new IllegalArgumentException("tableId/playerId/nickname cannot be null");
         }
@@ -263,6 +398,7 @@ public class GameService {
             t.setConfig(cfg);
             return t;
         });
+        requireCashTable(table);
 
         // 已在桌上的玩家重复加入直接返回
         Player existing = table.getPlayers().values().stream()
@@ -279,17 +415,18 @@ public class GameService {
         }
 
         Player player = new Player();
-        try {
-            player.setPlayerId(Long.parseLong(playerId));
-        } catch (NumberFormatException e) {
-            player.setPlayerId(Math.abs((long) playerId.hashCode()));
-        }
+        player.setPlayerId(Player.numericId(playerId));
         player.setNickname(nickname);
         player.setSeatNumber(seat);
         player.setStackSize(buyIn);
         player.setStatus(PlayerStatus.SITTING);
 
+        // 钱包按幂等键去重：重复的 requestId 不会再扣款，也不能再发一份筹码
+        if (!walletService.buyIn(playerId, tableId, buyIn, requestId)) {
+            throw new IllegalStateException("duplicate buy-in request: " + requestId);
+        }
         table.addPlayer(player);
+        fireSeatingChanged(table);
         return table;
     }
 
@@ -297,6 +434,15 @@ public class GameService {
      * REST: 开始游戏（简化版）
      */
     public synchronized Table startGame(Long tableId) {
+        long start = System.nanoTime();
+        try {
+            return dealNewHand(tableId);
+        } finally {
+            gameMetrics.recordStartGame(System.nanoTime() - start);
+        }
+    }
+
+    private Table dealNewHand(Long tableId) {
         Table table = tables.get(tableId);
         if (table == null) {
             throw new IllegalArgumentException("table not found");
@@ -354,6 +500,14 @@ public class GameService {
         }
 
         assignButtonAndBlinds(table, participants);
+        hand.setButtonSeatNumber(table.getButtonSeat());
+        hand.setSmallBlindSeatNumber(table.getSmallBlindSeat());
+        hand.setBigBlindSeatNumber(table.getBigBlindSeat());
+        hand.setSmallBlindAmount(table.getConfig().getSmallBlindAmount());
+        hand.setBigBlindAmount(table.getConfig().getBigBlindAmount());
+        for (Player p : participants) {
+            hand.getSeats().add(new HandSeat(p.getPlayerId(), p.getNickname(), p.getSeatNumber(), p.getStackSize()));
+        }
 
         // 按座位顺序轮流发两轮底牌
         for (int round = 0; round < 2; round++) {
@@ -392,6 +546,15 @@ public class GameService {
      * REST: 玩家行动（check/call/fold/bet/raise/all_in）
      */
     public synchronized Table playerAction(Long tableId, String playerId, String action, long amount) {
+        long start = System.nanoTime();
+        try {
+            return applyPlayerAction(tableId, playerId, action, amount);
+        } finally {
+            gameMetrics.recordPlayerAction(action, System.nanoTime() - start);
+        }
+    }
+
+    private Table applyPlayerAction(Long tableId, String playerId, String action, long amount) {
         if (playerId == null || playerId.isBlank()) {
             throw new IllegalArgumentException("playerId cannot be empty");
         }
@@ -505,12 +668,13 @@ public class GameService {
             default -> throw new IllegalArgumentException("unknown action: " + action);
         }
 
-        actor.setLastAction(new PlayerAction(
+        recordAction(table, actor, new PlayerAction(
             System.currentTimeMillis(),
             actionForRecord,
             amount,
             table.getState().name(),
-            invested
+            invested,
+            actor.getPlayerId()
         ));
         progressHand(table, actor.getSeatNumber());
         table.setLastActivityTime(LocalDateTime.now());
@@ -518,6 +682,15 @@ public class GameService {
     }
 
     public synchronized Table rebuy(Long tableId, String playerId, long amount) {
+        return rebuy(tableId, playerId, amount, null);
+    }
+
+    /**
+     * 补码，从钱包扣款；同一 requestId 重复提交只补一次
+     *
+     * @throws IllegalStateException 锦标赛桌或不在两手牌之间
+     */
+    public synchronized Table rebuy(Long tableId, String playerId, long amount, String requestId) {
         if (amount <= 0) {
             throw new IllegalArgumentException("rebuy amount must be positive");
         }
@@ -525,6 +698,7 @@ public class GameService {
         if (table == null) {
             throw new IllegalArgumentException("table not found");
         }
+        requireCashTable(table);
         if (table.getState() != TableState.WAITING && table.getState() != TableState.SHOWDOWN) {
             throw new IllegalStateException("rebuy only allowed between hands");
         }
@@ -541,11 +715,43 @@ public class GameService {
         if (player.getStackSize() > 0) {
             throw new IllegalStateException("rebuy only allowed when stack is zero");
         }
+        if (!walletService.buyIn(playerId, tableId, amount, requestId == null ? null : "rebuy:" + requestId)) {
+            return table;
+        }
         player.addStack(amount);
         player.setStatus(PlayerStatus.SITTING);
         return table;
     }
 
+    /**
+     * 领先者购买全下保险：报价后、下一张公共牌发出前可买一次；premium 为 0 表示放弃，立即继续发牌
+     */
+    public synchronized Table buyInsurance(Long tableId, String playerId, long premium) {
+        Table table = tables.get(tableId);
+        if (table == null) {
+            throw new IllegalArgumentException("table not found");
+        }
+        Hand hand = table.getCurrentHand();
+        InsuranceQuote quote = hand == null ? null : hand.getInsuranceQuote();
+        if (quote == null || !pendingStreetTransitions.containsKey(tableId)
+                || table.getCommunityCardsDealt() != quote.boardCount()) {
+            throw new IllegalStateException("no insurance offer");
+        }
+        if (!quote.leaderId().equals(playerId)) {
+            throw new IllegalStateException("only the leading player can buy insurance");
+        }
+        if (hand.getInsurancePremium() > 0) {
+            throw new IllegalStateException("insurance already bought");
+        }
+        if (premium < 0 || premium > quote.maxPremium()) {
+            throw new IllegalArgumentException("premium out of range");
+        }
+        hand.setInsurancePremium(premium);
+        table.setCurrentActionDeadline(Math.min(table.getCurrentActionDeadline(),
+            System.currentTimeMillis() + STREET_TRANSITION_DELAY_MS));
+        return table;
+    }
+
     /**
      * 面向前端的状态视图（隐藏其他玩家底牌）
      */
@@ -592,6 +798,15 @@ public class GameService {
             handView.put("handId", hand.getHandId());
             handView.put("currentStreet", hand.getCurrentStreet());
             handView.put("communityCards", hand.getCommunityCards());
+            handView.put("extraBoards", hand.getAlternativeCommunityCards());
+            handView.put("flopTexture", table.getCommunityCardsDealt() >= 3 ? FlopTexture.of(hand.getCommunityCards()) : null);
+            if (hand.getInsuranceQuote() != null) {
+                Map<String, Object> insurance = new LinkedHashMap<>();
+                insurance.put("quote", hand.getInsuranceQuote());
+                insurance.put("premium", hand.getInsurancePremium());
+                insurance.put("payout", hand.getInsurancePayout());
+                handView.put("insurance", insurance);
+            }
 
             Map<String, Object> holeCards = new LinkedHashMap<>();
             if (viewerPlayerId != null && hand.getPlayerHoleCards().containsKey(viewerPlayerId)) {
@@ -715,6 +930,15 @@ public class GameService {
     }
 
     private void showdown(Table table) {
+        long start = System.nanoTime();
+        try {
+            evaluateShowdown(table);
+        } finally {
+            gameMetrics.recordShowdown(System.nanoTime() - start);
+        }
+    }
+
+    private void evaluateShowdown(Table table) {
         Hand hand = table.getCurrentHand();
         if (hand == null) {
             throw new IllegalStateException("hand not initialized");
@@ -727,21 +951,18 @@ public class GameService {
             return;
         }
 
-        Map<String, HandRank> rankMap = new LinkedHashMap<>();
-
+        Map<String, Card[]> contenderHoles = new LinkedHashMap<>();
         for (Player player : contenders) {
-            Card[] hole = hand.getPlayerHoleCards().get(player.getPlayerId());
-            if (hole == null || hole.length != 2) {
-                continue;
-            }
-            Card[] seven = new Card[7];
-            seven[0] = hole[0];
-            seven[1] = hole[1];
-            System.arraycopy(hand.getCommunityCards(), 0, seven, 2, 5);
-            HandRank rank = HandEvaluator.evaluateSevenCards(seven);
-            rankMap.put(player.getPlayerId(), rank);
+            contenderHoles.put(player.getPlayerId(), hand.getPlayerHoleCards().get(player.getPlayerId()));
         }
 
+        // 第 1 套公共牌即主牌面；全下后按配置从剩余牌库再发 N-1 套，所有牌面一次批量评估
+        List<Card[]> boards = new ArrayList<>();
+        boards.add(hand.getCommunityCards());
+        boards.addAll(dealExtraRunouts(table, hand, runItTimes(table, hand)));
+        List<Map<String, HandRank>> runRanks = HandEvaluator.evaluateBoards(contenderHoles, boards);
+        Map<String, HandRank> rankMap = runRanks.get(0);
+
         if (rankMap.isEmpty()) {
             table.setState(TableState.SHOWDOWN);
             hand.setCurrentStreet("SHOWDOWN");
@@ -749,15 +970,63 @@ public class GameService {
         }
 
         hand.setPlayerRanks(rankMap);
-        distributePotsWithSidePot(table, hand, contenders, rankMap);
+        if (boards.size() > 1) {
+            hand.setAlternativeCommunityCards(new ArrayList<>(boards.subList(1, boards.size())));
+            hand.setRunItTwice(true);
+        }
+        distributePotsWithSidePot(table, hand, contenders, runRanks);
         table.setState(TableState.SHOWDOWN);
         hand.setCurrentStreet("SHOWDOWN");
+        gameMetrics.recordHandCompleted(table.getTableIdAsLong());
         table.setNextToActSeat(-1);
         table.setCurrentBetThisStreet(0);
         table.setCurrentActionDeadline(System.currentTimeMillis() + NEXT_HAND_DELAY_MS);
+        fireHandCompleted(table, hand);
+    }
+
+    /**
+     * 本手发几次牌：桌子允许且全下时公共牌未发完、底池达到门槛时为 game.runItTwice.times，否则 1
+     */
+    private int runItTimes(Table table, Hand hand) {
+        if (!runItEnabled || runItTimesConfigured <= 1 || table.getConfig() == null || !table.getConfig().isRunItTwiceAllowed()) {
+            return 1;
+        }
+        int shared = hand.getAllInBoardCount();
+        if (shared < 0 || shared >= 5 || table.getTotalPotSize() < runItMinPot) {
+            return 1;
+        }
+        return runItTimesConfigured;
+    }
+
+    /**
+     * 从剩余牌库发额外的 runs-1 套公共牌：共享全下时已发的牌，其余每条街照常烧一张；剩余牌不够时减少套数
+     */
+    private List<Card[]> dealExtraRunouts(Table table, Hand hand, int runs) {
+        if (runs <= 1) {
+            return Collections.emptyList();
+        }
+        int shared = hand.getAllInBoardCount();
+        int burns = shared < 3 ? 3 : (shared == 3 ? 2 : 1);
+        int cardsPerRun = (5 - shared) + burns;
+        int extraRuns = Math.min(runs - 1, table.getDealerQueue().size() / cardsPerRun);
+
+        List<Card[]> extras = new ArrayList<>(extraRuns);
+        for (int run = 0; run < extraRuns; run++) {
+            Card[] board = new Card[5];
+            System.arraycopy(hand.getCommunityCards(), 0, board, 0, shared);
+            for (int i = shared; i < 5; i++) {
+                if (i == 0 || i == 3 || i == 4) {
+                    burnCard(table);
+                }
+                board[i] = drawNextCard(table);
+            }
+            extras.add(board);
+        }
+        return extras;
     }
 
-    private void distributePotsWithSidePot(Table table, Hand hand, List<Player> contenders, Map<String, HandRank> rankMap) {
+    private void distributePotsWithSidePot(Table table, Hand hand, List<Player> contenders, List<Map<String, HandRank>> runRanks) {
+        hand.setTotalPotSize(table.getTotalPotSize());
         List<PotSlice> slices = buildPotSlices(table);
         if (slices.isEmpty()) {
             hand.setDistributions(Collections.emptyList());
@@ -766,11 +1035,28 @@ public class GameService {
             return;
         }
 
+        // 抽水先从主池扣，不够再从边池扣；只有一人投入的（未被跟注的）部分不抽
+        long[] sliceAmounts = new long[slices.size()];
+        boolean[] rakeable = new boolean[slices.size()];
+        long rakeablePot = 0;
+        for (int i = 0; i < slices.size(); i++) {
+            sliceAmounts[i] = slices.get(i).amount;
+            rakeable[i] = slices.get(i).contributorCount > 1;
+            if (rakeable[i]) {
+                rakeablePot += sliceAmounts[i];
+            }
+        }
+        long rake = RakeRule.of(table.getConfig()).rakeFor(rakeablePot, table.getCommunityCardsDealt() >= 3);
+        long[] rakeTaken = RakeRule.allocate(rake, sliceAmounts, rakeable);
+        hand.setRake(rake);
+
         List<Pot> potModels = new ArrayList<>();
         Map<String, Long> winByPlayer = new LinkedHashMap<>();
         int potSeq = 1;
 
-        for (PotSlice slice : slices) {
+        for (int idx = 0; idx < slices.size(); idx++) {
+            PotSlice slice = slices.get(idx);
+            long payout = slice.amount - rakeTaken[idx];
             potModels.add(new Pot(
                 potSeq++,
                 slice.amount,
@@ -778,55 +1064,38 @@ public class GameService {
                 0
             ));
 
-            List<Player> eligible = contenders.stream()
-                .filter(p -> slice.eligiblePlayerIds.contains(p.getPlayerId()))
+            List<String> eligible = contenders.stream()
+                .sorted(Comparator.comparingInt(Player::getSeatNumber))
+                .map(Player::getPlayerId)
+                .filter(slice.eligiblePlayerIds::contains)
                 .toList();
             if (eligible.isEmpty()) {
                 continue;
             }
 
-            int bestRank = Integer.MAX_VALUE;
-            List<Player> winners = new ArrayList<>();
-            for (Player p : eligible) {
-                HandRank rank = rankMap.get(p.getPlayerId());
-                if (rank == null) {
-                    continue;
-                }
-                if (rank.getRankValue() < bestRank) {
-                    bestRank = rank.getRankValue();
-                    winners.clear();
-                    winners.add(p);
-                } else if (rank.getRankValue() == bestRank) {
-                    winners.add(p);
-                }
-            }
-            if (winners.isEmpty()) {
-                continue;
-            }
-
-            winners.sort(Comparator.comparingInt(Player::getSeatNumber));
-            long share = slice.amount / winners.size();
-            long remainder = slice.amount % winners.size();
-            for (int i = 0; i < winners.size(); i++) {
-                Player w = winners.get(i);
-                long won = share + (i < remainder ? 1 : 0);
-                winByPlayer.merge(w.getPlayerId(), won, Long::sum);
-            }
+            // 每次发牌各分一份，零头从第 1 次起补；每次内部平分，零头按座位顺序补
+            RunItSplitter.award(payout, runRanks, eligible)
+                .forEach((playerId, won) -> winByPlayer.merge(playerId, won, Long::sum));
         }
 
+        Map<String, HandRank> rankMap = runRanks.get(0);
+
         List<PotDistribution> distributions = new ArrayList<>();
         for (Player p : getPlayersInSeatOrder(table)) {
             long won = winByPlayer.getOrDefault(p.getPlayerId(), 0L);
             if (won <= 0) {
                 continue;
             }
-            p.addStack(won);
-            String reason = rankMap.get(p.getPlayerId()) != null
-                ? rankMap.get(p.getPlayerId()).getSimpleDescription()
-                : "winner";
+            String reason = runRanks.size() > 1
+                ? "run it " + runRanks.size() + " times"
+                : rankMap.get(p.getPlayerId()) != null
+                    ? rankMap.get(p.getPlayerId()).getSimpleDescription()
+                    : "winner";
             distributions.add(new PotDistribution(p.getPlayerId(), won, 1, reason));
         }
 
+        ChipLedger.settle(table.getPlayers().values(), distributions);
+        settleInsurance(table, hand, contenders, runRanks);
         hand.setPots(potModels);
         hand.setDistributions(distributions);
         table.setTotalPotSize(0);
@@ -834,11 +1103,20 @@ public class GameService {
 
     private void settleWithoutShowdown(Table table, Player winner) {
         Hand hand = table.getCurrentHand();
+        if (hand != null) {
+            hand.setTotalPotSize(table.getTotalPotSize());
+        }
         if (winner != null && table.getTotalPotSize() > 0) {
-            winner.addStack(table.getTotalPotSize());
+            long rakeablePot = buildPotSlices(table).stream()
+                .filter(slice -> slice.contributorCount > 1)
+                .mapToLong(slice -> slice.amount)
+                .sum();
+            long rake = RakeRule.of(table.getConfig()).rakeFor(rakeablePot, table.getCommunityCardsDealt() >= 3);
+            List<PotDistribution> distributions = new ArrayList<>();
+            distributions.add(new PotDistribution(winner.getPlayerId(), table.getTotalPotSize() - rake, 1, "all others folded"));
+            ChipLedger.settle(table.getPlayers().values(), distributions);
             if (hand != null) {
-                List<PotDistribution> distributions = new ArrayList<>();
-                distributions.add(new PotDistribution(winner.getPlayerId(), table.getTotalPotSize(), 1, "all others folded"));
+                hand.setRake(rake);
                 hand.setDistributions(distributions);
                 hand.setCurrentStreet("SHOWDOWN");
             }
@@ -848,6 +1126,38 @@ public class GameService {
         table.setCurrentBetThisStreet(0);
         table.setNextToActSeat(-1);
         table.setCurrentActionDeadline(System.currentTimeMillis() + NEXT_HAND_DELAY_MS);
+        gameMetrics.recordHandCompleted(table.getTableIdAsLong());
+        fireHandCompleted(table, hand);
+    }
+
+    private void fireHandCompleted(Table table, Hand hand) {
+        for (HandLifecycleListener listener : handListeners) {
+            try {
+                listener.onHandCompleted(table, hand);
+            } catch (Exception e) {
+                log.warn("hand listener {} failed on table {}", listener.getClass().getSimpleName(), table.getTableId(), e);
+            }
+        }
+    }
+
+    private void fireSeatingChanged(Table table) {
+        for (HandLifecycleListener listener : handListeners) {
+            try {
+                listener.onSeatingChanged(table);
+            } catch (Exception e) {
+                log.warn("hand listener {} failed on table {}", listener.getClass().getSimpleName(), table.getTableId(), e);
+            }
+        }
+    }
+
+    private void fireTableRemoved(Table table) {
+        for (HandLifecycleListener listener : handListeners) {
+            try {
+                listener.onTableRemoved(table);
+            } catch (Exception e) {
+                log.warn("hand listener {} failed on table {}", listener.getClass().getSimpleName(), table.getTableId(), e);
+            }
+        }
     }
 
     private void ensureFiveCommunityCards(Table table) {
@@ -1004,7 +1314,7 @@ public class GameService {
                 .filter(p -> p.getStatus() != PlayerStatus.FOLDED && p.getStatus() != PlayerStatus.LEFT)
                 .map(Player::getPlayerId)
                 .toList();
-            slices.add(new PotSlice(amount, eligible));
+            slices.add(new PotSlice(amount, eligible, levelContributors.size()));
             previous = level;
         }
         return slices;
@@ -1030,10 +1340,12 @@ public class GameService {
     private static class PotSlice {
         private final long amount;
         private final List<String> eligiblePlayerIds;
+        private final int contributorCount;
 
-        private PotSlice(long amount, List<String> eligiblePlayerIds) {
+        private PotSlice(long amount, List<String> eligiblePlayerIds, int contributorCount) {
             this.amount = amount;
             this.eligiblePlayerIds = eligiblePlayerIds;
+            this.contributorCount = contributorCount;
         }
     }
 
@@ -1049,6 +1361,19 @@ public class GameService {
             .toList();
     }
 
+    /**
+     * 锦标赛桌的筹码由 TournamentService 发放，不是钱包里的钱
+     */
+    private static boolean isTournamentTable(Table table) {
+        return table.getConfig() != null && table.getConfig().isTournament();
+    }
+
+    private static void requireCashTable(Table table) {
+        if (isTournamentTable(table)) {
+            throw new IllegalStateException("wallet buy-in and cash-out are not allowed on tournament table " + table.getTableId());
+        }
+    }
+
     private boolean isInActiveStreet(TableState state) {
         return state == TableState.PRE_FLOP || state == TableState.FLOP || state == TableState.TURN || state == TableState.RIVER;
     }
@@ -1066,9 +1391,91 @@ public class GameService {
             showdown(table);
             return;
         }
+        // 记下全下（不再有下注）时已发的公共牌数，摊牌时据此决定能否多次发牌
+        Hand hand = table.getCurrentHand();
+        long delay = STREET_TRANSITION_DELAY_MS;
+        if (hand != null && hand.getAllInBoardCount() < 0 && table.getCommunityCardsDealt() < 5
+                && shouldSkipBettingRound(table) && getPlayersInHand(table).size() >= 2) {
+            hand.setAllInBoardCount(table.getCommunityCardsDealt());
+            if (offerInsurance(table, hand)) {
+                delay = insuranceDecisionMillis;
+            }
+        }
         pendingStreetTransitions.put(table.getTableIdAsLong(), target);
         table.setNextToActSeat(-1);
-        table.setCurrentActionDeadline(System.currentTimeMillis() + STREET_TRANSITION_DELAY_MS);
+        table.setCurrentActionDeadline(System.currentTimeMillis() + delay);
+    }
+
+    /**
+     * 全下时（翻牌或转牌后）穷举剩余牌给领先者报价保险；保额为领先者有资格争夺的、已被跟注的底池
+     *
+     * @return 是否给出了报价（报价后发下一张牌前等待 game.insurance.decisionMillis）
+     */
+    private boolean offerInsurance(Table table, Hand hand) {
+        if (!insuranceEnabled || table.getConfig() == null || !table.getConfig().isInsuranceAllowed()) {
+            return false;
+        }
+        int dealt = table.getCommunityCardsDealt();
+        if (dealt != 3 && dealt != 4) {
+            return false;
+        }
+        List<String> playerIds = new ArrayList<>();
+        List<Card[]> holes = new ArrayList<>();
+        for (Player p : getPlayersInHand(table)) {
+            Card[] hole = hand.getPlayerHoleCards().get(p.getPlayerId());
+            if (hole == null || hole.length != 2) {
+                return false;
+            }
+            playerIds.add(p.getPlayerId());
+            holes.add(hole);
+        }
+        Map<String, Long> potByPlayer = new LinkedHashMap<>();
+        for (PotSlice slice : buildPotSlices(table)) {
+            if (slice.contributorCount < 2) {
+                continue;
+            }
+            for (String playerId : slice.eligiblePlayerIds) {
+                potByPlayer.merge(playerId, slice.amount, Long::sum);
+            }
+        }
+        InsuranceQuote quote = new InsuranceRule(insuranceMargin, insuranceMaxOdds)
+            .quote(playerIds, holes, Arrays.copyOf(hand.getCommunityCards(), dealt), potByPlayer);
+        hand.setInsuranceQuote(quote);
+        return quote != null;
+    }
+
+    /**
+     * 保险结算：领先者在某次发牌中不在最强牌之列即输掉该次，按输掉的次数比例赔付；
+     * 保费从结算后的筹码中扣除（不超过结算后筹码）
+     */
+    private void settleInsurance(Table table, Hand hand, List<Player> contenders, List<Map<String, HandRank>> runRanks) {
+        InsuranceQuote quote = hand.getInsuranceQuote();
+        if (quote == null || hand.getInsurancePremium() <= 0) {
+            return;
+        }
+        Player leader = contenders.stream()
+            .filter(p -> quote.leaderId().equals(p.getPlayerId()))
+            .findFirst()
+            .orElse(null);
+        if (leader == null) {
+            hand.setInsurancePremium(0);
+            return;
+        }
+        int lostRuns = 0;
+        for (Map<String, HandRank> ranks : runRanks) {
+            HandRank mine = ranks.get(quote.leaderId());
+            int best = ranks.values().stream().mapToInt(HandRank::getRankValue).min().orElse(Integer.MAX_VALUE);
+            if (mine == null || mine.getRankValue() > best) {
+                lostRuns++;
+            }
+        }
+        long payout = quote.payoutFor(hand.getInsurancePremium(), lostRuns, runRanks.size());
+        leader.addStack(payout);
+        long premium = Math.min(hand.getInsurancePremium(), leader.getStackSize());
+        leader.setStack(leader.getStackSize() - premium);
+        hand.setInsurancePremium(premium);
+        hand.setInsurancePayout(payout);
+        walletService.insurance(table.getTableIdAsLong(), hand.getHandId(), premium, payout);
     }
 
     private TableState nextStreet(TableState current) {
@@ -1091,12 +1498,13 @@ public class GameService {
         }
         actor.setStatus(PlayerStatus.FOLDED);
         actor.setHasActed(true);
-        actor.setLastAction(new PlayerAction(
+        recordAction(table, actor, new PlayerAction(
             System.currentTimeMillis(),
             "FOLD",
             0,
             table.getState().name(),
-            0
+            0,
+            actor.getPlayerId()
         ));
         progressHand(table, actor.getSeatNumber());
     }
@@ -1147,9 +1555,13 @@ public class GameService {
         long postedBb = 0;
         if (sb != null && sb.getStatus() == PlayerStatus.ACTIVE) {
             postedSb = invest(table, sb, sbAmount);
+            table.getCurrentHand().getActionHistory().add(new PlayerAction(
+                System.currentTimeMillis(), "SMALL_BLIND", sbAmount, TableState.PRE_FLOP.name(), postedSb, sb.getPlayerId()));
         }
         if (bb != null && bb.getStatus() == PlayerStatus.ACTIVE) {
             postedBb = invest(table, bb, bbAmount);
+            table.getCurrentHand().getActionHistory().add(new PlayerAction(
+                System.currentTimeMillis(), "BIG_BLIND", bbAmount, TableState.PRE_FLOP.name(), postedBb, bb.getPlayerId()));
         }
         table.setCurrentBetThisStreet(Math.max(postedBb, postedSb));
     }
@@ -1201,6 +1613,16 @@ public class GameService {
         return amount;
     }
 
+    /**
+     * 记录玩家行动：更新展示用的 lastAction，并追加到本手牌的行动历史
+     */
+    private void recordAction(Table table, Player actor, PlayerAction action) {
+        actor.setLastAction(action);
+        if (table.getCurrentHand() != null) {
+            table.getCurrentHand().getActionHistory().add(action);
+        }
+    }
+
     private void markOthersNeedToAct(Table table, String actorPlayerId) {
         for (Player p : table.getPlayers().values()) {
             if (p.getStatus() == PlayerStatus.ACTIVE && !p.getPlayerId().equals(actorPlayerId)) {
@@ -0,0 +1,239 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.Table;
+import com.wepoker.history.HandHistoryArchive;
+import com.wepoker.history.HandHistoryCodec;
+import com.wepoker.history.HandHistoryTextFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 牌局历史服务：每手结束时编码并追加到二进制归档，支持按 handId / 玩家 / 房间查询
+ *
+ * 编码在 GameService 锁内同步完成（Hand 之后会被下一手复用的字段修改），
+ * 追加写盘交给单独的写线程，不阻塞引擎。
+ */
+@Slf4j
+@Service
+public class HandHistoryService implements HandLifecycleListener {
+
+    private static final int EXPORT_BUFFER_CHARS = 64 * 1024;
+
+    @Autowired
+    private GameService gameService;
+
+    @Value("${wepoker.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wepoker.history.dir:data/hand-history}")
+    private String directory;
+
+    @Value("${wepoker.history.segmentBytes:268435456}")
+    private int segmentBytes;
+
+    private HandHistoryArchive archive;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hand-history-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong appendFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            log.info("Hand history disabled");
+            return;
+        }
+        archive = new HandHistoryArchive(Path.of(directory), segmentBytes);
+        gameService.addHandListener(this);
+        log.info("Hand history archive opened at {} ({} hands)", directory, archive.getHandCount());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Hand history writer did not drain in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                log.error("Failed to close hand history archive", e);
+            }
+        }
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        if (hand == null || hand.getHandId() == null) {
+            return;
+        }
+        byte[] payload;
+        HandHistoryCodec.Keys keys;
+        try {
+            payload = HandHistoryCodec.encode(hand);
+            keys = HandHistoryCodec.keysOf(hand);
+        } catch (RuntimeException e) {
+            log.error("Failed to encode hand {}", hand.getHandId(), e);
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                archive.append(payload, keys);
+            } catch (Exception e) {
+                appendFailures.incrementAndGet();
+                log.error("Failed to archive hand {}", keys.handId(), e);
+            }
+        });
+    }
+
+    /**
+     * 按 handId 取回一手牌，未找到返回 null
+     */
+    public Hand findHand(String handId) {
+        if (archive == null || handId == null) {
+            return null;
+        }
+        long location = archive.locateHand(handId);
+        if (location < 0) {
+            return null;
+        }
+        Hand hand = HandHistoryCodec.decode(archive.read(location));
+        // 索引只存哈希，解码后核对原始 handId
+        return handId.equals(hand.getHandId()) ? hand : null;
+    }
+
+    /**
+     * 单手牌的对外视图，未找到返回 null
+     *
+     * 不直接返回 Hand：其中含全部玩家的底牌（包括弃牌和未亮的牌），
+     * 底牌按 HandHistoryTextFormat 的规则过滤，只保留查看者本人的和摊牌亮出的。
+     */
+    public Map<String, Object> getHandView(String handId, String viewerPlayerId) {
+        Hand hand = findHand(handId);
+        if (hand == null) {
+            return null;
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("handId", hand.getHandId());
+        view.put("tableId", hand.getTableId());
+        view.put("createdAt", hand.getCreatedAt());
+        view.put("smallBlindAmount", hand.getSmallBlindAmount());
+        view.put("bigBlindAmount", hand.getBigBlindAmount());
+        view.put("buttonSeatNumber", hand.getButtonSeatNumber());
+        view.put("smallBlindSeatNumber", hand.getSmallBlindSeatNumber());
+        view.put("bigBlindSeatNumber", hand.getBigBlindSeatNumber());
+        view.put("seats", hand.getSeats());
+        view.put("communityCards", hand.getCommunityCards());
+        view.put("extraBoards", hand.getAlternativeCommunityCards());
+        view.put("playerHoleCards", HandHistoryTextFormat.visibleHoleCards(hand, viewerPlayerId));
+        view.put("actionHistory", hand.getActionHistory());
+        view.put("totalPotSize", hand.getTotalPotSize());
+        view.put("distributions", hand.getDistributions());
+        return view;
+    }
+
+    /**
+     * 按时间顺序遍历某玩家的手牌，visitor 返回 false 时停止；逐手解码，不整体加载
+     */
+    public void forEachHandOfPlayer(String playerId, Predicate<Hand> visitor) {
+        if (archive == null) {
+            return;
+        }
+        archive.forEachOfPlayer(playerId, location -> {
+            Hand hand = HandHistoryCodec.decode(archive.read(location));
+            // 哈希碰撞的手牌跳过
+            boolean seated = hand.getSeats().stream().anyMatch(s -> playerId.equals(s.getPlayerId()));
+            return !seated || visitor.test(hand);
+        });
+    }
+
+    /**
+     * 按时间顺序遍历某房间的手牌
+     */
+    public void forEachHandOfTable(int tableId, Predicate<Hand> visitor) {
+        if (archive == null) {
+            return;
+        }
+        archive.forEachOfTable(tableId, location -> visitor.test(HandHistoryCodec.decode(archive.read(location))));
+    }
+
+    /**
+     * 以文本牌谱格式导出某玩家的手牌（旧到新），逐手解码、逐手写出，内存占用与手数无关
+     *
+     * @param limit 最多导出手数，<= 0 表示不限
+     * @return 实际导出手数
+     */
+    public long exportPlayerHistory(String playerId, OutputStream output, int limit) throws IOException {
+        return export(output, limit, playerId, visitor -> forEachHandOfPlayer(playerId, visitor));
+    }
+
+    /**
+     * 导出某房间的手牌，只公开摊牌底牌
+     */
+    public long exportTableHistory(int tableId, OutputStream output, int limit) throws IOException {
+        return export(output, limit, null, visitor -> forEachHandOfTable(tableId, visitor));
+    }
+
+    private long export(OutputStream output, int limit, String viewer,
+                        Consumer<Predicate<Hand>> source) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), EXPORT_BUFFER_CHARS);
+        long[] written = {0};
+        try {
+            source.accept(hand -> {
+                try {
+                    HandHistoryTextFormat.write(hand, viewer, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+                return limit <= 0 || written[0] < limit;
+            });
+        } catch (UncheckedIOException e) {
+            // 客户端断开等写出失败，停止遍历
+            throw e.getCause();
+        }
+        out.flush();
+        return written[0];
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", archive != null);
+        if (archive != null) {
+            stats.put("hands", archive.getHandCount());
+            stats.put("segments", archive.getSegmentCount());
+            stats.put("bytesUsed", archive.getBytesUsed());
+        }
+        stats.put("appendFailures", appendFailures.get());
+        return stats;
+    }
+}
@@ -0,0 +1,31 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.Table;
+
+/**
+ * 手牌/房间生命周期回调
+ *
+ * 在 GameService 的锁内、由引擎线程或请求线程同步调用；实现必须快速返回，
+ * 不得阻塞或调用外部 IO。需要修改其他桌时可以直接调用 GameService（锁可重入）。
+ */
+public interface HandLifecycleListener {
+
+    /**
+     * 一手牌结算完成（摊牌或其余玩家全部弃牌），此时桌子处于 SHOWDOWN，下一手尚未开始
+     */
+    default void onHandCompleted(Table table, Hand hand) {
+    }
+
+    /**
+     * 房间座位变化（新建房间、玩家入座、离席）
+     */
+    default void onSeatingChanged(Table table) {
+    }
+
+    /**
+     * 房间被移除
+     */
+    default void onTableRemoved(Table table) {
+    }
+}
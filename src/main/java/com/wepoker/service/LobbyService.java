@@ -0,0 +1,274 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.StakeLevel;
+import com.wepoker.domain.lobby.TableSummary;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PlayerStatus;
+import com.wepoker.domain.model.PotDistribution;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.model.TableConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 大厅服务：按盲注级别索引现金桌，提供分页摘要与"帮我找座"
+ *
+ * 索引由 GameService 的回调（入座/离席/手牌结束/移除）增量维护，查询不扫描房间：
+ * - summaries：tableId -> 最新摘要
+ * - byStake：盲注级别 -> (tableId -> 摘要)，有序，用于分页
+ * - seatable：盲注级别 -> 有空位的桌，按 TableSummary.SEAT_PRIORITY 排序，找座取 first()
+ *
+ * 写入都在 GameService 锁内串行发生；读取走并发容器，不加锁，允许看到瞬时不一致
+ * （找座后实际入座仍由 GameService.joinTable 校验）。锦标赛桌不进入大厅。
+ */
+@Slf4j
+@Service
+public class LobbyService implements HandLifecycleListener {
+
+    private static final double AVERAGE_POT_ALPHA = 0.2;
+    private static final int MAX_SEAT_ATTEMPTS = 8;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private TournamentService tournamentService;
+
+    private final ConcurrentHashMap<Integer, TableSummary> summaries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<StakeLevel, ConcurrentSkipListMap<Integer, TableSummary>> byStake = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<StakeLevel, ConcurrentSkipListSet<TableSummary>> seatable = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        gameService.addHandListener(this);
+        gameService.runExclusive(() -> {
+            gameService.getAllTables().forEach(t -> refresh(t, -1));
+            return null;
+        });
+    }
+
+    @Override
+    public void onSeatingChanged(Table table) {
+        refresh(table, -1);
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        long pot = 0;
+        if (hand != null && hand.getDistributions() != null) {
+            for (PotDistribution d : hand.getDistributions()) {
+                pot += d.getAmount();
+            }
+        }
+        refresh(table, pot);
+    }
+
+    @Override
+    public void onTableRemoved(Table table) {
+        TableSummary old = summaries.remove(table.getTableId());
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    /**
+     * 重新生成某桌摘要并更新索引，O(log n)
+     *
+     * @param completedPot 刚结束一手的底池，-1 表示不是手牌结束触发
+     */
+    private void refresh(Table table, long completedPot) {
+        if (tournamentService.isTournamentTable(table.getTableId())) {
+            return;
+        }
+        TableSummary old = summaries.get(table.getTableId());
+        TableSummary updated = summarize(table, old, completedPot);
+        if (updated.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            unindex(old);
+        }
+        summaries.put(updated.tableId(), updated);
+        byStake.computeIfAbsent(updated.stake(), k -> new ConcurrentSkipListMap<>()).put(updated.tableId(), updated);
+        if (updated.freeSeats() > 0) {
+            seatable.computeIfAbsent(updated.stake(), k -> new ConcurrentSkipListSet<>(TableSummary.SEAT_PRIORITY)).add(updated);
+        }
+    }
+
+    private void unindex(TableSummary old) {
+        ConcurrentSkipListMap<Integer, TableSummary> bucket = byStake.get(old.stake());
+        if (bucket != null) {
+            bucket.remove(old.tableId(), old);
+            if (bucket.isEmpty()) {
+                byStake.remove(old.stake(), bucket);
+            }
+        }
+        ConcurrentSkipListSet<TableSummary> open = seatable.get(old.stake());
+        if (open != null) {
+            open.remove(old);
+        }
+    }
+
+    private TableSummary summarize(Table table, TableSummary previous, long completedPot) {
+        TableConfig cfg = table.getConfig();
+        int maxPlayers = cfg != null ? cfg.getMaxPlayers() : 6;
+        long sb = cfg != null && cfg.getSmallBlindAmount() > 0 ? cfg.getSmallBlindAmount() : 500;
+        long bb = cfg != null && cfg.getBigBlindAmount() > 0 ? cfg.getBigBlindAmount() : 1000;
+
+        int seated = 0;
+        for (Player p : table.getPlayers().values()) {
+            if (p.getStatus() != PlayerStatus.LEFT) {
+                seated++;
+            }
+        }
+        int free = Math.max(0, maxPlayers - table.getPlayers().size());
+
+        long averagePot = previous != null ? previous.averagePot() : 0;
+        long hands = previous != null ? previous.handsPlayed() : 0;
+        if (completedPot >= 0) {
+            averagePot = hands == 0 ? completedPot : Math.round(averagePot + AVERAGE_POT_ALPHA * (completedPot - averagePot));
+            hands++;
+        }
+
+        return new TableSummary(
+            table.getTableId(),
+            cfg != null && cfg.getTableName() != null ? cfg.getTableName() : "Table " + table.getTableId(),
+            sb,
+            bb,
+            maxPlayers,
+            seated,
+            free,
+            averagePot,
+            hands
+        );
+    }
+
+    /**
+     * 指定盲注级别下最适合入座的桌，O(log n)；没有空位返回 null
+     */
+    public TableSummary findSeat(long smallBlind, long bigBlind) {
+        ConcurrentSkipListSet<TableSummary> open = seatable.get(new StakeLevel(smallBlind, bigBlind));
+        if (open == null) {
+            return null;
+        }
+        Iterator<TableSummary> it = open.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * 指定盲注级别下所有有空位的桌，按入座优先级排序（快照）
+     */
+    public List<TableSummary> seatableTables(long smallBlind, long bigBlind) {
+        ConcurrentSkipListSet<TableSummary> open = seatable.get(new StakeLevel(smallBlind, bigBlind));
+        return open == null ? Collections.emptyList() : new ArrayList<>(open);
+    }
+
+    /**
+     * 找座并入座；并发下选中的桌可能刚被坐满，此时换下一张重试
+     */
+    public Table seatPlayer(long smallBlind, long bigBlind, String playerId, String nickname, long buyIn) {
+        gameService.prefetchWallet(playerId);
+        for (int attempt = 0; attempt < MAX_SEAT_ATTEMPTS; attempt++) {
+            TableSummary best = findSeat(smallBlind, bigBlind);
+            if (best == null) {
+                break;
+            }
+            try {
+                return gameService.joinTable((long) best.tableId(), playerId, nickname, buyIn);
+            } catch (IllegalStateException e) {
+                // 索引在 GameService 锁内同步更新，锁内看到的已是最新摘要：仍有空位说明不是被抢座，直接抛出
+                TableSummary now = summaries.get(best.tableId());
+                if (now != null && now.freeSeats() > 0) {
+                    throw e;
+                }
+                log.debug("Table {} filled before seating, retrying", best.tableId());
+            }
+        }
+        throw new IllegalStateException("no table with free seats at " + smallBlind + "/" + bigBlind);
+    }
+
+    /**
+     * 分页列出房间摘要；smallBlind/bigBlind 为空时列出所有级别（按级别、桌号排序）
+     */
+    public Map<String, Object> listTables(Long smallBlind, Long bigBlind, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int skip = Math.max(0, page) * pageSize;
+
+        NavigableMap<StakeLevel, ConcurrentSkipListMap<Integer, TableSummary>> scope = byStake;
+        int total;
+        if (smallBlind != null && bigBlind != null) {
+            StakeLevel stake = new StakeLevel(smallBlind, bigBlind);
+            ConcurrentSkipListMap<Integer, TableSummary> bucket = byStake.get(stake);
+            scope = bucket == null ? Collections.emptyNavigableMap() : byStake.subMap(stake, true, stake, true);
+            total = bucket == null ? 0 : bucket.size();
+        } else {
+            total = summaries.size();
+        }
+
+        List<TableSummary> items = new ArrayList<>(pageSize);
+        outer:
+        for (ConcurrentSkipListMap<Integer, TableSummary> bucket : scope.values()) {
+            for (TableSummary summary : bucket.values()) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                items.add(summary);
+                if (items.size() >= pageSize) {
+                    break outer;
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("page", Math.max(0, page));
+        result.put("size", pageSize);
+        result.put("total", total);
+        result.put("items", items);
+        return result;
+    }
+
+    /**
+     * 各盲注级别概览：桌数、在座人数、空位数
+     */
+    public List<Map<String, Object>> getStakeOverview() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<StakeLevel, ConcurrentSkipListMap<Integer, TableSummary>> entry : byStake.entrySet()) {
+            int tables = 0;
+            int seated = 0;
+            int free = 0;
+            for (TableSummary s : entry.getValue().values()) {
+                tables++;
+                seated += s.seatedPlayers();
+                free += s.freeSeats();
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("smallBlind", entry.getKey().smallBlind());
+            item.put("bigBlind", entry.getKey().bigBlind());
+            item.put("tables", tables);
+            item.put("players", seated);
+            item.put("freeSeats", free);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public TableSummary getSummary(int tableId) {
+        return summaries.get(tableId);
+    }
+}
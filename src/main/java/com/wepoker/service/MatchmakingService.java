@@ -0,0 +1,370 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.QueueTicket;
+import com.wepoker.domain.lobby.StakeLevel;
+import com.wepoker.domain.lobby.TableSummary;
+import com.wepoker.domain.lobby.TableTemplate;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.model.TableState;
+import com.wepoker.domain.wallet.InsufficientBalanceException;
+import com.wepoker.network.protocol.PokerMessage;
+import com.wepoker.network.session.SessionRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 快速入座匹配队列
+ *
+ * 每个桌模板（game.table.templates）一个队列。请求线程只做无锁入队，不碰 GameService 的锁；
+ * 定时任务每隔 batchIntervalMillis 把各队列中等待的玩家成批取出，在一次 runExclusive 内：
+ * 1. 先按大厅入座优先级填满该级别已有桌的空位
+ * 2. 剩余人数足够时按模板新开桌，把剩余玩家平均分到新桌
+ * 3. 新开或补人后达到 2 人的空闲桌直接开局
+ * 人数不足以开新桌的玩家留到下一批（保持排队顺序），超过 queueTimeoutMillis 仍未入座的凭证过期。
+ *
+ * 入座结果写回 QueueTicket，客户端轮询 /api/matchmaking/queue/{playerId}；
+ * 有长连接的玩家同时收到一条 JOIN_TABLE 推送。
+ */
+@Slf4j
+@Service
+public class MatchmakingService {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private LobbyService lobbyService;
+
+    @Autowired
+    private TableTemplateProperties templateProperties;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Value("${wepoker.matchmaking.maxBatchSize:500}")
+    private int maxBatchSize;
+
+    @Value("${wepoker.matchmaking.minPlayersPerNewTable:2}")
+    private int minPlayersPerNewTable;
+
+    @Value("${wepoker.matchmaking.tableIdBase:500000}")
+    private int tableIdBase;
+
+    @Value("${wepoker.matchmaking.queueTimeoutMillis:120000}")
+    private long queueTimeoutMillis;
+
+    @Value("${wepoker.matchmaking.ticketTtlMillis:60000}")
+    private long ticketTtlMillis;
+
+    private final Map<StakeLevel, StakeQueue> queues = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, QueueTicket> tickets = new ConcurrentHashMap<>();
+    private AtomicInteger tableIdSeq;
+
+    /**
+     * 单个级别的队列：incoming 由请求线程写入；carryOver 保存上一批没能入座的玩家，只由定时任务线程访问
+     */
+    private static final class StakeQueue {
+        private final TableTemplate template;
+        private final ConcurrentLinkedQueue<QueueTicket> incoming = new ConcurrentLinkedQueue<>();
+        private final ArrayDeque<QueueTicket> carryOver = new ArrayDeque<>();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private StakeQueue(TableTemplate template) {
+            this.template = template;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        tableIdSeq = new AtomicInteger(tableIdBase);
+        for (TableTemplate template : templateProperties.getTemplates()) {
+            queues.putIfAbsent(template.stake(), new StakeQueue(template));
+        }
+        log.info("Matchmaking queues: {}", queues.keySet());
+    }
+
+    /**
+     * 加入快速入座队列；buyIn <= 0 时按模板最大买入
+     *
+     * @param templateName 模板名，为空时按 smallBlind/bigBlind 匹配模板
+     */
+    public QueueTicket enqueue(String templateName, long smallBlind, long bigBlind, String playerId, String nickname, long buyIn) {
+        if (playerId == null || playerId.isBlank()) {
+            throw new IllegalArgumentException("playerId cannot be empty");
+        }
+        TableTemplate template = templateName != null && !templateName.isBlank()
+            ? templateProperties.findByName(templateName)
+            : templateProperties.findByStake(smallBlind, bigBlind);
+        if (template == null) {
+            throw new IllegalArgumentException("unknown table template");
+        }
+        long amount = buyIn > 0 ? buyIn : template.getMaxBuyIn();
+        if (amount < template.getMinBuyIn() || amount > template.getMaxBuyIn()) {
+            throw new IllegalArgumentException("buyIn out of range");
+        }
+
+        QueueTicket existing = tickets.get(playerId);
+        if (existing != null && existing.isQueued()) {
+            return existing;
+        }
+        QueueTicket ticket = new QueueTicket(playerId, nickname != null ? nickname : playerId, amount, template.stake());
+        tickets.put(playerId, ticket);
+        StakeQueue queue = queues.get(template.stake());
+        queue.incoming.offer(ticket);
+        queue.waiting.incrementAndGet();
+        return ticket;
+    }
+
+    /**
+     * 取消排队；已被分配座位时返回 false
+     */
+    public boolean cancel(String playerId) {
+        QueueTicket ticket = tickets.get(playerId);
+        return ticket != null && ticket.transition(QueueTicket.Status.QUEUED, QueueTicket.Status.CANCELLED);
+    }
+
+    public QueueTicket getTicket(String playerId) {
+        return tickets.get(playerId);
+    }
+
+    /**
+     * 各级别排队人数（含已取消但尚未被批处理清出的凭证，近似值）
+     */
+    public List<Map<String, Object>> getQueueStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (StakeQueue queue : queues.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("template", queue.template.getName());
+            item.put("smallBlind", queue.template.getSmallBlind());
+            item.put("bigBlind", queue.template.getBigBlind());
+            item.put("waiting", queue.waiting.get());
+            result.add(item);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${wepoker.matchmaking.batchIntervalMillis:200}")
+    public void assignBatches() {
+        for (StakeQueue queue : queues.values()) {
+            try {
+                assignBatch(queue);
+            } catch (Exception e) {
+                log.warn("Matchmaking batch failed for {}", queue.template.getName(), e);
+            }
+        }
+    }
+
+    private void assignBatch(StakeQueue queue) {
+        List<QueueTicket> batch = drain(queue);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // 钱包余额在锁外预读，锁内买入校验不做数据库读取
+        for (QueueTicket ticket : batch) {
+            gameService.prefetchWallet(ticket.getPlayerId());
+        }
+        List<QueueTicket> seated = new ArrayList<>(batch.size());
+        List<QueueTicket> leftover = gameService.runExclusive(() -> seatBatch(queue.template, batch, seated));
+
+        // 没坐下的按原顺序放回队首，下一批优先处理
+        for (int i = leftover.size() - 1; i >= 0; i--) {
+            queue.carryOver.addFirst(leftover.get(i));
+        }
+        queue.waiting.addAndGet(-(batch.size() - leftover.size()));
+
+        for (QueueTicket ticket : seated) {
+            if (ticket.getStatus() == QueueTicket.Status.SEATED) {
+                notifySeated(ticket);
+            }
+        }
+        if (!seated.isEmpty()) {
+            log.debug("Matchmaking {}: seated {}, waiting {}", queue.template.getName(), seated.size(), leftover.size());
+        }
+    }
+
+    /**
+     * 取出一批仍在排队的凭证：先取上一批剩余，再取新入队的；顺带清掉已取消和超时的
+     */
+    private List<QueueTicket> drain(StakeQueue queue) {
+        long expireBefore = System.currentTimeMillis() - queueTimeoutMillis;
+        List<QueueTicket> batch = new ArrayList<>();
+        int dropped = 0;
+        while (batch.size() < maxBatchSize) {
+            QueueTicket ticket = queue.carryOver.pollFirst();
+            if (ticket == null) {
+                ticket = queue.incoming.poll();
+            }
+            if (ticket == null) {
+                break;
+            }
+            if (ticket.isQueued() && ticket.getEnqueuedAt() < expireBefore) {
+                ticket.transition(QueueTicket.Status.QUEUED, QueueTicket.Status.EXPIRED);
+            }
+            if (!ticket.isQueued()) {
+                dropped++;
+                continue;
+            }
+            batch.add(ticket);
+        }
+        if (dropped > 0) {
+            queue.waiting.addAndGet(-dropped);
+        }
+        return batch;
+    }
+
+    /**
+     * 在 GameService 锁内为一批玩家分配座位，返回没能入座、需要继续等待的玩家
+     */
+    private List<QueueTicket> seatBatch(TableTemplate template, List<QueueTicket> batch, List<QueueTicket> seated) {
+        ArrayDeque<QueueTicket> pending = new ArrayDeque<>(batch);
+        Set<Integer> touched = new LinkedHashSet<>();
+
+        // 1. 已有桌的空位（大厅入座优先级顺序，快照后遍历）
+        List<TableSummary> open = lobbyService.seatableTables(template.getSmallBlind(), template.getBigBlind());
+        for (TableSummary summary : open) {
+            if (pending.isEmpty()) {
+                break;
+            }
+            Table table = gameService.getTable((long) summary.tableId());
+            if (table != null) {
+                fillTable(table, pending, seated, touched);
+            }
+        }
+
+        // 2. 新开桌：剩余玩家平均分配，每桌不少于 minPlayersPerNewTable
+        int perTableMin = Math.max(2, minPlayersPerNewTable);
+        while (pending.size() >= perTableMin) {
+            int maxPlayers = template.getMaxPlayers();
+            int tablesNeeded = (pending.size() + maxPlayers - 1) / maxPlayers;
+            int target = (pending.size() + tablesNeeded - 1) / tablesNeeded;
+            Table table = createTable(template);
+            int before = seated.size();
+            fillTable(table, pending, seated, touched, target);
+            // 分到的玩家可能全部因余额不足失败
+            if (table.getPlayers().isEmpty()) {
+                gameService.removeTable(table.getTableIdAsLong());
+            }
+            if (seated.size() == before) {
+                break;
+            }
+        }
+
+        // 3. 空闲桌人够了就开局
+        for (Integer tableId : touched) {
+            Table table = gameService.getTable((long) tableId);
+            if (table != null && table.getState() == TableState.WAITING && table.canStartNewHand()) {
+                gameService.startGame(table.getTableIdAsLong());
+            }
+        }
+        return new ArrayList<>(pending);
+    }
+
+    private void fillTable(Table table, ArrayDeque<QueueTicket> pending, List<QueueTicket> seated, Set<Integer> touched) {
+        fillTable(table, pending, seated, touched, Integer.MAX_VALUE);
+    }
+
+    private void fillTable(Table table, ArrayDeque<QueueTicket> pending, List<QueueTicket> seated, Set<Integer> touched, int limit) {
+        int count = 0;
+        while (count < limit && !pending.isEmpty() && table.allocateSeat() >= 0) {
+            QueueTicket ticket = pending.pollFirst();
+            // 先占位，防止与取消并发
+            if (!ticket.transition(QueueTicket.Status.QUEUED, QueueTicket.Status.SEATED)) {
+                continue;
+            }
+            try {
+                gameService.joinTable(table.getTableIdAsLong(), ticket.getPlayerId(), ticket.getNickname(), ticket.getBuyIn());
+                ticket.seatedAt(table.getTableId(), findSeat(table, ticket.getPlayerId()));
+                seated.add(ticket);
+                touched.add(table.getTableId());
+                count++;
+            } catch (InsufficientBalanceException e) {
+                // 换桌也坐不下，不能退回队首挡住后面的人
+                ticket.fail(e.getMessage());
+                seated.add(ticket);
+            } catch (IllegalStateException e) {
+                // 桌已满或该桌不接受此买入：退回队首，换下一张桌
+                ticket.transition(QueueTicket.Status.SEATED, QueueTicket.Status.QUEUED);
+                pending.addFirst(ticket);
+                return;
+            } catch (Exception e) {
+                ticket.fail(e.getMessage());
+                seated.add(ticket);
+            }
+        }
+    }
+
+    private Table createTable(TableTemplate template) {
+        int tableId = tableIdSeq.incrementAndGet();
+        while (gameService.getTable((long) tableId) != null) {
+            tableId = tableIdSeq.incrementAndGet();
+        }
+        Table table = new Table();
+        table.setTableId(tableId);
+        table.setConfig(template.toTableConfig(tableId));
+        table.setState(TableState.WAITING);
+        table.setCreatedAt(LocalDateTime.now());
+        table.setNextToActSeat(-1);
+        gameService.registerTable(table);
+        return table;
+    }
+
+    private int findSeat(Table table, String playerId) {
+        for (Player p : table.getPlayers().values()) {
+            if (playerId.equals(p.getPlayerId())) {
+                return p.getSeatNumber();
+            }
+        }
+        return -1;
+    }
+
+    private void notifySeated(QueueTicket ticket) {
+        long pid;
+        try {
+            pid = Long.parseLong(ticket.getPlayerId());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("tableId", ticket.getTableId());
+        payload.put("seatNumber", ticket.getSeatNumber());
+        payload.put("buyIn", ticket.getBuyIn());
+        PokerMessage message = PokerMessage.builder()
+            .messageId(UUID.randomUUID().toString())
+            .type(PokerMessage.MessageType.JOIN_TABLE)
+            .timestamp(System.currentTimeMillis())
+            .tableId(ticket.getTableId())
+            .playerId(pid)
+            .payload(payload)
+            .build();
+        sessionRegistry.sendMessageToPlayer(pid, message);
+    }
+
+    /**
+     * 定时清理已结束（入座/取消/过期/失败）超过 ticketTtlMillis 的凭证
+     */
+    @Scheduled(fixedDelayString = "${wepoker.matchmaking.ticketSweepIntervalMillis:30000}")
+    public void expireResolvedTickets() {
+        long cutoff = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(t -> !t.isQueued() && t.getResolvedAt() < cutoff);
+    }
+}
@@ -0,0 +1,226 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.algorithm.FlopTexture;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.stats.PlayerStats;
+import com.wepoker.domain.stats.PlayerStatsStore;
+import com.wepoker.security.AntiCheatGuard;
+import com.wepoker.security.AntiCheatGuard.AntiCheatResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 玩家统计服务：每手结束时增量更新 VPIP / PFR / AF / bb/100 / 摊牌胜率，定期把变化的玩家刷入 player_stats
+ *
+ * 计数器在 PlayerStatsStore 中按分段加锁，GameService 回调里只做 O(行动数) 的累加；
+ * 查询直接读计数器，不做批量重算。没有数据源（如压测配置）时只在内存中统计。
+ * 另按翻牌同构类（FlopTexture，1755 类）累计见到翻牌的手数，查询时再按牌面结构汇总。
+ */
+@Slf4j
+@Service
+public class PlayerStatsService implements HandLifecycleListener {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO player_stats (player_id, hands, vpip_hands, pfr_hands, aggressive_actions, calls, " +
+        "showdowns, showdowns_won, hands_won, net_milli_bb) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE hands = VALUES(hands), vpip_hands = VALUES(vpip_hands), pfr_hands = VALUES(pfr_hands), " +
+        "aggressive_actions = VALUES(aggressive_actions), calls = VALUES(calls), showdowns = VALUES(showdowns), " +
+        "showdowns_won = VALUES(showdowns_won), hands_won = VALUES(hands_won), net_milli_bb = VALUES(net_milli_bb)";
+    private static final String LOAD_SQL =
+        "SELECT player_id, hands, vpip_hands, pfr_hands, aggressive_actions, calls, showdowns, showdowns_won, " +
+        "hands_won, net_milli_bb FROM player_stats";
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private AntiCheatGuard antiCheatGuard;
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${wepoker.stats.stripes:64}")
+    private int stripes;
+
+    @Value("${wepoker.stats.flushBatchSize:500}")
+    private int flushBatchSize;
+
+    @Value("${wepoker.stats.winRateCheckInterval:50}")
+    private int winRateCheckInterval;
+
+    private PlayerStatsStore store;
+
+    private final AtomicLongArray flopClassCounts = new AtomicLongArray(FlopTexture.CLASS_COUNT);
+
+    @PostConstruct
+    public void init() {
+        store = new PlayerStatsStore(stripes);
+        // 启动时就触发翻牌结构表的计算（类加载时完成），不留到第一手翻牌
+        FlopTexture.ofClass(0);
+        load();
+        gameService.addHandListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        if (hand == null) {
+            return;
+        }
+        store.recordHand(hand);
+        FlopTexture flop = FlopTexture.of(hand.getCommunityCards());
+        if (flop != null) {
+            flopClassCounts.incrementAndGet(flop.classId());
+        }
+        for (HandSeat seat : hand.getSeats()) {
+            PlayerStats stats = store.get(seat.getPlayerId());
+            if (stats != null && stats.hands() % winRateCheckInterval == 0) {
+                checkWinRate(stats);
+            }
+        }
+    }
+
+    /**
+     * 玩家当前统计，O(1)；没有记录返回 null
+     */
+    public PlayerStats getStats(String playerId) {
+        return store.get(playerId);
+    }
+
+    /**
+     * 已发翻牌的手数按牌面结构汇总（成对/三条/单色/两色/彩虹/连张/可成顺/最高张）
+     */
+    public Map<String, Object> getFlopTextureStats() {
+        long flops = 0;
+        long paired = 0;
+        long trips = 0;
+        long monotone = 0;
+        long twoTone = 0;
+        long connected = 0;
+        long straightPossible = 0;
+        long[] byHighRank = new long[15];
+        for (int classId = 0; classId < FlopTexture.CLASS_COUNT; classId++) {
+            long count = flopClassCounts.get(classId);
+            if (count == 0) {
+                continue;
+            }
+            FlopTexture t = FlopTexture.ofClass(classId);
+            flops += count;
+            paired += t.paired() ? count : 0;
+            trips += t.trips() ? count : 0;
+            monotone += t.monotone() ? count : 0;
+            twoTone += t.twoTone() ? count : 0;
+            connected += t.connected() ? count : 0;
+            straightPossible += t.straightPossible() ? count : 0;
+            byHighRank[t.highRank()] += count;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("flops", flops);
+        stats.put("paired", paired);
+        stats.put("trips", trips);
+        stats.put("monotone", monotone);
+        stats.put("twoTone", twoTone);
+        stats.put("rainbow", flops - monotone - twoTone);
+        stats.put("connected", connected);
+        stats.put("straightPossible", straightPossible);
+        Map<Integer, Long> high = new LinkedHashMap<>();
+        for (int rank = 14; rank >= 2; rank--) {
+            if (byHighRank[rank] > 0) {
+                high.put(rank, byHighRank[rank]);
+            }
+        }
+        stats.put("byHighRank", high);
+        return stats;
+    }
+
+    /**
+     * 以摊牌胜率（W$SD）和摊牌次数作为样本调用赢率异常检测
+     */
+    private void checkWinRate(PlayerStats stats) {
+        AntiCheatResult result = antiCheatGuard.checkWinRateAnomaly(Player.numericId(stats.playerId()), stats.showdownWinRate(), stats.showdowns());
+        if (!result.isPassed()) {
+            log.warn("Player {} flagged: {} ({} hands, {} showdowns)", stats.playerId(), result.getMessage(), stats.hands(), stats.showdowns());
+        }
+    }
+
+    /**
+     * 把变化过的玩家统计批量写入 player_stats（累计值覆盖写，重复刷盘幂等）
+     */
+    @Scheduled(fixedDelayString = "${wepoker.stats.flushIntervalMillis:30000}")
+    public void flush() {
+        if (jdbcTemplate == null || store == null) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(flushBatchSize);
+        int flushed = store.drainDirty((playerId, c) -> {
+            batch.add(new Object[] {playerId, c[PlayerStatsStore.HANDS], c[PlayerStatsStore.VPIP], c[PlayerStatsStore.PFR],
+                c[PlayerStatsStore.AGGRESSIVE], c[PlayerStatsStore.CALLS], c[PlayerStatsStore.SHOWDOWNS],
+                c[PlayerStatsStore.SHOWDOWNS_WON], c[PlayerStatsStore.HANDS_WON], c[PlayerStatsStore.NET_MILLI_BB]});
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+            }
+        });
+        writeBatch(batch);
+        if (flushed > 0) {
+            log.debug("Flushed stats for {} players", flushed);
+        }
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+        } catch (Exception e) {
+            log.error("Failed to flush {} player stats, will retry", batch.size(), e);
+            for (Object[] row : batch) {
+                store.markDirty((String) row[0]);
+            }
+        }
+        batch.clear();
+    }
+
+    private void load() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                long[] c = new long[PlayerStatsStore.COUNTERS];
+                c[PlayerStatsStore.HANDS] = rs.getLong("hands");
+                c[PlayerStatsStore.VPIP] = rs.getLong("vpip_hands");
+                c[PlayerStatsStore.PFR] = rs.getLong("pfr_hands");
+                c[PlayerStatsStore.AGGRESSIVE] = rs.getLong("aggressive_actions");
+                c[PlayerStatsStore.CALLS] = rs.getLong("calls");
+                c[PlayerStatsStore.SHOWDOWNS] = rs.getLong("showdowns");
+                c[PlayerStatsStore.SHOWDOWNS_WON] = rs.getLong("showdowns_won");
+                c[PlayerStatsStore.HANDS_WON] = rs.getLong("hands_won");
+                c[PlayerStatsStore.NET_MILLI_BB] = rs.getLong("net_milli_bb");
+                store.load(rs.getString("player_id"), c);
+            });
+            log.info("Loaded stats for {} players", store.size());
+        } catch (Exception e) {
+            log.warn("Player stats not loaded: {}", e.getMessage());
+        }
+    }
+}
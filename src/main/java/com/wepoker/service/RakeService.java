@@ -0,0 +1,108 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.rake.RakeAccumulator;
+import com.wepoker.domain.rake.RakeAccumulator.RakeSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 抽水汇总服务
+ *
+ * 抽水在 GameService 结算时按房间配置的 RakeRule（比例、单手封顶、不见翻牌不抽水，来自 game.table.templates）
+ * 从底池扣除并写入 Hand.rake；本服务在手牌结束回调里把抽水计入按桌的无锁计数器，并记一笔桌上筹码 -> 抽水收入的分录，
+ * 定期把每张桌在一个时间窗口内的手数/底池/抽水合并成一行写入 rake_summary。
+ */
+@Slf4j
+@Service
+public class RakeService implements HandLifecycleListener {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO rake_summary (table_id, hands, raked_hands, pot_total, rake, window_start, window_end) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    private final RakeAccumulator accumulator = new RakeAccumulator(System.currentTimeMillis());
+
+    @PostConstruct
+    public void init() {
+        gameService.addHandListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        if (hand == null) {
+            return;
+        }
+        long tableId = table.getTableIdAsLong();
+        accumulator.record(tableId, hand.getTotalPotSize(), hand.getRake());
+        if (hand.getRake() > 0) {
+            walletService.rake(tableId, hand.getHandId(), hand.getRake());
+        }
+    }
+
+    @Override
+    public void onTableRemoved(Table table) {
+        accumulator.retire(table.getTableIdAsLong());
+    }
+
+    /**
+     * 把各桌自上次刷盘以来的抽水增量写入 rake_summary（每桌一行）
+     */
+    @Scheduled(fixedDelayString = "${wepoker.rake.flushIntervalMillis:60000}")
+    public void flush() {
+        List<RakeSummary> summaries = accumulator.drain(System.currentTimeMillis());
+        if (summaries.isEmpty() || jdbcTemplate == null) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(summaries.size());
+        for (RakeSummary s : summaries) {
+            rows.add(new Object[] {s.tableId(), s.hands(), s.rakedHands(), s.potTotal(), s.rake(),
+                new Timestamp(s.windowStartMillis()), new Timestamp(s.windowEndMillis())});
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            log.debug("Flushed rake for {} tables", rows.size());
+        } catch (Exception e) {
+            log.error("Failed to flush rake for {} tables, will retry", rows.size(), e);
+            accumulator.restore(summaries);
+        }
+    }
+
+    public long getTableRake(long tableId) {
+        return accumulator.totalRake(tableId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedTables", accumulator.tableCount());
+        stats.put("totalRake", accumulator.totalRake());
+        stats.put("persistent", jdbcTemplate != null);
+        return stats;
+    }
+}
@@ -0,0 +1,37 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.TableTemplate;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 现金桌模板配置（game.table.templates）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "game.table")
+public class TableTemplateProperties {
+    private List<TableTemplate> templates = new ArrayList<>();
+
+    public TableTemplate findByName(String name) {
+        for (TableTemplate t : templates) {
+            if (t.getName().equalsIgnoreCase(name)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    public TableTemplate findByStake(long smallBlind, long bigBlind) {
+        for (TableTemplate t : templates) {
+            if (t.getSmallBlind() == smallBlind && t.getBigBlind() == bigBlind) {
+                return t;
+            }
+        }
+        return null;
+    }
+}
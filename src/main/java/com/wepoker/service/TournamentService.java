@@ -0,0 +1,427 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PlayerStatus;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.model.TableConfig;
+import com.wepoker.domain.model.TableState;
+import com.wepoker.domain.tournament.BlindLevel;
+import com.wepoker.domain.tournament.BlindSchedule;
+import com.wepoker.domain.tournament.IcmCalculator;
+import com.wepoker.domain.tournament.TableBalancer;
+import com.wepoker.domain.tournament.Tournament;
+import com.wepoker.domain.tournament.TournamentEntry;
+import com.wepoker.domain.tournament.TournamentState;
+import com.wepoker.domain.tournament.TournamentType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 锦标赛服务（SNG / MTT）
+ *
+ * 锦标赛的每张桌都是 GameService 里的普通 Table，手牌流程完全复用现金桌引擎；
+ * 本服务只在每手牌结束的回调里做三件事：
+ * 1. 处理淘汰（筹码归零的玩家离桌并记名次，同一手被淘汰的按开局筹码多者名次靠前）
+ * 2. 按开赛时长更新本桌盲注（下一手生效）
+ * 3. 由 TableBalancer 决定本桌是否需要拆桌或移出玩家，玩家在两手之间换桌
+ *
+ * 所有状态修改都在 GameService 的锁内进行（回调本身就在锁内，REST 入口走 runExclusive）。
+ */
+@Slf4j
+@Service
+public class TournamentService implements HandLifecycleListener {
+
+    @Autowired
+    private GameService gameService;
+
+    @Value("${wepoker.tournament.tableIdBase:1000000}")
+    private int tableIdBase;
+
+    @Value("${wepoker.tournament.defaultSeatsPerTable:9}")
+    private int defaultSeatsPerTable;
+
+    @Value("${wepoker.tournament.defaultStartingStack:10000}")
+    private long defaultStartingStack;
+
+    @Value("${wepoker.tournament.defaultLevelMinutes:10}")
+    private int defaultLevelMinutes;
+
+    private final ConcurrentHashMap<Long, Tournament> tournaments = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Tournament> tournamentsByTable = new ConcurrentHashMap<>();
+    private final AtomicLong tournamentIdSeq = new AtomicLong();
+    private AtomicInteger tableIdSeq;
+
+    @PostConstruct
+    public void init() {
+        tableIdSeq = new AtomicInteger(tableIdBase);
+        gameService.addHandListener(this);
+    }
+
+    /**
+     * 创建锦标赛；SNG 的报名上限即单桌座位数，坐满自动开赛
+     */
+    public Tournament create(String name, TournamentType type, int seatsPerTable, int maxEntrants,
+                             long startingStack, List<BlindLevel> levels) {
+        int seats = seatsPerTable > 0 ? seatsPerTable : defaultSeatsPerTable;
+        if (seats < 2 || seats > 10) {
+            throw new IllegalArgumentException("seatsPerTable must be between 2 and 10");
+        }
+        long stack = startingStack > 0 ? startingStack : defaultStartingStack;
+        BlindSchedule schedule = levels == null || levels.isEmpty()
+            ? BlindSchedule.standard(Math.max(1, stack / 200), defaultLevelMinutes, 20)
+            : new BlindSchedule(levels);
+
+        Tournament t = new Tournament();
+        t.setTournamentId(tournamentIdSeq.incrementAndGet());
+        t.setName(name != null ? name : type + "-" + t.getTournamentId());
+        t.setType(type);
+        t.setState(TournamentState.REGISTERING);
+        t.setSeatsPerTable(seats);
+        t.setMaxEntrants(type == TournamentType.SIT_AND_GO ? seats : Math.max(0, maxEntrants));
+        t.setStartingStack(stack);
+        t.setBlindSchedule(schedule);
+        t.setCreatedAt(System.currentTimeMillis());
+        tournaments.put(t.getTournamentId(), t);
+        return t;
+    }
+
+    public Tournament register(long tournamentId, String playerId, String nickname) {
+        if (playerId == null || playerId.isBlank()) {
+            throw new IllegalArgumentException("playerId cannot be empty");
+        }
+        return gameService.runExclusive(() -> {
+            Tournament t = require(tournamentId);
+            if (t.getState() != TournamentState.REGISTERING) {
+                throw new IllegalStateException("registration closed");
+            }
+            if (t.getEntries().containsKey(playerId)) {
+                return t;
+            }
+            if (t.isFull()) {
+                throw new IllegalStateException("tournament is full");
+            }
+            t.getEntries().put(playerId, new TournamentEntry(playerId, nickname != null ? nickname : playerId));
+            if (t.getType() == TournamentType.SIT_AND_GO && t.isFull()) {
+                startInternal(t);
+            }
+            return t;
+        });
+    }
+
+    public Tournament unregister(long tournamentId, String playerId) {
+        return gameService.runExclusive(() -> {
+            Tournament t = require(tournamentId);
+            if (t.getState() != TournamentState.REGISTERING) {
+                throw new IllegalStateException("registration closed");
+            }
+            t.getEntries().remove(playerId);
+            return t;
+        });
+    }
+
+    /**
+     * 开赛（MTT 手动开赛；SNG 坐满后自动调用）
+     */
+    public Tournament start(long tournamentId) {
+        return gameService.runExclusive(() -> {
+            Tournament t = require(tournamentId);
+            if (t.getState() != TournamentState.REGISTERING) {
+                throw new IllegalStateException("tournament already started");
+            }
+            startInternal(t);
+            return t;
+        });
+    }
+
+    public Tournament getTournament(long tournamentId) {
+        return tournaments.get(tournamentId);
+    }
+
+    public Collection<Tournament> getAllTournaments() {
+        return tournaments.values();
+    }
+
+    public boolean isTournamentTable(int tableId) {
+        return tableId > tableIdBase && tableId <= tableIdSeq.get();
+    }
+
+    /**
+     * 按名次排列的报名记录（仍在比赛中的按当前筹码降序排在前面）
+     */
+    public List<TournamentEntry> getStandings(long tournamentId) {
+        return gameService.runExclusive(() -> {
+            Tournament t = require(tournamentId);
+            List<TournamentEntry> alive = new ArrayList<>();
+            List<TournamentEntry> out = new ArrayList<>();
+            for (TournamentEntry e : t.getEntries().values()) {
+                (e.isAlive() ? alive : out).add(e);
+            }
+            alive.sort(Comparator.comparingLong((TournamentEntry e) -> currentStack(e)).reversed());
+            out.sort(Comparator.comparingInt(TournamentEntry::getFinishPosition));
+            alive.addAll(out);
+            return alive;
+        });
+    }
+
+    /**
+     * 在场玩家按当前筹码的 ICM 奖金权益（已淘汰玩家占据了末尾名次，payouts 从第 1 名起给出即可）
+     */
+    public List<Map<String, Object>> getIcmEquities(long tournamentId, double[] payouts) {
+        return gameService.runExclusive(() -> {
+            Tournament t = require(tournamentId);
+            List<TournamentEntry> alive = new ArrayList<>();
+            for (TournamentEntry e : t.getEntries().values()) {
+                if (e.isAlive()) {
+                    alive.add(e);
+                }
+            }
+            long[] stacks = new long[alive.size()];
+            for (int i = 0; i < stacks.length; i++) {
+                stacks[i] = currentStack(alive.get(i));
+            }
+            double[] equities = IcmCalculator.equities(stacks, payouts);
+            List<Map<String, Object>> result = new ArrayList<>(stacks.length);
+            for (int i = 0; i < stacks.length; i++) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("playerId", alive.get(i).getPlayerId());
+                row.put("nickname", alive.get(i).getNickname());
+                row.put("stack", stacks[i]);
+                row.put("equity", equities[i]);
+                result.add(row);
+            }
+            result.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("stack")).reversed());
+            return result;
+        });
+    }
+
+    private void startInternal(Tournament t) {
+        int entrants = t.getEntries().size();
+        if (entrants < 2) {
+            throw new IllegalStateException("at least 2 entrants required");
+        }
+        int seats = t.getSeatsPerTable();
+        int tableCount = (entrants + seats - 1) / seats;
+        t.setStartedAt(System.currentTimeMillis());
+        t.setCurrentLevelIndex(0);
+        t.setRemainingPlayers(entrants);
+        t.setBalancer(new TableBalancer(seats));
+
+        List<Table> tables = new ArrayList<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            tables.add(createTable(t));
+        }
+
+        // 随机座位，按轮次依次发到各桌，保证开局各桌人数差不超过 1
+        List<TournamentEntry> shuffled = new ArrayList<>(t.getEntries().values());
+        Collections.shuffle(shuffled);
+        for (int i = 0; i < shuffled.size(); i++) {
+            TournamentEntry entry = shuffled.get(i);
+            Table table = tables.get(i % tableCount);
+            Player player = new Player();
+            player.setPlayerId(entry.getPlayerId());
+            player.setNickname(entry.getNickname());
+            player.setStackSize(t.getStartingStack());
+            player.setStatus(PlayerStatus.SITTING);
+            player.setJoinTime(LocalDateTime.now());
+            seat(table, player);
+            entry.setTableId(table.getTableId());
+        }
+
+        for (Table table : tables) {
+            gameService.registerTable(table);
+            t.getTableIds().add(table.getTableId());
+            tournamentsByTable.put(table.getTableId(), t);
+            t.getBalancer().addTable(table.getTableId(), table.getPlayers().size());
+        }
+        t.setState(TournamentState.RUNNING);
+        for (Table table : tables) {
+            gameService.startGame(table.getTableIdAsLong());
+        }
+        log.info("Tournament {} started: {} entrants on {} tables", t.getTournamentId(), entrants, tableCount);
+    }
+
+    private Table createTable(Tournament t) {
+        BlindLevel level = t.getCurrentLevel();
+        TableConfig cfg = new TableConfig();
+        cfg.setTableName(t.getName());
+        cfg.setMaxPlayers(t.getSeatsPerTable());
+        cfg.setSmallBlindAmount(level.getSmallBlind());
+        cfg.setBigBlindAmount(level.getBigBlind());
+        cfg.setMinBuyIn(0);
+        cfg.setMaxBuyIn(Long.MAX_VALUE);
+        cfg.setRakePercentage(0);
+        cfg.setTournament(true);
+
+        Table table = new Table();
+        table.setTableId(tableIdSeq.incrementAndGet());
+        table.setConfig(cfg);
+        table.setState(TableState.WAITING);
+        table.setCreatedAt(LocalDateTime.now());
+        table.setNextToActSeat(-1);
+        return table;
+    }
+
+    @Override
+    public void onHandCompleted(Table table, Hand hand) {
+        Tournament t = tournamentsByTable.get(table.getTableId());
+        if (t == null || t.getState() != TournamentState.RUNNING) {
+            return;
+        }
+
+        processEliminations(t, table);
+        if (t.getRemainingPlayers() <= 1) {
+            finish(t);
+            return;
+        }
+        applyBlindLevel(t, table);
+        rebalanceFrom(t, table);
+    }
+
+    private void processEliminations(Tournament t, Table table) {
+        List<Player> busted = new ArrayList<>();
+        for (Player p : table.getPlayers().values()) {
+            if (p.getStackSize() <= 0) {
+                busted.add(p);
+            }
+        }
+        if (busted.isEmpty()) {
+            return;
+        }
+        // 同一手出局：开局筹码（本手投入即全部筹码）少的名次更靠后
+        busted.sort(Comparator.comparingLong(Player::getTotalBetInPot));
+        long now = System.currentTimeMillis();
+        for (Player p : busted) {
+            table.getPlayers().remove(p.getSeatNumber());
+            TournamentEntry entry = t.getEntries().get(p.getPlayerId());
+            if (entry != null && entry.isAlive()) {
+                entry.setFinishPosition(t.getRemainingPlayers());
+                entry.setEliminatedAt(now);
+                t.setRemainingPlayers(t.getRemainingPlayers() - 1);
+            }
+        }
+        t.getBalancer().setPlayerCount(table.getTableId(), table.getPlayers().size());
+    }
+
+    private void applyBlindLevel(Tournament t, Table table) {
+        int index = t.getBlindSchedule().levelIndexAt(System.currentTimeMillis() - t.getStartedAt());
+        if (index != t.getCurrentLevelIndex()) {
+            t.setCurrentLevelIndex(index);
+            log.info("Tournament {} blinds up: {}", t.getTournamentId(), t.getCurrentLevel());
+        }
+        BlindLevel level = t.getCurrentLevel();
+        table.getConfig().setSmallBlindAmount(level.getSmallBlind());
+        table.getConfig().setBigBlindAmount(level.getBigBlind());
+    }
+
+    private void rebalanceFrom(Tournament t, Table source) {
+        TableBalancer balancer = t.getBalancer();
+        List<Integer> destinations = balancer.planMovesFrom(source.getTableId());
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        for (Integer destId : destinations) {
+            Table dest = gameService.getTable((long) destId);
+            Player player = pickPlayerToMove(source);
+            source.getPlayers().remove(player.getSeatNumber());
+            player.resetForNewHand();
+            player.setButtonAndDealer(false);
+            seat(dest, player);
+            t.getEntries().get(player.getPlayerId()).setTableId(dest.getTableId());
+            touched.add(destId);
+        }
+
+        if (balancer.getPlayerCount(source.getTableId()) == 0) {
+            balancer.removeTable(source.getTableId());
+            t.getTableIds().remove(source.getTableId());
+            tournamentsByTable.remove(source.getTableId());
+            gameService.removeTable(source.getTableIdAsLong());
+            log.info("Tournament {} broke table {}, {} tables left", t.getTournamentId(), source.getTableId(), balancer.getTableCount());
+        }
+
+        // 目标桌若因人数不足停在 WAITING，补人后立即开局
+        for (Integer destId : touched) {
+            Table dest = gameService.getTable((long) destId);
+            if (dest != null && dest.getState() == TableState.WAITING && dest.canStartNewHand()) {
+                gameService.startGame(dest.getTableIdAsLong());
+            }
+        }
+    }
+
+    /**
+     * 优先移走刚交过大盲的玩家：他在新桌不会立刻再交盲注，换桌对盲注轮转影响最小
+     */
+    private Player pickPlayerToMove(Table source) {
+        Player bigBlind = source.getPlayers().get(source.getBigBlindSeat());
+        if (bigBlind != null) {
+            return bigBlind;
+        }
+        return source.getPlayers().values().iterator().next();
+    }
+
+    private void seat(Table table, Player player) {
+        int seat = table.allocateSeat();
+        if (seat < 0) {
+            throw new IllegalStateException("no free seat at table " + table.getTableId());
+        }
+        player.setSeatNumber(seat);
+        player.setTableId(table.getTableId());
+        table.addPlayer(player);
+    }
+
+    private void finish(Tournament t) {
+        for (TournamentEntry entry : t.getEntries().values()) {
+            if (entry.isAlive()) {
+                entry.setFinishPosition(1);
+                t.setWinnerPlayerId(entry.getPlayerId());
+            }
+        }
+        t.setState(TournamentState.FINISHED);
+        t.setFinishedAt(System.currentTimeMillis());
+        for (Integer tableId : new ArrayList<>(t.getTableIds())) {
+            tournamentsByTable.remove(tableId);
+            gameService.removeTable((long) tableId);
+        }
+        t.getTableIds().clear();
+        log.info("Tournament {} finished, winner {}", t.getTournamentId(), t.getWinnerPlayerId());
+    }
+
+    private long currentStack(TournamentEntry entry) {
+        Table table = gameService.getTable((long) entry.getTableId());
+        if (table == null) {
+            return 0;
+        }
+        return table.getPlayers().values().stream()
+            .filter(p -> entry.getPlayerId().equals(p.getPlayerId()))
+            .mapToLong(Player::getStackSize)
+            .findFirst()
+            .orElse(0);
+    }
+
+    private Tournament require(long tournamentId) {
+        Tournament t = tournaments.get(tournamentId);
+        if (t == null) {
+            throw new IllegalArgumentException("tournament not found");
+        }
+        return t;
+    }
+}
@@ -0,0 +1,347 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.wallet.InsufficientBalanceException;
+import com.wepoker.domain.wallet.Posting;
+import com.wepoker.domain.wallet.WalletJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 钱包服务：买入、兑现、抽水以复式分录记账，按批落库
+ *
+ * 记账只改内存（WalletJournal），定期把一批分录写入 wallet_posting，并按账户合并成净变动：
+ * 玩家钱包更新 player.total_balance（没有 player 行的玩家改记 wallet_account），其他账户（桌上筹码、抽水）更新 wallet_account，
+ * 每个账户每批一条语句。
+ * 同一批在一个数据库事务内提交；已存在的 idempotency_key 跳过，重试不会重复入账。
+ *
+ * wepoker.wallet.enforceBalance=true 时买入前校验钱包余额；没有数据源（如压测配置）时只在内存中记账。
+ * 已落库余额只在买入校验和余额查询时读取，加入牌桌的入口先在 GameService 锁外 prefetch。
+ */
+@Slf4j
+@Service
+public class WalletService {
+
+    private static final String EXISTING_KEYS_SQL = "SELECT idempotency_key FROM wallet_posting WHERE idempotency_key IN (%s)";
+    private static final String INSERT_POSTING_SQL =
+        "INSERT INTO wallet_posting (idempotency_key, type, debit_account, credit_account, amount, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PLAYER_SQL = "UPDATE player SET total_balance = total_balance + ? WHERE player_id = ?";
+    private static final String UPSERT_ACCOUNT_SQL =
+        "INSERT INTO wallet_account (account, balance) VALUES (?, ?) ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance)";
+    private static final String PLAYER_BALANCE_SQL = "SELECT total_balance FROM player WHERE player_id = ?";
+    private static final String ACCOUNT_BALANCE_SQL = "SELECT balance FROM wallet_account WHERE account = ?";
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${wepoker.wallet.enforceBalance:false}")
+    private boolean enforceBalance;
+
+    @Value("${wepoker.wallet.flushBatchSize:1000}")
+    private int flushBatchSize;
+
+    @Value("${wepoker.wallet.idempotencyWindowMillis:3600000}")
+    private long idempotencyWindowMillis;
+
+    private WalletJournal journal;
+    private final AtomicLong postingsCommitted = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        journal = new WalletJournal(this::loadCommittedBalance);
+        log.info("Wallet service started (enforceBalance={}, persistent={})", enforceBalance, jdbcTemplate != null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 买入：玩家钱包 -> 桌上筹码
+     *
+     * @param requestId 客户端请求 ID，重试时相同；为 null 时每次视为新请求
+     * @throws InsufficientBalanceException 开启余额校验且余额不足
+     */
+    public boolean buyIn(String playerId, long tableId, long amount, String requestId) {
+        return journal.post(Posting.buyIn(key("buyin", tableId, playerId, requestId), playerId, tableId, amount), enforceBalance);
+    }
+
+    /**
+     * 兑现：桌上筹码 -> 玩家钱包（离桌时的剩余筹码）
+     */
+    public boolean cashOut(String playerId, long tableId, long amount, String requestId) {
+        if (amount <= 0) {
+            return false;
+        }
+        return journal.post(Posting.cashOut(key("cashout", tableId, playerId, requestId), playerId, tableId, amount), false);
+    }
+
+    /**
+     * 抽水：桌上筹码 -> 抽水收入，每手一笔（以 handId 去重）
+     */
+    public boolean rake(long tableId, String handId, long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        return journal.post(Posting.rake("rake:" + handId, tableId, amount), false);
+    }
+
+    /**
+     * 保险：保费 桌上筹码 -> 保险账户，赔付 保险账户 -> 桌上筹码，每手各一笔（以 handId 去重）
+     */
+    public void insurance(long tableId, String handId, long premium, long payout) {
+        if (premium > 0) {
+            journal.post(Posting.insurancePremium("insurance:premium:" + handId, tableId, premium), false);
+        }
+        if (payout > 0) {
+            journal.post(Posting.insurancePayout("insurance:payout:" + handId, tableId, payout), false);
+        }
+    }
+
+    /**
+     * 预读玩家钱包的已落库余额：在进入 GameService 锁之前调用，锁内的买入校验就不必读数据库。
+     * 未开启余额校验时买入不读余额，直接返回
+     */
+    public void prefetch(String playerId) {
+        if (enforceBalance && playerId != null) {
+            journal.balance(Posting.playerAccount(playerId));
+        }
+    }
+
+    /**
+     * 玩家钱包余额（含未落库部分）
+     */
+    public long getBalance(String playerId) {
+        return journal.balance(Posting.playerAccount(playerId));
+    }
+
+    public long getAccountBalance(String account) {
+        return journal.balance(account);
+    }
+
+    /**
+     * 把待提交分录按批落库
+     */
+    @Scheduled(fixedDelayString = "${wepoker.wallet.flushIntervalMillis:1000}")
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        while (true) {
+            WalletJournal.Batch batch = journal.drain(flushBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (jdbcTemplate == null) {
+                journal.markCommitted(batch);
+                continue;
+            }
+            try {
+                WalletJournal.Batch written = jdbcTemplate.execute((ConnectionCallback<WalletJournal.Batch>) conn -> commit(conn, batch));
+                journal.markCommitted(written);
+                if (written.postings().size() < batch.postings().size()) {
+                    Set<Posting> fresh = new HashSet<>(written.postings());
+                    List<Posting> skipped = batch.postings().stream().filter(p -> !fresh.contains(p)).toList();
+                    journal.discard(skipped);
+                    duplicatesSkipped.addAndGet(skipped.size());
+                }
+                postingsCommitted.addAndGet(written.postings().size());
+            } catch (Exception e) {
+                flushFailures.incrementAndGet();
+                log.error("Failed to commit {} wallet postings, will retry", batch.postings().size(), e);
+                journal.requeue(batch);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清理过期的去重记录，淘汰已落库且无变动的账户缓存
+     */
+    @Scheduled(fixedDelayString = "${wepoker.wallet.sweepIntervalMillis:60000}")
+    public void sweep() {
+        if (journal == null) {
+            return;
+        }
+        journal.pruneKeys(System.currentTimeMillis() - idempotencyWindowMillis);
+        if (jdbcTemplate != null) {
+            journal.evictSettledAccounts();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enforceBalance", enforceBalance);
+        stats.put("persistent", jdbcTemplate != null);
+        stats.put("pendingPostings", journal.pendingCount());
+        stats.put("cachedAccounts", journal.accountCount());
+        stats.put("postingsCommitted", postingsCommitted.get());
+        stats.put("duplicatesSkipped", duplicatesSkipped.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("rakeBalance", journal.balance(Posting.RAKE_ACCOUNT));
+        stats.put("insuranceBalance", journal.balance(Posting.INSURANCE_ACCOUNT));
+        return stats;
+    }
+
+    /**
+     * 单个事务内：跳过已落库的分录，写入新分录，按账户合并后更新余额
+     *
+     * @return 实际写入的分录（netChanges 只含这些分录的净变动）
+     */
+    private WalletJournal.Batch commit(Connection conn, WalletJournal.Batch batch) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Set<String> existing = existingKeys(conn, batch.postings());
+            List<Posting> fresh = new ArrayList<>(batch.postings().size());
+            Map<String, Long> netChanges = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_POSTING_SQL)) {
+                for (Posting p : batch.postings()) {
+                    if (existing.contains(p.idempotencyKey())) {
+                        continue;
+                    }
+                    fresh.add(p);
+                    netChanges.merge(p.debitAccount(), -p.amount(), Long::sum);
+                    netChanges.merge(p.creditAccount(), p.amount(), Long::sum);
+                    ps.setString(1, p.idempotencyKey());
+                    ps.setString(2, p.type().name());
+                    ps.setString(3, p.debitAccount());
+                    ps.setString(4, p.creditAccount());
+                    ps.setLong(5, p.amount());
+                    ps.setTimestamp(6, new Timestamp(p.createdAt()));
+                    ps.addBatch();
+                }
+                if (!fresh.isEmpty()) {
+                    ps.executeBatch();
+                }
+            }
+
+            try (PreparedStatement players = conn.prepareStatement(UPDATE_PLAYER_SQL);
+                 PreparedStatement accounts = conn.prepareStatement(UPSERT_ACCOUNT_SQL)) {
+                List<Map.Entry<String, Long>> playerChanges = new ArrayList<>();
+                List<Map.Entry<String, Long>> accountChanges = new ArrayList<>();
+                for (Map.Entry<String, Long> change : netChanges.entrySet()) {
+                    if (change.getValue() == 0) {
+                        continue;
+                    }
+                    Long numericPlayerId = numericPlayerId(change.getKey());
+                    if (numericPlayerId != null) {
+                        players.setLong(1, change.getValue());
+                        players.setLong(2, numericPlayerId);
+                        players.addBatch();
+                        playerChanges.add(change);
+                    } else {
+                        accountChanges.add(change);
+                    }
+                }
+                if (!playerChanges.isEmpty()) {
+                    int[] updated = players.executeBatch();
+                    for (int i = 0; i < updated.length; i++) {
+                        // 没有 player 行时 UPDATE 匹配 0 行，改记到 wallet_account，否则这笔钱会凭空消失
+                        if (updated[i] == 0) {
+                            Map.Entry<String, Long> missing = playerChanges.get(i);
+                            log.warn("No player row for {}, posting {} to wallet_account", missing.getKey(), missing.getValue());
+                            accountChanges.add(missing);
+                        }
+                    }
+                }
+                for (Map.Entry<String, Long> change : accountChanges) {
+                    accounts.setString(1, change.getKey());
+                    accounts.setLong(2, change.getValue());
+                    accounts.addBatch();
+                }
+                if (!accountChanges.isEmpty()) {
+                    accounts.executeBatch();
+                }
+            }
+            conn.commit();
+            return new WalletJournal.Batch(fresh, netChanges);
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Set<String> existingKeys(Connection conn, List<Posting> postings) throws SQLException {
+        String placeholders = String.join(",", Collections.nCopies(postings.size(), "?"));
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(String.format(EXISTING_KEYS_SQL, placeholders))) {
+            for (int i = 0; i < postings.size(); i++) {
+                ps.setString(i + 1, postings.get(i).idempotencyKey());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 账户已落库余额：其他账户读 wallet_account；玩家钱包读 player.total_balance，
+     * 再加上 player 行缺失时改记到 wallet_account 的部分（见 commit）；没有记录为 0
+     */
+    private long loadCommittedBalance(String account) {
+        if (jdbcTemplate == null) {
+            return 0;
+        }
+        long balance = firstOrZero(jdbcTemplate.queryForList(ACCOUNT_BALANCE_SQL, Long.class, account));
+        Long numericPlayerId = numericPlayerId(account);
+        if (numericPlayerId != null) {
+            balance += firstOrZero(jdbcTemplate.queryForList(PLAYER_BALANCE_SQL, Long.class, numericPlayerId));
+        }
+        return balance;
+    }
+
+    private static long firstOrZero(List<Long> rows) {
+        return rows.isEmpty() || rows.get(0) == null ? 0 : rows.get(0);
+    }
+
+    /**
+     * 玩家钱包账户且玩家 ID 为数字（player 表主键）时返回该 ID，否则 null
+     */
+    private static Long numericPlayerId(String account) {
+        String playerId = Posting.playerIdOf(account);
+        if (playerId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(playerId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String key(String type, long tableId, String playerId, String requestId) {
+        return type + ":" + tableId + ":" + playerId + ":" + (requestId != null ? requestId : UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.model.Rank;
+import com.wepoker.domain.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AllInEquityTest {
+
+    @Test
+    void riverIsDecided() {
+        AllInEquity.Result r = AllInEquity.calculate(
+            List.of(cards("As", "Ah"), cards("Ks", "Kh")),
+            cards("2c", "7d", "9h", "Jc", "3s"));
+
+        assertTrue(r.exact());
+        assertEquals(1, r.boards());
+        assertEquals(1.0, r.equity(0), 1e-12);
+        assertEquals(0.0, r.equity(1), 1e-12);
+    }
+
+    @Test
+    void turnEnumeratesEveryRiver() {
+        // KK 对 AA，转牌后只剩 2 张 K 可以反超，44 张河牌
+        AllInEquity.Result r = AllInEquity.calculate(
+            List.of(cards("As", "Ah"), cards("Ks", "Kh")),
+            cards("2c", "7d", "9h", "Jc"));
+
+        assertTrue(r.exact());
+        assertEquals(44, r.boards());
+        assertEquals(2.0 / 44, r.win()[1], 1e-12);
+        assertEquals(42.0 / 44, r.win()[0], 1e-12);
+    }
+
+    @Test
+    void boardPlaysSplitsThePot() {
+        AllInEquity.Result r = AllInEquity.calculate(
+            List.of(cards("2s", "3h"), cards("2d", "3c")),
+            cards("As", "Kd", "Qh", "Jc", "Ts"));
+
+        assertEquals(0.5, r.equity(0), 1e-12);
+        assertEquals(0.5, r.equity(1), 1e-12);
+        assertEquals(1.0, r.chop()[0], 1e-12);
+    }
+
+    @Test
+    void preflopSamplesAreReproducible() {
+        List<Card[]> holes = List.of(cards("As", "Ah"), cards("Ks", "Kh"));
+        AllInEquity.Result a = AllInEquity.calculate(holes, null, 20_000, 1L);
+        AllInEquity.Result b = AllInEquity.calculate(holes, null, 20_000, 1L);
+
+        assertFalse(a.exact());
+        assertEquals(a.equity(0), b.equity(0), 0);
+        // AA 对 KK 约 82%
+        assertEquals(0.82, a.equity(0), 0.02);
+        assertEquals(1.0, a.equity(0) + a.equity(1), 1e-9);
+    }
+
+    @Test
+    void outsAreRiverCardsThatBeatThePlayer() {
+        List<Card[]> holes = List.of(cards("As", "Ah"), cards("Ks", "Kh"));
+        Card[] board = cards("2c", "7d", "9h", "Jc");
+
+        assertEquals(List.of(Card.parse("Kd"), Card.parse("Kc")), AllInEquity.outsAgainst(holes, board, 0));
+        assertEquals(42, AllInEquity.outsAgainst(holes, board, 1).size());
+        assertThrows(IllegalArgumentException.class, () -> AllInEquity.outsAgainst(holes, cards("2c", "7d", "9h"), 0));
+    }
+
+    @Test
+    void rejectsDuplicateCards() {
+        assertThrows(IllegalArgumentException.class,
+            () -> AllInEquity.calculate(List.of(cards("As", "Ah"), cards("As", "Kh")), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> AllInEquity.calculate(List.of(cards("As", "Ah"), cards("Ks", "Kh")), cards("2c", "3c")));
+    }
+
+    @Test
+    void parsesShortCardNames() {
+        assertEquals(Card.of(Suit.DIAMOND, Rank.TEN), Card.parse("Td"));
+        assertEquals(Card.of(Suit.DIAMOND, Rank.TEN), Card.parse("10d"));
+        assertEquals(Card.of(Suit.SPADE, Rank.ACE), Card.parse("a♠"));
+        assertThrows(IllegalArgumentException.class, () -> Card.parse("1x"));
+    }
+
+    private static Card[] cards(String... names) {
+        Card[] cards = new Card[names.length];
+        for (int i = 0; i < names.length; i++) {
+            cards[i] = Card.parse(names[i]);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,103 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.algorithm.FlopTexture.SuitPattern;
+import com.wepoker.domain.model.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlopTextureTest {
+
+    @Test
+    void everyFlopMapsToOneOf1755Classes() {
+        Set<Integer> classes = new HashSet<>();
+        int flops = 0;
+        int monotone = 0;
+        int paired = 0;
+        int trips = 0;
+        for (int a = 0; a < 52; a++) {
+            for (int b = a + 1; b < 52; b++) {
+                for (int c = b + 1; c < 52; c++) {
+                    FlopTexture t = FlopTexture.of(code(a), code(b), code(c));
+                    classes.add(t.classId());
+                    flops++;
+                    monotone += t.monotone() ? 1 : 0;
+                    paired += t.paired() ? 1 : 0;
+                    trips += t.trips() ? 1 : 0;
+                }
+            }
+        }
+
+        assertEquals(FlopTexture.FLOP_COUNT, flops);
+        assertEquals(FlopTexture.CLASS_COUNT, classes.size());
+        assertEquals(4 * 286, monotone);        // 4 * C(13,3)
+        assertEquals(13 * 6 * 48 + 52, paired); // 一对 + 三条
+        assertEquals(52, trips);
+    }
+
+    @Test
+    void suitIsomorphicFlopsShareOneInstance() {
+        FlopTexture t = texture("As", "Kd", "2c");
+
+        assertSame(t, texture("Ah", "Ks", "2d"));
+        assertSame(t, texture("2c", "As", "Kd"));
+        assertSame(t, FlopTexture.of(new Card[] {Card.parse("Kd"), Card.parse("2c"), Card.parse("As"), Card.parse("7h")}));
+        assertSame(t, FlopTexture.ofClass(t.classId()));
+        assertFalse(t.classId() == texture("As", "Ks", "2c").classId());
+    }
+
+    @Test
+    void describesTexture() {
+        FlopTexture royal = texture("Ah", "Kh", "Qh");
+        assertEquals(SuitPattern.MONOTONE, royal.suits());
+        assertTrue(royal.connected());
+        assertTrue(royal.straightPossible());
+        assertEquals(3, royal.broadwayCount());
+        assertEquals(14, royal.highRank());
+
+        FlopTexture pairedRainbow = texture("7c", "7d", "2s");
+        assertTrue(pairedRainbow.paired());
+        assertFalse(pairedRainbow.trips());
+        assertTrue(pairedRainbow.rainbow());
+        assertFalse(pairedRainbow.straightPossible());
+        assertEquals(7, pairedRainbow.highRank());
+        assertEquals(2, pairedRainbow.lowRank());
+
+        FlopTexture wheel = texture("Ac", "2d", "3c");
+        assertTrue(wheel.connected());
+        assertTrue(wheel.straightPossible());
+        assertTrue(wheel.twoTone());
+
+        FlopTexture gapped = texture("9s", "6d", "5h");
+        assertFalse(gapped.connected());
+        assertTrue(gapped.straightPossible());
+
+        FlopTexture dry = texture("2c", "7d", "Js");
+        assertFalse(dry.connected());
+        assertFalse(dry.straightPossible());
+        assertFalse(dry.paired());
+    }
+
+    @Test
+    void rejectsIncompleteOrDuplicateFlops() {
+        assertNull(FlopTexture.of(new Card[5]));
+        assertNull(FlopTexture.of((Card[]) null));
+        assertThrows(IllegalArgumentException.class, () -> texture("As", "As", "2c"));
+    }
+
+    private static int code(int dense) {
+        return ((dense / 13) << 4) | (dense % 13);
+    }
+
+    private static FlopTexture texture(String a, String b, String c) {
+        return FlopTexture.of(Card.parse(a), Card.parse(b), Card.parse(c));
+    }
+}
@@ -6,6 +6,13 @@ import com.wepoker.domain.model.Rank;
 import com.wepoker.domain.model.Suit;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -176,6 +183,55 @@ class HandEvaluatorTest {
         assertThrows(IllegalArgumentException.class, () -> HandEvaluator.evaluateSevenCards(hasNull));
     }
 
+    @Test
+    void evaluateBoardsRanksEveryPlayerOnEveryBoard() {
+        Map<String, Card[]> holes = new LinkedHashMap<>();
+        holes.put("1", cards(c(Suit.SPADE, Rank.ACE), c(Suit.HEART, Rank.ACE)));
+        holes.put("2", cards(c(Suit.CLUB, Rank.KING), c(Suit.DIAMOND, Rank.KING)));
+        holes.put("3", null);
+
+        Card[] dry = cards(c(Suit.CLUB, Rank.TWO), c(Suit.DIAMOND, Rank.SEVEN), c(Suit.HEART, Rank.NINE),
+            c(Suit.SPADE, Rank.JACK), c(Suit.CLUB, Rank.FOUR));
+        Card[] kingBoard = cards(c(Suit.CLUB, Rank.TWO), c(Suit.DIAMOND, Rank.SEVEN), c(Suit.HEART, Rank.NINE),
+            c(Suit.SPADE, Rank.KING), c(Suit.CLUB, Rank.FOUR));
+
+        List<Map<String, HandRank>> runs = HandEvaluator.evaluateBoards(holes, List.of(dry, kingBoard));
+
+        assertEquals(2, runs.size());
+        assertEquals(List.of("1", "2"), List.copyOf(runs.get(0).keySet()));
+        assertTrue(HandEvaluator.compareHands(runs.get(0).get("1"), runs.get(0).get("2")) > 0);
+        assertTrue(HandEvaluator.compareHands(runs.get(1).get("2"), runs.get(1).get("1")) > 0);
+        assertEquals(HandEvaluator.evaluateSevenCards(cards(holes.get("1")[0], holes.get("1")[1],
+            dry[0], dry[1], dry[2], dry[3], dry[4])).getRankValue(), runs.get(0).get("1").getRankValue());
+    }
+
+    @Test
+    void rankValueOfSevenMatchesFullEvaluation() {
+        Random random = new Random(2024);
+        List<Card> deck = new ArrayList<>();
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                deck.add(c(suit, rank));
+            }
+        }
+        for (int i = 0; i < 100_000; i++) {
+            Collections.shuffle(deck, random);
+            Card[] seven = deck.subList(0, 7).toArray(new Card[0]);
+            assertEquals(HandEvaluator.evaluateSevenCards(seven).getRankValue(), HandEvaluator.rankValueOfSeven(seven));
+        }
+
+        // 随机很少抽到的牌型单独覆盖
+        Card[] wheelFlush = cards(c(Suit.HEART, Rank.ACE), c(Suit.HEART, Rank.TWO), c(Suit.HEART, Rank.THREE),
+            c(Suit.HEART, Rank.FOUR), c(Suit.HEART, Rank.FIVE), c(Suit.HEART, Rank.KING), c(Suit.CLUB, Rank.SIX));
+        Card[] twoTrips = cards(c(Suit.HEART, Rank.NINE), c(Suit.CLUB, Rank.NINE), c(Suit.SPADE, Rank.NINE),
+            c(Suit.HEART, Rank.KING), c(Suit.CLUB, Rank.KING), c(Suit.SPADE, Rank.KING), c(Suit.CLUB, Rank.SIX));
+        Card[] threePairs = cards(c(Suit.HEART, Rank.NINE), c(Suit.CLUB, Rank.NINE), c(Suit.SPADE, Rank.FOUR),
+            c(Suit.HEART, Rank.FOUR), c(Suit.CLUB, Rank.KING), c(Suit.SPADE, Rank.KING), c(Suit.CLUB, Rank.SIX));
+        for (Card[] seven : List.of(wheelFlush, twoTrips, threePairs)) {
+            assertEquals(HandEvaluator.evaluateSevenCards(seven).getRankValue(), HandEvaluator.rankValueOfSeven(seven));
+        }
+    }
+
     private static Card c(Suit suit, Rank rank) {
         return Card.of(suit, rank);
     }
@@ -0,0 +1,78 @@
+package com.wepoker.domain.algorithm;
+
+import com.wepoker.domain.model.HandRank;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RunItSplitterTest {
+
+    @Test
+    void splitKeepsEveryChip() {
+        assertArrayEquals(new long[] {51, 50}, RunItSplitter.split(101, 2));
+        assertArrayEquals(new long[] {34, 34, 33}, RunItSplitter.split(101, 3));
+        assertArrayEquals(new long[] {1, 1, 0, 0}, RunItSplitter.split(2, 4));
+        assertThrows(IllegalArgumentException.class, () -> RunItSplitter.split(10, 0));
+    }
+
+    @Test
+    void eachRunGoesToItsOwnWinner() {
+        List<Map<String, HandRank>> runs = List.of(
+            Map.of("a", rank(100), "b", rank(200)),
+            Map.of("a", rank(300), "b", rank(200)));
+
+        Map<String, Long> won = RunItSplitter.award(1_001, runs, List.of("a", "b"));
+
+        assertEquals(Long.valueOf(501), won.get("a"));
+        assertEquals(Long.valueOf(500), won.get("b"));
+    }
+
+    @Test
+    void tiedRunSplitsOddChipInSeatOrder() {
+        List<Map<String, HandRank>> runs = List.of(
+            Map.of("a", rank(100), "b", rank(100), "c", rank(500)),
+            Map.of("a", rank(400), "b", rank(400), "c", rank(100)),
+            Map.of("a", rank(100), "b", rank(100), "c", rank(100)));
+
+        // 1000 / 3 = 334, 333, 333
+        Map<String, Long> won = RunItSplitter.award(1_000, runs, List.of("b", "a", "c"));
+
+        assertEquals(Long.valueOf(167 + 111), won.get("b"));
+        assertEquals(Long.valueOf(167 + 111), won.get("a"));
+        assertEquals(Long.valueOf(333 + 111), won.get("c"));
+        assertEquals(1_000, won.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void onlyEligiblePlayersCanWin() {
+        List<Map<String, HandRank>> runs = List.of(Map.of("a", rank(100), "b", rank(200)));
+
+        Map<String, Long> won = RunItSplitter.award(600, runs, List.of("b"));
+
+        assertEquals(Map.of("b", 600L), won);
+    }
+
+    @Test
+    void totalsMatchForManyPotSizes() {
+        List<Map<String, HandRank>> runs = List.of(
+            Map.of("a", rank(1), "b", rank(1), "c", rank(2)),
+            Map.of("a", rank(2), "b", rank(1), "c", rank(1)),
+            Map.of("a", rank(1), "b", rank(2), "c", rank(1)),
+            Map.of("a", rank(1), "b", rank(1), "c", rank(1)));
+        for (long pot = 0; pot < 500; pot++) {
+            long total = RunItSplitter.award(pot, runs, List.of("a", "b", "c")).values().stream()
+                .mapToLong(Long::longValue).sum();
+            assertEquals(pot, total);
+        }
+    }
+
+    private static HandRank rank(int value) {
+        return new HandRank(value, 0, "test", new ArrayList<>());
+    }
+}
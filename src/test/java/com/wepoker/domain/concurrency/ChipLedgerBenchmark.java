@@ -0,0 +1,162 @@
+package com.wepoker.domain.concurrency;
+
+import com.wepoker.domain.concurrency.ConcurrencyGuard.ThreadSafeStack;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 无锁 ThreadSafeStack 与原读写锁实现的吞吐对比
+ *
+ * 默认跳过，需显式开启：mvn test -Dtest=ChipLedgerBenchmark -Dbenchmark=true -Dbenchmark.threads=8
+ * 负载为 90% 读 / 10% 写（先扣后加，余额不变），多线程竞争同一组账户。
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ChipLedgerBenchmark {
+
+    private static final int ACCOUNTS = 64;
+    private static final int OPS_PER_THREAD = 2_000_000;
+    private static final long INITIAL = 1_000_000;
+
+    @Test
+    void lockFreeVersusReadWriteLock() throws InterruptedException {
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+
+        LockedStack[] locked = new LockedStack[ACCOUNTS];
+        ThreadSafeStack[] lockFree = new ThreadSafeStack[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            locked[i] = new LockedStack(INITIAL);
+            lockFree[i] = new ThreadSafeStack("p" + i, INITIAL);
+        }
+
+        // 预热一轮，再计时
+        run(threads, (i, write) -> locked[i].touch(write));
+        run(threads, (i, write) -> touch(lockFree[i], write));
+        long lockedNanos = run(threads, (i, write) -> locked[i].touch(write));
+        long lockFreeNanos = run(threads, (i, write) -> touch(lockFree[i], write));
+
+        long totalOps = (long) threads * OPS_PER_THREAD;
+        System.out.printf("threads=%d ops=%d  rwlock: %.1f Mops/s  lock-free: %.1f Mops/s  (x%.2f)%n",
+            threads, totalOps,
+            totalOps * 1e3 / lockedNanos, totalOps * 1e3 / lockFreeNanos,
+            (double) lockedNanos / lockFreeNanos);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertEquals(INITIAL, locked[i].get());
+            assertEquals(INITIAL, lockFree[i].getStack());
+        }
+    }
+
+    private static void touch(ThreadSafeStack stack, boolean write) {
+        if (write) {
+            if (stack.deduct(1)) {
+                stack.add(1);
+            }
+        } else {
+            stack.getStack();
+        }
+    }
+
+    private static long run(int threads, Op op) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    op.apply(random.nextInt(ACCOUNTS), random.nextInt(10) == 0);
+                }
+                done.countDown();
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return elapsed;
+    }
+
+    @FunctionalInterface
+    private interface Op {
+        void apply(int account, boolean write);
+    }
+
+    /**
+     * 原 ThreadSafeStack 的实现：读写都走 ReentrantReadWriteLock，版本号单独一个 AtomicLong
+     */
+    private static final class LockedStack {
+        private volatile long stackSize;
+        private final AtomicLong version = new AtomicLong();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        LockedStack(long initial) {
+            this.stackSize = initial;
+        }
+
+        void touch(boolean write) {
+            if (write) {
+                if (deduct(1)) {
+                    add(1);
+                }
+            } else {
+                get();
+            }
+        }
+
+        boolean deduct(long amount) {
+            lock.writeLock().lock();
+            try {
+                if (stackSize < amount) {
+                    return false;
+                }
+                stackSize -= amount;
+                version.incrementAndGet();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void add(long amount) {
+            lock.writeLock().lock();
+            try {
+                stackSize += amount;
+                version.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        long get() {
+            lock.readLock().lock();
+            try {
+                return stackSize;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.wepoker.domain.concurrency;
+
+import com.wepoker.domain.concurrency.ConcurrencyGuard.ThreadSafeStack;
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PotDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChipLedgerTest {
+
+    @Test
+    void deductNeverGoesNegativeUnderContention() throws InterruptedException {
+        ThreadSafeStack stack = new ThreadSafeStack("p1", 10_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    stack.deduct(1);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, stack.getStack());
+        assertEquals(10_000, stack.getVersion());
+        assertFalse(stack.deduct(1));
+    }
+
+    @Test
+    void compareAndSwapRejectsStaleVersion() {
+        ThreadSafeStack stack = new ThreadSafeStack("p1", 500);
+        long version = stack.getVersion();
+        stack.add(100);
+
+        assertFalse(stack.compareAndSwap(version, 0));
+        assertTrue(stack.compareAndSwap(stack.getVersion(), 42));
+        assertEquals(42, stack.getStack());
+    }
+
+    @Test
+    void playerStackStaysExactWhileOtherThreadsCredit() throws InterruptedException {
+        Player player = new Player();
+        player.setPlayerId(1L);
+        player.setStackSize(20_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        // 一个写线程下注（同时累加 totalBetInPot），其余线程并发加筹码
+        pool.execute(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int i = 0; i < 20_000; i++) {
+                player.deductStack(1);
+            }
+        });
+        for (int t = 0; t < 7; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    player.addStack(1);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(35_000, player.getStackSize());
+        assertEquals(20_000, player.getTotalBetInPot());
+        // 每次增减（含入座时的 setStackSize）版本号都递增
+        assertEquals(1 + 20_000 + 35_000, player.getStackVersion());
+        player.setStackSize(0);
+        assertThrows(IllegalArgumentException.class, () -> player.deductStack(1));
+        assertEquals(20_000, player.getTotalBetInPot());
+    }
+
+    @Test
+    void settlesSeatedPlayers() {
+        Player a = new Player();
+        a.setPlayerId(1L);
+        a.setStackSize(0);
+        Player b = new Player();
+        b.setPlayerId(2L);
+        b.setStackSize(200);
+
+        assertThrows(IllegalArgumentException.class, () -> ChipLedger.settle(List.of(a, b),
+            List.of(new PotDistribution("1", 100, 1, "showdown"), new PotDistribution("3", 1, 1, "showdown"))));
+        assertEquals(0, a.getStackSize());
+
+        assertThrows(IllegalArgumentException.class, () -> ChipLedger.settle(List.of(a, b),
+            List.of(new PotDistribution("1", 100, 1, "showdown"), new PotDistribution("2", -1, 1, "showdown"))));
+        assertEquals(0, a.getStackSize());
+
+        assertThrows(IllegalArgumentException.class, () -> ChipLedger.settle(List.of(a, b),
+            List.of(new PotDistribution("1", 100, 1, "showdown"), new PotDistribution("2", ThreadSafeStack.MAX_CHIPS, 1, "showdown"))));
+        assertEquals(0, a.getStackSize());
+        assertEquals(200, b.getStackSize());
+
+        ChipLedger.settle(List.of(a, b), List.of(
+            new PotDistribution("1", 100, 1, "main pot"),
+            new PotDistribution("2", 20, 1, "side pot"),
+            new PotDistribution("1", 10, 1, "run 2")));
+        assertEquals(110, a.getStackSize());
+        assertEquals(220, b.getStackSize());
+    }
+}
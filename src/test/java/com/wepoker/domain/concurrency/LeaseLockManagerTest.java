@@ -0,0 +1,129 @@
+package com.wepoker.domain.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaseLockManagerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void inJvmLeaseExpiresAndTokensIncrease() {
+        InJvmLeaseLockManager locks = new InJvmLeaseLockManager("node", now::get);
+
+        LockLease first = locks.tryAcquire("table:1", 100);
+        assertNotNull(first);
+        assertNull(locks.tryAcquire("table:1", 100));
+
+        now.addAndGet(100);
+        LockLease second = locks.tryAcquire("table:1", 100);
+        assertNotNull(second);
+        assertTrue(second.fencingToken() > first.fencingToken());
+        assertFalse(locks.release(first));
+        assertNull(locks.renew(first, 100));
+
+        LockLease renewed = locks.renew(second, 500);
+        assertEquals(second.fencingToken(), renewed.fencingToken());
+        now.addAndGet(200);
+        assertNull(locks.tryAcquire("table:1", 100));
+        assertTrue(locks.release(renewed));
+        assertNotNull(locks.tryAcquire("table:1", 100));
+    }
+
+    @Test
+    void redisLocksAreExclusiveAcrossNodes() {
+        StandInRedis redis = new StandInRedis();
+        RedisLeaseLockManager nodeA = new RedisLeaseLockManager(redis, "lock:", "a", now::get);
+        RedisLeaseLockManager nodeB = new RedisLeaseLockManager(redis, "lock:", "b", now::get);
+
+        LockLease a = nodeA.tryAcquire("table:7", 100);
+        assertNotNull(a);
+        assertNull(nodeB.tryAcquire("table:7", 100));
+
+        // 本节点已持有时不访问 Redis
+        int calls = redis.calls.get();
+        assertNull(nodeA.tryAcquire("table:7", 100));
+        assertEquals(calls, redis.calls.get());
+
+        now.addAndGet(150);
+        LockLease b = nodeB.tryAcquire("table:7", 100);
+        assertNotNull(b);
+        assertTrue(b.fencingToken() > a.fencingToken());
+        // 过期后的旧持有者不能释放或续租新租约
+        assertFalse(nodeA.release(a));
+        assertNull(nodeA.renew(a, 100));
+        assertTrue(nodeB.release(b));
+    }
+
+    @Test
+    void fencingGuardRejectsStaleTokens() {
+        FencingTokenGuard guard = new FencingTokenGuard();
+        assertTrue(guard.admit("wallet:1", 5));
+        assertTrue(guard.admit("wallet:1", 5));
+        assertFalse(guard.admit("wallet:1", 4));
+        assertTrue(guard.admit("wallet:1", 6));
+        assertEquals(6, guard.highest("wallet:1"));
+    }
+
+    /**
+     * Redis 替身：按三段 Lua 脚本的语义在内存里执行，过期按测试时钟判断
+     */
+    private final class StandInRedis implements RedisLeaseLockManager.RedisOps {
+        private final Map<String, String> values = new HashMap<>();
+        private final Map<String, Long> expiresAt = new HashMap<>();
+        private final Map<String, Long> counters = new HashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public synchronized long acquire(String lockKey, String fenceKey, String owner, long leaseMillis) {
+            calls.incrementAndGet();
+            if (get(lockKey) != null) {
+                return 0;
+            }
+            long token = counters.merge(fenceKey, 1L, Long::sum);
+            values.put(lockKey, owner + ":" + token);
+            expiresAt.put(lockKey, now.get() + leaseMillis);
+            return token;
+        }
+
+        @Override
+        public synchronized boolean release(String lockKey, String value) {
+            calls.incrementAndGet();
+            if (!value.equals(get(lockKey))) {
+                return false;
+            }
+            values.remove(lockKey);
+            expiresAt.remove(lockKey);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean renew(String lockKey, String value, long leaseMillis) {
+            calls.incrementAndGet();
+            if (!value.equals(get(lockKey))) {
+                return false;
+            }
+            expiresAt.put(lockKey, now.get() + leaseMillis);
+            return true;
+        }
+
+        private String get(String key) {
+            Long expiry = expiresAt.get(key);
+            if (expiry != null && now.get() >= expiry) {
+                values.remove(key);
+                expiresAt.remove(key);
+            }
+            return values.get(key);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.wepoker.domain.concurrency;
+
+import com.wepoker.domain.concurrency.ConcurrencyGuard.TransactionLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionLogTest {
+
+    @Test
+    void spillsOldEntriesAndKeepsRecentInMemory(@TempDir Path dir) throws IOException {
+        TransactionLog journal = new TransactionLog("p1", 0, 8, dir.resolve("p1.journal"));
+        for (int i = 1; i <= 100; i++) {
+            assertTrue(journal.recordTransaction(10, "buy-in", "t" + i));
+        }
+
+        assertEquals(100, journal.getTotalCount());
+        assertEquals(1000, journal.getBalance());
+        assertTrue(journal.getTransactionHistory().size() <= 8);
+        assertEquals("t100", journal.getTransactionHistory().get(journal.getTransactionHistory().size() - 1).getTransactionId());
+        assertEquals(100, journal.getSpilledCount() + journal.getTransactionHistory().size());
+        assertTrue(journal.verifyIntegrity(1000));
+        assertTrue(journal.auditChecksum());
+    }
+
+    @Test
+    void rejectsNegativeBalanceWithoutRecording() {
+        TransactionLog journal = new TransactionLog("p1", 50);
+        assertFalse(journal.recordTransaction(-60, "bet", "t1"));
+        assertTrue(journal.recordTransaction(-50, "bet", "t2"));
+
+        assertEquals(0, journal.getBalance());
+        assertEquals(1, journal.getTotalCount());
+        assertTrue(journal.verifyIntegrity(-50));
+    }
+
+    @Test
+    void auditFailsOnceEntriesWereDropped() throws IOException {
+        TransactionLog journal = new TransactionLog("p1", 0, 4, null);
+        for (int i = 0; i < 10; i++) {
+            journal.recordTransaction(1, "rake", "t" + i);
+        }
+
+        assertTrue(journal.getDroppedCount() > 0);
+        assertTrue(journal.verifyIntegrity(10));
+        assertFalse(journal.auditChecksum());
+    }
+}
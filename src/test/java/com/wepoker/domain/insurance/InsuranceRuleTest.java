@@ -0,0 +1,99 @@
+package com.wepoker.domain.insurance;
+
+import com.wepoker.domain.model.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InsuranceRuleTest {
+
+    private final InsuranceRule rule = new InsuranceRule(0.1, 30);
+
+    @Test
+    void turnQuoteListsOutsAndDiscountsFairOdds() {
+        // AA 对 KK，转牌后 KK 只有 2 张 K 可以反超：输的概率 2/44，公平赔率 21，扣 10% 后 18.9
+        InsuranceQuote quote = rule.quote(List.of("1", "2"),
+            List.of(cards("As", "Ah"), cards("Ks", "Kh")),
+            cards("2c", "7d", "9h", "Jc"),
+            Map.of("1", 10_000L, "2", 10_000L));
+
+        assertNotNull(quote);
+        assertEquals("1", quote.leaderId());
+        assertEquals(4, quote.boardCount());
+        assertEquals(List.of(Card.parse("Kd"), Card.parse("Kc")), quote.outs());
+        assertEquals(2.0 / 44, quote.loseProbability(), 1e-12);
+        assertEquals(1_890, quote.oddsPercent());
+        assertEquals(10_000, quote.maxCoverage());
+        assertEquals(529, quote.maxPremium());
+        assertEquals(42.0 / 44, quote.equities().get("1"), 1e-12);
+    }
+
+    @Test
+    void flopQuoteEnumeratesTurnAndRiver() {
+        InsuranceQuote quote = rule.quote(List.of("1", "2", "3"),
+            List.of(cards("As", "Ah"), cards("Ks", "Kh"), cards("8c", "8d")),
+            cards("2c", "7d", "Jh"),
+            Map.of("1", 30_000L, "2", 30_000L, "3", 30_000L));
+
+        assertNotNull(quote);
+        assertEquals("1", quote.leaderId());
+        assertTrue(quote.outs().isEmpty());
+        assertTrue(quote.loseProbability() > 0 && quote.loseProbability() < 0.5);
+        double total = quote.equities().values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(1.0, total, 1e-9);
+    }
+
+    @Test
+    void noQuoteWithoutExactEdge() {
+        // 翻牌前需要抽样，不报价
+        assertNull(rule.quote(List.of("1", "2"), List.of(cards("As", "Ah"), cards("Ks", "Kh")), new Card[0],
+            Map.of("1", 10_000L)));
+        // 领先者已经锁定（四条 A），没有 outs
+        assertNull(rule.quote(List.of("1", "2"), List.of(cards("As", "Ah"), cards("Ks", "Kh")),
+            cards("Ad", "Ac", "2c", "3d"), Map.of("1", 10_000L)));
+        // 没有被跟注的底池可保
+        assertNull(rule.quote(List.of("1", "2"), List.of(cards("As", "Ah"), cards("Ks", "Kh")),
+            cards("2c", "7d", "9h", "Jc"), Map.of()));
+    }
+
+    @Test
+    void oddsBelowEvenMoneyAreNotOffered() {
+        assertEquals(90, rule.oddsPercent(0.5));
+        assertEquals(3_000, rule.oddsPercent(0.001));
+        assertEquals(0, rule.oddsPercent(0));
+    }
+
+    @Test
+    void payoutIsCappedAndSplitAcrossRuns() {
+        InsuranceQuote quote = new InsuranceQuote("1", Map.of(), 4, List.of(), 2.0 / 44, 1_890, 10_000, 529);
+
+        assertEquals(9_998, quote.coverageFor(529));
+        assertEquals(10_000, quote.coverageFor(600));
+        assertEquals(9_998, quote.payoutFor(529, 1, 1));
+        assertEquals(4_999, quote.payoutFor(529, 1, 2));
+        assertEquals(0, quote.payoutFor(529, 0, 2));
+        assertEquals(0, quote.payoutFor(0, 1, 1));
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new InsuranceRule(-0.1, 30));
+        assertThrows(IllegalArgumentException.class, () -> new InsuranceRule(1.0, 30));
+        assertThrows(IllegalArgumentException.class, () -> new InsuranceRule(0.1, 0.5));
+    }
+
+    private static Card[] cards(String... names) {
+        Card[] cards = new Card[names.length];
+        for (int i = 0; i < names.length; i++) {
+            cards[i] = Card.parse(names[i]);
+        }
+        return cards;
+    }
+}
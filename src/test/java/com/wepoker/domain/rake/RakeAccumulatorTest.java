@@ -0,0 +1,151 @@
+package com.wepoker.domain.rake;
+
+import com.wepoker.domain.rake.RakeAccumulator.RakeSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RakeAccumulatorTest {
+
+    @Test
+    void drainReturnsOneRowPerTableWithIncrementsOnly() {
+        RakeAccumulator acc = new RakeAccumulator(1_000);
+        acc.record(1, 10_000, 500);
+        acc.record(1, 2_000, 0);
+        acc.record(2, 8_000, 400);
+
+        List<RakeSummary> first = sortByTable(acc.drain(2_000));
+        assertEquals(2, first.size());
+        assertEquals(new RakeSummary(1, 2, 1, 12_000, 500, 1_000, 2_000), first.get(0));
+        assertEquals(new RakeSummary(2, 1, 1, 8_000, 400, 1_000, 2_000), first.get(1));
+
+        acc.record(1, 4_000, 200);
+        List<RakeSummary> second = acc.drain(3_000);
+        assertEquals(List.of(new RakeSummary(1, 1, 1, 4_000, 200, 2_000, 3_000)), second);
+
+        assertTrue(acc.drain(4_000).isEmpty());
+        assertEquals(700, acc.totalRake(1));
+        assertEquals(1_100, acc.totalRake());
+    }
+
+    @Test
+    void restoredSummariesAreDrainedAgain() {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        acc.record(1, 10_000, 500);
+        List<RakeSummary> failed = acc.drain(1_000);
+
+        acc.restore(failed);
+        acc.record(1, 6_000, 300);
+
+        assertEquals(List.of(new RakeSummary(1, 2, 2, 16_000, 800, 0, 2_000)), acc.drain(2_000));
+    }
+
+    @Test
+    void retireRemovesFullyDrainedTableImmediately() {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        acc.record(1, 10_000, 500);
+        acc.drain(1_000);
+
+        assertTrue(acc.retire(1));
+        assertEquals(0, acc.tableCount());
+        assertFalse(acc.retire(2));
+    }
+
+    @Test
+    void retiredTableIsRemovedByDrainAfterLastHandsAreFlushed() {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        acc.record(1, 10_000, 500);
+        acc.record(2, 4_000, 200);
+
+        assertFalse(acc.retire(1));
+        assertEquals(2, acc.tableCount());
+
+        // 最后几手照常落库，落库失败回退后仍会再次返回
+        List<RakeSummary> failed = sortByTable(acc.drain(1_000));
+        assertEquals(new RakeSummary(1, 1, 1, 10_000, 500, 0, 1_000), failed.get(0));
+        acc.restore(failed);
+        List<RakeSummary> flushed = sortByTable(acc.drain(2_000));
+        assertEquals(new RakeSummary(1, 1, 1, 10_000, 500, 0, 2_000), flushed.get(0));
+        assertEquals(2, acc.tableCount());
+
+        // 全部落库后下一次 drain 移除，未解散的桌保留
+        assertTrue(acc.drain(3_000).isEmpty());
+        assertEquals(1, acc.tableCount());
+        assertEquals(0, acc.totalRake(1));
+        assertEquals(200, acc.totalRake(2));
+    }
+
+    @Test
+    void reopenedTableIsNoLongerRetired() {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        acc.record(1, 10_000, 500);
+        assertFalse(acc.retire(1));
+        acc.record(1, 6_000, 300);
+
+        acc.drain(1_000);
+        assertTrue(acc.drain(2_000).isEmpty());
+        assertEquals(1, acc.tableCount());
+        assertEquals(800, acc.totalRake(1));
+    }
+
+    @Test
+    void restoreAfterRemovalKeepsIncrements() {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        acc.record(1, 10_000, 500);
+        List<RakeSummary> inFlight = acc.drain(1_000);
+        assertTrue(acc.retire(1));
+
+        acc.restore(inFlight);
+        assertEquals(List.of(new RakeSummary(1, 1, 1, 10_000, 500, 0, 2_000)), acc.drain(2_000));
+        assertTrue(acc.drain(3_000).isEmpty());
+        assertEquals(0, acc.tableCount());
+    }
+
+    @Test
+    void concurrentRecordsAreNotLostAcrossDrains() throws InterruptedException {
+        RakeAccumulator acc = new RakeAccumulator(0);
+        int threads = 4;
+        int handsPerThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long tableId = t % 2;
+            pool.execute(() -> {
+                for (int i = 0; i < handsPerThread; i++) {
+                    acc.record(tableId, 100, 5);
+                }
+            });
+        }
+
+        long hands = 0;
+        long rake = 0;
+        long now = 1;
+        pool.shutdown();
+        while (!pool.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            for (RakeSummary s : acc.drain(now++)) {
+                hands += s.hands();
+                rake += s.rake();
+            }
+        }
+        for (RakeSummary s : acc.drain(now)) {
+            hands += s.hands();
+            rake += s.rake();
+        }
+
+        assertEquals((long) threads * handsPerThread, hands);
+        assertEquals(5L * threads * handsPerThread, rake);
+    }
+
+    private static List<RakeSummary> sortByTable(List<RakeSummary> summaries) {
+        List<RakeSummary> sorted = new ArrayList<>(summaries);
+        sorted.sort((a, b) -> Long.compare(a.tableId(), b.tableId()));
+        return sorted;
+    }
+}
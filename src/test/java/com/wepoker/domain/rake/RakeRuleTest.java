@@ -0,0 +1,69 @@
+package com.wepoker.domain.rake;
+
+import com.wepoker.domain.model.TableConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RakeRuleTest {
+
+    @Test
+    void percentageIsExactOnRoundPots() {
+        RakeRule rule = new RakeRule(0.05, 0, false);
+
+        assertEquals(500, rule.rakeFor(10_000, true));
+        assertEquals(3, rule.rakeFor(79, true));
+        assertEquals(0, rule.rakeFor(19, true));
+    }
+
+    @Test
+    void capLimitsRakePerHand() {
+        RakeRule rule = new RakeRule(0.05, 500, false);
+
+        assertEquals(400, rule.rakeFor(8_000, true));
+        assertEquals(500, rule.rakeFor(1_000_000, true));
+    }
+
+    @Test
+    void noFlopNoDrop() {
+        RakeRule rule = new RakeRule(0.05, 500, true);
+
+        assertEquals(0, rule.rakeFor(10_000, false));
+        assertEquals(500, rule.rakeFor(10_000, true));
+        assertEquals(50, new RakeRule(0.05, 500, false).rakeFor(1_000, false));
+    }
+
+    @Test
+    void configWithoutPercentageMeansNoRake() {
+        assertSame(RakeRule.NONE, RakeRule.of(null));
+        assertSame(RakeRule.NONE, RakeRule.of(new TableConfig()));
+        assertEquals(0, RakeRule.NONE.rakeFor(10_000, true));
+
+        TableConfig cfg = new TableConfig();
+        cfg.setRakePercentage(0.05);
+        cfg.setRakeMaxPerHand(300);
+        RakeRule rule = RakeRule.of(cfg);
+        assertEquals(300, rule.rakeFor(10_000, true));
+        assertEquals(0, rule.rakeFor(10_000, false));
+    }
+
+    @Test
+    void allocateTakesFromMainPotFirstAndSkipsUncalledBets() {
+        long[] pots = {300, 1_000, 200};
+        boolean[] rakeable = {true, true, false};
+
+        assertArrayEquals(new long[] {300, 200, 0}, RakeRule.allocate(500, pots, rakeable));
+        assertArrayEquals(new long[] {100, 0, 0}, RakeRule.allocate(100, pots, rakeable));
+        assertArrayEquals(new long[] {0, 0, 0}, RakeRule.allocate(0, pots, rakeable));
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new RakeRule(-0.01, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> new RakeRule(1.0, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> new RakeRule(0.05, -1, true));
+    }
+}
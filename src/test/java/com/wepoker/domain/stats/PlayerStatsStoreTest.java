@@ -0,0 +1,81 @@
+package com.wepoker.domain.stats;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlayerStatsStoreTest {
+
+    @Test
+    void accumulatesPreflopAndPostflopCounters() {
+        PlayerStatsStore store = new PlayerStatsStore(4);
+
+        // a 翻前加注、翻牌下注，c 跟注到摊牌后输掉；b 小盲弃牌
+        Hand hand = hand(
+            action("SMALL_BLIND", "PRE_FLOP", 5, "b"),
+            action("BIG_BLIND", "PRE_FLOP", 10, "c"),
+            action("RAISE", "PRE_FLOP", 30, "a"),
+            action("FOLD", "PRE_FLOP", 0, "b"),
+            action("CALL", "PRE_FLOP", 20, "c"),
+            action("BET", "FLOP", 40, "a"),
+            action("CALL", "FLOP", 40, "c"));
+        hand.setDistributions(List.of(new PotDistribution("a", 145, 1, "showdown")));
+        store.recordHand(hand);
+
+        PlayerStats a = store.get("a");
+        assertEquals(1, a.hands());
+        assertEquals(1.0, a.vpip());
+        assertEquals(1.0, a.pfr());
+        assertEquals(1.0, a.aggressionFactor());
+        assertEquals(1, a.showdowns());
+        assertEquals(1.0, a.showdownWinRate());
+        // 净赢 145 - 70 = 75 = 7.5bb，一手 → 750bb/100
+        assertEquals(750.0, a.bbPer100(), 1e-9);
+
+        PlayerStats b = store.get("b");
+        assertEquals(0.0, b.vpip());
+        assertEquals(0, b.showdowns());
+
+        PlayerStats c = store.get("c");
+        assertEquals(1.0, c.vpip());
+        assertEquals(0.0, c.pfr());
+        assertEquals(0.0, c.aggressionFactor());
+        assertEquals(0.0, c.showdownWinRate());
+        assertNull(store.get("nobody"));
+    }
+
+    @Test
+    void drainsOnlyChangedPlayers() {
+        PlayerStatsStore store = new PlayerStatsStore(2);
+        Hand hand = hand(action("FOLD", "PRE_FLOP", 0, "a"));
+        hand.setDistributions(List.of(new PotDistribution("b", 15, 1, "all others folded")));
+        store.recordHand(hand);
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(3, store.drainDirty((id, c) -> drained.add(id)));
+        assertEquals(0, store.drainDirty((id, c) -> drained.add(id)));
+
+        store.markDirty("b");
+        assertEquals(1, store.drainDirty((id, c) -> assertEquals(1, c[PlayerStatsStore.HANDS_WON])));
+    }
+
+    private static Hand hand(PlayerAction... actions) {
+        Hand hand = new Hand();
+        hand.setBigBlindAmount(10);
+        hand.setSeats(List.of(new HandSeat("a", "a", 0, 1000), new HandSeat("b", "b", 1, 1000), new HandSeat("c", "c", 2, 1000)));
+        hand.getActionHistory().addAll(List.of(actions));
+        return hand;
+    }
+
+    private static PlayerAction action(String action, String street, long invested, String playerId) {
+        return new PlayerAction(0, action, invested, street, invested, playerId);
+    }
+}
@@ -0,0 +1,20 @@
+package com.wepoker.domain.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlindScheduleTest {
+
+    @Test
+    void locatesLevelByElapsedTime() {
+        BlindSchedule schedule = BlindSchedule.standard(50, 10, 5);
+
+        assertEquals(0, schedule.levelIndexAt(0));
+        assertEquals(0, schedule.levelIndexAt(599_999));
+        assertEquals(1, schedule.levelIndexAt(600_000));
+        assertEquals(4, schedule.levelIndexAt(Long.MAX_VALUE / 2));
+        assertTrue(schedule.getLevels().get(1).getSmallBlind() > schedule.getLevels().get(0).getSmallBlind());
+    }
+}
@@ -0,0 +1,58 @@
+package com.wepoker.domain.tournament;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ICM 计算耗时
+ *
+ * 默认跳过，需显式开启：mvn test -Dtest=IcmCalculatorBenchmark -Dbenchmark=true
+ * 9 人全付奖（9 个奖位）为最坏情况，目标单次 < 1ms；另输出 MAX_PLAYERS 人前 3 名付奖的耗时供参考。
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IcmCalculatorBenchmark {
+
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void nineHandedIsSubMillisecond() {
+        double[] allPaid = {30, 20, 15, 10, 8, 6, 5, 3.5, 2.5};
+        long nanos = measure(9, allPaid, ITERATIONS);
+        double micros = nanos / 1e3 / ITERATIONS;
+        System.out.printf("9-handed, 9 places: %.2f us/op%n", micros);
+
+        double[] top3 = {50, 30, 20};
+        long large = measure(IcmCalculator.MAX_PLAYERS, top3, 2_000);
+        System.out.printf("%d players, 3 places: %.2f us/op%n", IcmCalculator.MAX_PLAYERS, large / 1e3 / 2_000);
+
+        assertTrue(micros < 1_000, "9-handed ICM took " + micros + " us");
+    }
+
+    private static long measure(int players, double[] payouts, int iterations) {
+        Random random = new Random(7);
+        long[][] inputs = new long[1_024][players];
+        for (long[] stacks : inputs) {
+            for (int i = 0; i < players; i++) {
+                stacks[i] = 500 + random.nextInt(20_000);
+            }
+        }
+        double sink = 0;
+        // 预热
+        for (int i = 0; i < iterations; i++) {
+            sink += IcmCalculator.equities(inputs[i & 1_023], payouts)[0];
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += IcmCalculator.equities(inputs[i & 1_023], payouts)[0];
+        }
+        long elapsed = System.nanoTime() - begin;
+        assertTrue(sink > 0);
+        return elapsed;
+    }
+}
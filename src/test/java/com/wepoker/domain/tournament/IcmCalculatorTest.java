@@ -0,0 +1,131 @@
+package com.wepoker.domain.tournament;
+
+import com.wepoker.domain.tournament.IcmCalculator.AllInEv;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IcmCalculatorTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void knownThreePlayerValues() {
+        // 5000/3000/2000，奖金 50/30/20
+        double[] eq = IcmCalculator.equities(new long[] {5_000, 3_000, 2_000}, new double[] {50, 30, 20});
+
+        assertEquals(38.392857142857146, eq[0], EPS);
+        assertEquals(32.75, eq[1], EPS);
+        assertEquals(28.857142857142858, eq[2], EPS);
+        assertEquals(100, eq[0] + eq[1] + eq[2], EPS);
+    }
+
+    @Test
+    void winnerTakeAllIsProportionalToChips() {
+        double[] eq = IcmCalculator.equities(new long[] {6_000, 3_000, 1_000}, new double[] {100});
+
+        assertArrayEquals(new double[] {60, 30, 10}, eq, EPS);
+    }
+
+    @Test
+    void equalStacksGetEqualEquity() {
+        long[] stacks = new long[9];
+        Arrays.fill(stacks, 1_500);
+        double[] eq = IcmCalculator.equities(stacks, new double[] {50, 30, 20});
+
+        for (double e : eq) {
+            assertEquals(100.0 / 9, e, EPS);
+        }
+    }
+
+    @Test
+    void matchesBruteForcePermutations() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int n = 2 + random.nextInt(6);
+            long[] stacks = new long[n];
+            for (int i = 0; i < n; i++) {
+                stacks[i] = 1 + random.nextInt(10_000);
+            }
+            double[] payouts = new double[1 + random.nextInt(n)];
+            for (int i = 0; i < payouts.length; i++) {
+                payouts[i] = 100 - 10 * i;
+            }
+
+            assertArrayEquals(bruteForce(stacks, payouts), IcmCalculator.equities(stacks, payouts), 1e-7);
+        }
+    }
+
+    @Test
+    void bustedPlayersTakeNoPlace() {
+        double[] eq = IcmCalculator.equities(new long[] {4_000, 0, 4_000}, new double[] {70, 30, 10});
+
+        assertArrayEquals(new double[] {50, 0, 50}, eq, EPS);
+        assertArrayEquals(new double[] {70, 0}, IcmCalculator.equities(new long[] {9_000, 0}, new double[] {70, 30}), EPS);
+    }
+
+    @Test
+    void allInComparesCallAgainstFold() {
+        long[] stacks = {5_000, 3_000, 2_000};
+        double[] payouts = {50, 30, 20};
+
+        // 50% 胜率跟注：筹码 EV 为 0，但 ICM 下跟注有损失
+        AllInEv coinFlip = IcmCalculator.allIn(stacks, payouts, 1, 0, 0.5, 0);
+        assertEquals(3_000, coinFlip.effectiveStack());
+        assertEquals(0, coinFlip.chipEv(), EPS);
+        assertEquals(IcmCalculator.equities(stacks, payouts)[1], coinFlip.foldEquity(), EPS);
+        assertTrue(coinFlip.icmEv() < 0);
+        assertFalse(coinFlip.callIsProfitable());
+
+        AllInEv strong = IcmCalculator.allIn(stacks, payouts, 1, 0, 0.8, 0.05);
+        assertEquals(0.65 * 3_000, strong.chipEv(), EPS);
+        assertTrue(strong.callIsProfitable());
+
+        // 必胜跟注的权益等于赢后筹码的权益
+        AllInEv lock = IcmCalculator.allIn(stacks, payouts, 2, 1, 1, 0);
+        assertEquals(IcmCalculator.equities(new long[] {5_000, 1_000, 4_000}, payouts)[2], lock.callEquity(), EPS);
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> IcmCalculator.equities(new long[] {-1, 10}, new double[] {1}));
+        long[] tooMany = new long[IcmCalculator.MAX_PLAYERS + 1];
+        Arrays.fill(tooMany, 1);
+        assertThrows(IllegalArgumentException.class, () -> IcmCalculator.equities(tooMany, new double[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> IcmCalculator.allIn(new long[] {1, 1}, new double[] {1}, 0, 0, 0.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> IcmCalculator.allIn(new long[] {1, 1}, new double[] {1}, 0, 1, 0.8, 0.3));
+    }
+
+    private static double[] bruteForce(long[] stacks, double[] payouts) {
+        double[] eq = new double[stacks.length];
+        long total = 0;
+        for (long s : stacks) {
+            total += s;
+        }
+        recurse(stacks, payouts, new boolean[stacks.length], 0, 1.0, total, eq);
+        return eq;
+    }
+
+    private static void recurse(long[] stacks, double[] payouts, boolean[] placed, int place, double prob, long remaining, double[] eq) {
+        if (place == payouts.length) {
+            return;
+        }
+        for (int i = 0; i < stacks.length; i++) {
+            if (placed[i]) {
+                continue;
+            }
+            double p = prob * stacks[i] / remaining;
+            eq[i] += p * payouts[place];
+            placed[i] = true;
+            recurse(stacks, payouts, placed, place + 1, p, remaining - stacks[i], eq);
+            placed[i] = false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.wepoker.domain.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableBalancerTest {
+
+    @Test
+    void movesPlayersFromFullerTableUntilBalanced() {
+        TableBalancer balancer = new TableBalancer(9);
+        balancer.addTable(1, 9);
+        balancer.addTable(2, 5);
+
+        List<Integer> moves = balancer.planMovesFrom(1);
+
+        assertEquals(List.of(2, 2), moves);
+        assertEquals(7, balancer.getPlayerCount(1));
+        assertEquals(7, balancer.getPlayerCount(2));
+    }
+
+    @Test
+    void shorterTableDoesNotMovePlayersOut() {
+        TableBalancer balancer = new TableBalancer(9);
+        balancer.addTable(1, 9);
+        balancer.addTable(2, 5);
+
+        assertTrue(balancer.planMovesFrom(2).isEmpty());
+    }
+
+    @Test
+    void breaksSmallestTableWhenPlayersFitOnFewerTables() {
+        TableBalancer balancer = new TableBalancer(6);
+        balancer.addTable(1, 5);
+        balancer.addTable(2, 4);
+        balancer.addTable(3, 3);
+
+        List<Integer> moves = balancer.planMovesFrom(3);
+
+        assertEquals(3, moves.size());
+        assertEquals(0, balancer.getPlayerCount(3));
+        assertEquals(6, balancer.getPlayerCount(1));
+        assertEquals(6, balancer.getPlayerCount(2));
+        assertEquals(2, balancer.requiredTables());
+    }
+}
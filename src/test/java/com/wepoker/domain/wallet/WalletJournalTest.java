@@ -0,0 +1,176 @@
+package com.wepoker.domain.wallet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletJournalTest {
+
+    private final Map<String, Long> stored = new HashMap<>();
+    private final List<String> loads = new ArrayList<>();
+    private final WalletJournal journal = new WalletJournal(account -> {
+        loads.add(account);
+        return stored.getOrDefault(account, 0L);
+    });
+
+    @Test
+    void buyInMovesChipsFromPlayerToTable() {
+        stored.put("player:1", 10_000L);
+
+        assertTrue(journal.post(Posting.buyIn("k1", "1", 7, 4_000), true));
+
+        assertEquals(6_000, journal.balance("player:1"));
+        assertEquals(4_000, journal.balance("table:7"));
+        assertEquals(1, journal.pendingCount());
+    }
+
+    @Test
+    void duplicateKeyIsIgnored() {
+        stored.put("player:1", 10_000L);
+
+        assertTrue(journal.post(Posting.buyIn("k1", "1", 7, 4_000), true));
+        assertFalse(journal.post(Posting.buyIn("k1", "1", 7, 4_000), true));
+
+        assertEquals(6_000, journal.balance("player:1"));
+        assertEquals(1, journal.pendingCount());
+    }
+
+    @Test
+    void enforcedBuyInRejectsOverdraftAndReleasesKey() {
+        stored.put("player:1", 1_000L);
+
+        assertThrows(InsufficientBalanceException.class, () -> journal.post(Posting.buyIn("k1", "1", 7, 4_000), true));
+        assertEquals(1_000, journal.balance("player:1"));
+        assertEquals(0, journal.pendingCount());
+
+        stored.put("player:1", 5_000L);
+        journal.evictSettledAccounts();
+        assertTrue(journal.post(Posting.buyIn("k1", "1", 7, 4_000), true));
+    }
+
+    @Test
+    void onlyCheckedDebitReadsTheStore() {
+        stored.put("player:1", 10_000L);
+
+        journal.post(Posting.buyIn("b1", "1", 7, 4_000), false);
+        journal.post(Posting.rake("r1", 7, 300), false);
+        journal.post(Posting.cashOut("c1", "1", 7, 3_700), false);
+        assertTrue(loads.isEmpty());
+
+        journal.post(Posting.buyIn("b2", "1", 8, 2_000), true);
+        assertEquals(List.of("player:1"), loads);
+        assertEquals(7_700, journal.balance("player:1"));
+        assertEquals(List.of("player:1"), loads);
+    }
+
+    @Test
+    void readDuringInFlightBatchIsNotCached() {
+        stored.put("player:1", 10_000L);
+        journal.post(Posting.cashOut("c1", "1", 7, 3_000), false);
+        WalletJournal.Batch batch = journal.drain(100);
+        // 批次已写入存储但尚未确认：读到的 13_000 已含这 3_000，不能再加一次 pending
+        batch.netChanges().forEach((account, delta) -> stored.merge(account, delta, Long::sum));
+
+        assertThrows(InsufficientBalanceException.class, () -> journal.post(Posting.buyIn("b1", "1", 8, 13_001), true));
+        assertTrue(journal.post(Posting.buyIn("b2", "1", 8, 13_000), true));
+
+        journal.markCommitted(batch);
+        assertEquals(0, journal.balance("player:1"));
+    }
+
+    @Test
+    void drainAggregatesNetChangesPerAccount() {
+        journal.post(Posting.buyIn("b1", "1", 7, 5_000), false);
+        journal.post(Posting.buyIn("b2", "2", 7, 5_000), false);
+        journal.post(Posting.rake("r1", 7, 300), false);
+        journal.post(Posting.cashOut("c1", "1", 7, 6_000), false);
+
+        WalletJournal.Batch batch = journal.drain(100);
+
+        assertEquals(4, batch.postings().size());
+        assertEquals(Long.valueOf(1_000), batch.netChanges().get("player:1"));
+        assertEquals(Long.valueOf(-5_000), batch.netChanges().get("player:2"));
+        assertEquals(Long.valueOf(3_700), batch.netChanges().get("table:7"));
+        assertEquals(Long.valueOf(300), batch.netChanges().get(Posting.RAKE_ACCOUNT));
+        assertEquals(0, batch.netChanges().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void drainRespectsBatchSize() {
+        for (int i = 0; i < 5; i++) {
+            journal.post(Posting.buyIn("b" + i, "1", 7, 100), false);
+        }
+
+        assertEquals(3, journal.drain(3).postings().size());
+        assertEquals(2, journal.drain(3).postings().size());
+        assertTrue(journal.drain(3).isEmpty());
+    }
+
+    @Test
+    void committedBatchSurvivesEviction() {
+        stored.put("player:1", 10_000L);
+        journal.post(Posting.buyIn("b1", "1", 7, 4_000), false);
+        WalletJournal.Batch batch = journal.drain(100);
+
+        // 落库前不能淘汰
+        assertEquals(0, journal.evictSettledAccounts());
+
+        batch.netChanges().forEach((account, delta) -> stored.merge(account, delta, Long::sum));
+        journal.markCommitted(batch);
+        assertEquals(2, journal.evictSettledAccounts());
+
+        assertEquals(6_000, journal.balance("player:1"));
+        assertEquals(4_000, journal.balance("table:7"));
+    }
+
+    @Test
+    void requeuedBatchIsDrainedAgain() {
+        journal.post(Posting.buyIn("b1", "1", 7, 4_000), false);
+        WalletJournal.Batch batch = journal.drain(100);
+        journal.requeue(batch);
+
+        assertEquals(1, journal.pendingCount());
+        assertEquals(batch.postings(), journal.drain(100).postings());
+        assertEquals(-4_000, journal.balance("player:1"));
+    }
+
+    @Test
+    void discardRevertsPostingAlreadyInStore() {
+        stored.put("player:1", 6_000L);
+        stored.put("table:7", 4_000L);
+        Posting replay = Posting.buyIn("b1", "1", 7, 4_000);
+        journal.post(replay, false);
+        assertEquals(2_000, journal.balance("player:1"));
+
+        journal.drain(100);
+        journal.discard(List.of(replay));
+
+        assertEquals(6_000, journal.balance("player:1"));
+        assertEquals(4_000, journal.balance("table:7"));
+    }
+
+    @Test
+    void pruneKeysAllowsReuseAfterWindow() {
+        Posting posting = new Posting("k1", PostingType.BUY_IN, "player:1", "table:7", 100, 1_000);
+        journal.post(posting, false);
+
+        assertEquals(0, journal.pruneKeys(500));
+        assertEquals(1, journal.pruneKeys(2_000));
+        assertTrue(journal.post(posting, false));
+    }
+
+    @Test
+    void postingRejectsInvalidAmountsAndSelfTransfer() {
+        assertThrows(IllegalArgumentException.class, () -> Posting.buyIn("k", "1", 7, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new Posting("k", PostingType.RAKE, "table:7", "table:7", 10, 0));
+    }
+}
@@ -0,0 +1,206 @@
+package com.wepoker.history;
+
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandHistoryArchiveTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Test
+    void rollsSegmentsAndLooksUpByHandTableAndPlayer(@TempDir Path dir) throws IOException {
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            List<Long> locations = appendHands(archive, 0, 120);
+
+            assertTrue(archive.getSegmentCount() >= 3, "expected several rolled segments");
+            assertEquals(120, archive.getHandCount());
+            assertTrue(Files.exists(dir.resolve("segment-00000000.idx")));
+            // 封存段截断到实际长度
+            assertTrue(Files.size(dir.resolve("segment-00000000.dat")) < SEGMENT_BYTES);
+
+            for (int i = 0; i < 120; i++) {
+                long location = archive.locateHand("h-" + i);
+                assertEquals((long) locations.get(i), location);
+                assertEquals("h-" + i, HandHistoryCodec.decode(archive.read(location)).getHandId());
+            }
+            assertEquals(-1, archive.locateHand("missing"));
+            assertLookups(archive, 120);
+        }
+    }
+
+    @Test
+    void reopensSealedAndActiveSegments(@TempDir Path dir) throws IOException {
+        int segments;
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            appendHands(archive, 0, 90);
+            segments = archive.getSegmentCount();
+        }
+        assertTrue(segments >= 2);
+
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            assertEquals(segments, archive.getSegmentCount());
+            assertEquals(90, archive.getHandCount());
+            assertEquals("h-89", HandHistoryCodec.decode(archive.read(archive.locateHand("h-89"))).getHandId());
+
+            // 恢复后继续在活动段末尾追加
+            appendHands(archive, 90, 10);
+            assertEquals(100, archive.getHandCount());
+            assertLookups(archive, 100);
+        }
+    }
+
+    @Test
+    void rebuildsMissingIndexOfSealedSegment(@TempDir Path dir) throws IOException {
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            appendHands(archive, 0, 90);
+        }
+        Files.delete(dir.resolve("segment-00000000.idx"));
+
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            assertTrue(Files.exists(dir.resolve("segment-00000000.idx")));
+            assertEquals(90, archive.getHandCount());
+            assertTrue(archive.locateHand("h-0") >= 0);
+            assertLookups(archive, 90);
+        }
+    }
+
+    @Test
+    void truncatesTornTailOnRecovery(@TempDir Path dir) throws IOException {
+        long lastLocation;
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            List<Long> locations = appendHands(archive, 0, 5);
+            lastLocation = locations.get(4);
+        }
+        // 模拟最后一帧只写了一半：payload 内容与校验和不一致
+        int offset = (int) lastLocation;
+        corrupt(dir.resolve("segment-00000000.dat"), offset + HandHistoryArchive.FRAME_HEADER + 3);
+
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            assertEquals(4, archive.getHandCount());
+            assertEquals(-1, archive.locateHand("h-4"));
+            assertEquals(offset, archive.getBytesUsed());
+
+            // 新数据覆盖损坏的尾部
+            long rewritten = archive.append(HandHistoryCodec.encode(hand(4)), HandHistoryCodec.keysOf(hand(4)));
+            assertEquals(lastLocation, rewritten);
+            assertEquals("h-4", HandHistoryCodec.decode(archive.read(archive.locateHand("h-4"))).getHandId());
+        }
+    }
+
+    @Test
+    void stopsScanAtFrameLengthBeyondSegment(@TempDir Path dir) throws IOException {
+        long secondLocation;
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            secondLocation = appendHands(archive, 0, 3).get(1);
+        }
+        try (FileChannel ch = FileChannel.open(dir.resolve("segment-00000000.dat"), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, SEGMENT_BYTES), (int) secondLocation);
+        }
+
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            assertEquals(1, archive.getHandCount());
+            assertTrue(archive.locateHand("h-0") >= 0);
+            assertEquals(-1, archive.locateHand("h-2"));
+        }
+    }
+
+    @Test
+    void visitorCanStopEarly(@TempDir Path dir) throws IOException {
+        try (HandHistoryArchive archive = new HandHistoryArchive(dir, SEGMENT_BYTES)) {
+            appendHands(archive, 0, 90);
+            List<Long> seen = new ArrayList<>();
+            archive.forEachOfPlayer("p0", location -> {
+                seen.add(location);
+                return seen.size() < 2;
+            });
+            assertEquals(2, seen.size());
+        }
+    }
+
+    /**
+     * 每个 tableId / playerId 的遍历结果按写入顺序返回全部手牌，且不含其他桌或玩家
+     */
+    private static void assertLookups(HandHistoryArchive archive, int hands) {
+        for (int table = 0; table < 3; table++) {
+            List<String> ids = handIds(archive, table, null);
+            List<String> expected = new ArrayList<>();
+            for (int i = table; i < hands; i += 3) {
+                expected.add("h-" + i);
+            }
+            assertEquals(expected, ids);
+        }
+        List<String> p0 = handIds(archive, -1, "p0");
+        assertEquals(hands, p0.size());
+        List<String> odd = handIds(archive, -1, "p1");
+        for (String id : odd) {
+            assertFalse(Integer.parseInt(id.substring(2)) % 2 == 0);
+        }
+        assertEquals(hands / 2, odd.size());
+        assertTrue(handIds(archive, -1, "nobody").isEmpty());
+    }
+
+    private static List<String> handIds(HandHistoryArchive archive, int tableId, String playerId) {
+        List<String> ids = new ArrayList<>();
+        if (playerId == null) {
+            archive.forEachOfTable(tableId, location -> ids.add(decodeId(archive, location)));
+        } else {
+            archive.forEachOfPlayer(playerId, location -> ids.add(decodeId(archive, location)));
+        }
+        return ids;
+    }
+
+    private static String decodeId(HandHistoryArchive archive, long location) {
+        return HandHistoryCodec.readKeys(archive.read(location)).handId();
+    }
+
+    private static List<Long> appendHands(HandHistoryArchive archive, int from, int count) throws IOException {
+        List<Long> locations = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            Hand hand = hand(i);
+            locations.add(archive.append(HandHistoryCodec.encode(hand), HandHistoryCodec.keysOf(hand)));
+        }
+        return locations;
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            b.rewind();
+            ch.write(b, position);
+        }
+    }
+
+    /**
+     * 第 i 手：桌号 i % 3；p0 每手都在，p1 只在奇数手
+     */
+    private static Hand hand(int i) {
+        Hand hand = new Hand();
+        hand.setHandId("h-" + i);
+        hand.setTableId(i % 3);
+        hand.setCreatedAt(1_700_000_000_000L + i);
+        hand.setSmallBlindAmount(5);
+        hand.setBigBlindAmount(10);
+        List<HandSeat> seats = new ArrayList<>();
+        seats.add(new HandSeat("p0", "player-zero-with-a-long-nickname", 0, 1000));
+        seats.add(new HandSeat(i % 2 == 1 ? "p1" : "p2", "player-other-with-a-long-nickname", 1, 1000));
+        hand.setSeats(seats);
+        return hand;
+    }
+}
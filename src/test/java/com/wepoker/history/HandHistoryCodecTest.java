@@ -0,0 +1,84 @@
+package com.wepoker.history;
+
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+import com.wepoker.domain.model.Rank;
+import com.wepoker.domain.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HandHistoryCodecTest {
+
+    @Test
+    void roundTripsFullHand() {
+        Hand hand = sampleHand();
+
+        Hand decoded = HandHistoryCodec.decode(ByteBuffer.wrap(HandHistoryCodec.encode(hand)));
+
+        assertEquals("h-1", decoded.getHandId());
+        assertEquals(7, decoded.getTableId());
+        assertEquals(1000L, decoded.getBigBlindAmount());
+        assertEquals(2, decoded.getButtonSeatNumber());
+        assertEquals(2, decoded.getSeats().size());
+        assertEquals("bob", decoded.getSeats().get(1).getNickname());
+        assertEquals(120000L, decoded.getSeats().get(1).getStartingStack());
+        assertArrayEquals(hand.getPlayerHoleCards().get("p1"), decoded.getPlayerHoleCards().get("p1"));
+        assertNull(decoded.getPlayerHoleCards().get("p2"));
+        assertEquals(3, decoded.getCommunityCardCount());
+        assertEquals(hand.getCommunityCards()[2], decoded.getCommunityCards()[2]);
+
+        assertEquals(3, decoded.getActionHistory().size());
+        PlayerAction raise = decoded.getActionHistory().get(2);
+        assertEquals("RAISE", raise.getAction());
+        assertEquals("FLOP", raise.getStreet());
+        assertEquals("p2", raise.getPlayerId());
+        assertEquals(3000L, raise.getAmount());
+        assertEquals(hand.getActionHistory().get(2).getTimestamp(), raise.getTimestamp());
+
+        assertEquals(5000L, decoded.getTotalPotSize());
+        assertEquals("p2", decoded.getDistributions().get(0).getPlayerId());
+        assertEquals(5000L, decoded.getDistributions().get(0).getAmount());
+    }
+
+    @Test
+    void readsIndexKeysWithoutFullDecode() {
+        HandHistoryCodec.Keys keys = HandHistoryCodec.readKeys(ByteBuffer.wrap(HandHistoryCodec.encode(sampleHand())));
+
+        assertEquals("h-1", keys.handId());
+        assertEquals(7, keys.tableId());
+        assertArrayEquals(new String[] {"p1", "p2"}, keys.playerIds());
+    }
+
+    private static Hand sampleHand() {
+        Hand hand = new Hand();
+        hand.setHandId("h-1");
+        hand.setTableId(7);
+        hand.setCreatedAt(1_700_000_000_000L);
+        hand.setSmallBlindAmount(500);
+        hand.setBigBlindAmount(1000);
+        hand.setButtonSeatNumber(2);
+        hand.setSmallBlindSeatNumber(2);
+        hand.setBigBlindSeatNumber(4);
+        hand.setSeats(List.of(new HandSeat("p1", "alice", 2, 80000), new HandSeat("p2", "bob", 4, 120000)));
+        hand.addPlayerHoleCards("p1", new Card[] {Card.of(Suit.SPADE, Rank.ACE), Card.of(Suit.HEART, Rank.KING)});
+        hand.setCommunityCards(new Card[] {
+            Card.of(Suit.CLUB, Rank.TWO), Card.of(Suit.DIAMOND, Rank.TEN), Card.of(Suit.SPADE, Rank.QUEEN)
+        });
+        long t = hand.getCreatedAt();
+        hand.getActionHistory().add(new PlayerAction(t, "SMALL_BLIND", 500, "PRE_FLOP", 500, "p1"));
+        hand.getActionHistory().add(new PlayerAction(t, "BIG_BLIND", 1000, "PRE_FLOP", 1000, "p2"));
+        hand.getActionHistory().add(new PlayerAction(t + 4200, "RAISE", 3000, "FLOP", 3000, "p2"));
+        hand.setTotalPotSize(5000);
+        hand.setDistributions(List.of(new PotDistribution("p2", 5000, 1, "all others folded")));
+        return hand;
+    }
+}
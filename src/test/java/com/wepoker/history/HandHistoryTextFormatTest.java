@@ -0,0 +1,91 @@
+package com.wepoker.history;
+
+import com.wepoker.domain.model.Card;
+import com.wepoker.domain.model.Hand;
+import com.wepoker.domain.model.HandSeat;
+import com.wepoker.domain.model.PlayerAction;
+import com.wepoker.domain.model.PotDistribution;
+import com.wepoker.domain.model.Rank;
+import com.wepoker.domain.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandHistoryTextFormatTest {
+
+    @Test
+    void rendersStreetsAndHidesFoldedHoleCards() throws IOException {
+        Hand hand = showdownHand();
+
+        StringBuilder out = new StringBuilder();
+        HandHistoryTextFormat.write(hand, "b", out);
+        String text = out.toString();
+
+        assertTrue(text.contains("bob: posts small blind 5\n"));
+        assertTrue(text.contains("alice: raises 20 to 30\n"));
+        assertTrue(text.contains("*** FLOP *** [Ts 9s 3h]\n"));
+        assertTrue(text.contains("alice: bets 970 and is all-in\n"));
+        assertTrue(text.contains("Dealt to bob [2h 7c]\n"));
+        assertTrue(text.contains("alice: shows [As Ks]\n"));
+        assertTrue(text.contains("carol: shows [Qd Jd]\n"));
+        assertFalse(text.contains("bob: shows"));
+        assertTrue(text.contains("alice collected 2005 from pot\n"));
+    }
+
+    @Test
+    void visibleHoleCardsFollowTextRules() {
+        Hand hand = showdownHand();
+
+        Map<String, Card[]> forBob = HandHistoryTextFormat.visibleHoleCards(hand, "b");
+        assertEquals(List.of("b", "a", "c"), List.copyOf(forBob.keySet()));
+
+        Map<String, Card[]> anonymous = HandHistoryTextFormat.visibleHoleCards(hand, null);
+        assertEquals(List.of("a", "c"), List.copyOf(anonymous.keySet()));
+        assertFalse(anonymous.containsKey("b"));
+    }
+
+    @Test
+    void uncontestedHandRevealsOnlyViewerCards() {
+        Hand hand = showdownHand();
+        hand.getActionHistory().add(new PlayerAction(0, "FOLD", 0, "FLOP", 0, "c"));
+
+        assertTrue(HandHistoryTextFormat.shownAtShowdown(hand).isEmpty());
+        assertEquals(List.of("c"), List.copyOf(HandHistoryTextFormat.visibleHoleCards(hand, "c").keySet()));
+        assertTrue(HandHistoryTextFormat.visibleHoleCards(hand, "nobody").isEmpty());
+    }
+
+    private static Hand showdownHand() {
+        Hand hand = new Hand();
+        hand.setHandId("h-9");
+        hand.setTableId(3);
+        hand.setSmallBlindAmount(5);
+        hand.setBigBlindAmount(10);
+        hand.setButtonSeatNumber(0);
+        hand.setSeats(List.of(
+            new HandSeat("a", "alice", 0, 1000),
+            new HandSeat("b", "bob", 1, 1000),
+            new HandSeat("c", "carol", 2, 1000)));
+        hand.addPlayerHoleCards("a", new Card[] {Card.of(Suit.SPADE, Rank.ACE), Card.of(Suit.SPADE, Rank.KING)});
+        hand.addPlayerHoleCards("b", new Card[] {Card.of(Suit.HEART, Rank.TWO), Card.of(Suit.CLUB, Rank.SEVEN)});
+        hand.addPlayerHoleCards("c", new Card[] {Card.of(Suit.DIAMOND, Rank.QUEEN), Card.of(Suit.DIAMOND, Rank.JACK)});
+        hand.setCommunityCards(new Card[] {
+            Card.of(Suit.SPADE, Rank.TEN), Card.of(Suit.SPADE, Rank.NINE), Card.of(Suit.HEART, Rank.THREE)
+        });
+        hand.getActionHistory().add(new PlayerAction(0, "SMALL_BLIND", 5, "PRE_FLOP", 5, "b"));
+        hand.getActionHistory().add(new PlayerAction(0, "BIG_BLIND", 10, "PRE_FLOP", 10, "c"));
+        hand.getActionHistory().add(new PlayerAction(0, "RAISE", 20, "PRE_FLOP", 30, "a"));
+        hand.getActionHistory().add(new PlayerAction(0, "FOLD", 0, "PRE_FLOP", 0, "b"));
+        hand.getActionHistory().add(new PlayerAction(0, "CALL", 0, "PRE_FLOP", 20, "c"));
+        hand.getActionHistory().add(new PlayerAction(0, "ALL_IN", 0, "FLOP", 970, "a"));
+        hand.getActionHistory().add(new PlayerAction(0, "CALL", 0, "FLOP", 970, "c"));
+        hand.setTotalPotSize(2005);
+        hand.setDistributions(List.of(new PotDistribution("a", 2005, 1, "showdown")));
+        return hand;
+    }
+}
@@ -0,0 +1,49 @@
+package com.wepoker.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+
+    @Test
+    void resolvesCollidingSlotsByLinearProbing() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        // 低 32 位相同，落在同一个槽位
+        long base = 0x1234L;
+        for (int i = 0; i < 10; i++) {
+            map.put(base + ((long) i << 40), i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, map.get(base + ((long) i << 40)));
+        }
+        assertEquals(-1, map.get(base + (10L << 40)));
+        assertEquals(-1, map.get(base + 1));
+    }
+
+    @Test
+    void keepsEntriesAcrossResize() {
+        LongIntHashMap map = new LongIntHashMap(1);
+        for (int i = 1; i <= 10_000; i++) {
+            map.put(HistoryKeys.handKey("h-" + i), i);
+        }
+        for (int i = 1; i <= 10_000; i++) {
+            assertEquals(i, map.get(HistoryKeys.handKey("h-" + i)));
+        }
+        assertEquals(-1, map.get(HistoryKeys.handKey("h-0")));
+    }
+
+    @Test
+    void overwritesExistingKeyAndSupportsZeroKey() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        assertEquals(-1, map.get(0L));
+        map.put(0L, 5);
+        map.put(42L, 1);
+        map.put(42L, 2);
+
+        assertEquals(5, map.get(0L));
+        assertEquals(2, map.get(42L));
+        // 与 0 同槽位的 key 不受零键特殊处理影响
+        assertEquals(-1, map.get(1L << 32));
+    }
+}
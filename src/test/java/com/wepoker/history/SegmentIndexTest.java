@@ -0,0 +1,77 @@
+package com.wepoker.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SegmentIndexTest {
+
+    @Test
+    void sortsEntriesByKeyThenOffset(@TempDir Path dir) throws IOException {
+        LongArrayList tableKeys = new LongArrayList();
+        IntArrayList tableOffsets = new IntArrayList();
+        long[] keys = {7, 3, 7, -5, 3, 7};
+        int[] offsets = {500, 400, 100, 300, 200, 0};
+        for (int i = 0; i < keys.length; i++) {
+            tableKeys.add(keys[i]);
+            tableOffsets.add(offsets[i]);
+        }
+        Path path = dir.resolve("segment-00000000.idx");
+        SegmentIndex.write(path, new LongArrayList(), new IntArrayList(), tableKeys, tableOffsets,
+            new LongArrayList(), new IntArrayList());
+
+        SegmentIndex index = SegmentIndex.open(path);
+        assertEquals(0, index.count(SegmentIndex.HANDS));
+        assertEquals(6, index.count(SegmentIndex.TABLES));
+        assertEquals(0, index.count(SegmentIndex.PLAYERS));
+        long[] sortedKeys = {-5, 3, 3, 7, 7, 7};
+        int[] sortedOffsets = {300, 200, 400, 0, 100, 500};
+        for (int i = 0; i < 6; i++) {
+            assertEquals(sortedKeys[i], index.keyAt(SegmentIndex.TABLES, i));
+            assertEquals(sortedOffsets[i], index.offsetAt(SegmentIndex.TABLES, i));
+        }
+        assertFalse(Files.exists(dir.resolve("segment-00000000.idx.tmp")));
+    }
+
+    @Test
+    void binarySearchFindsFirstMatchAndInsertionPoint(@TempDir Path dir) throws IOException {
+        LongArrayList handKeys = new LongArrayList();
+        IntArrayList handOffsets = new IntArrayList();
+        // 逆序写入 1000 个偶数 key，同一 key 重复两次
+        for (int i = 999; i >= 0; i--) {
+            handKeys.add(i * 2L);
+            handOffsets.add(i * 10 + 1);
+            handKeys.add(i * 2L);
+            handOffsets.add(i * 10);
+        }
+        Path path = dir.resolve("segment-00000001.idx");
+        SegmentIndex.write(path, handKeys, handOffsets, new LongArrayList(), new IntArrayList(),
+            new LongArrayList(), new IntArrayList());
+
+        SegmentIndex index = SegmentIndex.open(path);
+        assertEquals(2000, index.count(SegmentIndex.HANDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 10, index.findFirst(SegmentIndex.HANDS, i * 2L));
+            assertEquals(-1, index.findFirst(SegmentIndex.HANDS, i * 2L + 1));
+            assertEquals(i * 2, index.lowerBound(SegmentIndex.HANDS, i * 2L));
+            assertEquals(i * 2 + 2, index.lowerBound(SegmentIndex.HANDS, i * 2L + 1));
+        }
+        assertEquals(0, index.lowerBound(SegmentIndex.HANDS, Long.MIN_VALUE));
+        assertEquals(2000, index.lowerBound(SegmentIndex.HANDS, Long.MAX_VALUE));
+        assertEquals(-1, index.findFirst(SegmentIndex.PLAYERS, 0));
+    }
+
+    @Test
+    void rejectsFileWithoutMagic(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("broken.idx");
+        Files.write(path, new byte[20]);
+        assertThrows(IllegalStateException.class, () -> SegmentIndex.open(path));
+    }
+}
@@ -0,0 +1,78 @@
+package com.wepoker.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测机器人的行动策略
+ *
+ * 输入为 /api/game/tables/{id}/state 视图中与该机器人相关的几个数值，输出动作与金额（语义同 REST action 接口：
+ * RAISE 的 amount 为在跟注之外额外加注的部分）。
+ */
+public enum BotStrategy {
+
+    /**
+     * 只过牌/跟注，从不弃牌
+     */
+    PASSIVE {
+        @Override
+        Decision decide(long toCall, long stack, long currentBet, long bigBlind) {
+            if (toCall <= 0) {
+                return Decision.of("CHECK", 0);
+            }
+            return toCall >= stack ? Decision.of("ALL_IN", 0) : Decision.of("CALL", 0);
+        }
+    },
+
+    /**
+     * 经常下注/加注，偶尔全下
+     */
+    AGGRESSIVE {
+        @Override
+        Decision decide(long toCall, long stack, long currentBet, long bigBlind) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextInt(20) == 0) {
+                return Decision.of("ALL_IN", 0);
+            }
+            if (random.nextInt(3) > 0) {
+                return raise(toCall, stack, currentBet, bigBlind);
+            }
+            return PASSIVE.decide(toCall, stack, currentBet, bigBlind);
+        }
+    },
+
+    /**
+     * 随机混合：弃牌、跟注、加注
+     */
+    RANDOM {
+        @Override
+        Decision decide(long toCall, long stack, long currentBet, long bigBlind) {
+            int roll = ThreadLocalRandom.current().nextInt(10);
+            if (toCall > 0 && roll < 3) {
+                return Decision.of("FOLD", 0);
+            }
+            if (roll >= 8) {
+                return raise(toCall, stack, currentBet, bigBlind);
+            }
+            return PASSIVE.decide(toCall, stack, currentBet, bigBlind);
+        }
+    };
+
+    abstract Decision decide(long toCall, long stack, long currentBet, long bigBlind);
+
+    /**
+     * 最小合法加注：本街无人下注时下注一个大盲，否则加注到当前注额的两倍；筹码不足则全下
+     */
+    private static Decision raise(long toCall, long stack, long currentBet, long bigBlind) {
+        long extra = currentBet > 0 ? currentBet : bigBlind;
+        if (toCall + extra >= stack) {
+            return Decision.of("ALL_IN", 0);
+        }
+        return currentBet > 0 ? Decision.of("RAISE", extra) : Decision.of("BET", extra);
+    }
+
+    record Decision(String action, long amount) {
+        static Decision of(String action, long amount) {
+            return new Decision(action, amount);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.wepoker.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进程内压测：在随机端口启动完整服务，再用机器人压测器打满
+ *
+ * 默认跳过，需显式开启：mvn test -Dtest=InProcessLoadTest -Dloadtest=true -Dloadtest.tables=2000
+ */
+@Tag("load")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class InProcessLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void botsDriveManyTablesConcurrently() throws InterruptedException {
+        LoadGenerator.Config config = LoadGenerator.Config.fromSystemProperties("http://localhost:" + port);
+        LoadGenerator.Report report = new LoadGenerator(config).run();
+        System.out.println(report);
+
+        assertTrue(report.actions() > 0, "bots should have acted");
+    }
+}
@@ -0,0 +1,327 @@
+package com.wepoker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无界面机器人压测器
+ *
+ * 每张桌子一个驱动任务（牌局天然串行，同一时刻只有一个机器人需要行动），任务内轮询房间视图，
+ * 轮到本桌机器人时按其策略发出动作并记录往返延迟。驱动任务优先跑在虚拟线程上（Java 21+），
+ * 在 Java 17 运行时回退为每桌一个平台线程。
+ *
+ * 统计：完成手数与每秒手数、动作往返延迟分位数、错误数与错误率（按错误信息分类）。
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private final Config config;
+    private final RestGameClient client;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer actionLatency;
+    private final LongAdder handsCompleted = new LongAdder();
+    private final LongAdder actions = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errorsByMessage = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    public LoadGenerator(Config config) {
+        this.config = config;
+        this.client = new RestGameClient(config.baseUrl, config.requestTimeout);
+        this.actionLatency = Timer.builder("loadtest.action.rtt")
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 运行压测直到 config.duration 结束，返回汇总报告
+     */
+    public Report run() throws InterruptedException {
+        running = true;
+        long startedAt = System.nanoTime();
+        ExecutorService executor = newDriverExecutor(config.tables);
+        try {
+            for (int t = 0; t < config.tables; t++) {
+                long tableId = config.firstTableId + t;
+                executor.submit(() -> driveTable(tableId));
+            }
+            Thread.sleep(config.duration.toMillis());
+        } finally {
+            running = false;
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        return buildReport(System.nanoTime() - startedAt);
+    }
+
+    private void driveTable(long tableId) {
+        List<String> bots = new ArrayList<>(config.botsPerTable);
+        Map<String, BotStrategy> strategies = new LinkedHashMap<>();
+        for (int i = 0; i < config.botsPerTable; i++) {
+            // 使用纯数字ID，服务端会原样保留（非数字ID会被哈希）
+            String playerId = String.valueOf(tableId * 100 + i);
+            BotStrategy strategy = config.strategies.get((int) ((tableId + i) % config.strategies.size()));
+            if (call(() -> client.join(tableId, playerId, "bot-" + playerId, config.buyIn))) {
+                bots.add(playerId);
+                strategies.put(playerId, strategy);
+            }
+        }
+        if (bots.size() < 2) {
+            log.warn("Table {} has fewer than 2 bots seated, driver stopped", tableId);
+            return;
+        }
+
+        String viewer = bots.get(0);
+        String lastCountedHand = null;
+        while (running) {
+            JsonNode view = fetchState(tableId, viewer);
+            if (view == null) {
+                pause(config.pollInterval);
+                continue;
+            }
+
+            String state = view.path("state").asText();
+            String handId = view.path("currentHand").path("handId").asText(null);
+            switch (state) {
+                case "WAITING" -> {
+                    rebuyBustedBots(tableId, view, strategies);
+                    call(() -> client.start(tableId));
+                }
+                case "SHOWDOWN" -> {
+                    if (handId != null && !handId.equals(lastCountedHand)) {
+                        handsCompleted.increment();
+                        lastCountedHand = handId;
+                    }
+                    rebuyBustedBots(tableId, view, strategies);
+                    pause(config.pollInterval);
+                }
+                case "PRE_FLOP", "FLOP", "TURN", "RIVER" -> {
+                    if (!actIfBotTurn(tableId, view, strategies)) {
+                        pause(config.pollInterval);
+                    }
+                }
+                default -> pause(config.pollInterval);
+            }
+        }
+    }
+
+    private boolean actIfBotTurn(long tableId, JsonNode view, Map<String, BotStrategy> strategies) {
+        int seat = view.path("nextToActSeat").asInt(-1);
+        if (seat < 0) {
+            return false;
+        }
+        JsonNode me = view.path("players").path(String.valueOf(seat));
+        String playerId = me.path("playerId").asText(null);
+        BotStrategy strategy = playerId != null ? strategies.get(playerId) : null;
+        if (strategy == null) {
+            return false;
+        }
+
+        long currentBet = view.path("currentBetThisStreet").asLong();
+        long toCall = Math.max(0, currentBet - me.path("currentBet").asLong());
+        BotStrategy.Decision decision = strategy.decide(
+                toCall, me.path("stackSize").asLong(), currentBet, view.path("bigBlindAmount").asLong(1000));
+
+        pause(config.thinkTime);
+        long start = System.nanoTime();
+        boolean ok = call(() -> client.action(tableId, playerId, decision.action(), decision.amount()));
+        actionLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (ok) {
+            actions.increment();
+        }
+        return true;
+    }
+
+    private void rebuyBustedBots(long tableId, JsonNode view, Map<String, BotStrategy> strategies) {
+        view.path("players").forEach(p -> {
+            String playerId = p.path("playerId").asText(null);
+            if (playerId != null && strategies.containsKey(playerId) && p.path("stackSize").asLong() <= 0) {
+                call(() -> client.rebuy(tableId, playerId, config.buyIn));
+            }
+        });
+    }
+
+    private JsonNode fetchState(long tableId, String viewer) {
+        requests.increment();
+        try {
+            return client.state(tableId, viewer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } catch (Exception e) {
+            recordError(e);
+        }
+        return null;
+    }
+
+    private boolean call(RestCall call) {
+        requests.increment();
+        try {
+            call.run();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } catch (Exception e) {
+            recordError(e);
+        }
+        return false;
+    }
+
+    private void recordError(Exception e) {
+        errors.increment();
+        String key = e.getClass().getSimpleName() + ": " + e.getMessage();
+        errorsByMessage.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private void pause(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private Report buildReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        HistogramSnapshot snapshot = actionLatency.takeSnapshot();
+        Map<Double, Double> percentilesMs = new LinkedHashMap<>();
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            percentilesMs.put(p.percentile(), p.value(TimeUnit.MILLISECONDS));
+        }
+        Map<String, Long> errorBreakdown = new LinkedHashMap<>();
+        errorsByMessage.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(10)
+                .forEach(e -> errorBreakdown.put(e.getKey(), e.getValue().sum()));
+
+        long totalRequests = requests.sum();
+        return new Report(
+                config.tables,
+                config.tables * config.botsPerTable,
+                seconds,
+                handsCompleted.sum(),
+                handsCompleted.sum() / seconds,
+                actions.sum(),
+                totalRequests,
+                errors.sum(),
+                totalRequests == 0 ? 0 : (double) errors.sum() / totalRequests,
+                snapshot.mean(TimeUnit.MILLISECONDS),
+                snapshot.max(TimeUnit.MILLISECONDS),
+                percentilesMs,
+                errorBreakdown);
+    }
+
+    /**
+     * 优先使用虚拟线程（Java 21+）；当前编译目标为 Java 17，因此反射获取
+     */
+    private static ExecutorService newDriverExecutor(int tables) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads unavailable, using {} platform threads", tables);
+            return Executors.newFixedThreadPool(tables);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RestCall {
+        void run() throws Exception;
+    }
+
+    /**
+     * 压测参数，可由 -Dloadtest.* 系统属性覆盖
+     */
+    public static class Config {
+        String baseUrl = "http://localhost:8080";
+        int tables = 100;
+        int botsPerTable = 6;
+        long firstTableId = 100_000;
+        long buyIn = 100_000;
+        Duration duration = Duration.ofSeconds(60);
+        Duration pollInterval = Duration.ofMillis(20);
+        Duration thinkTime = Duration.ZERO;
+        Duration requestTimeout = Duration.ofSeconds(10);
+        List<BotStrategy> strategies = List.of(BotStrategy.PASSIVE, BotStrategy.AGGRESSIVE, BotStrategy.RANDOM);
+
+        public static Config fromSystemProperties(String defaultBaseUrl) {
+            Config c = new Config();
+            c.baseUrl = System.getProperty("loadtest.baseUrl", defaultBaseUrl);
+            c.tables = Integer.getInteger("loadtest.tables", c.tables);
+            c.botsPerTable = Integer.getInteger("loadtest.botsPerTable", c.botsPerTable);
+            c.firstTableId = Long.getLong("loadtest.firstTableId", c.firstTableId);
+            c.buyIn = Long.getLong("loadtest.buyIn", c.buyIn);
+            c.duration = Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", c.duration.toSeconds()));
+            c.pollInterval = Duration.ofMillis(Long.getLong("loadtest.pollIntervalMillis", c.pollInterval.toMillis()));
+            c.thinkTime = Duration.ofMillis(Long.getLong("loadtest.thinkTimeMillis", c.thinkTime.toMillis()));
+            String strategies = System.getProperty("loadtest.strategies");
+            if (strategies != null && !strategies.isBlank()) {
+                List<BotStrategy> parsed = new ArrayList<>();
+                for (String name : strategies.split(",")) {
+                    parsed.add(BotStrategy.valueOf(name.trim().toUpperCase()));
+                }
+                c.strategies = parsed;
+            }
+            return c;
+        }
+    }
+
+    /**
+     * 压测汇总
+     */
+    public record Report(int tables,
+                         int bots,
+                         double elapsedSeconds,
+                         long handsCompleted,
+                         double handsPerSecond,
+                         long actions,
+                         long requests,
+                         long errors,
+                         double errorRate,
+                         double actionRttMeanMs,
+                         double actionRttMaxMs,
+                         Map<Double, Double> actionRttPercentilesMs,
+                         Map<String, Long> topErrors) {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("tables=%d bots=%d elapsed=%.1fs%n", tables, bots, elapsedSeconds));
+            sb.append(String.format("hands=%d (%.2f hands/s), actions=%d%n", handsCompleted, handsPerSecond, actions));
+            sb.append(String.format("requests=%d errors=%d (%.3f%%)%n", requests, errors, errorRate * 100));
+            sb.append(String.format("action RTT mean=%.2fms max=%.2fms", actionRttMeanMs, actionRttMaxMs));
+            actionRttPercentilesMs.forEach((p, v) -> sb.append(String.format(" p%s=%.2fms", trimPercentile(p), v)));
+            topErrors.forEach((msg, count) -> sb.append(String.format("%n  error x%d: %s", count, msg)));
+            return sb.toString();
+        }
+
+        private static String trimPercentile(double p) {
+            String s = String.valueOf(p * 100);
+            return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+        }
+    }
+}
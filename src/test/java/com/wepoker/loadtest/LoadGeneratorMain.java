@@ -0,0 +1,16 @@
+package com.wepoker.loadtest;
+
+/**
+ * 对已运行的服务器执行压测
+ *
+ * 用法：java -Dloadtest.baseUrl=http://host:8080 -Dloadtest.tables=500 ... com.wepoker.loadtest.LoadGeneratorMain
+ * 参数见 {@link LoadGenerator.Config#fromSystemProperties(String)}。
+ */
+public class LoadGeneratorMain {
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator.Config config = LoadGenerator.Config.fromSystemProperties("http://localhost:8080");
+        LoadGenerator.Report report = new LoadGenerator(config).run();
+        System.out.println(report);
+    }
+}
@@ -0,0 +1,97 @@
+package com.wepoker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 通过 REST 接口（/api/game/tables/...）驱动游戏的压测客户端
+ *
+ * 所有接口都返回 ApiResponse{code, message, data}，code != 200 视为业务错误抛出 IllegalStateException。
+ * HttpClient 线程安全，所有机器人共享同一个实例以复用连接。
+ */
+public class RestGameClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+
+    public RestGameClient(String baseUrl, Duration requestTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public void join(long tableId, String playerId, String nickname, long buyIn) throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", playerId);
+        body.put("nickname", nickname);
+        body.put("buyIn", buyIn);
+        post("/api/game/tables/" + tableId + "/join", body);
+    }
+
+    public void start(long tableId) throws IOException, InterruptedException {
+        post("/api/game/tables/" + tableId + "/start", Map.of());
+    }
+
+    public void action(long tableId, String playerId, String action, long amount) throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", playerId);
+        body.put("action", action);
+        body.put("amount", amount);
+        post("/api/game/tables/" + tableId + "/action", body);
+    }
+
+    public void rebuy(long tableId, String playerId, long amount) throws IOException, InterruptedException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", playerId);
+        body.put("amount", amount);
+        post("/api/game/tables/" + tableId + "/rebuy", body);
+    }
+
+    /**
+     * 获取房间视图（data 节点）
+     */
+    public JsonNode state(long tableId, String viewerPlayerId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/game/tables/" + tableId + "/state?playerId=" + viewerPlayerId))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        return send(request);
+    }
+
+    private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return send(request);
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        JsonNode root = objectMapper.readTree(response.body());
+        int code = root.path("code").asInt();
+        if (code != 200) {
+            throw new IllegalStateException(root.path("message").asText("code " + code));
+        }
+        return root.path("data");
+    }
+}
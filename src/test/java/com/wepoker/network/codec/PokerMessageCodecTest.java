@@ -0,0 +1,147 @@
+package com.wepoker.network.codec;
+
+import com.wepoker.network.protocol.PokerMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PokerMessageCodecTest {
+
+    @Test
+    void encodedFrameCarriesBodyLengthAndDecodesBack() {
+        ByteBuf frame = encode(message("m1", 7));
+        assertEquals(frame.readableBytes() - PokerMessageDecoder.LENGTH_FIELD_SIZE, frame.getInt(0));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        assertTrue(decoder.writeInbound(frame));
+        PokerMessage decoded = decoder.readInbound();
+        assertEquals("m1", decoded.getMessageId());
+        assertEquals(PokerMessage.MessageType.BET, decoded.getType());
+        assertEquals(7, decoded.getSequenceNumber());
+        assertEquals(200, ((Number) decoded.getPayloadField("amount")).intValue());
+        assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    void reassemblesSplitFrame() {
+        ByteBuf frame = encode(message("m1", 1));
+        byte[] bytes = ByteBufUtil.getBytes(frame);
+        frame.release();
+        int half = bytes.length / 2;
+        // 长度字段本身也被拆开
+        ByteBuf first = Unpooled.copiedBuffer(bytes, 0, 2);
+        ByteBuf second = Unpooled.copiedBuffer(bytes, 2, half - 2);
+        ByteBuf third = Unpooled.copiedBuffer(bytes, half, bytes.length - half);
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        assertFalse(decoder.writeInbound(first));
+        assertFalse(decoder.writeInbound(second));
+        assertTrue(decoder.writeInbound(third));
+
+        PokerMessage decoded = decoder.readInbound();
+        assertEquals("m1", decoded.getMessageId());
+        assertNull(decoder.readInbound());
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertEquals(0, third.refCnt());
+    }
+
+    @Test
+    void splitsCoalescedFrames() {
+        ByteBuf batch = Unpooled.buffer();
+        for (int i = 1; i <= 3; i++) {
+            ByteBuf frame = encode(message("m" + i, i));
+            batch.writeBytes(frame);
+            frame.release();
+        }
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        assertTrue(decoder.writeInbound(batch));
+        for (int i = 1; i <= 3; i++) {
+            PokerMessage decoded = decoder.readInbound();
+            assertEquals("m" + i, decoded.getMessageId());
+            assertEquals(i, decoded.getSequenceNumber());
+        }
+        assertNull(decoder.readInbound());
+        assertEquals(0, batch.refCnt());
+    }
+
+    @Test
+    void skipsMalformedJsonAndKeepsDecoding() {
+        byte[] garbage = "{not json".getBytes(StandardCharsets.UTF_8);
+        ByteBuf batch = Unpooled.buffer();
+        batch.writeInt(garbage.length).writeBytes(garbage);
+        ByteBuf valid = encode(message("ok", 2));
+        batch.writeBytes(valid);
+        valid.release();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        assertTrue(decoder.writeInbound(batch));
+        PokerMessage decoded = decoder.readInbound();
+        assertEquals("ok", decoded.getMessageId());
+        assertNull(decoder.readInbound());
+        assertEquals(0, batch.refCnt());
+    }
+
+    @Test
+    void rejectsOversizeFrameThenRecovers() {
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        int oversize = PokerMessageDecoder.MAX_MESSAGE_SIZE + 1;
+        ByteBuf header = Unpooled.buffer(4).writeInt(oversize);
+        assertThrows(TooLongFrameException.class, () -> decoder.writeInbound(header));
+
+        // 超长帧的消息体被丢弃，之后的帧照常解码
+        assertFalse(decoder.writeInbound(Unpooled.wrappedBuffer(new byte[oversize])));
+        assertTrue(decoder.writeInbound(encode(message("after", 3))));
+        PokerMessage decoded = decoder.readInbound();
+        assertEquals("after", decoded.getMessageId());
+    }
+
+    @Test
+    void acceptsFrameAtExactLimit() {
+        byte[] body = new byte[PokerMessageDecoder.MAX_MESSAGE_SIZE];
+        byte[] json = "{\"messageId\":\"max\",\"errorMessage\":\"".getBytes(StandardCharsets.UTF_8);
+        byte[] end = "\"}".getBytes(StandardCharsets.UTF_8);
+        Arrays.fill(body, (byte) 'x');
+        System.arraycopy(json, 0, body, 0, json.length);
+        System.arraycopy(end, 0, body, body.length - end.length, end.length);
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new PokerMessageDecoder());
+        ByteBuf frame = Unpooled.buffer(body.length + 4).writeInt(body.length).writeBytes(body);
+        assertTrue(decoder.writeInbound(frame));
+        PokerMessage decoded = decoder.readInbound();
+        assertEquals("max", decoded.getMessageId());
+        assertEquals(0, frame.refCnt());
+    }
+
+    private static ByteBuf encode(PokerMessage message) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new PokerMessageEncoder());
+        assertTrue(encoder.writeOutbound(message));
+        return encoder.readOutbound();
+    }
+
+    private static PokerMessage message(String id, int sequence) {
+        PokerMessage message = PokerMessage.builder()
+            .messageId(id)
+            .type(PokerMessage.MessageType.BET)
+            .timestamp(1_700_000_000_000L)
+            .tableId(1)
+            .playerId(42)
+            .sequenceNumber(sequence)
+            .build();
+        message.setPayloadField("amount", 200);
+        return message;
+    }
+}
@@ -0,0 +1,119 @@
+package com.wepoker.network.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FlushCoalescingHandlerTest {
+
+    @Test
+    void flushesImmediatelyOnceMaxPendingReached() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(60_000, 3));
+
+        channel.write("a");
+        channel.flush();
+        channel.write("b");
+        channel.flush();
+        assertEquals(0, counter.flushes);
+        assertNull(channel.readOutbound());
+
+        channel.write("c");
+        channel.flush();
+        assertEquals(1, counter.flushes);
+        assertEquals("a", channel.readOutbound());
+        assertEquals("b", channel.readOutbound());
+        assertEquals("c", channel.readOutbound());
+    }
+
+    @Test
+    void flushesAfterMaxDelay() throws InterruptedException {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(20, 100));
+
+        channel.write("a");
+        channel.flush();
+        channel.write("b");
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(0, counter.flushes);
+
+        Thread.sleep(50);
+        channel.runPendingTasks();
+        assertEquals(1, counter.flushes);
+        assertEquals("a", channel.readOutbound());
+        assertEquals("b", channel.readOutbound());
+
+        // 已执行的定时 flush 不会重复触发
+        Thread.sleep(30);
+        channel.runPendingTasks();
+        assertEquals(1, counter.flushes);
+    }
+
+    @Test
+    void zeroDelayFlushesOnNextTick() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(0, 100));
+
+        channel.write("a");
+        channel.flush();
+        channel.write("b");
+        channel.flush();
+        assertEquals(0, counter.flushes);
+
+        channel.runPendingTasks();
+        assertEquals(1, counter.flushes);
+    }
+
+    @Test
+    void flushesPendingWritesOnClose() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(60_000, 100));
+
+        channel.write("a");
+        channel.flush();
+        assertEquals(0, counter.flushes);
+
+        channel.close();
+        assertEquals(1, counter.flushes);
+        assertEquals("a", channel.readOutbound());
+    }
+
+    @Test
+    void defersFlushesUntilReadComplete() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(60_000, 100),
+            new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ctx.writeAndFlush(msg + "-1");
+                    ctx.writeAndFlush(msg + "-2");
+                }
+            });
+
+        channel.writeInbound("x", "y");
+        assertEquals(1, counter.flushes);
+        assertEquals("x-1", channel.readOutbound());
+        assertEquals("x-2", channel.readOutbound());
+        assertEquals("y-1", channel.readOutbound());
+        assertEquals("y-2", channel.readOutbound());
+    }
+
+    /**
+     * 位于合并处理器之前（靠近 head），统计真正下发的 flush 次数
+     */
+    private static final class FlushCounter extends ChannelOutboundHandlerAdapter {
+        int flushes;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            flushes++;
+            ctx.flush();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.wepoker.network.handler;
+
+import com.wepoker.security.AntiCheatGuard;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IpFilterHandlerTest {
+
+    private static final InetSocketAddress BANNED = new InetSocketAddress("203.0.113.7", 40000);
+    private static final InetSocketAddress ALLOWED = new InetSocketAddress("198.51.100.9", 40000);
+
+    @Test
+    void rejectedChannelFiresNeitherActiveNorInactive() {
+        IpFilterHandler filter = filter();
+        LifecycleCounter counter = new LifecycleCounter();
+
+        EmbeddedChannel channel = channel(BANNED, filter, counter);
+
+        assertFalse(channel.isOpen());
+        assertEquals(1, filter.getRejectedConnections());
+        // 成对统计（如 wepoker.netty.channels.active）不会只减不增
+        assertEquals(0, counter.active);
+        assertEquals(0, counter.inactive);
+    }
+
+    @Test
+    void allowedChannelRemovesFilterAndSeesBothEvents() {
+        IpFilterHandler filter = filter();
+        LifecycleCounter counter = new LifecycleCounter();
+
+        EmbeddedChannel channel = channel(ALLOWED, filter, counter);
+        assertNull(channel.pipeline().get(IpFilterHandler.class));
+        channel.close();
+
+        assertEquals(0, filter.getRejectedConnections());
+        assertEquals(1, counter.active);
+        assertEquals(1, counter.inactive);
+    }
+
+    private static IpFilterHandler filter() {
+        AntiCheatGuard guard = new AntiCheatGuard();
+        guard.addIpToBlacklist("203.0.113.0/24", "test");
+        IpFilterHandler filter = new IpFilterHandler();
+        ReflectionTestUtils.setField(filter, "antiCheatGuard", guard);
+        return filter;
+    }
+
+    /**
+     * EmbeddedChannel 在构造时注册并激活，远端地址只能由子类覆盖
+     */
+    private static EmbeddedChannel channel(InetSocketAddress remote, IpFilterHandler filter, LifecycleCounter counter) {
+        return new EmbeddedChannel(filter, counter) {
+            @Override
+            protected SocketAddress remoteAddress0() {
+                return remote;
+            }
+        };
+    }
+
+    private static final class LifecycleCounter extends ChannelInboundHandlerAdapter {
+        int active;
+        int inactive;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            active++;
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            inactive++;
+            super.channelInactive(ctx);
+        }
+    }
+}
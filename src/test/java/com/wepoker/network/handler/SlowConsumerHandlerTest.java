@@ -0,0 +1,121 @@
+package com.wepoker.network.handler;
+
+import com.wepoker.network.protocol.PokerMessage;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowConsumerHandlerTest {
+
+    @Test
+    void collapsesSnapshotsWhileUnwritableAndFlushesLatestOnRecovery() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler(60_000));
+        long collapsedBefore = collapsedUpdates();
+        setWritable(channel, false);
+
+        ChannelFuture first = channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 1));
+        ChannelFuture second = channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 2));
+        PokerMessage latest = message(PokerMessage.MessageType.GAME_STATE_UPDATE, 3);
+        ChannelFuture third = channel.writeAndFlush(latest);
+        assertTrue(first.isSuccess());
+        assertTrue(second.isSuccess());
+        assertFalse(third.isDone());
+        assertNull(channel.readOutbound());
+        assertEquals(2, collapsedUpdates() - collapsedBefore);
+
+        setWritable(channel, true);
+        PokerMessage delivered = channel.readOutbound();
+        assertEquals(3, delivered.getSequenceNumber());
+        // 序列号 1、2 被合并，客户端据此把缺口视为正常
+        assertEquals(1, delivered.getCollapsedFromSequence());
+        // 原对象同时在重放缓冲区里，合并标记只打在发送的副本上
+        assertEquals(0, latest.getCollapsedFromSequence());
+        assertTrue(third.isSuccess());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void writesPendingSnapshotBeforeOtherMessages() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler(60_000));
+        setWritable(channel, false);
+
+        channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 1));
+        channel.writeAndFlush(message(PokerMessage.MessageType.REQUEST_ACTION, 2));
+        channel.writeAndFlush(message(PokerMessage.MessageType.RESULT, 3));
+
+        PokerMessage snapshot = channel.readOutbound();
+        PokerMessage action = channel.readOutbound();
+        PokerMessage result = channel.readOutbound();
+        assertEquals(1, snapshot.getSequenceNumber());
+        assertEquals(0, snapshot.getCollapsedFromSequence());
+        assertEquals(2, action.getSequenceNumber());
+        assertEquals(3, result.getSequenceNumber());
+    }
+
+    @Test
+    void passesSnapshotsThroughWhileWritable() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler(60_000));
+
+        channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 1));
+        channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 2));
+
+        assertEquals(1, ((PokerMessage) channel.readOutbound()).getSequenceNumber());
+        assertEquals(2, ((PokerMessage) channel.readOutbound()).getSequenceNumber());
+    }
+
+    @Test
+    void closesChannelUnwritableLongerThanMaxLag() throws InterruptedException {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler(20));
+        setWritable(channel, false);
+        ChannelFuture pending = channel.writeAndFlush(message(PokerMessage.MessageType.GAME_STATE_UPDATE, 1));
+
+        Thread.sleep(50);
+        channel.runPendingTasks();
+
+        assertFalse(channel.isOpen());
+        assertTrue(pending.isDone());
+        assertInstanceOf(ClosedChannelException.class, pending.cause());
+    }
+
+    @Test
+    void keepsChannelThatRecoversWithinMaxLag() throws InterruptedException {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler(20));
+        setWritable(channel, false);
+        setWritable(channel, true);
+
+        Thread.sleep(50);
+        channel.runPendingTasks();
+
+        assertTrue(channel.isActive());
+    }
+
+    /**
+     * 用户自定义可写位切换 Channel 的可写状态，事件在 runPendingTasks 时派发
+     */
+    private static void setWritable(EmbeddedChannel channel, boolean writable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        channel.runPendingTasks();
+        assertEquals(writable, channel.isWritable());
+    }
+
+    private static long collapsedUpdates() {
+        return ((Number) SlowConsumerHandler.getStats().get("collapsedUpdates")).longValue();
+    }
+
+    private static PokerMessage message(PokerMessage.MessageType type, int sequence) {
+        return PokerMessage.builder()
+            .messageId("m" + sequence)
+            .type(type)
+            .playerId(42)
+            .sequenceNumber(sequence)
+            .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.wepoker.network.session;
+
+import com.wepoker.network.protocol.PokerMessage;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionRegistryTest {
+
+    @Test
+    void sendsPerSessionCopyWithOwnSequence() {
+        SessionRegistry registry = registry(60_000);
+        EmbeddedChannel alice = new EmbeddedChannel();
+        EmbeddedChannel bob = new EmbeddedChannel();
+        PlayerSession aliceSession = registry.register(1, alice);
+        PlayerSession bobSession = registry.register(2, bob);
+
+        PokerMessage broadcast = message("state");
+        registry.sendMessageToPlayer(1, broadcast);
+        registry.sendMessageToPlayer(1, broadcast);
+        registry.sendMessageToPlayer(2, broadcast);
+
+        // 调用方的消息不被修改
+        assertNull(broadcast.getSessionId());
+        assertEquals(0, broadcast.getSequenceNumber());
+
+        PokerMessage first = alice.readOutbound();
+        PokerMessage second = alice.readOutbound();
+        PokerMessage toBob = bob.readOutbound();
+        assertEquals(aliceSession.getSessionId(), first.getSessionId());
+        assertEquals(1, first.getSequenceNumber());
+        assertEquals(2, second.getSequenceNumber());
+        assertEquals(bobSession.getSessionId(), toBob.getSessionId());
+        assertEquals(1, toBob.getSequenceNumber());
+        assertEquals("state", toBob.getMessageId());
+        assertNull(alice.readOutbound());
+    }
+
+    @Test
+    void ignoresUnknownPlayer() {
+        SessionRegistry registry = registry(60_000);
+        registry.sendMessageToPlayer(99, message("x"));
+        assertNull(registry.getSessionByPlayer(99));
+    }
+
+    @Test
+    void resumeRebindsSessionAndClosesOldChannel() {
+        SessionRegistry registry = registry(60_000);
+        EmbeddedChannel oldChannel = new EmbeddedChannel();
+        PlayerSession session = registry.register(1, oldChannel);
+        EmbeddedChannel newChannel = new EmbeddedChannel();
+
+        assertNull(registry.resume(session.getSessionId(), 2, newChannel));
+        assertNull(registry.resume("unknown", 1, newChannel));
+        assertSame(session, registry.resume(session.getSessionId(), 1, newChannel));
+
+        assertFalse(oldChannel.isOpen());
+        assertNull(oldChannel.attr(SessionRegistry.SESSION_KEY).get());
+        assertSame(session, newChannel.attr(SessionRegistry.SESSION_KEY).get());
+        assertSame(newChannel, registry.getChannel(session.getSessionId()));
+        assertEquals(1, registry.getConnectedSessionCount());
+
+        // 旧连接迟到的断线事件不影响新连接
+        registry.onChannelInactive(oldChannel);
+        assertTrue(session.isConnected());
+
+        registry.sendMessageToPlayer(1, message("after-resume"));
+        PokerMessage delivered = newChannel.readOutbound();
+        assertEquals("after-resume", delivered.getMessageId());
+    }
+
+    @Test
+    void buffersWhileDisconnectedForReplayOnResume() {
+        SessionRegistry registry = registry(60_000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PlayerSession session = registry.register(1, channel);
+        registry.sendMessageToPlayer(1, message("m1"));
+
+        registry.onChannelInactive(channel);
+        assertEquals(0, registry.getConnectedSessionCount());
+        registry.sendMessageToPlayer(1, message("m2"));
+        registry.sendMessageToPlayer(1, message("m3"));
+
+        EmbeddedChannel reconnected = new EmbeddedChannel();
+        assertSame(session, registry.resume(session.getSessionId(), 1, reconnected));
+        assertEquals(1, registry.getConnectedSessionCount());
+        List<PokerMessage> missed = session.getReplayBuffer().messagesAfter(1);
+        assertEquals(2, missed.size());
+        assertEquals("m2", missed.get(0).getMessageId());
+        assertEquals("m3", missed.get(1).getMessageId());
+        assertNull(reconnected.readOutbound());
+    }
+
+    @Test
+    void newHandshakeReplacesPreviousSession() {
+        SessionRegistry registry = registry(60_000);
+        PlayerSession first = registry.register(1, new EmbeddedChannel());
+        PlayerSession second = registry.register(1, new EmbeddedChannel());
+
+        assertNotEquals(first.getSessionId(), second.getSessionId());
+        assertNull(registry.getSession(first.getSessionId()));
+        assertSame(second, registry.getSessionByPlayer(1));
+        assertEquals(1, registry.getSessionCount());
+    }
+
+    @Test
+    void expiresOnlySessionsDisconnectedLongerThanTtl() throws InterruptedException {
+        SessionRegistry registry = registry(20);
+        EmbeddedChannel dropped = new EmbeddedChannel();
+        PlayerSession stale = registry.register(1, dropped);
+        PlayerSession online = registry.register(2, new EmbeddedChannel());
+        registry.onChannelInactive(dropped);
+
+        registry.expireStaleSessions();
+        assertSame(stale, registry.getSession(stale.getSessionId()));
+
+        Thread.sleep(50);
+        registry.expireStaleSessions();
+        assertNull(registry.getSession(stale.getSessionId()));
+        assertNull(registry.getSessionByPlayer(1));
+        assertNull(registry.resume(stale.getSessionId(), 1, new EmbeddedChannel()));
+        assertSame(online, registry.getSessionByPlayer(2));
+        assertEquals(1, registry.getSessionCount());
+        assertEquals(1, registry.getConnectedSessionCount());
+    }
+
+    private static SessionRegistry registry(long ttlMillis) {
+        SessionRegistry registry = new SessionRegistry();
+        ReflectionTestUtils.setField(registry, "replayBufferSize", 16);
+        ReflectionTestUtils.setField(registry, "sessionTtlMillis", ttlMillis);
+        return registry;
+    }
+
+    private static PokerMessage message(String id) {
+        return PokerMessage.builder()
+            .messageId(id)
+            .type(PokerMessage.MessageType.GAME_STATE_UPDATE)
+            .playerId(1)
+            .build();
+    }
+}
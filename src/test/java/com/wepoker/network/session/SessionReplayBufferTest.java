@@ -0,0 +1,70 @@
+package com.wepoker.network.session;
+
+import com.wepoker.network.protocol.PokerMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionReplayBufferTest {
+
+    @Test
+    void assignsConsecutiveSequenceNumbers() {
+        SessionReplayBuffer buffer = new SessionReplayBuffer(8);
+        PokerMessage first = message("a");
+        PokerMessage second = message("b");
+
+        assertEquals(1, buffer.append(first));
+        assertEquals(2, buffer.append(second));
+        assertEquals(1, first.getSequenceNumber());
+        assertEquals(2, second.getSequenceNumber());
+        assertEquals(2, buffer.getLastSequence());
+
+        List<PokerMessage> all = buffer.messagesAfter(0);
+        assertEquals(2, all.size());
+        assertSame(first, all.get(0));
+        assertSame(second, all.get(1));
+    }
+
+    @Test
+    void replaysAcrossRingWraparound() {
+        SessionReplayBuffer buffer = new SessionReplayBuffer(4);
+        for (int i = 1; i <= 10; i++) {
+            buffer.append(message("m" + i));
+        }
+
+        List<PokerMessage> missed = buffer.messagesAfter(6);
+        assertEquals(4, missed.size());
+        for (int i = 0; i < missed.size(); i++) {
+            assertEquals(7 + i, missed.get(i).getSequenceNumber());
+            assertEquals("m" + (7 + i), missed.get(i).getMessageId());
+        }
+        assertTrue(buffer.messagesAfter(10).isEmpty());
+    }
+
+    @Test
+    void resumeFromEvictedSequenceFallsBackToSnapshot() {
+        SessionReplayBuffer buffer = new SessionReplayBuffer(4);
+        for (int i = 1; i <= 10; i++) {
+            buffer.append(message("m" + i));
+        }
+
+        // 序列号 6 之前的消息已被覆盖，无法只补发缺口
+        assertNull(buffer.messagesAfter(5));
+        assertNull(buffer.messagesAfter(0));
+        // 客户端声称收到了尚未发送的序列号
+        assertNull(buffer.messagesAfter(11));
+        assertNull(buffer.messagesAfter(-1));
+    }
+
+    private static PokerMessage message(String id) {
+        return PokerMessage.builder()
+            .messageId(id)
+            .type(PokerMessage.MessageType.GAME_STATE_UPDATE)
+            .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.wepoker.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpPrefixTrieTest {
+
+    @Test
+    void matchesIpv4AndIpv6Ranges() {
+        IpPrefixTrie trie = IpPrefixTrie.builder()
+            .add("10.0.0.0/8")
+            .add("192.168.1.7")
+            .add("2001:db8::/32")
+            .build();
+
+        assertTrue(trie.contains("10.255.3.4"));
+        assertFalse(trie.contains("11.0.0.1"));
+        assertTrue(trie.contains("192.168.1.7"));
+        assertFalse(trie.contains("192.168.1.8"));
+        assertTrue(trie.contains("2001:db8:1234::1"));
+        assertFalse(trie.contains("2001:db9::1"));
+        // IPv4 映射地址按 IPv4 匹配
+        assertTrue(trie.contains("::ffff:10.1.2.3"));
+        assertFalse(trie.contains("not-an-ip"));
+    }
+
+    @Test
+    void acceptsIpv4MappedCidrWithIpv6PrefixLength() {
+        IpPrefixTrie trie = IpPrefixTrie.builder()
+            .add("::ffff:198.51.100.0/120")
+            .add("::ffff:203.0.113.7/128")
+            .add("::ffff:10.0.0.0/104")
+            .add("::ffff:192.0.2.1")
+            .build();
+
+        assertTrue(trie.contains("198.51.100.200"));
+        assertFalse(trie.contains("198.51.101.1"));
+        assertTrue(trie.contains("::ffff:203.0.113.7"));
+        assertFalse(trie.contains("203.0.113.8"));
+        assertTrue(trie.contains("10.9.8.7"));
+        assertTrue(trie.contains("192.0.2.1"));
+        assertFalse(trie.contains("192.0.2.2"));
+        assertEquals(4, trie.getPrefixCount());
+
+        IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add("::ffff:10.0.0.0/129"));
+    }
+
+    @Test
+    void shorterPrefixPrunesCoveredEntries() {
+        IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+        for (int i = 0; i < 256; i++) {
+            builder.add("172.16.0." + i);
+        }
+        builder.add("172.16.0.0/16");
+        IpPrefixTrie trie = builder.build();
+
+        // 根 + 16 层，IPv6 树只有根
+        assertEquals(18, trie.getNodeCount());
+        assertEquals(257, trie.getPrefixCount());
+        assertTrue(trie.contains("172.16.200.1"));
+    }
+
+    @Test
+    void toBuilderLeavesOriginalUntouched() {
+        IpPrefixTrie original = IpPrefixTrie.builder().add("203.0.113.0/24").build();
+        IpPrefixTrie extended = original.toBuilder().add("198.51.100.0/24").build();
+
+        assertFalse(original.contains("198.51.100.9"));
+        assertTrue(extended.contains("198.51.100.9"));
+        assertTrue(extended.contains("203.0.113.9"));
+        assertTrue(IpPrefixTrie.EMPTY.isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidEntries() {
+        IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("example.com"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0/x"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.wepoker.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PairInteractionMatrixTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void pairIsOrderIndependentAndFlowIsDirected() {
+        PairInteractionMatrix matrix = new PairInteractionMatrix(HOUR, 16);
+        matrix.record(7, 3, 1000, true, true, 10);
+        int slot = matrix.record(3, 7, 1000, true, false, 4);
+
+        assertEquals(slot, matrix.find(7, 3));
+        assertEquals(2.0, matrix.coSeated(slot));
+        assertEquals(2.0, matrix.contested(slot));
+        assertEquals(1.0, matrix.passive(slot));
+        // 7 -> 3 流出 10，3 -> 7 流出 4：以 3 -> 7 为正方向净值为 -6
+        assertEquals(-6.0, matrix.netFlow(slot), 1e-9);
+    }
+
+    @Test
+    void decaysByHalfLifeAndPrunesStalePairs() {
+        PairInteractionMatrix matrix = new PairInteractionMatrix(HOUR, 16);
+        for (int i = 0; i < 4; i++) {
+            matrix.record(1, 2, 0, false, false, 0);
+        }
+        matrix.record(5, 6, 0, false, false, 0);
+
+        int slot = matrix.record(1, 2, HOUR, false, false, 0);
+        assertEquals(3.0, matrix.coSeated(slot), 1e-9);
+
+        assertEquals(1, matrix.prune(HOUR, 1.0));
+        assertEquals(1, matrix.size());
+        assertEquals(-1, matrix.find(5, 6));
+        assertEquals(3.0, matrix.coSeated(matrix.find(1, 2)), 1e-9);
+    }
+
+    @Test
+    void renumbersSurvivingPlayersAfterPrune() {
+        PairInteractionMatrix matrix = new PairInteractionMatrix(HOUR, 16);
+        for (int i = 0; i < 4; i++) {
+            matrix.record(1, 4, 0, true, true, 2);
+        }
+        matrix.record(0, 2, 0, false, false, 0);
+        matrix.prune(HOUR, 1.0);
+
+        boolean[] live = new boolean[5];
+        matrix.markPlayers(live);
+        assertArrayEquals(new boolean[] {false, true, false, false, true}, live);
+
+        matrix.renumber(new int[] {-1, 0, -1, -1, 1});
+        assertEquals(1, matrix.size());
+        assertEquals(-1, matrix.find(1, 4));
+        int slot = matrix.find(0, 1);
+        assertEquals(2.0, matrix.coSeated(slot), 1e-9);
+        assertEquals(2.0, matrix.passive(slot), 1e-9);
+        // 保序映射，流向不变
+        assertEquals(4.0, matrix.netFlow(slot), 1e-9);
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        PairInteractionMatrix matrix = new PairInteractionMatrix(HOUR, 16);
+        for (int a = 0; a < 50; a++) {
+            for (int b = a + 1; b < 50; b++) {
+                matrix.record(a, b, 0, false, false, a - b);
+            }
+        }
+        assertEquals(50 * 49 / 2, matrix.size());
+        assertEquals(-7.0, matrix.netFlow(matrix.find(10, 3)), 1e-9);
+    }
+}
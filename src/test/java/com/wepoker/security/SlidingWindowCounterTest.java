@@ -0,0 +1,38 @@
+package com.wepoker.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void rejectsBeyondLimitWithoutConsumingQuota() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 5000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counter.tryAcquire(1000 + i, 10));
+        }
+        assertFalse(counter.tryAcquire(1100, 10));
+        assertFalse(counter.tryAcquire(1200, 10));
+        assertEquals(10, counter.sum(1200));
+    }
+
+    @Test
+    void windowSlidesBucketByBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 5000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryAcquire(0, 10));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryAcquire(2500, 10));
+        }
+        assertFalse(counter.tryAcquire(4999, 10));
+
+        // 第一个桶 [0, 500) 滑出窗口，释放 5 个配额
+        assertEquals(5, counter.sum(5000));
+        assertTrue(counter.tryAcquire(5000, 10));
+        assertEquals(0, counter.sum(20_000));
+    }
+}
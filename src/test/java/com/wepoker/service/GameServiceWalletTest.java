@@ -0,0 +1,80 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.model.Player;
+import com.wepoker.domain.model.PlayerStatus;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.tournament.Tournament;
+import com.wepoker.domain.tournament.TournamentType;
+import com.wepoker.domain.wallet.Posting;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServiceWalletTest {
+
+    @Test
+    void rejectsJoinWithAlreadyPostedBuyIn() {
+        GameService game = InMemoryServices.gameService();
+        WalletService wallet = wallet(game);
+
+        game.joinTable(1L, "7", "seven", 10_000, "r1");
+        game.removeTable(1L);
+
+        assertThrows(IllegalStateException.class, () -> game.joinTable(1L, "7", "seven", 10_000, "r1"));
+        assertEquals(0, game.getTable(1L).getPlayers().size());
+        assertEquals(-10_000, wallet.getBalance("7"));
+    }
+
+    @Test
+    void leaveCashesOutRemainingStackOnce() {
+        GameService game = InMemoryServices.gameService();
+        WalletService wallet = wallet(game);
+        game.joinTable(1L, "8", "eight", 10_000, "r1");
+        game.joinTable(1L, "9", "nine", 10_000, "r2");
+        assertEquals(20_000, wallet.getAccountBalance(Posting.tableAccount(1L)));
+
+        Table table = game.leaveTable(1L, "8", "leave-1");
+        Player leaving = table.getPlayer(8L);
+        assertEquals(PlayerStatus.LEFT, leaving.getStatus());
+        assertEquals(0, leaving.getStackSize());
+        assertEquals(0, wallet.getBalance("8"));
+        assertEquals(10_000, wallet.getAccountBalance(Posting.tableAccount(1L)));
+
+        // 重复离桌不再兑现
+        game.leaveTable(1L, "8", null);
+        assertEquals(0, wallet.getBalance("8"));
+        assertEquals(10_000, wallet.getAccountBalance(Posting.tableAccount(1L)));
+        assertNull(game.leaveTable(2L, "8", null));
+    }
+
+    @Test
+    void tournamentChipsNeverTouchTheWallet() {
+        GameService game = InMemoryServices.gameService();
+        WalletService wallet = wallet(game);
+        TournamentService tournaments = InMemoryServices.tournamentService(game);
+        Tournament sng = tournaments.create("sng", TournamentType.SIT_AND_GO, 2, 0, 5_000, null);
+        tournaments.register(sng.getTournamentId(), "21", "p21");
+        tournaments.register(sng.getTournamentId(), "22", "p22");
+        long tableId = InMemoryServices.TOURNAMENT_TABLE_ID_BASE + 1;
+        assertTrue(tournaments.isTournamentTable((int) tableId));
+
+        // 锦标赛筹码不能兑现成钱包余额，也不能从钱包买入或补码
+        assertThrows(IllegalStateException.class, () -> game.leaveTable(tableId, "21", "leave-21"));
+        assertThrows(IllegalStateException.class, () -> game.joinTable(tableId, "23", "p23", 10_000, "join-23"));
+        assertThrows(IllegalStateException.class, () -> game.rebuy(tableId, "22", 10_000, "rebuy-22"));
+
+        assertEquals(0, wallet.getBalance("21"));
+        assertEquals(0, wallet.getBalance("22"));
+        assertEquals(0, wallet.getBalance("23"));
+        assertEquals(0, wallet.getAccountBalance(Posting.tableAccount(tableId)));
+        assertEquals(2, game.getTable(tableId).getPlayers().size());
+    }
+
+    private static WalletService wallet(GameService game) {
+        return (WalletService) ReflectionTestUtils.getField(game, "walletService");
+    }
+}
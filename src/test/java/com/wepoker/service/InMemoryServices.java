@@ -0,0 +1,76 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.TableTemplate;
+import com.wepoker.domain.model.Table;
+import com.wepoker.domain.model.TableState;
+import com.wepoker.metrics.GameMetrics;
+import com.wepoker.network.session.SessionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+/**
+ * 服务单元测试用的内存装配：不启动 Spring 容器，不启动引擎定时器，钱包不连数据库
+ */
+final class InMemoryServices {
+
+    static final int TOURNAMENT_TABLE_ID_BASE = 1_000_000;
+
+    private InMemoryServices() {
+    }
+
+    static GameService gameService() {
+        WalletService wallet = new WalletService();
+        wallet.init();
+        GameService game = new GameService();
+        ReflectionTestUtils.setField(game, "gameMetrics", new GameMetrics(new SimpleMeterRegistry(), new SessionRegistry()));
+        ReflectionTestUtils.setField(game, "walletService", wallet);
+        return game;
+    }
+
+    static TournamentService tournamentService(GameService game) {
+        TournamentService tournaments = new TournamentService();
+        ReflectionTestUtils.setField(tournaments, "gameService", game);
+        ReflectionTestUtils.setField(tournaments, "tableIdBase", TOURNAMENT_TABLE_ID_BASE);
+        tournaments.init();
+        return tournaments;
+    }
+
+    static LobbyService lobbyService(GameService game) {
+        LobbyService lobby = new LobbyService();
+        ReflectionTestUtils.setField(lobby, "gameService", game);
+        ReflectionTestUtils.setField(lobby, "tournamentService", tournamentService(game));
+        lobby.init();
+        return lobby;
+    }
+
+    static TableTemplate template(String name, long smallBlind, long bigBlind, int maxPlayers) {
+        TableTemplate template = new TableTemplate();
+        template.setName(name);
+        template.setSmallBlind(smallBlind);
+        template.setBigBlind(bigBlind);
+        template.setMinBuyIn(bigBlind * 20);
+        template.setMaxBuyIn(bigBlind * 100);
+        template.setMaxPlayers(maxPlayers);
+        return template;
+    }
+
+    static Table registerTable(GameService game, int tableId, TableTemplate template) {
+        Table table = new Table();
+        table.setTableId(tableId);
+        table.setConfig(template.toTableConfig(tableId));
+        table.setState(TableState.WAITING);
+        table.setCreatedAt(LocalDateTime.now());
+        table.setNextToActSeat(-1);
+        game.registerTable(table);
+        return table;
+    }
+
+    static void seat(GameService game, int tableId, int players, String prefix) {
+        for (int i = 0; i < players; i++) {
+            String playerId = prefix + i;
+            game.joinTable((long) tableId, playerId, playerId, 10_000);
+        }
+    }
+}
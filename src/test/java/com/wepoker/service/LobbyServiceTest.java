@@ -0,0 +1,109 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.TableSummary;
+import com.wepoker.domain.lobby.TableTemplate;
+import com.wepoker.domain.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LobbyServiceTest {
+
+    private static final TableTemplate LOW = InMemoryServices.template("low", 5, 10, 6);
+    private static final TableTemplate HIGH = InMemoryServices.template("high", 10, 20, 6);
+
+    @Test
+    void pagesAcrossStakesInStakeThenTableOrder() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        for (int id = 1; id <= 5; id++) {
+            InMemoryServices.registerTable(game, id, LOW);
+        }
+        for (int id = 6; id <= 8; id++) {
+            InMemoryServices.registerTable(game, id, HIGH);
+        }
+
+        assertEquals(List.of(1, 2, 3), tableIds(lobby.listTables(null, null, 0, 3)));
+        assertEquals(List.of(4, 5, 6), tableIds(lobby.listTables(null, null, 1, 3)));
+        assertEquals(List.of(7, 8), tableIds(lobby.listTables(null, null, 2, 3)));
+        assertTrue(tableIds(lobby.listTables(null, null, 3, 3)).isEmpty());
+        assertEquals(8, lobby.listTables(null, null, 0, 3).get("total"));
+
+        Map<String, Object> high = lobby.listTables(10L, 20L, 1, 2);
+        assertEquals(3, high.get("total"));
+        assertEquals(List.of(8), tableIds(high));
+        assertEquals(0, lobby.listTables(1L, 2L, 0, 10).get("total"));
+    }
+
+    @Test
+    void clampsPageAndSize() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        InMemoryServices.registerTable(game, 1, LOW);
+        InMemoryServices.registerTable(game, 2, LOW);
+
+        Map<String, Object> page = lobby.listTables(null, null, -4, 0);
+        assertEquals(0, page.get("page"));
+        assertEquals(1, page.get("size"));
+        assertEquals(List.of(1), tableIds(page));
+    }
+
+    @Test
+    void seatFinderPrefersFullerTableAndSkipsFullOnes() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        InMemoryServices.registerTable(game, 1, LOW);
+        InMemoryServices.registerTable(game, 2, LOW);
+        InMemoryServices.seat(game, 1, 1, "a");
+        InMemoryServices.seat(game, 2, 4, "b");
+
+        assertEquals(2, lobby.findSeat(5, 10).tableId());
+        assertEquals(List.of(2, 1), lobby.seatableTables(5, 10).stream().map(TableSummary::tableId).toList());
+
+        InMemoryServices.seat(game, 2, 2, "c");
+        assertEquals(0, lobby.getSummary(2).freeSeats());
+        assertEquals(6, lobby.getSummary(2).seatedPlayers());
+        assertEquals(1, lobby.findSeat(5, 10).tableId());
+        assertNull(lobby.findSeat(10, 20));
+    }
+
+    @Test
+    void seatPlayerJoinsBestTableUntilStakeIsFull() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        InMemoryServices.registerTable(game, 1, LOW);
+        InMemoryServices.seat(game, 1, 4, "a");
+
+        Table table = lobby.seatPlayer(5, 10, "x1", "x1", 1000);
+        assertEquals(1, table.getTableId());
+        lobby.seatPlayer(5, 10, "x2", "x2", 1000);
+        assertEquals(0, lobby.getSummary(1).freeSeats());
+
+        assertThrows(IllegalStateException.class, () -> lobby.seatPlayer(5, 10, "x3", "x3", 1000));
+    }
+
+    @Test
+    void removedTableLeavesIndex() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        InMemoryServices.registerTable(game, 1, LOW);
+        InMemoryServices.registerTable(game, 2, LOW);
+
+        game.removeTable(1L);
+
+        assertNull(lobby.getSummary(1));
+        assertEquals(List.of(2), tableIds(lobby.listTables(5L, 10L, 0, 10)));
+        assertEquals(2, lobby.findSeat(5, 10).tableId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> tableIds(Map<String, Object> page) {
+        return ((List<TableSummary>) page.get("items")).stream().map(TableSummary::tableId).toList();
+    }
+}
@@ -0,0 +1,187 @@
+package com.wepoker.service;
+
+import com.wepoker.domain.lobby.QueueTicket;
+import com.wepoker.domain.lobby.TableTemplate;
+import com.wepoker.domain.model.Table;
+import com.wepoker.network.session.SessionRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchmakingServiceTest {
+
+    private static final TableTemplate LOW = InMemoryServices.template("low", 5, 10, 6);
+    private static final int TABLE_ID_BASE = 500_000;
+
+    @Test
+    void fillsExistingTablesBeforeOpeningNewOnes() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+        InMemoryServices.registerTable(game, 1, LOW);
+        InMemoryServices.seat(game, 1, 4, "a");
+
+        QueueTicket first = matchmaking.enqueue("low", 0, 0, "101", "p101", 0);
+        QueueTicket second = matchmaking.enqueue("low", 0, 0, "102", "p102", 0);
+        matchmaking.assignBatches();
+
+        assertEquals(QueueTicket.Status.SEATED, first.getStatus());
+        assertEquals(QueueTicket.Status.SEATED, second.getStatus());
+        assertEquals(1, first.getTableId());
+        assertEquals(1, second.getTableId());
+        assertTrue(first.getSeatNumber() >= 0);
+        assertNotEquals(first.getSeatNumber(), second.getSeatNumber());
+        assertEquals(LOW.getMaxBuyIn(), first.getBuyIn());
+        assertEquals(6, game.getTable(1L).getPlayers().size());
+        assertEquals(0, waiting(matchmaking));
+    }
+
+    @Test
+    void splitsRemainingPlayersEvenlyAcrossNewTables() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+
+        List<QueueTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tickets.add(matchmaking.enqueue(null, 5, 10, String.valueOf(200 + i), "p" + i, 0));
+        }
+        matchmaking.assignBatches();
+
+        for (QueueTicket ticket : tickets) {
+            assertEquals(QueueTicket.Status.SEATED, ticket.getStatus());
+        }
+        Table firstTable = game.getTable((long) TABLE_ID_BASE + 1);
+        Table secondTable = game.getTable((long) TABLE_ID_BASE + 2);
+        assertEquals(4, firstTable.getPlayers().size());
+        assertEquals(4, secondTable.getPlayers().size());
+        // 排队顺序决定分桌：前 4 人在第一张新桌
+        assertEquals(TABLE_ID_BASE + 1, tickets.get(0).getTableId());
+        assertEquals(TABLE_ID_BASE + 2, tickets.get(7).getTableId());
+        assertEquals(4, lobby.getSummary(TABLE_ID_BASE + 1).seatedPlayers());
+    }
+
+    @Test
+    void lonePlayerWaitsForNextBatch() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+
+        QueueTicket first = matchmaking.enqueue("low", 0, 0, "301", "p301", 0);
+        matchmaking.assignBatches();
+        assertTrue(first.isQueued());
+        assertEquals(1, waiting(matchmaking));
+        assertEquals(0, game.getAllTables().size());
+
+        QueueTicket second = matchmaking.enqueue("low", 0, 0, "302", "p302", 0);
+        matchmaking.assignBatches();
+        assertEquals(QueueTicket.Status.SEATED, first.getStatus());
+        assertEquals(QueueTicket.Status.SEATED, second.getStatus());
+        assertEquals(first.getTableId(), second.getTableId());
+        assertEquals(0, waiting(matchmaking));
+    }
+
+    @Test
+    void brokePlayerFailsWithoutBlockingTheQueue() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+        WalletService wallet = (WalletService) ReflectionTestUtils.getField(game, "walletService");
+        ReflectionTestUtils.setField(wallet, "enforceBalance", true);
+        // 没有数据库时已落库余额为 0，只给后两人入账
+        wallet.cashOut("702", 99, LOW.getMaxBuyIn(), "seed-702");
+        wallet.cashOut("703", 99, LOW.getMaxBuyIn(), "seed-703");
+
+        QueueTicket broke = matchmaking.enqueue("low", 0, 0, "701", "p701", 0);
+        QueueTicket second = matchmaking.enqueue("low", 0, 0, "702", "p702", 0);
+        QueueTicket third = matchmaking.enqueue("low", 0, 0, "703", "p703", 0);
+        matchmaking.assignBatches();
+
+        assertEquals(QueueTicket.Status.FAILED, broke.getStatus());
+        assertTrue(broke.getMessage().startsWith("insufficient balance"));
+        assertEquals(QueueTicket.Status.SEATED, second.getStatus());
+        assertEquals(QueueTicket.Status.SEATED, third.getStatus());
+        assertEquals(second.getTableId(), third.getTableId());
+        assertEquals(1, game.getAllTables().size());
+        assertEquals(0, waiting(matchmaking));
+    }
+
+    @Test
+    void expiresTicketsQueuedLongerThanTimeout() throws InterruptedException {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 20);
+
+        QueueTicket ticket = matchmaking.enqueue("low", 0, 0, "401", "p401", 0);
+        Thread.sleep(50);
+        matchmaking.enqueue("low", 0, 0, "402", "p402", 0);
+        matchmaking.assignBatches();
+
+        assertEquals(QueueTicket.Status.EXPIRED, ticket.getStatus());
+        assertTrue(matchmaking.getTicket("402").isQueued());
+        assertEquals(1, waiting(matchmaking));
+    }
+
+    @Test
+    void cancelledTicketIsNeverSeated() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+
+        matchmaking.enqueue("low", 0, 0, "501", "p501", 0);
+        matchmaking.enqueue("low", 0, 0, "502", "p502", 0);
+        assertTrue(matchmaking.cancel("501"));
+        matchmaking.assignBatches();
+
+        assertEquals(QueueTicket.Status.CANCELLED, matchmaking.getTicket("501").getStatus());
+        assertTrue(matchmaking.getTicket("502").isQueued());
+        assertFalse(matchmaking.cancel("999"));
+        assertEquals(0, game.getAllTables().size());
+    }
+
+    @Test
+    void validatesEnqueueAndReturnsExistingTicket() {
+        GameService game = InMemoryServices.gameService();
+        LobbyService lobby = InMemoryServices.lobbyService(game);
+        MatchmakingService matchmaking = matchmaking(game, lobby, 120_000);
+
+        assertThrows(IllegalArgumentException.class, () -> matchmaking.enqueue("nope", 0, 0, "601", "p", 0));
+        assertThrows(IllegalArgumentException.class, () -> matchmaking.enqueue(null, 1, 2, "601", "p", 0));
+        assertThrows(IllegalArgumentException.class, () -> matchmaking.enqueue("low", 0, 0, "601", "p", LOW.getMaxBuyIn() + 1));
+        assertThrows(IllegalArgumentException.class, () -> matchmaking.enqueue("low", 0, 0, " ", "p", 0));
+
+        QueueTicket ticket = matchmaking.enqueue("low", 0, 0, "601", "p", 0);
+        assertSame(ticket, matchmaking.enqueue("low", 0, 0, "601", "p", 0));
+        assertEquals(1, waiting(matchmaking));
+    }
+
+    private static MatchmakingService matchmaking(GameService game, LobbyService lobby, long queueTimeoutMillis) {
+        TableTemplateProperties templates = new TableTemplateProperties();
+        templates.getTemplates().add(LOW);
+        MatchmakingService matchmaking = new MatchmakingService();
+        ReflectionTestUtils.setField(matchmaking, "gameService", game);
+        ReflectionTestUtils.setField(matchmaking, "lobbyService", lobby);
+        ReflectionTestUtils.setField(matchmaking, "templateProperties", templates);
+        ReflectionTestUtils.setField(matchmaking, "sessionRegistry", new SessionRegistry());
+        ReflectionTestUtils.setField(matchmaking, "maxBatchSize", 500);
+        ReflectionTestUtils.setField(matchmaking, "minPlayersPerNewTable", 2);
+        ReflectionTestUtils.setField(matchmaking, "tableIdBase", TABLE_ID_BASE);
+        ReflectionTestUtils.setField(matchmaking, "queueTimeoutMillis", queueTimeoutMillis);
+        ReflectionTestUtils.setField(matchmaking, "ticketTtlMillis", 60_000L);
+        matchmaking.init();
+        return matchmaking;
+    }
+
+    private static int waiting(MatchmakingService matchmaking) {
+        return (Integer) matchmaking.getQueueStats().get(0).get("waiting");
+    }
+}